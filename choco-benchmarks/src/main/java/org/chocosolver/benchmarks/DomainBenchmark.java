@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.benchmarks;
+
+import org.chocosolver.solver.Cause;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.IntVar;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link IntVar#removeValue(int, org.chocosolver.solver.ICause)} and
+ * {@link IntVar#updateBounds(int, int, org.chocosolver.solver.ICause)} per domain representation and trail.
+ * Modifications are done in a new world, which is popped afterwards.
+ * The variable is not involved in any constraint, so only the domain and the trail are measured.
+ * <p>
+ * Project: choco-solver.
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DomainBenchmark {
+
+    @Param({"BITSET", "INTERVAL", "BITSET_ARRAY"})
+    public Domains domain;
+
+    @Param({"FLATTEN", "CHUNCK", "UNSAFE"})
+    public Environments trail;
+
+    @Param({"1024"})
+    public int size;
+
+    private Model model;
+
+    private IntVar var;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        model = new Model(trail.make(), "domain");
+        var = domain.make("x", 0, size - 1, model);
+    }
+
+    @Benchmark
+    public int removeValue() throws ContradictionException {
+        model.getEnvironment().worldPush();
+        // interval domains can only remove bounds
+        for (int v = 0; v < size / 2; v++) {
+            var.removeValue(v, Cause.Null);
+        }
+        int s = var.getDomainSize();
+        model.getEnvironment().worldPop();
+        return s;
+    }
+
+    @Benchmark
+    public int updateBounds() throws ContradictionException {
+        model.getEnvironment().worldPush();
+        for (int v = 1; v < size / 2; v++) {
+            var.updateBounds(v, size - 1 - v, Cause.Null);
+        }
+        int s = var.getDomainSize();
+        model.getEnvironment().worldPop();
+        return s;
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.benchmarks;
+
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.impl.BitsetArrayIntVarImpl;
+import org.chocosolver.solver.variables.impl.BitsetIntVarImpl;
+import org.chocosolver.solver.variables.impl.IntervalIntVarImpl;
+
+/**
+ * Domain representations of integer variables.
+ * <p>
+ * Project: choco-solver.
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public enum Domains {
+
+    BITSET {
+        @Override
+        public IntVar make(String name, int lb, int ub, Model model) {
+            return new BitsetIntVarImpl(name, lb, ub, model);
+        }
+    },
+    INTERVAL {
+        @Override
+        public IntVar make(String name, int lb, int ub, Model model) {
+            return new IntervalIntVarImpl(name, lb, ub, model);
+        }
+    },
+    BITSET_ARRAY {
+        @Override
+        public IntVar make(String name, int lb, int ub, Model model) {
+            int[] values = new int[ub - lb + 1];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = lb + i;
+            }
+            return new BitsetArrayIntVarImpl(name, values, model);
+        }
+    };
+
+    /**
+     * Creates an integer variable with domain [<i>lb</i>, <i>ub</i>] in <i>model</i>.
+     */
+    public abstract IntVar make(String name, int lb, int ub, Model model);
+}
@@ -27,59 +27,54 @@
  * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
-package org.chocosolver.solver.constraints.nary.automata.structure.regular;
+package org.chocosolver.benchmarks;
 
-import org.chocosolver.memory.structure.IndexedObject;
-import org.chocosolver.solver.constraints.nary.automata.structure.Node;
-import org.jgrapht.EdgeFactory;
+import org.chocosolver.memory.EnvironmentBuilder;
+import org.chocosolver.memory.IEnvironment;
 
 /**
- * Created by IntelliJ IDEA.
- * User: julien
- * Date: Oct 30, 2009
- * Time: 3:48:11 PM
+ * Environments, that is, trail implementations.
+ * <p>
+ * Project: choco-solver.
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
  */
-public class Arc implements IndexedObject {
-
-    public int id;
-    public Node orig;
-    public Node dest;
-    public int value;
-
-
-    public Arc(Node orig, Node dest, int value, int id) {
-        this.id = id;
-        this.orig = orig;
-        this.dest = dest;
-        this.value = value;
-    }
-
-
-    public String toString() {
-        return value + "";
-    }
-
-    @Override
-    public int getObjectIdx() {
-        return orig.state;
-    }
+public enum Environments {
 
-
-    public static class ArcFactory implements EdgeFactory<Node, Arc> {
-
-        public Arc createEdge(Node node, Node node1) {
-            return new Arc(node, node1, 0, 0);
+    FLATTEN {
+        @Override
+        public IEnvironment make() {
+            return new EnvironmentBuilder().fromFlat().build();
         }
-    }
-
-    @Override
-    public Arc clone() throws CloneNotSupportedException {
-        Arc arc = (Arc) super.clone();
-        arc.orig = orig.clone();
-        arc.dest = dest.clone();
-        arc.id = id;
-        arc.value = value;
-        return arc;
-    }
+    },
+    CHUNCK {
+        @Override
+        public IEnvironment make() {
+            return new EnvironmentBuilder().fromChunk().build();
+        }
+    },
+    UNSAFE {
+        @Override
+        public IEnvironment make() {
+            return new EnvironmentBuilder().fromUnsafe().build();
+        }
+    },
+    COPYING {
+        @Override
+        public IEnvironment make() {
+            return new EnvironmentBuilder().buildCopying();
+        }
+    },
+    HYBRID {
+        @Override
+        public IEnvironment make() {
+            return new EnvironmentBuilder().buildHybrid();
+        }
+    };
 
+    /**
+     * @return a new environment
+     */
+    public abstract IEnvironment make();
 }
@@ -0,0 +1,195 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.benchmarks;
+
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.Task;
+
+import java.util.Random;
+
+/**
+ * Standard models used by the benchmarks.
+ * Each of them declares the decision variables as hook "decisions".
+ * <p>
+ * Project: choco-solver.
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public enum Models {
+
+    /**
+     * N-queens with binary constraints, satisfaction.
+     */
+    NQUEENS {
+        @Override
+        void post(Model model, int n) {
+            IntVar[] vars = model.intVarArray("Q", n, 1, n, false);
+            for (int i = 0; i < n - 1; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    int k = j - i;
+                    model.arithm(vars[i], "!=", vars[j]).post();
+                    model.arithm(vars[i], "!=", vars[j], "+", -k).post();
+                    model.arithm(vars[i], "!=", vars[j], "+", k).post();
+                }
+            }
+            model.addHook(DECISIONS, vars);
+        }
+    },
+
+    /**
+     * Golomb ruler with <i>n</i> marks, optimisation.
+     */
+    GOLOMB {
+        @Override
+        void post(Model model, int m) {
+            int ub = (m < 31) ? (1 << (m + 1)) - 1 : 9999;
+            IntVar[] ticks = model.intVarArray("a", m, 0, ub, false);
+            IntVar[] diffs = model.intVarArray("d", (m * m - m) / 2, 0, ub, false);
+            model.arithm(ticks[0], "=", 0).post();
+            for (int i = 0; i < m - 1; i++) {
+                model.arithm(ticks[i + 1], ">", ticks[i]).post();
+            }
+            for (int k = 0, i = 0; i < m - 1; i++) {
+                for (int j = i + 1; j < m; j++, k++) {
+                    model.arithm(ticks[j], "-", ticks[i], "=", diffs[k]).post();
+                    model.arithm(diffs[k], ">=", (j - i) * (j - i + 1) / 2).post();
+                    model.arithm(diffs[k], "-", ticks[m - 1], "<=", -((m - 1 - j + i) * (m - j + i)) / 2).post();
+                    model.arithm(diffs[k], "<=", ticks[m - 1], "-", ((m - 1 - j + i) * (m - j + i)) / 2).post();
+                }
+            }
+            model.allDifferent(diffs, "BC").post();
+            if (m > 2) {
+                model.arithm(diffs[0], "<", diffs[diffs.length - 1]).post();
+            }
+            model.setObjective(Model.MINIMIZE, ticks[m - 1]);
+            model.addHook(DECISIONS, ticks);
+        }
+    },
+
+    /**
+     * Random <i>n</i> x <i>n</i> job-shop (seeded), makespan minimisation.
+     */
+    JOBSHOP {
+        @Override
+        void post(Model model, int n) {
+            Random rnd = new Random(n);
+            int[][] durations = new int[n][n];
+            int[][] machines = new int[n][];
+            int horizon = 0;
+            for (int j = 0; j < n; j++) {
+                machines[j] = shuffle(n, rnd);
+                for (int o = 0; o < n; o++) {
+                    durations[j][o] = 1 + rnd.nextInt(20);
+                    horizon += durations[j][o];
+                }
+            }
+            IntVar[] starts = new IntVar[n * n];
+            Task[][] onMachine = new Task[n][n];
+            IntVar[] ends = new IntVar[n];
+            for (int j = 0; j < n; j++) {
+                Task previous = null;
+                for (int o = 0; o < n; o++) {
+                    IntVar s = model.intVar("S_" + j + "_" + o, 0, horizon, true);
+                    IntVar d = model.intVar(durations[j][o]);
+                    IntVar e = model.intVar("E_" + j + "_" + o, 0, horizon, true);
+                    Task t = new Task(s, d, e);
+                    starts[j * n + o] = s;
+                    onMachine[machines[j][o]][j] = t;
+                    if (previous != null) {
+                        model.arithm(previous.getEnd(), "<=", s).post();
+                    }
+                    previous = t;
+                }
+                ends[j] = previous.getEnd();
+            }
+            IntVar one = model.intVar(1);
+            IntVar[] heights = new IntVar[n];
+            for (int j = 0; j < n; j++) {
+                heights[j] = one;
+            }
+            for (int m = 0; m < n; m++) {
+                model.cumulative(onMachine[m], heights, one).post();
+            }
+            IntVar makespan = model.intVar("makespan", 0, horizon, true);
+            model.max(makespan, ends).post();
+            model.setObjective(Model.MINIMIZE, makespan);
+            model.addHook(DECISIONS, starts);
+        }
+    };
+
+    /**
+     * Name of the hook which stores the decision variables.
+     */
+    public static final String DECISIONS = "decisions";
+
+    /**
+     * Declares the variables and constraints of the instance of size <i>n</i> in <i>model</i>.
+     */
+    abstract void post(Model model, int n);
+
+    /**
+     * Build the model, with the default environment.
+     *
+     * @param n size of the instance
+     * @return a new model
+     */
+    public Model make(int n) {
+        return make(Environments.FLATTEN, n);
+    }
+
+    /**
+     * Build the model.
+     *
+     * @param environment the environment to use
+     * @param n           size of the instance
+     * @return a new model
+     */
+    public Model make(Environments environment, int n) {
+        Model model = new Model(environment.make(), name().toLowerCase() + "-" + n);
+        post(model, n);
+        return model;
+    }
+
+    private static int[] shuffle(int n, Random rnd) {
+        int[] perm = new int[n];
+        for (int i = 0; i < n; i++) {
+            perm[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int k = rnd.nextInt(i + 1);
+            int t = perm[i];
+            perm[i] = perm[k];
+            perm[k] = t;
+        }
+        return perm;
+    }
+}
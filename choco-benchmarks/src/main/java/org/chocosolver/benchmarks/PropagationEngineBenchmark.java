@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.benchmarks;
+
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.propagation.PropagationEngineFactory;
+import org.chocosolver.solver.variables.IntVar;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.chocosolver.solver.search.strategy.Search.minDomLBSearch;
+
+/**
+ * Compares the propagation engines on standard models.
+ * Each invocation explores a fixed number of nodes of a fresh model,
+ * so the score is dominated by the propagation loop.
+ * <p>
+ * Project: choco-solver.
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PropagationEngineBenchmark {
+
+    @Param({"PROPAGATORDRIVEN_7QD", "TWOBUCKETPROPAGATIONENGINE", "PROPAGATORDRIVEN_FLAT"})
+    public PropagationEngineFactory engine;
+
+    @Param({"NQUEENS:12", "GOLOMB:9", "JOBSHOP:6"})
+    public String instance;
+
+    @Param({"5000"})
+    public long nodes;
+
+    private Solver solver;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        String[] parts = instance.split(":");
+        Model model = Models.valueOf(parts[0]).make(Integer.parseInt(parts[1]));
+        solver = model.getSolver();
+        solver.setEngine(engine.make(model));
+        solver.setSearch(minDomLBSearch((IntVar[]) model.getHook(Models.DECISIONS)));
+        solver.limitNode(nodes);
+    }
+
+    @Benchmark
+    public long solve() {
+        while (solver.solve()) ;
+        return solver.getNodeCount();
+    }
+}
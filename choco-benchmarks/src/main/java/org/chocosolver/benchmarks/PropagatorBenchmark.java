@@ -0,0 +1,164 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.benchmarks;
+
+import org.chocosolver.solver.Cause;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.constraints.extension.Tuples;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.events.PropagatorEventType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Propagator#propagate(int)} of a few propagators, per domain representation.
+ * In a new world, values are removed from the variables then the propagator is called directly,
+ * out of any propagation engine; the world is popped afterwards.
+ * {@link #TABLE} covers the filtering of {@link org.chocosolver.solver.constraints.extension.nary.PropCompactTable}.
+ * <p>
+ * Project: choco-solver.
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PropagatorBenchmark {
+
+    static final String ALLDIFF_AC = "ALLDIFF_AC";
+    static final String ALLDIFF_BC = "ALLDIFF_BC";
+    static final String SUM = "SUM";
+    static final String TABLE = "TABLE";
+
+    @Param({ALLDIFF_AC, ALLDIFF_BC, SUM, TABLE})
+    public String constraint;
+
+    @Param({"BITSET", "INTERVAL", "BITSET_ARRAY"})
+    public Domains domain;
+
+    @Param({"FLATTEN"})
+    public Environments trail;
+
+    @Param({"10"})
+    public int nbVars;
+
+    @Param({"20"})
+    public int size;
+
+    @Param({"2000"})
+    public int nbTuples;
+
+    private Model model;
+
+    private IntVar[] vars;
+
+    private Propagator<?>[] propagators;
+
+    /**
+     * Per variable, the value to remove
+     */
+    private int[] removed;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ContradictionException {
+        model = new Model(trail.make(), "propagator");
+        vars = new IntVar[nbVars];
+        for (int i = 0; i < nbVars; i++) {
+            vars[i] = domain.make("x_" + i, 0, size - 1, model);
+        }
+        Random rnd = new Random(0);
+        Constraint c;
+        switch (constraint) {
+            case ALLDIFF_AC:
+                c = model.allDifferent(vars, "AC");
+                break;
+            case ALLDIFF_BC:
+                c = model.allDifferent(vars, "BC");
+                break;
+            case SUM:
+                c = model.sum(vars, "=", nbVars * (size - 1) / 2);
+                break;
+            case TABLE:
+                Tuples tuples = new Tuples(true);
+                for (int t = 0; t < nbTuples; t++) {
+                    int[] tuple = new int[nbVars];
+                    for (int i = 0; i < nbVars; i++) {
+                        tuple[i] = rnd.nextInt(size);
+                    }
+                    tuples.add(tuple);
+                }
+                c = model.table(vars, tuples, "CT+");
+                break;
+            default:
+                throw new UnsupportedOperationException("Unknown constraint " + constraint);
+        }
+        c.post();
+        // initial propagation, at root node
+        model.getSolver().propagate();
+        propagators = c.getPropagators();
+        removed = new int[nbVars];
+        for (int i = 0; i < nbVars; i++) {
+            // bounds only, to be fair with interval domains
+            removed[i] = rnd.nextBoolean() ? vars[i].getLB() : vars[i].getUB();
+        }
+    }
+
+    @Benchmark
+    public int propagate() throws ContradictionException {
+        model.getEnvironment().worldPush();
+        int s = 0;
+        try {
+            for (int i = 0; i < nbVars / 2; i++) {
+                vars[i].removeValue(removed[i], Cause.Null);
+            }
+            for (int p = 0; p < propagators.length; p++) {
+                propagators[p].propagate(PropagatorEventType.FULL_PROPAGATION.getMask());
+            }
+            for (int i = 0; i < nbVars; i++) {
+                s += vars[i].getDomainSize();
+            }
+        } catch (ContradictionException e) {
+            s = -1;
+        }
+        // events scheduled by the modifications are discarded
+        model.getSolver().getEngine().flush();
+        model.getEnvironment().worldPop();
+        return s;
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.benchmarks;
+
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.memory.IStateInt;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link IEnvironment#worldPush()} and {@link IEnvironment#worldPop()}:
+ * a branch of <i>depth</i> worlds is pushed, <i>writes</i> random backtrackable integers are modified in each world,
+ * then the branch is popped.
+ * <p>
+ * Project: choco-solver.
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TrailBenchmark {
+
+    @Param({"FLATTEN", "CHUNCK", "UNSAFE", "COPYING", "HYBRID"})
+    public Environments trail;
+
+    @Param({"10000"})
+    public int size;
+
+    @Param({"10", "1000"})
+    public int writes;
+
+    @Param({"50"})
+    public int depth;
+
+    private IEnvironment environment;
+
+    private IStateInt[] ints;
+
+    /**
+     * Indices of the modified integers, precomputed to not measure the random generator
+     */
+    private int[] indices;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = trail.make();
+        ints = new IStateInt[size];
+        for (int i = 0; i < size; i++) {
+            ints[i] = environment.makeInt(i);
+        }
+        Random rnd = new Random(0);
+        indices = new int[depth * writes];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = rnd.nextInt(size);
+        }
+    }
+
+    @Benchmark
+    public int pushAndPop() {
+        int k = 0;
+        for (int w = 0; w < depth; w++) {
+            environment.worldPush();
+            for (int i = 0; i < writes; i++) {
+                ints[indices[k++]].add(1);
+            }
+        }
+        environment.worldPopUntil(0);
+        return ints[indices[0]].get();
+    }
+}
@@ -29,6 +29,7 @@
  */
 package org.chocosolver.memory;
 
+import org.chocosolver.memory.copying.EnvironmentCopying;
 import org.chocosolver.memory.trailing.EnvironmentTrailing;
 import org.chocosolver.memory.trailing.trail.*;
 import org.chocosolver.memory.trailing.trail.chunck.*;
@@ -85,6 +86,12 @@ public class EnvironmentBuilder {
      */
     private IOperationTrail ot;
 
+    /**
+     * Ratio of modified primitives over the total number of primitives above which a world is copied
+     * by an hybrid environment.
+     */
+    private double copyratio = EnvironmentCopying.RATIO;
+
     /**
      * The maximum numbers of updates that a
      * {@link org.chocosolver.memory.IStorage} can handle.
@@ -118,6 +125,17 @@ public class EnvironmentBuilder {
     }
 
 
+    /**
+     * Ratio of modified primitives over the total number of primitives above which a world is copied,
+     * only relevant for {@link #buildHybrid()}.
+     * @param r ratio
+     * @return {@code this}
+     */
+    public EnvironmentBuilder setCopyRatio(double r){
+        copyratio = r;
+        return this;
+    }
+
     /**
      * Set the int trail.
      * @param t the trail to use
@@ -202,6 +220,23 @@ public class EnvironmentBuilder {
         return env;
     }
 
+    /**
+     * Build an environment which copies every world, trails set with {@link #setTrail} are ignored.
+     * @return the resulting environment
+     */
+    public EnvironmentCopying buildCopying(){
+        return new EnvironmentCopying(worldsize, worldnumber, loadfactor, false, copyratio);
+    }
+
+    /**
+     * Build an environment which copies or trails worlds depending on the ratio of modified primitives
+     * (see {@link #setCopyRatio(double)}), trails set with {@link #setTrail} are ignored.
+     * @return the resulting environment
+     */
+    public EnvironmentCopying buildHybrid(){
+        return new EnvironmentCopying(worldsize, worldnumber, loadfactor, true, copyratio);
+    }
+
     /**
      * Build a chunk environment
      * @return {@code this}
@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.memory.copying;
+
+import org.chocosolver.memory.IStateLong;
+
+
+/**
+ * A class implementing backtrackable long for the {@link EnvironmentCopying}.
+ */
+public class CopiedLong extends IStateLong {
+
+    protected final CopyLongStore myStore;
+
+    /**
+     * Index of this in its store
+     */
+    protected final int index;
+
+    /**
+     * Constructs a copied search with an initial value.
+     * Note: this constructor should not be used directly: one should instead
+     * use the IEnvironment factory
+     */
+    public CopiedLong(final EnvironmentCopying env, final long i) {
+        super(env, i);
+        myStore = env.getLongStore();
+        index = myStore.add(this, env.fakeHistoryNeeded());
+    }
+
+    /**
+     * Modifies the value and stores if needed the former value on the
+     * trailing stack, when the current world is not copied.
+     */
+    @Override
+    public final void set(final long y) {
+        if (y != currentValue) {
+            if (myStore.trailing) {
+                final int wi = environment.getWorldIndex();
+                if (this.timeStamp < wi) {
+                    myStore.savePreviousState(index, currentValue, timeStamp);
+                    timeStamp = wi;
+                }
+            }
+            currentValue = y;
+        }
+    }
+
+    /**
+     * Restores a copied value, the time stamp is left unchanged.
+     */
+    final void restore(final long y) {
+        currentValue = y;
+    }
+}
@@ -0,0 +1,324 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.memory.copying;
+
+/**
+ * Manages the {@link CopiedLong} of an {@link EnvironmentCopying}.
+ * <br/>
+ * A world is either copied or trailed.
+ * When a copied world is pushed, the values of all the objects are copied in a packed array,
+ * which is copied back when the world is popped; modifications are not recorded.
+ * When a trailed world is pushed, nothing is copied: the objects save their former value and time stamp
+ * on a trail the first time they are modified in the world, as in
+ * {@link org.chocosolver.memory.trailing.trail.flatten.StoredLongTrail}.
+ */
+public class CopyLongStore implements ICopyStore {
+
+    private final double loadfactor;
+
+    /**
+     * Objects managed by this store.
+     */
+    private CopiedLong[] objects;
+
+    /**
+     * Number of objects managed by this store.
+     */
+    private int size;
+
+    /**
+     * Per world, the copy of the values of the objects, only relevant for copied worlds.
+     * Arrays are reused from one push to the other.
+     */
+    private long[][] copies;
+
+    /**
+     * Per world, the number of objects when the world was pushed.
+     */
+    private int[] copySizes;
+
+    /**
+     * Stack of indices of the objects modified in trailed worlds.
+     */
+    private int[] indexStack;
+
+    /**
+     * Stack of former values.
+     */
+    private long[] valueStack;
+
+    /**
+     * Stack of former world stamps.
+     */
+    private int[] stampStack;
+
+    /**
+     * Points the level of the last entry.
+     */
+    private int currentLevel;
+
+    /**
+     * Per world, the level of the trail when the world was pushed.
+     */
+    private int[] worldStartLevels;
+
+    /**
+     * Stack of indices of the objects whose history is simulated, ordered by birth world.
+     */
+    private int[] fakeIndices;
+
+    /**
+     * Per object whose history is simulated, the world it is considered to be created in.
+     */
+    private int[] fakeBirths;
+
+    /**
+     * Per object whose history is simulated, its initial value.
+     */
+    private long[] fakeValues;
+
+    /**
+     * Number of objects whose history is simulated.
+     */
+    private int fakeSize;
+
+    /**
+     * Set to <tt>true</tt> when the current world is trailed.
+     */
+    boolean trailing;
+
+    /**
+     * Constructs a store.
+     *
+     * @param nUpdates   initial number of updates of the trail
+     * @param nWorlds    initial number of worlds
+     * @param loadfactor load factor to apply when resizing
+     */
+    public CopyLongStore(int nUpdates, int nWorlds, double loadfactor) {
+        this.loadfactor = loadfactor;
+        objects = new CopiedLong[nUpdates];
+        copies = new long[nWorlds][];
+        copySizes = new int[nWorlds];
+        indexStack = new int[nUpdates];
+        valueStack = new long[nUpdates];
+        stampStack = new int[nUpdates];
+        worldStartLevels = new int[nWorlds];
+        fakeIndices = new int[16];
+        fakeBirths = new int[16];
+        fakeValues = new long[16];
+    }
+
+    /**
+     * Adds an object to this store.
+     *
+     * @param object      the object to add
+     * @param fakeHistory set to <tt>true</tt> to restore the initial value of <i>object</i>
+     *                    when the world it is created in is popped
+     * @return the index of <i>object</i> in this store
+     */
+    int add(CopiedLong object, boolean fakeHistory) {
+        if (size == objects.length) {
+            CopiedLong[] tmp = objects;
+            objects = new CopiedLong[grow(tmp.length)];
+            System.arraycopy(tmp, 0, objects, 0, size);
+        }
+        if (fakeHistory) {
+            if (fakeSize == fakeIndices.length) {
+                int n = grow(fakeSize);
+                int[] itmp = fakeIndices;
+                fakeIndices = new int[n];
+                System.arraycopy(itmp, 0, fakeIndices, 0, fakeSize);
+                itmp = fakeBirths;
+                fakeBirths = new int[n];
+                System.arraycopy(itmp, 0, fakeBirths, 0, fakeSize);
+                long[] vtmp = fakeValues;
+                fakeValues = new long[n];
+                System.arraycopy(vtmp, 0, fakeValues, 0, fakeSize);
+            }
+            fakeIndices[fakeSize] = size;
+            fakeBirths[fakeSize] = object.getTimeStamp();
+            fakeValues[fakeSize] = object.get();
+            fakeSize++;
+        }
+        objects[size] = object;
+        return size++;
+    }
+
+    /**
+     * Saves the former state of an object modified in a trailed world.
+     *
+     * @param index    index of the object
+     * @param oldValue former value
+     * @param oldStamp former world stamp
+     */
+    void savePreviousState(int index, long oldValue, int oldStamp) {
+        indexStack[currentLevel] = index;
+        valueStack[currentLevel] = oldValue;
+        stampStack[currentLevel] = oldStamp;
+        currentLevel++;
+        if (currentLevel == indexStack.length) {
+            resizeUpdateCapacity();
+        }
+    }
+
+    @Override
+    public void worldPush(int worldIndex, boolean copy) {
+        if (worldIndex >= worldStartLevels.length - 1) {
+            resizeWorldCapacity(Math.max(worldIndex + 2, grow(worldStartLevels.length)));
+        }
+        worldStartLevels[worldIndex] = currentLevel;
+        if (copy) {
+            long[] copy_ = copies[worldIndex];
+            if (copy_ == null || copy_.length < size) {
+                copy_ = copies[worldIndex] = new long[grow(size)];
+            }
+            for (int i = 0; i < size; i++) {
+                copy_[i] = objects[i].get();
+            }
+        }
+        copySizes[worldIndex] = size;
+    }
+
+    @Override
+    public int worldPop(int worldIndex, boolean copy) {
+        int popped = 0;
+        if (copy) {
+            long[] copy_ = copies[worldIndex];
+            for (int i = copySizes[worldIndex] - 1; i >= 0; i--) {
+                objects[i].restore(copy_[i]);
+            }
+        } else {
+            final int wsl = worldStartLevels[worldIndex];
+            popped = currentLevel - wsl;
+            while (currentLevel > wsl) {
+                currentLevel--;
+                objects[indexStack[currentLevel]]._set(valueStack[currentLevel], stampStack[currentLevel]);
+            }
+        }
+        // then simulate history of the objects created in this world (or in a deeper one)
+        for (int k = fakeSize - 1; k >= 0 && fakeBirths[k] >= worldIndex; k--) {
+            objects[fakeIndices[k]]._set(fakeValues[k], worldIndex - 1);
+            fakeBirths[k] = worldIndex - 1;
+        }
+        return popped;
+    }
+
+    @Override
+    public void worldCommit(int worldIndex, boolean copy, boolean restorable) {
+        final int prevWorld = worldIndex - 1;
+        if (copy) {
+            if (restorable) {
+                // objects modified in the committed world, and not saved yet in the previous one, are trailed now
+                long[] copy_ = copies[worldIndex];
+                for (int i = 0; i < copySizes[worldIndex]; i++) {
+                    final int stamp = objects[i].getTimeStamp();
+                    if (stamp < prevWorld && objects[i].get() != copy_[i]) {
+                        savePreviousState(i, copy_[i], stamp);
+                        objects[i]._set(objects[i].get(), prevWorld);
+                    }
+                }
+            }
+        } else {
+            final int wsl = worldStartLevels[worldIndex];
+            int writeIdx = wsl;
+            for (int level = wsl; level < currentLevel; level++) {
+                final CopiedLong object = objects[indexStack[level]];
+                final int stamp = stampStack[level];
+                if (restorable) {
+                    object._set(object.get(), prevWorld);
+                    // an update whose stamp is the previous world is discarded, a good one is already there
+                    if (stamp != prevWorld) {
+                        if (writeIdx != level) {
+                            indexStack[writeIdx] = indexStack[level];
+                            valueStack[writeIdx] = valueStack[level];
+                            stampStack[writeIdx] = stamp;
+                        }
+                        writeIdx++;
+                    }
+                } else {
+                    // the previous world is copied, or is the root one: no update is needed anymore
+                    object._set(object.get(), stamp);
+                }
+            }
+            currentLevel = writeIdx;
+        }
+        // objects created in the committed world now belong to the previous one
+        for (int i = copySizes[worldIndex]; i < size; i++) {
+            if (objects[i].getTimeStamp() > prevWorld) {
+                objects[i]._set(objects[i].get(), prevWorld);
+            }
+        }
+        for (int k = fakeSize - 1; k >= 0 && fakeBirths[k] >= worldIndex; k--) {
+            fakeBirths[k] = prevWorld;
+        }
+    }
+
+    @Override
+    public void setTrailing(boolean trailing) {
+        this.trailing = trailing;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    private int grow(int length) {
+        return Math.max(length + 1, (int) (length * loadfactor));
+    }
+
+    private void resizeUpdateCapacity() {
+        final int newCapacity = grow(indexStack.length);
+        // first, copy the stack of indices
+        final int[] tmp1 = new int[newCapacity];
+        System.arraycopy(indexStack, 0, tmp1, 0, indexStack.length);
+        indexStack = tmp1;
+        // then, copy the stack of former values
+        final long[] tmp2 = new long[newCapacity];
+        System.arraycopy(valueStack, 0, tmp2, 0, valueStack.length);
+        valueStack = tmp2;
+        // then, copy the stack of world stamps
+        final int[] tmp3 = new int[newCapacity];
+        System.arraycopy(stampStack, 0, tmp3, 0, stampStack.length);
+        stampStack = tmp3;
+    }
+
+    private void resizeWorldCapacity(int newWorldCapacity) {
+        final int[] tmp = new int[newWorldCapacity];
+        System.arraycopy(worldStartLevels, 0, tmp, 0, worldStartLevels.length);
+        worldStartLevels = tmp;
+        final int[] tmp2 = new int[newWorldCapacity];
+        System.arraycopy(copySizes, 0, tmp2, 0, copySizes.length);
+        copySizes = tmp2;
+        final long[][] tmp3 = new long[newWorldCapacity][];
+        System.arraycopy(copies, 0, tmp3, 0, copies.length);
+        copies = tmp3;
+    }
+}
@@ -0,0 +1,348 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.memory.copying;
+
+import org.chocosolver.memory.*;
+import org.chocosolver.memory.structure.IOperation;
+import org.chocosolver.memory.trailing.EnvironmentTrailing;
+import org.chocosolver.memory.trailing.trail.flatten.OperationTrail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An environment which saves the state of backtrackable primitives by copying them.
+ * <br/>
+ * On {@link #worldPush()}, the values of all the primitives are copied in packed arrays,
+ * one per primitive type, and they are copied back on {@link #worldPop()}.
+ * Modifications are thus free, but each world costs a number of copies proportional to the
+ * number of primitives, whatever how many of them were modified.
+ * <br/>
+ * In <i>adaptive</i> mode, each world is either copied or trailed.
+ * The environment maintains an exponential moving average of the number of primitives modified in trailed worlds
+ * and copies the next world when this average exceeds a ratio of the total number of primitives.
+ * Every {@link #SAMPLING} worlds, a world is trailed anyway to keep the average up to date.
+ * <br/>
+ * Operations ({@link #save(IOperation)}) are always trailed.
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class EnvironmentCopying extends AbstractEnvironment {
+
+    /**
+     * Default ratio of modified primitives over the total number of primitives
+     * above which worlds are copied, in adaptive mode.
+     */
+    public static final double RATIO = .25;
+
+    /**
+     * In adaptive mode, one world every <code>SAMPLING</code> worlds is trailed.
+     */
+    private static final int SAMPLING = 16;
+
+    private final CopyIntStore intStore;
+    private final CopyBoolStore boolStore;
+    private final CopyLongStore longStore;
+    private final CopyDoubleStore doubleStore;
+    private final OperationTrail operationTrail;
+
+    private final ICopyStore[] stores;
+
+    /**
+     * Vectors created by this environment, their stamps are updated on commit.
+     */
+    private final List<CopiedIntVector> intVectors = new ArrayList<>();
+
+    /**
+     * Vectors created by this environment, their stamps are updated on commit.
+     */
+    private final List<CopiedDoubleVector> doubleVectors = new ArrayList<>();
+
+    /**
+     * Set to <tt>true</tt> to choose between copying and trailing world by world.
+     */
+    private final boolean adaptive;
+
+    /**
+     * Ratio of modified primitives over the total number of primitives
+     * above which worlds are copied, in adaptive mode.
+     */
+    private final double ratio;
+
+    /**
+     * Per world, set to <tt>true</tt> if the world is copied.
+     */
+    private boolean[] copied;
+
+    /**
+     * Exponential moving average of the number of primitives modified in trailed worlds.
+     */
+    private double avgUpdates;
+
+    /**
+     * Number of worlds pushed so far.
+     */
+    private long nbPushes;
+
+    /**
+     * Create an environment which copies every world.
+     */
+    public EnvironmentCopying() {
+        this(EnvironmentTrailing.NBUPATES, EnvironmentTrailing.NBWORLDS, EnvironmentTrailing.LOADFACTOR, false, RATIO);
+    }
+
+    /**
+     * Create an environment
+     *
+     * @param nUpdates   initial number of updates per store
+     * @param nWorlds    initial number of worlds
+     * @param loadfactor load factor to apply when resizing
+     * @param adaptive   set to <tt>false</tt> to copy every world,
+     *                   set to <tt>true</tt> to copy or trail worlds adaptively
+     * @param ratio      ratio of modified primitives over the total number of primitives above which a world is copied,
+     *                   only relevant in adaptive mode
+     */
+    public EnvironmentCopying(int nUpdates, int nWorlds, double loadfactor, boolean adaptive, double ratio) {
+        this.intStore = new CopyIntStore(nUpdates, nWorlds, loadfactor);
+        this.boolStore = new CopyBoolStore(nUpdates, nWorlds, loadfactor);
+        this.longStore = new CopyLongStore(nUpdates, nWorlds, loadfactor);
+        this.doubleStore = new CopyDoubleStore(nUpdates, nWorlds, loadfactor);
+        this.operationTrail = new OperationTrail(nUpdates, nWorlds, loadfactor);
+        this.stores = new ICopyStore[]{intStore, boolStore, longStore, doubleStore};
+        this.adaptive = adaptive;
+        this.ratio = ratio;
+        this.copied = new boolean[nWorlds];
+        for (ICopyStore store : stores) {
+            store.setTrailing(false);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void worldPush() {
+        timestamp++;
+        final int wi = currentWorld + 1;
+        if (wi >= copied.length) {
+            boolean[] tmp = copied;
+            copied = new boolean[tmp.length * 3 / 2 + 1];
+            System.arraycopy(tmp, 0, copied, 0, tmp.length);
+        }
+        final boolean copy = copyNext();
+        copied[wi] = copy;
+        for (int i = 0; i < stores.length; i++) {
+            stores[i].worldPush(wi, copy);
+            stores[i].setTrailing(!copy);
+        }
+        operationTrail.worldPush(wi);
+        currentWorld++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void worldPop() {
+        timestamp++;
+        final int wi = currentWorld;
+        final boolean copy = copied[wi];
+        int updates = 0;
+        for (int i = stores.length - 1; i >= 0; i--) {
+            updates += stores[i].worldPop(wi, copy);
+        }
+        operationTrail.worldPop(wi);
+        if (!copy) {
+            avgUpdates += (updates - avgUpdates) / 8;
+        }
+        currentWorld--;
+        assert currentWorld >= 0;
+        final boolean trailing = currentWorld > 0 && !copied[currentWorld];
+        for (int i = 0; i < stores.length; i++) {
+            stores[i].setTrailing(trailing);
+        }
+    }
+
+    /**
+     * @return <tt>true</tt> if the next world has to be copied
+     */
+    private boolean copyNext() {
+        if (!adaptive) {
+            return true;
+        }
+        if (nbPushes++ % SAMPLING == 0) {
+            return false;
+        }
+        int total = 0;
+        for (int i = 0; i < stores.length; i++) {
+            total += stores[i].getSize();
+        }
+        return avgUpdates > ratio * total;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br/>
+     * When the previous world is trailed, the primitives modified in the committed world,
+     * and not saved yet in the previous one, are trailed in it.
+     * When the previous world is copied, or is the root world, its copy is enough to restore them.
+     */
+    @Override
+    public void worldCommit() {
+        if (currentWorld == 0) {
+            throw new IllegalStateException("Commit in world 0?");
+        }
+        final int wi = currentWorld;
+        final boolean copy = copied[wi];
+        final boolean restorable = wi > 1 && !copied[wi - 1];
+        for (int i = stores.length - 1; i >= 0; i--) {
+            stores[i].worldCommit(wi, copy, restorable);
+        }
+        operationTrail.worldCommit(wi);
+        for (int i = 0; i < intVectors.size(); i++) {
+            intVectors.get(i).worldCommit(wi);
+        }
+        for (int i = 0; i < doubleVectors.size(); i++) {
+            doubleVectors.get(i).worldCommit(wi);
+        }
+        currentWorld--;
+        for (int i = 0; i < stores.length; i++) {
+            stores[i].setTrailing(restorable);
+        }
+    }
+
+    /**
+     * @return <tt>true</tt> if the current world is copied
+     */
+    public boolean isCopied() {
+        return copied[currentWorld];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IStateInt makeInt() {
+        return makeInt(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IStateInt makeInt(final int initialValue) {
+        return new CopiedInt(this, initialValue);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IStateBool makeBool(final boolean initialValue) {
+        return new CopiedBool(this, initialValue);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IStateIntVector makeIntVector(final int size, final int initialValue) {
+        CopiedIntVector vector = new CopiedIntVector(this, size, initialValue);
+        intVectors.add(vector);
+        return vector;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IStateDoubleVector makeDoubleVector(final int size, final double initialValue) {
+        CopiedDoubleVector vector = new CopiedDoubleVector(this, size, initialValue);
+        doubleVectors.add(vector);
+        return vector;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IStateDouble makeFloat() {
+        return makeFloat(Double.NaN);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IStateDouble makeFloat(final double initialValue) {
+        return new CopiedDouble(this, initialValue);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IStateLong makeLong() {
+        return makeLong(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IStateLong makeLong(final long init) {
+        return new CopiedLong(this, init);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void save(IOperation operation) {
+        operationTrail.savePreviousState(operation);
+    }
+
+    public CopyIntStore getIntStore() {
+        return intStore;
+    }
+
+    public CopyBoolStore getBoolStore() {
+        return boolStore;
+    }
+
+    public CopyLongStore getLongStore() {
+        return longStore;
+    }
+
+    public CopyDoubleStore getDoubleStore() {
+        return doubleStore;
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.memory.copying;
+
+/**
+ * Interface of the stores of an {@link EnvironmentCopying}.
+ * <br/>
+ * A world is either <i>copied</i>, that is, the values of all the objects of a store are copied when it is pushed,
+ * or <i>trailed</i>, that is, the former values are saved on modification.
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public interface ICopyStore {
+
+    /**
+     * Moving up to the next world.
+     *
+     * @param worldIndex current world index
+     * @param copy       set to <tt>true</tt> if the world is copied, <tt>false</tt> if it is trailed
+     */
+    void worldPush(int worldIndex, boolean copy);
+
+    /**
+     * Moving down to the previous world.
+     *
+     * @param worldIndex current world index
+     * @param copy       set to <tt>true</tt> if the world was copied, <tt>false</tt> if it was trailed
+     * @return the number of trailed entries which have been restored (0 when the world was copied)
+     */
+    int worldPop(int worldIndex, boolean copy);
+
+    /**
+     * Merges the current world with the previous one.
+     *
+     * @param worldIndex current world index
+     * @param copy       set to <tt>true</tt> if the world is copied, <tt>false</tt> if it is trailed
+     * @param restorable set to <tt>true</tt> if the previous world is trailed,
+     *                   <tt>false</tt> if it is copied or if it is the root world
+     */
+    void worldCommit(int worldIndex, boolean copy, boolean restorable);
+
+    /**
+     * Declares whether the current world is trailed, or not.
+     *
+     * @param trailing <tt>true</tt> if the modifications of the current world are to be trailed
+     */
+    void setTrailing(boolean trailing);
+
+    /**
+     * @return the number of objects managed by this store
+     */
+    int getSize();
+}
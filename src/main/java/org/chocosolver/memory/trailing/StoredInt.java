@@ -40,6 +40,11 @@ public class StoredInt extends IStateInt {
 
     protected final IStoredIntTrail myTrail;
 
+    /**
+     * Handle of this in its trail, for trails which refer to objects by handles, -1 otherwise.
+     */
+    private int handle = -1;
+
     /**
      * Constructs a stored search with an initial value.
      * Note: this constructor should not be used directly: one should instead
@@ -68,5 +73,20 @@ public class StoredInt extends IStateInt {
             currentValue = y;
         }
     }
-}
 
+    /**
+     * @return the handle of this in its trail, -1 if none has been set
+     */
+    public final int getHandle() {
+        return handle;
+    }
+
+    /**
+     * Sets the handle of this in its trail.
+     *
+     * @param handle the handle
+     */
+    public final void setHandle(int handle) {
+        this.handle = handle;
+    }
+}
@@ -36,7 +36,15 @@ import sun.misc.Unsafe;
 import java.lang.reflect.Field;
 
 /**
+ * An off-heap trail.
  * <br/>
+ * Entries are stored in fixed-size off-heap segments: a segment is allocated when the trail is full,
+ * old segments are never copied.
+ * An entry is made of a value and an int handle which refers to the object in an on-heap registry
+ * (an object is registered on its first save).
+ * The former time stamp of an object is stored on a separate stack only when it is not
+ * the world just below the current one, that is, when the object does not already have
+ * an entry in the previous world; otherwise, the high bit of the handle is set and the stamp is deduced on backtrack.
  *
  * @author Charles Prud'homme
  * @since 13/05/13
@@ -49,35 +57,74 @@ public class UnsafeLongTrail implements IStoredLongTrail {
 
     public static final int SIZEOF_INT = Unsafe.ARRAY_INT_INDEX_SCALE;
 
+    /**
+     * Number of entries per segment, as a power of 2.
+     */
+    private static final int SHIFT = 12;
+
+    private static final int SEGMENT_SIZE = 1 << SHIFT;
+
+    private static final int MASK = SEGMENT_SIZE - 1;
+
+    /**
+     * Offset of the values in a segment, handles are stored first.
+     */
+    private static final long VALUES = (long) SEGMENT_SIZE * SIZEOF_INT;
+
+    /**
+     * Flag set on a handle when the former stamp is the previous world.
+     */
+    private static final int IMPLICIT = 0x80000000;
+
     /**
      * load factor
      */
     private double loadfactor;
 
     /**
-     * Stack of backtrackable search variables.
+     * Registry of the objects, indexed by handles.
      */
-    private StoredLong[] variableStack;
+    private StoredLong[] objects;
 
+    /**
+     * Number of registered objects.
+     */
+    private int nbObjects;
 
     /**
-     * Stack of values (former values that need be restored upon backtracking).
+     * Addresses of the segments of handles and values.
      */
-    private long valueStack;
+    private long[] segments;
 
+    /**
+     * Number of allocated segments of handles and values.
+     */
+    private int nbSegments;
 
     /**
-     * Stack of timestamps indicating the world where the former value
-     * had been written.
+     * Addresses of the segments of stamps which cannot be deduced.
      */
-    private long stampStack;
+    private long[] stampSegments;
 
+    /**
+     * Number of allocated segments of stamps.
+     */
+    private int nbStampSegments;
 
     /**
      * Points the level of the last entry.
      */
     private int currentLevel;
 
+    /**
+     * Points the level of the last stamp.
+     */
+    private int stampLevel;
+
+    /**
+     * Index of the current world.
+     */
+    private int currentWorld;
 
     /**
      * A stack of pointers (for each start of a world).
@@ -96,9 +143,14 @@ public class UnsafeLongTrail implements IStoredLongTrail {
     public UnsafeLongTrail(int nUpdates, int nWorlds, double loadfactor) {
         unsafe = getTheUnsafe();
         currentLevel = 0;
-        variableStack = new StoredLong[nUpdates];
-        valueStack = unsafe.allocateMemory(nUpdates * SIZEOF_DATA);
-        stampStack = unsafe.allocateMemory(nUpdates * SIZEOF_INT);
+        objects = new StoredLong[nUpdates];
+        int n = Math.max(1, (nUpdates + MASK) >>> SHIFT);
+        segments = new long[n];
+        while (nbSegments < n) {
+            segments[nbSegments++] = unsafe.allocateMemory(VALUES + (long) SEGMENT_SIZE * SIZEOF_DATA);
+        }
+        stampSegments = new long[n];
+        stampSegments[nbStampSegments++] = unsafe.allocateMemory(VALUES);
         worldStartLevels = new int[nWorlds];
         this.loadfactor = loadfactor;
     }
@@ -121,6 +173,7 @@ public class UnsafeLongTrail implements IStoredLongTrail {
     @Override
     public void worldPush(int worldIndex) {
         worldStartLevels[worldIndex] = currentLevel;
+        currentWorld = worldIndex;
         if (worldIndex == worldStartLevels.length - 1) {
             resizeWorldCapacity((int)(worldStartLevels.length * loadfactor));
         }
@@ -134,17 +187,19 @@ public class UnsafeLongTrail implements IStoredLongTrail {
      */
     @Override
     public void worldPop(int worldIndex) {
-        StoredLong v;
-        long value;
-        int stamp;
         final int wsl = worldStartLevels[worldIndex];
+        int handle, idx;
+        long base;
         while (currentLevel > wsl) {
             currentLevel--;
-            v = variableStack[currentLevel];
-            value = unsafe.getLong(valueStack + (currentLevel * SIZEOF_DATA));
-            stamp = unsafe.getInt(stampStack + (currentLevel * SIZEOF_INT));
-            v._set(value, stamp);
+            base = segments[currentLevel >>> SHIFT];
+            idx = currentLevel & MASK;
+            handle = unsafe.getInt(base + (long) idx * SIZEOF_INT);
+            objects[handle & ~IMPLICIT]._set(
+                    unsafe.getLong(base + VALUES + (long) idx * SIZEOF_DATA),
+                    (handle & IMPLICIT) != 0 ? worldIndex - 1 : popStamp());
         }
+        currentWorld = worldIndex - 1;
     }
 
 
@@ -167,18 +222,21 @@ public class UnsafeLongTrail implements IStoredLongTrail {
 
 
     /**
-     * Reacts when a StoredInt is modified: push the former value & timestamp
+     * Reacts when a StoredLong is modified: push the former value & timestamp
      * on the stacks.
      */
     @Override
     public void savePreviousState(StoredLong v, long oldValue, int oldStamp) {
-        unsafe.putLong(valueStack + currentLevel * SIZEOF_DATA, oldValue);
-        variableStack[currentLevel] = v;
-        unsafe.putInt(stampStack + currentLevel * SIZEOF_INT, oldStamp);
-        currentLevel++;
-        if (variableStack.length == currentLevel) {
-            resizeUpdateCapacity();
+        if (currentLevel == nbSegments << SHIFT) {
+            addSegment();
+        }
+        int handle = handleOf(v);
+        if (oldStamp == currentWorld - 1) {
+            handle |= IMPLICIT;
+        } else {
+            pushStamp(oldStamp);
         }
+        put(currentLevel++, handle, oldValue);
     }
 
     @Override
@@ -188,44 +246,87 @@ public class UnsafeLongTrail implements IStoredLongTrail {
         // first save the current state on the top of the stack
         savePreviousState(v, initValue, olderStamp - 1);
         // second: ensures capacities
-        while (currentLevel + olderStamp > variableStack.length) {
-            resizeUpdateCapacity();
+        while (currentLevel + olderStamp > nbSegments << SHIFT) {
+            addSegment();
         }
+        // entries inserted in world w - 1 have w - 2 as stamp, which is always deduced,
+        // so the stack of stamps is left unchanged
+        final int handle = handleOf(v) | IMPLICIT;
         int i1, f, s = currentLevel;
         for (int w = olderStamp; w > 1; w--) {
             f = worldStartLevels[w];
             i1 = f + w - 1;
             s -= f;
-            System.arraycopy(variableStack, f, variableStack, i1, s);
-            unsafe.copyMemory(valueStack + f * SIZEOF_DATA, valueStack + i1 * SIZEOF_DATA, SIZEOF_DATA * s);
-            unsafe.copyMemory(stampStack + f * SIZEOF_INT, stampStack + i1 * SIZEOF_INT, SIZEOF_INT * s);
-            variableStack[--i1] = v;
-            unsafe.putLong(valueStack + i1 * SIZEOF_DATA, initValue);
-            unsafe.putInt(stampStack + i1 * SIZEOF_INT, w - 2);
+            move(f, i1, s);
+            put(--i1, handle, initValue);
             worldStartLevels[w] += w - 1;
             currentLevel++;
             s = f;
         }
     }
 
+    /**
+     * Returns the handle of <i>v</i>, registers it if needed.
+     */
+    private int handleOf(StoredLong v) {
+        int handle = v.getHandle();
+        if (handle < 0) {
+            if (nbObjects == objects.length) {
+                StoredLong[] tmp = objects;
+                objects = new StoredLong[Math.max(nbObjects + 1, (int) (nbObjects * loadfactor))];
+                System.arraycopy(tmp, 0, objects, 0, nbObjects);
+            }
+            objects[nbObjects] = v;
+            v.setHandle(handle = nbObjects++);
+        }
+        return handle;
+    }
 
-    private void resizeUpdateCapacity() {
-        int oldCapacity = variableStack.length;
-        int newCapacity = (int)(oldCapacity * loadfactor);
-        // first, copy the stack of variables
-        StoredLong[] tmp1 = new StoredLong[newCapacity];
-        System.arraycopy(variableStack, 0, tmp1, 0, oldCapacity);
-        variableStack = tmp1;
-        // then, copy the stack of former values
-        long ad1 = unsafe.allocateMemory(newCapacity * SIZEOF_DATA);
-        unsafe.copyMemory(valueStack, ad1, oldCapacity * SIZEOF_DATA);
-        unsafe.freeMemory(valueStack);
-        valueStack = ad1;
-        // then, copy the stack of world stamps
-        long ad2 = unsafe.allocateMemory(newCapacity * SIZEOF_INT);
-        unsafe.copyMemory(stampStack, ad2, oldCapacity * SIZEOF_INT);
-        unsafe.freeMemory(stampStack);
-        stampStack = ad2;
+    private void put(int level, int handle, long value) {
+        final long address = segments[level >>> SHIFT];
+        final int idx = level & MASK;
+        unsafe.putInt(address + (long) idx * SIZEOF_INT, handle);
+        unsafe.putLong(address + VALUES + (long) idx * SIZEOF_DATA, value);
+    }
+
+    /**
+     * Moves <i>length</i> entries from <i>from</i> to <i>to</i>, with <i>to</i> greater than <i>from</i>.
+     */
+    private void move(int from, int to, int length) {
+        for (int k = length - 1; k >= 0; k--) {
+            final long src = segments[(from + k) >>> SHIFT];
+            final int sidx = (from + k) & MASK;
+            put(to + k,
+                    unsafe.getInt(src + (long) sidx * SIZEOF_INT),
+                    unsafe.getLong(src + VALUES + (long) sidx * SIZEOF_DATA));
+        }
+    }
+
+    private void pushStamp(int stamp) {
+        if (stampLevel == nbStampSegments << SHIFT) {
+            if (nbStampSegments == stampSegments.length) {
+                long[] tmp = stampSegments;
+                stampSegments = new long[nbStampSegments * 2];
+                System.arraycopy(tmp, 0, stampSegments, 0, nbStampSegments);
+            }
+            stampSegments[nbStampSegments++] = unsafe.allocateMemory(VALUES);
+        }
+        unsafe.putInt(stampSegments[stampLevel >>> SHIFT] + (long) (stampLevel & MASK) * SIZEOF_INT, stamp);
+        stampLevel++;
+    }
+
+    private int popStamp() {
+        stampLevel--;
+        return unsafe.getInt(stampSegments[stampLevel >>> SHIFT] + (long) (stampLevel & MASK) * SIZEOF_INT);
+    }
+
+    private void addSegment() {
+        if (nbSegments == segments.length) {
+            long[] tmp = segments;
+            segments = new long[nbSegments * 2];
+            System.arraycopy(tmp, 0, segments, 0, nbSegments);
+        }
+        segments[nbSegments++] = unsafe.allocateMemory(VALUES + (long) SEGMENT_SIZE * SIZEOF_DATA);
     }
 
     private void resizeWorldCapacity(int newWorldCapacity) {
@@ -237,7 +338,11 @@ public class UnsafeLongTrail implements IStoredLongTrail {
     @Override
     protected void finalize() throws Throwable {
         super.finalize();
-        unsafe.freeMemory(valueStack);
-        unsafe.freeMemory(stampStack);
+        for (int i = 0; i < nbSegments; i++) {
+            unsafe.freeMemory(segments[i]);
+        }
+        for (int i = 0; i < nbStampSegments; i++) {
+            unsafe.freeMemory(stampSegments[i]);
+        }
     }
 }
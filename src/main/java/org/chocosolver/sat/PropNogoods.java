@@ -33,19 +33,24 @@ import gnu.trove.list.TIntList;
 import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.map.hash.TLongIntHashMap;
+import gnu.trove.map.hash.TObjectDoubleHashMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
 import org.chocosolver.memory.IStateInt;
 import org.chocosolver.solver.Model;
 import org.chocosolver.solver.constraints.Propagator;
 import org.chocosolver.solver.constraints.PropagatorPriority;
 import org.chocosolver.solver.exception.ContradictionException;
 import org.chocosolver.solver.explanations.RuleStore;
+import org.chocosolver.solver.search.strategy.decision.DecisionPath;
 import org.chocosolver.solver.variables.BoolVar;
 import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.solver.variables.Variable;
 import org.chocosolver.solver.variables.events.IEventType;
+import org.chocosolver.solver.variables.events.IntEventType;
 import org.chocosolver.util.ESat;
 
 import java.util.*;
+import java.util.function.BiConsumer;
 
 import static org.chocosolver.sat.SatSolver.*;
 
@@ -69,6 +74,11 @@ public class PropNogoods extends Propagator<IntVar> {
      * The 32^th bit is set to 0 for "= value" and to 1 for "<= value".
      */
     private static final long BITOP = 1L << 32L;
+
+    /**
+     * Decay factor of learnt clauses activity
+     */
+    private static final double CLAUSE_DECAY = 0.999;
     /**
      * The underlying SAT solver
      */
@@ -132,6 +142,63 @@ public class PropNogoods extends Propagator<IntVar> {
      */
     private boolean initialized = false;
 
+    /**
+     * Observer notified of each learnt clause and of its permanence, may be <tt>null</tt>
+     */
+    private BiConsumer<int[], java.lang.Boolean> learntObserver;
+
+    /**
+     * Activity of learnt clauses, bumped each time a clause is involved in an explanation
+     */
+    private TObjectDoubleHashMap<SatSolver.Clause> activity;
+
+    /**
+     * Literal Block Distance of learnt clauses, 0 for permanent clauses
+     */
+    private TObjectIntHashMap<SatSolver.Clause> lbds;
+
+    /**
+     * Number of literals in learnt clauses
+     */
+    private long nbLearntLiterals;
+
+    /**
+     * Upper bound on {@link #nbLearntLiterals}, the store is reduced beyond
+     */
+    private long maxLearntLiterals = Long.MAX_VALUE;
+
+    /**
+     * Number of literals in learnt clauses beyond which the store is reduced.
+     * It is {@link #maxLearntLiterals}, unless the clauses kept by the last reduction already exceed it:
+     * then the store has to grow by a quarter before being reduced again.
+     */
+    private long reduceLimit = Long.MAX_VALUE;
+
+    /**
+     * Number of clauses learnt since the last call to {@link #simplifyLearnts()}
+     */
+    private int nbFresh;
+
+    /**
+     * Local-like parameters, to compute LBD: level of a variable, and stamp of the level
+     */
+    private int[] levelOf, levelStamp;
+
+    /**
+     * Local-like parameter, to compute LBD: current stamp
+     */
+    private int lbdStamp;
+
+    /**
+     * Local-like parameter, to compute LBD: distinct levels
+     */
+    private BitSet levels;
+
+    /**
+     * Activity increment, which grows geometrically to favour recently involved clauses
+     */
+    private double clauseInc = 1d;
+
     /**
      * Create a (unique) propagator for no-goods recording and propagation.
      *
@@ -156,6 +223,11 @@ public class PropNogoods extends Propagator<IntVar> {
         test_eq = new BitSet();
         fp = new ArrayDeque<>();
         add_var = new ArrayList<>(16);
+        activity = new TObjectDoubleHashMap<>(16, .5f, 0d);
+        lbds = new TObjectIntHashMap<>(16, .5f, Integer.MAX_VALUE);
+        levelOf = new int[16];
+        levelStamp = new int[16];
+        levels = new BitSet();
     }
 
     @Override
@@ -275,9 +347,10 @@ public class PropNogoods extends Propagator<IntVar> {
                         cnt++;
                     } else break;
                 } else {
-                    if (sign && ivar.getUB() <= ivalue(value)) {
+                    // count the literal when it is falsified
+                    if (sign && ivar.getLB() > ivalue(value)) {
                         cnt++;
-                    } else if (!sign && ivar.getLB() > ivalue(value)) {
+                    } else if (!sign && ivar.getUB() <= ivalue(value)) {
                         cnt++;
                     } else break;
                 }
@@ -543,12 +616,46 @@ public class PropNogoods extends Propagator<IntVar> {
     }
 
     /**
-     * Add learnt clause to no-goods store
+     * Add learnt clause to no-goods store.
+     * The clause may be removed later on, when the store is reduced or simplified.
      *
      * @param lits clause
      */
     public void addLearnt(int... lits) {
+        learn(lits, false);
+    }
+
+    /**
+     * Add learnt clause to no-goods store, which is never removed by {@link #reduceLearnts()}.
+     * This is required when the clause is not implied by the model, for instance to forbid a solution.
+     *
+     * @param lits clause
+     */
+    public void addPermanentLearnt(int... lits) {
+        learn(lits, true);
+    }
+
+    /**
+     * Add learnt clause to no-goods store
+     *
+     * @param lits      clause
+     * @param permanent set to <tt>true</tt> if the clause can never be removed
+     */
+    private void learn(int[] lits, boolean permanent) {
+        if (learntObserver != null) {
+            learntObserver.accept(lits, permanent);
+        }
+        int lbd = permanent ? 0 : lbd(lits);
+        int nl = sat_.nLearnt();
         sat_.learnClause(lits);
+        if (sat_.nLearnt() > nl) {
+            SatSolver.Clause cl = sat_.learnts.get(nl);
+            activity.put(cl, clauseInc);
+            lbds.put(cl, lbd);
+            nbLearntLiterals += cl.size();
+            nbFresh++;
+        }
+        decayActivity();
         // early deductions of learnt clause may lead to incorrect behavior on backtrack
         // since early deduction is not backtrackable.
         forcePropagationOnBacktrack(); // issue#327
@@ -568,11 +675,343 @@ public class PropNogoods extends Propagator<IntVar> {
                         s -= test_eq.get(prev._g(i)) ? 1 : 0;
                     }
                     if (s == 0) { // then last dominates prev
-                        sat_.detachLearnt(c);
+                        if (lbds.get(prev) == 0) {
+                            lbds.put(last, 0);
+                        }
+                        detachLearnt(c);
                     }
                 }
             }
         }
+        if (nbLearntLiterals > reduceLimit) {
+            reduceLearnts();
+        }
+    }
+
+    /**
+     * Compute the Literal Block Distance of a clause, that is, the number of distinct decision levels of its literals.
+     * The level of a literal is the position in the decision path of the last decision made on its variable.
+     * Literals whose variable is not a decision variable each count as a distinct level.
+     *
+     * @param lits a clause
+     * @return an approximation of the LBD of the clause
+     */
+    private int lbd(int[] lits) {
+        DecisionPath dp = model.getSolver().getDecisionPath();
+        lbdStamp++;
+        for (int i = 1; i < dp.size(); i++) {
+            Variable v = dp.getDecision(i).getDecisionVariable();
+            if (v != null) {
+                int vid = v.getId();
+                if (vid >= levelOf.length) {
+                    int nsize = Math.max(vid + 1, levelOf.length * 3 / 2 + 1);
+                    levelOf = Arrays.copyOf(levelOf, nsize);
+                    levelStamp = Arrays.copyOf(levelStamp, nsize);
+                }
+                levelOf[vid] = i;
+                levelStamp[vid] = lbdStamp;
+            }
+        }
+        levels.clear();
+        int lbd = 0;
+        for (int lit : lits) {
+            int vid = getLiteralVariable(lit).getId();
+            if (vid < levelOf.length && levelStamp[vid] == lbdStamp) {
+                levels.set(levelOf[vid]);
+            } else {
+                lbd++;
+            }
+        }
+        return lbd + levels.cardinality();
+    }
+
+    /**
+     * Detach the learnt clause in position <i>c</i> and forget about it.
+     *
+     * @param c index of a learnt clause
+     */
+    private void detachLearnt(int c) {
+        SatSolver.Clause cl = sat_.learnts.get(c);
+        sat_.detachLearnt(c);
+        activity.remove(cl);
+        lbds.remove(cl);
+        nbLearntLiterals -= cl.size();
+    }
+
+    /**
+     * @return the number of learnt clauses currently stored (unit ones excluded)
+     */
+    public int getNbLearnts() {
+        return sat_.nLearnt();
+    }
+
+    /**
+     * @return the number of literals in learnt clauses currently stored
+     */
+    public long getNbLearntLiterals() {
+        return nbLearntLiterals;
+    }
+
+    /**
+     * Set an upper bound on the number of literals stored in learnt clauses.
+     * When it is exceeded, the store is reduced (see {@link #reduceLearnts()}).
+     *
+     * @param maxLearntLiterals maximum number of literals in learnt clauses
+     */
+    public void setMaxLearntLiterals(long maxLearntLiterals) {
+        this.maxLearntLiterals = maxLearntLiterals;
+        this.reduceLimit = maxLearntLiterals;
+    }
+
+    /**
+     * Reduce the database of learnt clauses: half of the reducible learnt clauses (rounded up), the worst ones, are removed.
+     * Clauses are ranked by decreasing LBD then by increasing activity.
+     * Permanent clauses, binary ones, clauses with a LBD less than or equal to 2 (glue clauses)
+     * and clauses which can explain the current domains, that is, those whose watched literals are known,
+     * are always kept, the other ones are reducible.
+     *
+     * @return the number of clauses removed
+     */
+    public int reduceLearnts() {
+        int n = sat_.nLearnt();
+        ArrayList<SatSolver.Clause> candidates = new ArrayList<>();
+        for (int c = 0; c < n; c++) {
+            SatSolver.Clause cl = sat_.learnts.get(c);
+            if (cl.size() > 2 && lbds.get(cl) > 2
+                    && !(litIsKnown(cl._g(0)) && litIsKnown(cl._g(1)))) {
+                candidates.add(cl);
+            }
+        }
+        candidates.sort((c1, c2) -> {
+            int cmp = Integer.compare(lbds.get(c2), lbds.get(c1));
+            return cmp != 0 ? cmp : Double.compare(activity.get(c1), activity.get(c2));
+        });
+        Set<SatSolver.Clause> worst = Collections.newSetFromMap(new IdentityHashMap<>());
+        worst.addAll(candidates.subList(0, (candidates.size() + 1) / 2));
+        for (int c = n - 1; c >= 0; c--) {
+            if (worst.contains(sat_.learnts.get(c))) {
+                detachLearnt(c);
+            }
+        }
+        reduceLimit = Math.max(maxLearntLiterals, nbLearntLiterals + nbLearntLiterals / 4);
+        return worst.size();
+    }
+
+    /**
+     * Simplify the database of learnt clauses, which must be done at root node only:
+     * <ul>
+     * <li>a clause C subsumes a clause D when C &sube; D, then D is removed,</li>
+     * <li>a clause C = A &or; l strengthens a clause D = B &or; &not;l when A &sube; B (self-subsuming resolution),
+     * then &not;l is removed from D (D is kept if it would become unit).</li>
+     * </ul>
+     * It does nothing if no clause has been learnt since the last call.
+     *
+     * @return the number of clauses removed or strengthened
+     */
+    public int simplifyLearnts() {
+        if (nbFresh == 0) {
+            return 0;
+        }
+        nbFresh = 0;
+        int n = sat_.nLearnt();
+        SatSolver.Clause[] cls = sat_.learnts.toArray(new SatSolver.Clause[n]);
+        int[][] lits = new int[n][];
+        TIntObjectHashMap<TIntArrayList> occurrences = new TIntObjectHashMap<>();
+        Integer[] order = new Integer[n];
+        for (int c = 0; c < n; c++) {
+            lits[c] = new int[cls[c].size()];
+            for (int i = 0; i < lits[c].length; i++) {
+                lits[c][i] = cls[c]._g(i);
+                TIntArrayList occ = occurrences.get(lits[c][i]);
+                if (occ == null) {
+                    occ = new TIntArrayList();
+                    occurrences.put(lits[c][i], occ);
+                }
+                occ.add(c);
+            }
+            Arrays.sort(lits[c]);
+            order[c] = c;
+        }
+        Arrays.sort(order, Comparator.comparingInt(c -> lits[c].length));
+        boolean[] removed = new boolean[n];
+        boolean[] strengthened = new boolean[n];
+        int changes = 0;
+        for (int c : order) {
+            if (removed[c]) {
+                continue;
+            }
+            // candidates share the rarest literal of c, or its negation
+            int best = -1, nbest = Integer.MAX_VALUE;
+            for (int l : lits[c]) {
+                int nl = size(occurrences.get(l)) + size(occurrences.get(negated(l)));
+                if (nl < nbest) {
+                    nbest = nl;
+                    best = l;
+                }
+            }
+            for (int l : new int[]{best, negated(best)}) {
+                TIntArrayList occ = occurrences.get(l);
+                for (int k = 0; occ != null && k < occ.size(); k++) {
+                    int d = occ.get(k);
+                    if (d == c || removed[d] || lits[d].length < lits[c].length) {
+                        continue;
+                    }
+                    int flip = subsumes(lits[c], lits[d]);
+                    if (flip == -1) {
+                        // c inherits the LBD of d, thus the permanent status too
+                        lbds.put(cls[c], Math.min(lbds.get(cls[c]), lbds.get(cls[d])));
+                        removed[d] = true;
+                        changes++;
+                    } else if (flip >= 0 && lits[d].length > 2) {
+                        lits[d] = remove(lits[d], negated(flip));
+                        if (!strengthened[d]) {
+                            strengthened[d] = true;
+                            changes++;
+                        }
+                    }
+                }
+            }
+        }
+        if (changes > 0) {
+            Map<SatSolver.Clause, Integer> index = new IdentityHashMap<>();
+            for (int c = 0; c < n; c++) {
+                index.put(cls[c], c);
+            }
+            for (int c = n - 1; c >= 0; c--) {
+                SatSolver.Clause cl = sat_.learnts.get(c);
+                int idx = index.get(cl);
+                if (removed[idx] || strengthened[idx]) {
+                    double act = activity.get(cl);
+                    int lbd = lbds.get(cl);
+                    detachLearnt(c);
+                    if (!removed[idx]) {
+                        int nl = sat_.nLearnt();
+                        sat_.learnClause(lits[idx]);
+                        SatSolver.Clause ncl = sat_.learnts.get(nl);
+                        activity.put(ncl, act);
+                        lbds.put(ncl, Math.min(lbd, ncl.size()));
+                        nbLearntLiterals += ncl.size();
+                    }
+                }
+            }
+            forcePropagationOnBacktrack();
+        }
+        return changes;
+    }
+
+    private static int size(TIntArrayList list) {
+        return list == null ? 0 : list.size();
+    }
+
+    /**
+     * Check whether <i>c</i> subsumes <i>d</i>, possibly with one literal negated.
+     * Both arrays must be sorted, which makes a literal and its negation adjacent.
+     *
+     * @param c a clause
+     * @param d a clause
+     * @return -1 if c &sube; d, a literal l of c if (c \ l) &or; &not;l &sube; d, -2 otherwise
+     */
+    private static int subsumes(int[] c, int[] d) {
+        int flip = -1;
+        int j = 0;
+        for (int l : c) {
+            while (j < d.length && var(d[j]) < var(l)) {
+                j++;
+            }
+            if (j < d.length && d[j] == l || j + 1 < d.length && d[j + 1] == l) {
+                continue;
+            }
+            if (flip == -1 && (j < d.length && d[j] == negated(l) || j + 1 < d.length && d[j + 1] == negated(l))) {
+                flip = l;
+                continue;
+            }
+            return -2;
+        }
+        return flip;
+    }
+
+    private static int[] remove(int[] lits, int lit) {
+        int[] nlits = new int[lits.length - 1];
+        for (int i = 0, j = 0; i < lits.length; i++) {
+            if (lits[i] != lit) {
+                nlits[j++] = lits[i];
+            }
+        }
+        return nlits;
+    }
+
+    /**
+     * Increase the activity of a learnt clause
+     *
+     * @param cl a learnt clause
+     */
+    private void bumpActivity(SatSolver.Clause cl) {
+        if (activity.adjustOrPutValue(cl, clauseInc, clauseInc) > 1e20) {
+            rescaleActivity();
+        }
+    }
+
+    /**
+     * Decay the activity of all learnt clauses, by increasing the activity increment
+     */
+    private void decayActivity() {
+        clauseInc /= CLAUSE_DECAY;
+        if (clauseInc > 1e20) {
+            rescaleActivity();
+        }
+    }
+
+    /**
+     * Scale down activities, to avoid overflow
+     */
+    private void rescaleActivity() {
+        activity.transformValues(a -> a * 1e-20);
+        clauseInc *= 1e-20;
+    }
+
+    /**
+     * Set an observer which is notified of each clause added with {@link #addLearnt(int...)} or
+     * {@link #addPermanentLearnt(int...)}, before the clause is added to the store.
+     * The second argument is <tt>true</tt> for permanent clauses.
+     * The observer should not modify the array of literals.
+     *
+     * @param observer an observer, or <tt>null</tt> to remove the current one
+     */
+    public void setLearntObserver(BiConsumer<int[], java.lang.Boolean> observer) {
+        this.learntObserver = observer;
+    }
+
+    /**
+     * @param lit a literal created by {@link #Literal(IntVar, int, boolean)}, or its negation
+     * @return the integer variable the literal refers to
+     */
+    public IntVar getLiteralVariable(int lit) {
+        int pos = lit2pos[var(lit)];
+        return initialized ? vars[pos] : add_var.get(pos);
+    }
+
+    /**
+     * @param lit a literal created by {@link #Literal(IntVar, int, boolean)}, or its negation
+     * @return the value the literal refers to
+     */
+    public int getLiteralValue(int lit) {
+        return ivalue(lit2val[var(lit)]);
+    }
+
+    /**
+     * @param lit a literal created by {@link #Literal(IntVar, int, boolean)}, or its negation
+     * @return <tt>true</tt> if the literal encodes '=', <tt>false</tt> if it encodes '&le;'.
+     */
+    public boolean isEqLiteral(int lit) {
+        return iseq(lit2val[var(lit)]);
+    }
+
+    /**
+     * @param lit a literal created by {@link #Literal(IntVar, int, boolean)}, or its negation
+     * @return <tt>true</tt> if the literal is positive, <tt>false</tt> if it is negated.
+     */
+    public boolean isPositiveLiteral(int lit) {
+        return sign(lit);
     }
 
     private void storeEarlyDeductions() {
@@ -611,10 +1050,16 @@ public class PropNogoods extends Propagator<IntVar> {
         // but the clauses and implications may be lost (cf. propagate)
 
         // get the index of the variable in the sat solver
-        int var = vv2lit[ivar.getId()].get(ivalue);
-        boolean new_value = true;
-        if (!ivar.contains(ivalue)) {
-            new_value = false;
+        int var;
+        boolean new_value;
+        if (evt == IntEventType.INCLOW || evt == IntEventType.DECUPP) {
+            // a bound has been modified by a [ x <= d ] literal
+            int d = evt == IntEventType.INCLOW ? ivalue - 1 : ivalue;
+            var = vv2lit[ivar.getId()].get(leq(d));
+            new_value = ivar.getUB() <= d;
+        } else {
+            var = vv2lit[ivar.getId()].get(ivalue);
+            new_value = ivar.contains(ivalue);
         }
         int lit = makeLiteral(var, new_value);
         int neg = negated(lit);
@@ -689,6 +1134,7 @@ public class PropNogoods extends Propagator<IntVar> {
         boolean newrules = false;
         // if the variable watches
         if (cl._g(0) == neg || cl._g(0) == lit || cl._g(1) == neg || cl._g(1) == lit) {
+            bumpActivity(cl);
             for (int d = cl.size() - 1; d >= 0; d--) {
                 newrules |= _why(cl._g(d), ruleStore);
             }
@@ -699,6 +1145,7 @@ public class PropNogoods extends Propagator<IntVar> {
                 int p = cl.pos(neg);
                 int q = cl.pos(lit);
                 if (p > -1 || q > -1) { // we found a clause where neg is in
+                    bumpActivity(cl);
                     for (int d = cl.size() - 1; d >= 0; d--) {
                         newrules |= _why(cl._g(d), ruleStore);
                     }
@@ -0,0 +1,507 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver;
+
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.exception.SolverException;
+import org.chocosolver.solver.search.loop.monitors.IMonitorSolution;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.Variable;
+import org.chocosolver.util.criteria.Criterion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ *     An Embarrassingly Parallel Search (EPS) helper.
+ * </p>
+ * <p>
+ *     Contrary to {@link ParallelPortfolio}, which runs differently-configured copies of the same model
+ *     on the whole search space, this class splits the search space into many sub-problems
+ *     and dispatches them among the models (the workers).
+ *     The resolution of a problem is made of three steps:
+ *      <ol>
+ *          <li>adding models to be run in parallel,</li>
+ *          <li>running resolution in parallel,</li>
+ *          <li>getting the model which finds a solution (or the best one), if any.</li>
+ *      </ol>
+ *      Contrary to the portfolio approach, <b>the models have to be identical</b>:
+ *      same variables declared in the same order and same constraints.
+ *      The decision variables are the integer variables of the declared search strategy,
+ *      or the integer variables of the model if no search strategy is declared.
+ * </p>
+ * <p>
+ *     The decomposition is computed on the first model.
+ *     It is a breadth-first expansion of the root node where each level assigns the (non-instantiated) decision variable
+ *     with the smallest domain, until at least <i>nbWorkers * subProblemsPerWorker</i> sub-problems exist.
+ *     Sub-problems proved infeasible by propagation during the expansion are discarded.
+ *     Each sub-problem is a prefix of decisions <i>x = v</i> which is posted as temporary constraints in a worker.
+ * </p>
+ * <p>
+ *     The sub-problems are dealt to the workers' deques in round-robin.
+ *     A worker pops sub-problems from the head of its own deque and,
+ *     once it is empty, steals sub-problems from the tail of the other workers' deques.
+ * </p>
+ * <p>
+ *     When dealing with an optimization problem, the cut on the objective variable's value is propagated
+ *     to all models on solution, through their {@link org.chocosolver.solver.objective.ObjectiveManager}.
+ *     It is essential to eagerly declare the objective variable(s) with {@link Model#setObjective(boolean, Variable)}.
+ *     The search of a worker being reset between two sub-problems, the best solution is stored
+ *     in a {@link Solution} object, available through {@link #getBestSolution()}.
+ * </p>
+ * <p>
+ *     Example of use.
+ *
+ * <pre>
+ * <code>ParallelEPS eps = new ParallelEPS();
+ * int n = 4; // number of models to use
+ * for (int i = 0; i < n; i++) {
+ *      eps.addModel(modeller());
+ * }
+ * if(eps.solve()){
+ *      System.out.println(eps.getBestSolution());
+ * }
+ * </code>
+ * </pre>
+ *
+ * </p>
+ *
+ * <p>
+ * Project: choco.
+ * @author Charles Prud'homme
+ * @since 18/10/2016.
+ */
+public class ParallelEPS {
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////       VARIABLES       //////////////////////////////////////////////////////
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    /** List of {@link Model}s to be executed in parallel. */
+    private final List<Model> models;
+
+    /** Expected number of sub-problems per worker. */
+    private final int subProblemsPerWorker;
+
+    /** Per model, the decision variables, in the same order for every model. */
+    private IntVar[][] decisionVars;
+
+    /** Per worker, the deque of sub-problems to solve, stored as flatten pairs (variable index, value) */
+    private ConcurrentLinkedDeque<int[]>[] deques;
+
+    /** Stores whether or not prepare() method has been called */
+    private boolean isPrepared = false;
+
+    /** Set to <tt>true</tt> to stop all the workers, read by their stop criterion */
+    private final AtomicBoolean solverTerminated = new AtomicBoolean(false);
+    /** Set to <tt>true</tt> when a worker found a solution */
+    private final AtomicBoolean solutionFound = new AtomicBoolean(false);
+
+    /** Number of sub-problems generated by the last decomposition */
+    private int nbSubProblems;
+
+    /** Number of nodes explored by all the workers */
+    private AtomicLong nodeCount = new AtomicLong();
+
+    /** Set to <tt>true</tt> when every sub-problem has been entirely explored */
+    private boolean completed;
+
+    /** Point to (one of) the solver(s) which found a solution */
+    private Model finder;
+
+    /** Best solution found so far */
+    private Solution bestSolution;
+
+    /** Value of the objective variable in the best solution found so far */
+    private int bestValue;
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////      CONSTRUCTOR      //////////////////////////////////////////////////////
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Creates a new ParallelEPS.
+     * This class stores the models to be executed in parallel in a {@link ArrayList} initially empty.
+     *
+     * @param subProblemsPerWorker expected number of sub-problems per worker (should be strictly positive).
+     *                             The literature suggests about 30 sub-problems per worker.
+     */
+    public ParallelEPS(int subProblemsPerWorker) {
+        if (subProblemsPerWorker < 1) {
+            throw new SolverException("The number of sub-problems per worker should be strictly positive");
+        }
+        this.models = new ArrayList<>();
+        this.subProblemsPerWorker = subProblemsPerWorker;
+    }
+
+    /**
+     * Creates a new ParallelEPS which generates about 30 sub-problems per worker.
+     * This class stores the models to be executed in parallel in a {@link ArrayList} initially empty.
+     */
+    public ParallelEPS() {
+        this(30);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////          API          //////////////////////////////////////////////////////
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * <p>
+     * Adds a model to the list of models to run in parallel.
+     * </p>
+     * <p>
+     *     <b>Important:</b>
+     *  <ul>
+     *      <li>all the models have to be identical, since sub-problems are expressed
+     *      using the index of the decision variables.
+     *  </li>
+     *  <li>
+     *      when dealing with optimization problems, the objective variables <b>HAVE</b> to be declared eagerly with
+     *      {@link Model#setObjective(boolean, Variable)}.
+     *  </li>
+     *  </ul>
+     *
+     * </p>
+     * @param model a model to add
+     */
+    public void addModel(Model model) {
+        this.models.add(model);
+    }
+
+    /**
+     * Decomposes the problem and solves every sub-problem in parallel.
+     * A satisfaction problem stops on the first solution found,
+     * an optimization problem is solved to optimality (unless a stop criterion is met).
+     * This method is designed to be called once.
+     *
+     * <p>
+     * Note that a call to {@link #getBestModel()} returns a model which has found the best solution,
+     * and {@link #getBestSolution()} returns the best solution.
+     * </p>
+     * @return <code>true</code> if and only if at least one solution has been found.
+     * @throws SolverException if no model has been added.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean solve() {
+        solverTerminated.set(false);
+        solutionFound.set(false);
+        if (!isPrepared) {
+            prepare();
+        }
+        nodeCount.set(0);
+        List<int[]> subproblems = decompose(models.get(0), decisionVars[0], models.size() * subProblemsPerWorker);
+        nbSubProblems = subproblems.size();
+        deques = new ConcurrentLinkedDeque[models.size()];
+        for (int i = 0; i < deques.length; i++) {
+            deques[i] = new ConcurrentLinkedDeque<>();
+        }
+        for (int i = 0; i < subproblems.size(); i++) {
+            deques[i % deques.length].addLast(subproblems.get(i));
+        }
+        ForkJoinPool forkJoinPool = new ForkJoinPool(models.size());
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(models.size());
+        for (int i = 0; i < models.size(); i++) {
+            int wid = i;
+            tasks.add(forkJoinPool.submit(() -> work(wid)));
+        }
+        try {
+            for (ForkJoinTask<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            e.printStackTrace();
+        }
+        forkJoinPool.shutdownNow();
+        // a worker terminates the resolution either on a solution (satisfaction only) or on a stop criterion
+        completed = !solverTerminated.get() || solutionFound.get()
+                && models.get(0).getResolutionPolicy() == ResolutionPolicy.SATISFACTION;
+        solverTerminated.set(false);// otherwise, solver.isStopCriterionMet() always returns true
+        return solutionFound.get();
+    }
+
+    /**
+     * Returns the first model from the list which, either :
+     * <ul>
+     *     <li>
+     *         finds a solution when dealing with a satisfaction problem,
+     *     </li>
+     *     <li>
+     *         or finds the best solution when dealing with an optimization problem.
+     *     </li>
+     * </ul>
+     * or <tt>null</tt> if no such model exists.
+     *
+     * @return the first model which finds a solution (or the best one) or <tt>null</tt> if no such model exists.
+     */
+    public Model getBestModel() {
+        return finder;
+    }
+
+    /**
+     * @return the (best) solution found, or <tt>null</tt> if no solution was found.
+     * The solution refers to the variables of {@link #getBestModel()}.
+     */
+    public Solution getBestSolution() {
+        return bestSolution;
+    }
+
+    /**
+     * @return the (mutable!) list of models used in this ParallelEPS
+     */
+    public List<Model> getModels() {
+        return models;
+    }
+
+    /**
+     * @return the number of sub-problems generated by the last call to {@link #solve()}
+     */
+    public int getNbSubProblems() {
+        return nbSubProblems;
+    }
+
+    /**
+     * @return the total number of nodes explored by the workers during the last call to {@link #solve()}
+     */
+    public long getNodeCount() {
+        return nodeCount.get();
+    }
+
+    /**
+     * @return <tt>true</tt> if the last call to {@link #solve()} explored the search space entirely,
+     * that is, when dealing with an optimization problem, the best solution is proven to be optimal.
+     */
+    public boolean isSearchCompleted() {
+        return completed;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////////////////   INTERNAL METHODS    //////////////////////////////////////////////////////
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    private void prepare() {
+        isPrepared = true;
+        check();
+        decisionVars = new IntVar[models.size()][];
+        for (int i = 0; i < models.size(); i++) {
+            Solver s = models.get(i).getSolver();
+            s.addStopCriterion((Criterion) () -> solverTerminated.get());
+            s.plugMonitor((IMonitorSolution) () -> updateFromSolution(s.getModel()));
+            decisionVars[i] = getDecisionVariables(models.get(i));
+            if (decisionVars[i].length != decisionVars[0].length) {
+                throw new SolverException("The models of a ParallelEPS should be identical");
+            }
+        }
+    }
+
+    private static IntVar[] getDecisionVariables(Model model) {
+        Solver solver = model.getSolver();
+        if (solver.getSearch() != null && solver.getSearch().getVariables().length > 0) {
+            Variable[] vars = solver.getSearch().getVariables();
+            IntVar[] ivars = new IntVar[vars.length];
+            int k = 0;
+            for (Variable v : vars) {
+                if ((v.getTypeAndKind() & Variable.INT) != 0) {
+                    ivars[k++] = (IntVar) v;
+                }
+            }
+            return Arrays.copyOf(ivars, k);
+        }
+        return model.retrieveIntVars(true);
+    }
+
+    /**
+     * Splits the search space of <i>model</i> into, at least, <i>nbSP</i> sub-problems (if possible).
+     * The state of the model is restored on exit.
+     * @param model the model to decompose
+     * @param vars the decision variables
+     * @param nbSP expected number of sub-problems
+     * @return a list of sub-problems, each of them being a flatten array of pairs (variable index, value)
+     */
+    private static List<int[]> decompose(Model model, IntVar[] vars, int nbSP) {
+        Solver solver = model.getSolver();
+        IEnvironment env = model.getEnvironment();
+        int world = env.getWorldIndex();
+        List<int[]> frontier = new ArrayList<>();
+        env.worldPush();
+        try {
+            solver.propagate();
+            frontier.add(new int[0]);
+        } catch (ContradictionException e) {
+            solver.getEngine().flush();
+        }
+        boolean expanded = true;
+        while (frontier.size() > 0 && frontier.size() < nbSP && expanded) {
+            expanded = false;
+            List<int[]> next = new ArrayList<>(frontier.size() * 2);
+            for (int[] sp : frontier) {
+                env.worldPush();
+                try {
+                    for (int i = 0; i < sp.length; i += 2) {
+                        vars[sp[i]].instantiateTo(sp[i + 1], Cause.Null);
+                    }
+                    solver.propagate();
+                    int var = -1;
+                    for (int i = 0; i < vars.length; i++) {
+                        if (!vars[i].isInstantiated() && (var == -1 || vars[i].getDomainSize() < vars[var].getDomainSize())) {
+                            var = i;
+                        }
+                    }
+                    if (var == -1) {
+                        next.add(sp);
+                    } else {
+                        expanded = true;
+                        int ub = vars[var].getUB();
+                        for (int v = vars[var].getLB(); v <= ub; v = vars[var].nextValue(v)) {
+                            int[] child = Arrays.copyOf(sp, sp.length + 2);
+                            child[sp.length] = var;
+                            child[sp.length + 1] = v;
+                            next.add(child);
+                        }
+                    }
+                } catch (ContradictionException e) {
+                    // the sub-problem has no solution, it is discarded
+                    solver.getEngine().flush();
+                }
+                env.worldPop();
+            }
+            frontier = next;
+        }
+        env.worldPopUntil(world);
+        return frontier;
+    }
+
+    /**
+     * Solves sub-problems with the worker <i>wid</i> until there are no more sub-problems
+     * or the resolution is terminated.
+     * @param wid index of the worker
+     */
+    private void work(int wid) {
+        Model model = models.get(wid);
+        Solver solver = model.getSolver();
+        IntVar[] vars = decisionVars[wid];
+        boolean satPb = model.getResolutionPolicy() == ResolutionPolicy.SATISFACTION;
+        int[] sp;
+        while (!solverTerminated.get() && (sp = nextSubProblem(wid)) != null) {
+            Constraint[] cstrs = new Constraint[sp.length / 2];
+            for (int i = 0; i < sp.length; i += 2) {
+                cstrs[i / 2] = model.arithm(vars[sp[i]], "=", sp[i + 1]);
+            }
+            model.post(cstrs);
+            boolean found;
+            if (satPb) {
+                found = solver.solve();
+            } else {
+                //noinspection StatementWithEmptyBody
+                while (solver.solve()) ;
+                found = false;
+            }
+            nodeCount.addAndGet(solver.getNodeCount());
+            if (found) {
+                // keep the solver on the solution
+                solverTerminated.set(true);
+                return;
+            }
+            if (solver.isStopCriterionMet()) {
+                solverTerminated.set(true);
+            }
+            solver.reset();
+            for (int i = cstrs.length - 1; i >= 0; i--) {
+                model.unpost(cstrs[i]);
+            }
+        }
+    }
+
+    /**
+     * Pops the next sub-problem from the head of the deque of the worker <i>wid</i>,
+     * or steals one from the tail of another worker's deque.
+     * @param wid index of the worker
+     * @return a sub-problem, or <tt>null</tt> if there is no more sub-problem
+     */
+    private int[] nextSubProblem(int wid) {
+        int[] sp = deques[wid].pollFirst();
+        for (int k = 1; sp == null && k < deques.length; k++) {
+            sp = deques[(wid + k) % deques.length].pollLast();
+        }
+        return sp;
+    }
+
+    private synchronized void updateFromSolution(Model m) {
+        if (m.getResolutionPolicy() == ResolutionPolicy.SATISFACTION) {
+            if (!solutionFound.get()) {
+                finder = m;
+                bestSolution = new Solution(m, m.getVars()).record();
+                solutionFound.set(true);
+            }
+        } else {
+            int solverVal = ((IntVar) m.getObjective()).getValue();
+            boolean improved = !solutionFound.get()
+                    || (m.getResolutionPolicy() == ResolutionPolicy.MAXIMIZE ?
+                    solverVal > bestValue : solverVal < bestValue);
+            if (improved) {
+                solutionFound.set(true);
+                finder = m;
+                bestValue = solverVal;
+                bestSolution = new Solution(m, m.getVars()).record();
+                if (m.getResolutionPolicy() == ResolutionPolicy.MAXIMIZE) {
+                    models.forEach(s1 -> s1.getSolver().getObjectiveManager().updateBestLB(solverVal));
+                } else {
+                    models.forEach(s1 -> s1.getSolver().getObjectiveManager().updateBestUB(solverVal));
+                }
+            }
+        }
+    }
+
+    private void check() {
+        if (models.size() == 0) {
+            throw new SolverException("No model found in the ParallelEPS.");
+        }
+        if (models.get(0).getResolutionPolicy() != ResolutionPolicy.SATISFACTION) {
+            Variable objective = models.get(0).getObjective();
+            if (objective == null) {
+                throw new UnsupportedOperationException("No objective has been defined");
+            }
+            if ((objective.getTypeAndKind() & Variable.REAL) != 0) {
+                throw new UnsupportedOperationException("ParallelEPS cannot deal with " +
+                        "real variable objective optimization problems");
+            }
+        }
+    }
+}
@@ -0,0 +1,372 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver;
+
+import org.chocosolver.solver.exception.SolverException;
+import org.chocosolver.solver.search.SearchState;
+import org.chocosolver.solver.search.limits.FailCounter;
+import org.chocosolver.solver.search.limits.ICounter;
+import org.chocosolver.solver.search.loop.lns.neighbors.*;
+import org.chocosolver.solver.search.loop.monitors.IMonitorSolution;
+import org.chocosolver.solver.search.strategy.assignments.DecisionOperator;
+import org.chocosolver.solver.search.strategy.decision.DecisionPath;
+import org.chocosolver.solver.search.strategy.decision.IntDecision;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.util.criteria.Criterion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+/**
+ * A driver which runs Large Neighborhood Searches in parallel, on models describing the same optimization problem.
+ * <p>
+ * Each worker model relaxes the best solution it knows with its own neighborhood.
+ * Every improving solution is published to an incumbent shared by the workers.
+ * On each restart of a worker (a new solution, an exhausted fragment or its {@link ICounter} being met),
+ * the worker is re-seeded when the incumbent is better than its own best solution:
+ * the decision variables are fixed to the values of the incumbent, so that the worker finds it again
+ * and its neighborhood records it as the solution to relax.
+ * A worker runs a regular search until it finds its first solution.
+ * <p>
+ * By default, the workers run, in turn, a random neighborhood, a propagation-guided one,
+ * a reverse propagation-guided one and a sequence of them, each with its own seed.
+ * <pre>
+ * {@code
+ *     ParallelLNS plns = new ParallelLNS();
+ *     for (int i = 0; i < 4; i++) {
+ *         Model m = makeModel();
+ *         m.getSolver().limitTime("10s");
+ *         plns.addModel(m, (IntVar[]) m.getHook("decisions"));
+ *     }
+ *     plns.solve();
+ *     int[] best = plns.getBestValues();
+ * }
+ * </pre>
+ * <p>
+ * <b>Important:</b> the models must be identical, their objective must be declared with
+ * {@link Model#setObjective(boolean, org.chocosolver.solver.variables.Variable)},
+ * and the variables given to each of them must correspond one-to-one.
+ * <br/>
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class ParallelLNS {
+
+    /** List of {@link Model}s to be executed in parallel. */
+    private final List<Model> models = new ArrayList<>();
+
+    /** Per model, the variables to relax */
+    private final List<IntVar[]> variables = new ArrayList<>();
+
+    /** Per model, the neighborhood, or <tt>null</tt> for the default one */
+    private final List<INeighbor> neighbors = new ArrayList<>();
+
+    /** Per model, the restart counter, or <tt>null</tt> for the default one */
+    private final List<ICounter> counters = new ArrayList<>();
+
+    /** Stores whether or not prepare() method has been called */
+    private boolean isPrepared = false;
+
+    /** Set to <tt>true</tt> when a worker has explored its whole search space */
+    private final AtomicBoolean solverTerminated = new AtomicBoolean(false);
+
+    /** The best solution found so far */
+    private final AtomicReference<Incumbent> incumbent = new AtomicReference<>();
+
+    /** Default number of fails before a worker restarts */
+    private static final int FAIL_LIMIT = 200;
+
+    /**
+     * Adds a model to the workers, with the default neighborhood and restart counter.
+     *
+     * @param model a populated model
+     * @param vars  variables of <i>model</i> to relax
+     */
+    public void addModel(Model model, IntVar[] vars) {
+        addModel(model, vars, null, null);
+    }
+
+    /**
+     * Adds a model to the workers.
+     *
+     * @param model    a populated model
+     * @param vars     variables of <i>model</i> to relax
+     * @param neighbor the neighborhood of the worker, built on <i>vars</i>, or <tt>null</tt> for the default one
+     * @param counter  the restart counter of the worker, or <tt>null</tt> for the default one
+     */
+    public void addModel(Model model, IntVar[] vars, INeighbor neighbor, ICounter counter) {
+        if (isPrepared) {
+            throw new SolverException("No model can be added once the ParallelLNS has been run.");
+        }
+        models.add(model);
+        variables.add(vars);
+        neighbors.add(neighbor);
+        counters.add(counter);
+    }
+
+    /**
+     * Runs the LNS of every model in parallel, until each of them has met one of its stop criteria,
+     * or until one of them has explored its whole search space (which proves the optimality of the incumbent).
+     *
+     * @return <code>true</code> if and only if a solution has been found
+     * @throws SolverException if no model has been added or if the models are not suited
+     */
+    public boolean solve() {
+        solverTerminated.set(false);
+        if (!isPrepared) {
+            prepare();
+        }
+        ForkJoinPool forkJoinPool = new ForkJoinPool(models.size());
+        try {
+            forkJoinPool.submit(() -> IntStream.range(0, models.size()).parallel().forEach(i -> {
+                Solver s = models.get(i).getSolver();
+                //noinspection StatementWithEmptyBody
+                while (!solverTerminated.get() && s.solve()) ;
+                if (s.getSearchState() == SearchState.TERMINATED) {
+                    solverTerminated.set(true);
+                }
+            })).get();
+        } catch (InterruptedException | ExecutionException e) {
+            e.printStackTrace();
+        }
+        forkJoinPool.shutdownNow();
+        return incumbent.get() != null;
+    }
+
+    /**
+     * @return <tt>true</tt> if a worker has explored its whole search space, thus the incumbent is optimal
+     */
+    public boolean isOptimal() {
+        return solverTerminated.get() && incumbent.get() != null;
+    }
+
+    /**
+     * @return the model which found the best solution, or <tt>null</tt> if no solution has been found
+     */
+    public Model getBestModel() {
+        Incumbent inc = incumbent.get();
+        return inc == null ? null : models.get(inc.wid);
+    }
+
+    /**
+     * @return the objective value of the best solution
+     * @throws SolverException if no solution has been found
+     */
+    public int getBestObjective() {
+        return best().objective;
+    }
+
+    /**
+     * @return a copy of the values of the relaxed variables in the best solution
+     * @throws SolverException if no solution has been found
+     */
+    public int[] getBestValues() {
+        return best().values.clone();
+    }
+
+    /**
+     * @return the (mutable!) list of models used in this ParallelLNS
+     */
+    public List<Model> getModels() {
+        return models;
+    }
+
+    private Incumbent best() {
+        Incumbent inc = incumbent.get();
+        if (inc == null) {
+            throw new SolverException("No solution has been found yet.");
+        }
+        return inc;
+    }
+
+    private void prepare() {
+        isPrepared = true;
+        check();
+        for (int i = 0; i < models.size(); i++) {
+            int wid = i;
+            Model model = models.get(i);
+            IntVar[] vars = variables.get(i);
+            Solver s = model.getSolver();
+            s.addStopCriterion((Criterion) solverTerminated::get);
+            s.plugMonitor((IMonitorSolution) () -> publish(wid));
+            INeighbor neighbor = neighbors.get(i) == null ? defaultNeighbor(vars, i) : neighbors.get(i);
+            ICounter counter = counters.get(i) == null ? new FailCounter(model, FAIL_LIMIT) : counters.get(i);
+            s.setLNS(new Reseeding(wid, neighbor), counter);
+        }
+    }
+
+    private void check() {
+        if (models.size() == 0) {
+            throw new SolverException("No model found in the ParallelLNS.");
+        }
+        for (int i = 0; i < models.size(); i++) {
+            Model m = models.get(i);
+            if (m.getResolutionPolicy() == ResolutionPolicy.SATISFACTION || m.getObjective() == null) {
+                throw new SolverException("ParallelLNS only deals with optimization problems, " +
+                        "the objective of each model has to be declared");
+            }
+            if (!(m.getObjective() instanceof IntVar)) {
+                throw new UnsupportedOperationException("ParallelLNS cannot deal with " +
+                        "real variable objective optimization problems");
+            }
+            if (variables.get(i).length != variables.get(0).length) {
+                throw new SolverException("The variables to relax of each model must correspond one-to-one.");
+            }
+        }
+    }
+
+    private static INeighbor defaultNeighbor(IntVar[] vars, int wid) {
+        switch (wid % 4) {
+            case 0:
+                return new RandomNeighborhood(vars, 3, wid);
+            case 1:
+                return new PropagationGuidedNeighborhood(vars, 30, 10, wid);
+            case 2:
+                return new ReversePropagationGuidedNeighborhood(vars, 30, 10, wid);
+            default:
+                return new SequenceNeighborhood(
+                        new PropagationGuidedNeighborhood(vars, 30, 10, wid),
+                        new ReversePropagationGuidedNeighborhood(vars, 30, 10, wid),
+                        new RandomNeighborhood(vars, 3, wid));
+        }
+    }
+
+    /**
+     * Publishes the solution found by the worker <i>wid</i>, if it is better than the incumbent.
+     * @param wid index of a worker which has just found a solution
+     */
+    private void publish(int wid) {
+        Model m = models.get(wid);
+        int value = ((IntVar) m.getObjective()).getValue();
+        boolean max = m.getResolutionPolicy() == ResolutionPolicy.MAXIMIZE;
+        Incumbent inc = incumbent.get();
+        if (inc != null && !better(value, inc.objective, max)) {
+            return;
+        }
+        IntVar[] vars = variables.get(wid);
+        int[] values = new int[vars.length];
+        for (int i = 0; i < vars.length; i++) {
+            values[i] = vars[i].getValue();
+        }
+        Incumbent candidate = new Incumbent(wid, value, values);
+        while (!incumbent.compareAndSet(inc, candidate)) {
+            inc = incumbent.get();
+            if (inc != null && !better(value, inc.objective, max)) {
+                return;
+            }
+        }
+    }
+
+    private static boolean better(int a, int b, boolean max) {
+        return max ? a > b : a < b;
+    }
+
+    /**
+     * An immutable solution: objective value and values of the relaxed variables
+     */
+    private static final class Incumbent {
+        /** Index of the worker which found it */
+        private final int wid;
+        private final int objective;
+        private final int[] values;
+
+        private Incumbent(int wid, int objective, int[] values) {
+            this.wid = wid;
+            this.objective = objective;
+            this.values = values;
+        }
+    }
+
+    /**
+     * Neighborhood of a worker: it delegates to the actual neighborhood,
+     * except when the incumbent is better than the last solution of the worker.
+     * In that case, all the relaxed variables are fixed to the incumbent.
+     */
+    private final class Reseeding implements INeighbor {
+
+        /** Index of the worker */
+        private final int wid;
+        /** The actual neighborhood */
+        private final INeighbor neighbor;
+        /** Objective value of the last solution found by the worker */
+        private int last;
+        /** Set to <tt>true</tt> when the current fragment is the incumbent */
+        private boolean reseeded;
+
+        private Reseeding(int wid, INeighbor neighbor) {
+            this.wid = wid;
+            this.neighbor = neighbor;
+        }
+
+        @Override
+        public void init() {
+            neighbor.init();
+        }
+
+        @Override
+        public void recordSolution() {
+            last = ((IntVar) models.get(wid).getObjective()).getValue();
+            neighbor.recordSolution();
+        }
+
+        @Override
+        public void fixSomeVariables(DecisionPath decisionPath) {
+            Incumbent inc = incumbent.get();
+            reseeded = inc != null && better(inc.objective, last, models.get(wid).getResolutionPolicy() == ResolutionPolicy.MAXIMIZE);
+            if (reseeded) {
+                IntVar[] vars = variables.get(wid);
+                for (int i = 0; i < vars.length; i++) {
+                    IntDecision decision = decisionPath.makeIntDecision(vars[i], DecisionOperator.int_eq, inc.values[i]);
+                    decision.setRefutable(false);
+                    decisionPath.pushDecision(decision);
+                }
+            } else {
+                neighbor.fixSomeVariables(decisionPath);
+            }
+        }
+
+        @Override
+        public void restrictLess() {
+            neighbor.restrictLess();
+        }
+
+        @Override
+        public boolean isSearchComplete() {
+            // exploring the incumbent fragment does not prove anything
+            return !reseeded && neighbor.isSearchComplete();
+        }
+    }
+}
@@ -29,15 +29,21 @@
  */
 package org.chocosolver.solver;
 
+import gnu.trove.map.hash.TIntObjectHashMap;
+import org.chocosolver.sat.PropNogoods;
+import org.chocosolver.sat.SatSolver;
 import org.chocosolver.solver.exception.SolverException;
 import org.chocosolver.solver.search.limits.FailCounter;
 import org.chocosolver.solver.search.loop.lns.INeighborFactory;
+import org.chocosolver.solver.search.loop.monitors.IMonitorDownBranch;
+import org.chocosolver.solver.search.loop.monitors.IMonitorRestart;
 import org.chocosolver.solver.search.loop.monitors.IMonitorSolution;
 import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.solver.variables.RealVar;
 import org.chocosolver.solver.variables.SetVar;
 import org.chocosolver.solver.variables.Variable;
 import org.chocosolver.util.criteria.Criterion;
+import org.chocosolver.util.objects.queues.BroadcastRing;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -45,6 +51,7 @@ import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.chocosolver.solver.search.strategy.Search.*;
 
@@ -75,6 +82,10 @@ import static org.chocosolver.solver.search.strategy.Search.*;
  *     Moreover, when dealing with an optimization problem, cut on the objective variable's value is propagated
  *     to all models on solution.
  *     It is essential to eagerly declare the objective variable(s) with {@link Model#setObjective(boolean, Variable)}.
+ *     The synchronization is lock-free: the best bound is published in an atomic cell that each model polls
+ *     before going down in its search tree.
+ *     Models which declare a no-good store (see {@link Model#getNogoodStore()}) also publish the no-goods they learn
+ *     in a bounded ring, and import the no-goods learnt by the other models on restart.
  *
  * </p>
  * <p>
@@ -126,11 +137,26 @@ public class ParallelPortfolio {
     /** Stores whether or not prepare() method has been called */
     private boolean isPrepared = false;
 
-    private AtomicBoolean solverTerminated = new AtomicBoolean(false);
-    private AtomicBoolean solutionFound = new AtomicBoolean(false);
+    /** Maximum number of no-goods a model keeps for the other ones */
+    private static final int RING_SIZE = 1024;
 
-    /** Point to (one of) the solver(s) which found a solution */
-    private Model finder;
+    /** Maximum number of literals of a learnt no-good to share it, permanent ones are always shared */
+    private static final int MAX_SHARED_NOGOOD_SIZE = 16;
+
+    /** Value of {@link #best} when no solution has been found */
+    private static final long NONE = 0L;
+
+    private final AtomicBoolean solverTerminated = new AtomicBoolean(false);
+    private final AtomicBoolean solutionFound = new AtomicBoolean(false);
+
+    /**
+     * Best bound and (one of) the model(s) which found it, packed into a long:
+     * the 32 upper bits store the bound, the 32 lower bits store the index of the model plus one.
+     */
+    private final AtomicLong best = new AtomicLong(NONE);
+
+    /** Per model, the no-goods it learnt, or <tt>null</tt> if it does not record no-goods */
+    private BroadcastRing<int[]>[] nogoods;
 
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     ///////////////////////////////////////      CONSTRUCTOR      //////////////////////////////////////////////////////
@@ -195,8 +221,8 @@ public class ParallelPortfolio {
      * @throws SolverException if no model or only model has been added.
      */
     public boolean solve() {
-        getSolverTerminated().set(false);
-        getSolutionFound().set(false);
+        solverTerminated.set(false);
+        solutionFound.set(false);
         if (!isPrepared) {
             prepare();
         }
@@ -204,10 +230,10 @@ public class ParallelPortfolio {
         try {
             forkJoinPool.submit(() -> {
                 models.parallelStream().forEach(m -> {
-                    if (!getSolverTerminated().get()) {
+                    if (!solverTerminated.get()) {
                         boolean so = m.getSolver().solve();
-                        if (so && finder == m || !so) {
-                            getSolverTerminated().set(true);
+                        if (so && getBestModel() == m || !so) {
+                            solverTerminated.set(true);
                         }
                     }
                 });
@@ -216,8 +242,13 @@ public class ParallelPortfolio {
             e.printStackTrace();
         }
         forkJoinPool.shutdownNow();
-        getSolverTerminated().set(false);// otherwise, solver.isStopCriterionMet() always returns true
-        if(getSolutionFound().get() && models.get(0).getResolutionPolicy()!=ResolutionPolicy.SATISFACTION) {
+        long cell = best.get();
+        if (cell != NONE && models.get(0).getResolutionPolicy() != ResolutionPolicy.SATISFACTION) {
+            // no resolution is running anymore, bounds can be safely updated
+            models.forEach(m -> updateBound(m, bound(cell)));
+        }
+        solverTerminated.set(false);// otherwise, solver.isStopCriterionMet() always returns true
+        if(solutionFound.get() && models.get(0).getResolutionPolicy()!=ResolutionPolicy.SATISFACTION) {
             int bestAll = getBestModel().getSolver().getBestSolutionValue().intValue();
             for (Model m : models) {
                 int mVal = m.getSolver().getBestSolutionValue().intValue();
@@ -228,7 +259,7 @@ public class ParallelPortfolio {
                 }
             }
         }
-        return getSolutionFound().get();
+        return solutionFound.get();
     }
 
     /**
@@ -247,7 +278,8 @@ public class ParallelPortfolio {
      * @return the first model which finds a solution (or the best one) or <tt>null</tt> if no such model exists.
      */
     public Model getBestModel(){
-        return finder;
+        long cell = best.get();
+        return cell == NONE ? null : models.get(worker(cell));
     }
 
     /**
@@ -265,37 +297,65 @@ public class ParallelPortfolio {
     private void prepare(){
         isPrepared = true;
         check();
+        nogoods = new BroadcastRing[models.size()];
         for(int i=0;i<models.size();i++){
+            int wid = i;
             Solver s = models.get(i).getSolver();
-            s.addStopCriterion((Criterion) () -> getSolverTerminated().get());
-            s.plugMonitor((IMonitorSolution) () -> {updateFromSolution(s.getModel());});
+            s.addStopCriterion((Criterion) solverTerminated::get);
+            s.plugMonitor((IMonitorSolution) () -> updateFromSolution(s.getModel(), wid));
             if(searchAutoConf){
                 configureModel(i);
             }
+            if (models.get(i).nogoods != null) {
+                nogoods[i] = new BroadcastRing<>(RING_SIZE);
+            }
+        }
+        for(int i=0;i<models.size();i++){
+            models.get(i).getSolver().plugMonitor(new Exchanger(i));
         }
     }
 
-    private synchronized void updateFromSolution(Model m){
+    /**
+     * Publishes the solution found by the model <i>m</i>, if it is better than the best one found so far.
+     * @param m a model which has just found a solution
+     * @param wid index of <i>m</i>
+     */
+    private void updateFromSolution(Model m, int wid){
         if (m.getResolutionPolicy() == ResolutionPolicy.SATISFACTION) {
-            finder = m;
-            getSolutionFound().set(true);
+            best.set(pack(0, wid));
+            solutionFound.set(true);
         }else{
             int solverVal = ((IntVar)m.getObjective()).getValue();
-            int bestVal = m.getSolver().getObjectiveManager().getBestSolutionValue().intValue();
-            if(m.getResolutionPolicy()==ResolutionPolicy.MAXIMIZE){
-                assert solverVal<=bestVal:solverVal+">"+bestVal;
-            }else if(m.getResolutionPolicy()==ResolutionPolicy.MINIMIZE){
-                assert solverVal>=bestVal:solverVal+"<"+bestVal;
-            }
-            if(solverVal == bestVal){
-                getSolutionFound().set(true);
-                finder = m;
-                if (m.getResolutionPolicy() == ResolutionPolicy.MAXIMIZE) {
-                    models.forEach(s1 -> s1.getSolver().getObjectiveManager().updateBestLB(bestVal));
-                }else {
-                    models.forEach(s1 -> s1.getSolver().getObjectiveManager().updateBestUB(bestVal));
+            boolean max = m.getResolutionPolicy() == ResolutionPolicy.MAXIMIZE;
+            long cell;
+            do {
+                cell = best.get();
+                if (cell != NONE && (max ? solverVal <= bound(cell) : solverVal >= bound(cell))) {
+                    // the model has not polled the best bound yet
+                    return;
                 }
-            }
+            } while (!best.compareAndSet(cell, pack(solverVal, wid)));
+            solutionFound.set(true);
+        }
+    }
+
+    private static long pack(int bound, int wid) {
+        return ((long) bound << 32) | (wid + 1);
+    }
+
+    private static int bound(long cell) {
+        return (int) (cell >> 32);
+    }
+
+    private static int worker(long cell) {
+        return (int) cell - 1;
+    }
+
+    private static void updateBound(Model m, int bound) {
+        if (m.getResolutionPolicy() == ResolutionPolicy.MAXIMIZE) {
+            m.getSolver().getObjectiveManager().updateBestLB(bound);
+        } else {
+            m.getSolver().getObjectiveManager().updateBestUB(bound);
         }
     }
 
@@ -401,11 +461,106 @@ public class ParallelPortfolio {
         }
     }
 
-    private synchronized AtomicBoolean getSolverTerminated(){
-        return solverTerminated;
-    }
+    /**
+     * Exchange surface of a model:
+     * it polls the best bound before going down in the search tree,
+     * publishes the no-goods the model learns and imports the ones learnt by the other models on restart.
+     */
+    private final class Exchanger implements IMonitorDownBranch, IMonitorRestart {
+
+        /** Index of the model */
+        private final int wid;
+        private final Model model;
+        /** Last value of {@link #best} read */
+        private long seen = NONE;
+        /** Per model, the number of no-goods already read */
+        private final long[] cursors;
+        /** The no-good store of the model, or <tt>null</tt> */
+        private final PropNogoods png;
+        /** Maps variable ids to the variables of the model, lazily built */
+        private TIntObjectHashMap<IntVar> id2var;
+        /** Set to <tt>true</tt> when importing no-goods, not to publish them again */
+        private boolean importing;
+
+        private Exchanger(int wid) {
+            this.wid = wid;
+            this.model = models.get(wid);
+            this.cursors = new long[models.size()];
+            if (nogoods[wid] != null) {
+                png = model.nogoods.getPropNogoods();
+                png.setLearntObserver(this::publish);
+            } else {
+                png = null;
+            }
+        }
+
+        @Override
+        public void beforeDownBranch(boolean left) {
+            long cell = best.get();
+            if (cell != seen) {
+                seen = cell;
+                if (model.getResolutionPolicy() != ResolutionPolicy.SATISFACTION) {
+                    updateBound(model, bound(cell));
+                }
+            }
+        }
+
+        @Override
+        public void beforeRestart() {
+            if (png != null) {
+                importing = true;
+                for (int i = 0; i < nogoods.length; i++) {
+                    if (i != wid && nogoods[i] != null) {
+                        cursors[i] = nogoods[i].drain(cursors[i], this::load);
+                    }
+                }
+                importing = false;
+            }
+        }
 
-    private synchronized AtomicBoolean getSolutionFound(){
-        return solutionFound;
+        /**
+         * Publishes a no-good learnt by the model, as a flatten array of triples (variable id, value, flags),
+         * where the first bit of flags is set for '=' and the second one for a positive literal,
+         * followed by 1 for a permanent no-good, 0 otherwise.
+         */
+        private void publish(int[] lits, boolean permanent) {
+            if (!importing && (permanent || lits.length <= MAX_SHARED_NOGOOD_SIZE)) {
+                int[] ng = new int[lits.length * 3 + 1];
+                for (int i = 0; i < lits.length; i++) {
+                    ng[3 * i] = png.getLiteralVariable(lits[i]).getId();
+                    ng[3 * i + 1] = png.getLiteralValue(lits[i]);
+                    ng[3 * i + 2] = (png.isEqLiteral(lits[i]) ? 1 : 0) | (png.isPositiveLiteral(lits[i]) ? 2 : 0);
+                }
+                ng[ng.length - 1] = permanent ? 1 : 0;
+                nogoods[wid].offer(ng);
+            }
+        }
+
+        /**
+         * Adds a no-good published by another model to the no-good store of this model,
+         * a permanent no-good (e.g., one which forbids a solution) remains permanent.
+         */
+        private void load(int[] ng) {
+            if (id2var == null) {
+                id2var = new TIntObjectHashMap<>();
+                for (IntVar v : model.retrieveIntVars(true)) {
+                    id2var.put(v.getId(), v);
+                }
+            }
+            int[] lits = new int[(ng.length - 1) / 3];
+            for (int i = 0; i < lits.length; i++) {
+                IntVar var = id2var.get(ng[3 * i]);
+                if (var == null) {
+                    return;
+                }
+                int lit = png.Literal(var, ng[3 * i + 1], (ng[3 * i + 2] & 1) != 0);
+                lits[i] = (ng[3 * i + 2] & 2) != 0 ? lit : SatSolver.negated(lit);
+            }
+            if (ng[ng.length - 1] == 1) {
+                png.addPermanentLearnt(lits);
+            } else {
+                png.addLearnt(lits);
+            }
+        }
     }
 }
@@ -230,6 +230,18 @@ public interface Settings  {
         return nbvars > 10;
     }
 
+    /**
+     * Return true if linear constraints over boolean variables (and at most one resulting integer variable)
+     * are filtered by the counter-based pseudo-boolean propagator, based on the number of variables involved.
+     * This does not apply to "!=" operator.
+     * Default condition is : nbvars > 100
+     * @param nbvars number of variables in the constraint
+     * @return <tt>true</tt>
+     */
+    default boolean enablePseudoBooleanOnBoolLinear(int nbvars) {
+        return nbvars > 100;
+    }
+
     /**
      * If your terminal support ANSI colors (Windows terminals don't), you can set this to true.
      * @return enable output with colors
@@ -41,6 +41,7 @@ import org.chocosolver.solver.objective.ObjectiveManager;
 import org.chocosolver.solver.propagation.IPropagationEngine;
 import org.chocosolver.solver.propagation.NoPropagationEngine;
 import org.chocosolver.solver.propagation.PropagationEngineFactory;
+import org.chocosolver.solver.propagation.PropagationProfiler;
 import org.chocosolver.solver.search.SearchState;
 import org.chocosolver.solver.search.limits.ICounter;
 import org.chocosolver.solver.search.loop.Reporting;
@@ -800,6 +801,24 @@ public final class Solver implements ISolver, IMeasures, IOutputFactory {
      */
     public void setEngine(IPropagationEngine propagationEngine) {
         this.engine = propagationEngine;
+        if (mMeasures.getPropagationProfiler() != null) {
+            engine.setProfiler(mMeasures.getPropagationProfiler());
+        }
+    }
+
+    /**
+     * Profiles the propagation: per propagator, the number of executions, of no-op executions, of modifications
+     * and of failures are counted, and one execution out of <code>samplingRate</code> is timed.
+     * The profiler is available from {@link #getMeasures()}, and is attached to any propagation engine set afterwards.
+     * Only hard coded engines support profiling.
+     * @param samplingRate one propagator execution out of <code>samplingRate</code> is timed
+     * @return the profiler
+     */
+    public PropagationProfiler profilePropagation(int samplingRate) {
+        PropagationProfiler profiler = new PropagationProfiler(samplingRate);
+        mMeasures.setPropagationProfiler(profiler);
+        engine.setProfiler(profiler);
+        return profiler;
     }
 
     /**
@@ -991,6 +1010,11 @@ public final class Solver implements ISolver, IMeasures, IOutputFactory {
         return getMeasures().getBestSolutionValue();
     }
 
+    @Override
+    public PropagationProfiler getPropagationProfiler() {
+        return getMeasures().getPropagationProfiler();
+    }
+
     @Override
     public SearchState getSearchState() {
         return getMeasures().getSearchState();
@@ -315,6 +315,9 @@ public interface IIntConstraintFactory extends ISelf<Model> {
 	 * @param tuples the relation between the two variables, among {"AC3", "AC3rm", "AC3bit+rm", "AC2001", "FC"}
 	 */
 	default Constraint table(IntVar var1, IntVar var2, Tuples tuples, String algo) {
+		if (tuples.allowUniversalValue()) {
+			return table(new IntVar[]{var1, var2}, tuples, "CT+");
+		}
 		Propagator p;
 		switch (algo) {
 			case "AC2001": p = new PropBinAC2001(var1, var2, tuples);
@@ -1678,7 +1681,8 @@ public interface IIntConstraintFactory extends ISelf<Model> {
 	 * Creates a table constraint specifying that the sequence of variables vars must belong to the list of tuples
 	 * (or must NOT belong in case of infeasible tuples)
 	 *
-	 * Default configuration with GACSTR+ algorithm for feasible tuples and GAC3rm otherwise
+	 * Default configuration with CT+ (more than 500 tuples or universal value) or GACSTR+ algorithm for feasible tuples,
+	 * CT- (more than 500 tuples) or GAC3rm otherwise
 	 *
 	 * @param vars      variables forming the tuples
 	 * @param tuples    the relation between the variables (list of allowed/forbidden tuples)
@@ -1686,11 +1690,13 @@ public interface IIntConstraintFactory extends ISelf<Model> {
 	default Constraint table(IntVar[] vars, Tuples tuples) {
 		String algo = "GAC3rm";
 		if(tuples.isFeasible()){
-			if(tuples.nbTuples()>500){
+			if(tuples.nbTuples()>500 || tuples.allowUniversalValue()){
 				algo = "CT+";
 			}else{
 				algo = "GACSTR+";
 			}
+		}else if(tuples.nbTuples()>500 && !tuples.allowUniversalValue()){
+			algo = "CT-";
 		}
 		return table(vars,tuples,algo);
 	}
@@ -1698,7 +1704,11 @@ public interface IIntConstraintFactory extends ISelf<Model> {
 	/**
 	 * Creates a table constraint, with the specified algorithm defined algo
 	 * <p>
-	 * - <b>CT+</b>: Compact-Table algorithm (AC),
+	 * - <b>CT+</b>: Compact-Table algorithm (AC), the only one dealing with tuples containing the universal value
+	 * (see {@link Tuples#setUniversalValue(int)}), its supports are shared by all constraints posted with the same tuples,
+	 * <br/>
+	 * - <b>CT-</b>: Compact-Table algorithm (AC) for forbidden tuples, counting the forbidden tuples of each value,
+	 * its supports are shared by all constraints posted with the same tuples,
 	 * <br/>
 	 * - <b>GAC2001</b>: Arc Consistency version 2001 for tuples,
 	 * <br/>
@@ -1715,23 +1725,34 @@ public interface IIntConstraintFactory extends ISelf<Model> {
 	 * - <b>FC</b>: Forward Checking.
 	 * <br/>
 	 * - <b>MDD+</b>: uses a multi-valued decision diagram for allowed tuples (see mddc constraint),
+	 * <br/>
+	 * - <b>MDD4R+</b>: uses a multi-valued decision diagram for allowed tuples, whose arcs are maintained incrementally.
+	 * <br/>
+	 * Multi-valued decision diagrams are shared by constraints posted with the same tuples on the same domains.
 	 *
 	 * @param vars      variables forming the tuples
 	 * @param tuples    the relation between the variables (list of allowed/forbidden tuples)
-	 * @param algo to choose among {"TC+", "GAC3rm", "GAC2001", "GACSTR", "GAC2001+", "GAC3rm+", "FC", "STR2+"}
+	 * @param algo to choose among {"TC+", "CT-", "GAC3rm", "GAC2001", "GACSTR", "GAC2001+", "GAC3rm+", "FC", "STR2+", "MDD+", "MDD4R+"}
 	 */
 	default Constraint table(IntVar[] vars, Tuples tuples, String algo) {
-		if (vars.length == 2) {
+		if (vars.length == 2 && !tuples.allowUniversalValue()) {
 			table(vars[0], vars[1], tuples);
 		}
 		if(algo.contains("+") && !tuples.isFeasible()){
 			throw new SolverException(algo+" table algorithm cannot be used with forbidden tuples.");
 		}
+		if(tuples.allowUniversalValue() && !"CT+".equals(algo)){
+			throw new SolverException(algo+" table algorithm cannot be used with tuples containing the universal value.");
+		}
 		Propagator p;
 		switch (algo) {
 			case "CT+": p = new PropCompactTable(vars, tuples);
 				break;
-			case "MDD+": p = new PropLargeMDDC(new MultivaluedDecisionDiagram(vars, tuples), vars);
+			case "CT-": p = new PropCompactTableNeg(vars, tuples);
+				break;
+			case "MDD+": p = new PropLargeMDDC(MultivaluedDecisionDiagram.get(vars[0].getModel(), vars, tuples), vars);
+				break;
+			case "MDD4R+": p = new PropLargeMDD4R(MultivaluedDecisionDiagram.get(vars[0].getModel(), vars, tuples), vars);
 				break;
 			case "FC": p = new PropLargeFC(vars, tuples);
 				break;
@@ -651,6 +651,9 @@ public abstract class Propagator<V extends Variable> implements ICause, Identity
     @Override
     public boolean why(RuleStore ruleStore, IntVar var, IEventType evt, int value) {
         boolean nrules = ruleStore.addPropagatorActivationRule(this);
+        if (ruleStore.isScopeExplained(this, var)) {
+            return nrules;
+        }
         for (int i = 0; i < vars.length; i++) {
             if (vars[i] != var) nrules |= ruleStore.addFullDomainRule((IntVar) vars[i]);
         }
@@ -0,0 +1,230 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.constraints.extension;
+
+import java.util.Arrays;
+
+/**
+ * Immutable supports of a set of tuples, as used by the Compact-Table algorithms.
+ * <br/>
+ * Tuples are sorted, duplicates are removed, and the remaining ones are numbered from 0 to {@link #nbTuples()}-1.
+ * For each column and each value, the tuples supporting the value are stored as a compressed bit-set:
+ * only the non-empty 64-bit words are stored, together with their indices.
+ * A tuple with the universal value in a column supports every value of this column:
+ * such tuples are stored apart, once per column.
+ * <p>
+ * Supports only depend on the tuples, not on the variables, and are computed once per {@link Tuples}
+ * (see {@link Tuples#getSupports()}), so that all the table constraints posted with the same tuples
+ * share them.
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public final class TableSupports {
+
+    private static final int[] NO_INDEX = new int[0];
+    private static final long[] NO_WORD = new long[0];
+
+    /**
+     * Number of tuples
+     */
+    private final int nbTuples;
+
+    /**
+     * Number of words of a bit-set of tuples
+     */
+    private final int nbWords;
+
+    /**
+     * Smallest value of each column
+     */
+    private final int[] min;
+
+    /**
+     * For each column and each value (shifted by min), indices of the non-empty words
+     */
+    private final int[][][] indices;
+
+    /**
+     * For each column and each value (shifted by min), the non-empty words
+     */
+    private final long[][][] words;
+
+    /**
+     * For each column, indices of the non-empty words of the tuples with the universal value
+     */
+    private final int[][] starIndices;
+
+    /**
+     * For each column, the non-empty words of the tuples with the universal value
+     */
+    private final long[][] starWords;
+
+    TableSupports(Tuples tuples) {
+        int[][] ts = new int[tuples.nbTuples()][];
+        for (int t = 0; t < ts.length; t++) {
+            ts[t] = tuples.get(t);
+        }
+        // sorting tuples makes supports of the first columns contiguous
+        Arrays.sort(ts, (t1, t2) -> {
+            for (int i = 0; i < t1.length; i++) {
+                if (t1[i] != t2[i]) {
+                    return Integer.compare(t1[i], t2[i]);
+                }
+            }
+            return 0;
+        });
+        // forbidden tuples are counted: duplicates must be removed
+        int nb = 0;
+        for (int t = 0; t < ts.length; t++) {
+            if (nb == 0 || !Arrays.equals(ts[nb - 1], ts[t])) {
+                ts[nb++] = ts[t];
+            }
+        }
+        int arity = tuples.arity();
+        boolean universal = tuples.allowUniversalValue();
+        int star = tuples.getStarValue();
+        this.nbTuples = nb;
+        this.nbWords = (nbTuples + 63) >>> 6;
+        this.min = new int[arity];
+        this.indices = new int[arity][][];
+        this.words = new long[arity][][];
+        this.starIndices = new int[arity][];
+        this.starWords = new long[arity][];
+        for (int c = 0; c < arity; c++) {
+            min[c] = tuples.min(c);
+            int size = tuples.max(c) >= tuples.min(c) ? tuples.max(c) - tuples.min(c) + 1 : 0;
+            int[][] idx = new int[size + 1][];
+            long[][] wrd = new long[size + 1][];
+            int[] cnt = new int[size + 1];
+            for (int t = 0; t < nbTuples; t++) {
+                int w = t >>> 6;
+                long bit = 1L << t;
+                if (universal && ts[t][c] == star) {
+                    // the last entry stands for the universal value
+                    append(idx, wrd, cnt, size, w, bit);
+                } else {
+                    append(idx, wrd, cnt, ts[t][c] - min[c], w, bit);
+                }
+            }
+            indices[c] = new int[size][];
+            words[c] = new long[size][];
+            for (int v = 0; v < size; v++) {
+                indices[c][v] = idx[v] == null ? NO_INDEX : Arrays.copyOf(idx[v], cnt[v]);
+                words[c][v] = wrd[v] == null ? NO_WORD : Arrays.copyOf(wrd[v], cnt[v]);
+            }
+            starIndices[c] = idx[size] == null ? NO_INDEX : Arrays.copyOf(idx[size], cnt[size]);
+            starWords[c] = wrd[size] == null ? NO_WORD : Arrays.copyOf(wrd[size], cnt[size]);
+        }
+    }
+
+    private static void append(int[][] idx, long[][] wrd, int[] cnt, int v, int w, long bit) {
+        int k = cnt[v];
+        if (k > 0 && idx[v][k - 1] == w) {
+            wrd[v][k - 1] |= bit;
+        } else {
+            if (idx[v] == null) {
+                idx[v] = new int[4];
+                wrd[v] = new long[4];
+            } else if (k == idx[v].length) {
+                idx[v] = Arrays.copyOf(idx[v], k * 3 / 2 + 1);
+                wrd[v] = Arrays.copyOf(wrd[v], k * 3 / 2 + 1);
+            }
+            idx[v][k] = w;
+            wrd[v][k] = bit;
+            cnt[v]++;
+        }
+    }
+
+    /**
+     * @return the number of tuples
+     */
+    public int nbTuples() {
+        return nbTuples;
+    }
+
+    /**
+     * @return the number of 64-bit words needed to store a set of tuples
+     */
+    public int nbWords() {
+        return nbWords;
+    }
+
+    /**
+     * Return the indices of the non-empty words of the support of <code>value</code> in column <code>col</code>,
+     * tuples with the universal value excluded.
+     * The returned array is shared and must not be modified.
+     *
+     * @param col   index of the column
+     * @param value a value
+     * @return indices of the non-empty words, in increasing order
+     */
+    public int[] getIndices(int col, int value) {
+        long v = (long) value - min[col];
+        return v >= 0 && v < indices[col].length ? indices[col][(int) v] : NO_INDEX;
+    }
+
+    /**
+     * Return the non-empty words of the support of <code>value</code> in column <code>col</code>,
+     * in the order given by {@link #getIndices(int, int)}.
+     * The returned array is shared and must not be modified.
+     *
+     * @param col   index of the column
+     * @param value a value
+     * @return the non-empty words
+     */
+    public long[] getWords(int col, int value) {
+        long v = (long) value - min[col];
+        return v >= 0 && v < words[col].length ? words[col][(int) v] : NO_WORD;
+    }
+
+    /**
+     * Return the indices of the non-empty words of the tuples with the universal value in column <code>col</code>.
+     * The returned array is shared and must not be modified.
+     *
+     * @param col index of the column
+     * @return indices of the non-empty words, in increasing order
+     */
+    public int[] getStarIndices(int col) {
+        return starIndices[col];
+    }
+
+    /**
+     * Return the non-empty words of the tuples with the universal value in column <code>col</code>,
+     * in the order given by {@link #getStarIndices(int)}.
+     * The returned array is shared and must not be modified.
+     *
+     * @param col index of the column
+     * @return the non-empty words
+     */
+    public long[] getStarWords(int col) {
+        return starWords[col];
+    }
+}
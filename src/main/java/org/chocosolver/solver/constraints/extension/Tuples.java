@@ -56,6 +56,18 @@ public class Tuples {
 	protected final List<int[]> tuples;
 	private int arity;
 	private int[] ranges;
+	/**
+	 * Set to <tt>true</tt> when tuples may contain the universal value
+	 */
+	private boolean universal;
+	/**
+	 * The universal value, matching any value of a column
+	 */
+	private int star;
+	/**
+	 * Supports shared among the table constraints posted with this, built on demand
+	 */
+	private TableSupports supports;
 
 	//***********************************************************************************
 	// CONSTRUCTOR
@@ -122,7 +134,7 @@ public class Tuples {
 			int[] tuple = tuples.get(ti);
 			boolean valid = true;
 			for (int i = 0; i < values.length && valid; i++) {
-				if (tuple[i] != values[i]) valid = false;
+				if (tuple[i] != values[i] && !(universal && tuple[i] == star)) valid = false;
 			}
 			if (valid) {
 				return isFeasible()? ESat.TRUE: ESat.FALSE;
@@ -148,9 +160,12 @@ public class Tuples {
 		}
 		tuples.add(tuple);
 		for (int i = 0; i < arity; i++) {
-			ranges[i] = Math.min(ranges[i], tuple[i]);
-			ranges[i + arity] = Math.max(ranges[i + arity], tuple[i]);
+			if (!universal || tuple[i] != star) {
+				ranges[i] = Math.min(ranges[i], tuple[i]);
+				ranges[i + arity] = Math.max(ranges[i + arity], tuple[i]);
+			}
 		}
+		supports = null;
 	}
 
 	/**
@@ -164,6 +179,68 @@ public class Tuples {
 		}
 	}
 
+	/**
+	 * Add <i>nb</i> tuples of arity <i>arity</i>, stored one after the other in <i>packed</i>
+	 * @param packed tuples, packed
+	 * @param nb number of tuples in <i>packed</i>
+	 * @param arity arity of the tuples
+	 */
+	void addPacked(int[] packed, int nb, int arity) {
+		if (tuples instanceof ArrayList) {
+			((ArrayList<int[]>) tuples).ensureCapacity(tuples.size() + nb);
+		}
+		for (int k = 0, p = 0; k < nb; k++, p += arity) {
+			add(Arrays.copyOfRange(packed, p, p + arity));
+		}
+	}
+
+	/**
+	 * Declare <code>star</code> as the universal value: in a tuple, it matches any value of its column.
+	 * This enables short tuples, each of them standing for a set of tuples.
+	 * It must be declared before adding any tuple, and only allowed tuples filtered with "CT+" deal with it.
+	 *
+	 * @param star the universal value, which should not be a value of the variables
+	 * @throws SolverException if some tuples were already added or if these are forbidden tuples
+	 */
+	public void setUniversalValue(int star) {
+		if (!feasible) {
+			throw new SolverException("The universal value is only allowed with feasible tuples");
+		}
+		if (tuples.size() > 0) {
+			throw new SolverException("The universal value should be declared before adding tuples");
+		}
+		this.universal = true;
+		this.star = star;
+	}
+
+	/**
+	 * @return <tt>true</tt> if tuples may contain the universal value
+	 */
+	public boolean allowUniversalValue() {
+		return universal;
+	}
+
+	/**
+	 * @return the universal value, only relevant if {@link #allowUniversalValue()} returns <tt>true</tt>
+	 */
+	public int getStarValue() {
+		return star;
+	}
+
+	/**
+	 * Return the supports of this set of tuples, in compressed form, computed once and shared by all
+	 * the table constraints posted with this object.
+	 * Adding a tuple invalidates them: the next call computes new ones.
+	 *
+	 * @return the supports of this set of tuples
+	 */
+	public synchronized TableSupports getSupports() {
+		if (supports == null) {
+			supports = new TableSupports(this);
+		}
+		return supports;
+	}
+
 	/**
 	 * Return true if these are allowed tuples, false otherwise
 	 *
@@ -174,7 +251,16 @@ public class Tuples {
 	}
 
 	/**
-	 * Return the minimum value for the idx^th column among all tuples
+	 * Return the arity of the tuples
+	 *
+	 * @return the arity of the tuples
+	 */
+	public int arity() {
+		return arity;
+	}
+
+	/**
+	 * Return the minimum value for the idx^th column among all tuples, universal value excluded
 	 *
 	 * @param idx idx of the column
 	 * @return the minimum value
@@ -184,7 +270,7 @@ public class Tuples {
 	}
 
 	/**
-	 * Return the maximum value for the idx^th column among all tuples
+	 * Return the maximum value for the idx^th column among all tuples, universal value excluded
 	 *
 	 * @param idx index of the column
 	 * @return the maximum value
@@ -235,6 +321,7 @@ public class Tuples {
 
 	public void sort() {
 		tuples.sort(new TupleComparator());
+		supports = null;
 	}
 
 	private static class TupleComparator implements Comparator<int[]> {
@@ -35,6 +35,17 @@ import org.chocosolver.solver.exception.SolverException;
 import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.util.tools.ArrayUtils;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
 /**
  * A Factory to ease generation of tuples.
  * One may keep in mind that tuples generation directly depends on the product of domain cardinality, but also on the algorithm defines in the filter.
@@ -61,29 +72,7 @@ public class TuplesFactory {
      * @see <a href="http://stackoverflow.com/questions/8804852/generate-all-tuples-with-c-better-way-than-nested-loops">source</a>
      */
     public static Tuples generateTuples(TupleValidator filter, boolean feasible, int[]... doms) {
-        Tuples tuples = new Tuples(feasible);
-        int n = doms.length;
-        int[] t = new int[n];
-        int[] i = new int[n];
-        for (int j = 0; j < n; j++) {
-            t[j] = doms[j][0];
-        }
-        while (true) {
-            if (filter.valid(t)) tuples.add(t.clone());
-            int j;
-            for (j = 0; j < n; j++) {
-                i[j]++;
-                if (i[j] < doms[j].length) {
-                    t[j] = doms[j][i[j]];
-                    break;
-                }
-                i[j] = 0;
-                t[j] = doms[j][0];
-            }
-            if (j == n) break;
-        }
-        return tuples;
-
+        return generate(() -> filter, feasible, false, doms);
     }
 
     /**
@@ -96,27 +85,206 @@ public class TuplesFactory {
      * @return the valid tuples wrt to <code>filter</code>
      */
     public static Tuples generateTuples(TupleValidator filter, boolean feasible, IntVar... vars) {
-        Tuples tuples = new Tuples(feasible);
-        int n = vars.length;
-        int[] cvalue = new int[n];
-        int[] t = new int[n];
-        for (int j = 0; j < n; j++) {
-            t[j] = cvalue[j] = vars[j].getLB();
+        return generate(() -> filter, feasible, false, domains(vars));
+    }
+
+    /**
+     * A method that generates all tuples from a set of domains and stores (and returns) the valid tuples wrt to the
+     * validators supplied by <code>validators</code>.
+     * The Cartesian product is split in chunks which are checked in parallel in the common fork-join pool,
+     * each chunk being checked by its own validator.
+     * Hence, a validator does not have to be thread-safe, but <code>validators</code> has to.
+     * The tuples are stored in the same order as {@link #generateTuples(TupleValidator, boolean, int[]...)} does.
+     *
+     * @param validators supplies tuple validators
+     * @param feasible   are tuples feasible (or infeasible)
+     * @param doms       domains
+     * @return the valid tuples
+     */
+    public static Tuples generateTuples(Supplier<TupleValidator> validators, boolean feasible, int[]... doms) {
+        return generate(validators, feasible, true, doms);
+    }
+
+    /**
+     * A method that generates all tuples from a set of variables and stores (and returns) the valid tuples wrt to the
+     * validators supplied by <code>validators</code>.
+     * The Cartesian product is split in chunks which are checked in parallel in the common fork-join pool,
+     * each chunk being checked by its own validator.
+     * Hence, a validator does not have to be thread-safe, but <code>validators</code> has to.
+     * The tuples are stored in the same order as {@link #generateTuples(TupleValidator, boolean, IntVar...)} does.
+     *
+     * @param validators supplies tuple validators
+     * @param feasible   are tuples feasible (or infeasible)
+     * @param vars       concerned variables
+     * @return the valid tuples
+     */
+    public static Tuples generateTuples(Supplier<TupleValidator> validators, boolean feasible, IntVar... vars) {
+        return generate(validators, feasible, true, domains(vars));
+    }
+
+    private static int[][] domains(IntVar... vars) {
+        int[][] doms = new int[vars.length][];
+        for (int j = 0; j < vars.length; j++) {
+            doms[j] = new int[vars[j].getDomainSize()];
+            int k = 0;
+            for (int v = vars[j].getLB(); v <= vars[j].getUB(); v = vars[j].nextValue(v)) {
+                doms[j][k++] = v;
+            }
         }
-        while (true) {
-            if (filter.valid(t)) tuples.add(t.clone());
-            int j;
-            for (j = 0; j < n; j++) {
-                int v = t[j] = cvalue[j] = vars[j].nextValue(cvalue[j]);
-                if (v < Integer.MAX_VALUE) {
-                    break;
+        return doms;
+    }
+
+    private static Tuples generate(Supplier<TupleValidator> validators, boolean feasible, boolean parallel, int[][] doms) {
+        Tuples tuples = new Tuples(feasible);
+        if (parallel) {
+            TuplesGenerator generator = new TuplesGenerator(validators, doms);
+            if (generator.parts.length == 1) {
+                generator.generate(0);
+            } else if (generator.parts.length > 1) {
+                ForkJoinPool.commonPool().invoke(generator.new Split(0, generator.parts.length));
+            }
+            for (int c = 0; c < generator.parts.length; c++) {
+                tuples.addPacked(generator.parts[c], generator.sizes[c], doms.length);
+                generator.parts[c] = null;
+            }
+        } else if (doms.length > 0) {
+            // valid tuples are directly added, in the same order
+            TupleValidator filter = validators.get();
+            int n = doms.length;
+            int[] t = new int[n];
+            int[] i = new int[n];
+            for (int j = 0; j < n; j++) {
+                if (doms[j].length == 0) {
+                    return tuples;
                 }
-                t[j] = cvalue[j] = vars[j].getLB();
+                t[j] = doms[j][0];
             }
-            if (j == n) break;
+            int j;
+            do {
+                if (filter.valid(t)) {
+                    tuples.add(t.clone());
+                }
+                for (j = 0; j < n; j++) {
+                    if (++i[j] < doms[j].length) {
+                        t[j] = doms[j][i[j]];
+                        break;
+                    }
+                    i[j] = 0;
+                    t[j] = doms[j][0];
+                }
+            } while (j < n);
         }
         return tuples;
+    }
 
+    /**
+     * Enumerates the Cartesian product of domains by chunks of consecutive tuples, to be checked in parallel.
+     * The first domain varies the fastest.
+     * Valid tuples of a chunk are written one after the other in a packed array.
+     */
+    private static class TuplesGenerator {
+
+        /**
+         * Minimum number of tuples per chunk
+         */
+        private static final long CHUNK = 1 << 14;
+        /**
+         * Maximum number of values in a chunk, to bound the size of a packed array
+         */
+        private static final long MAX_PACKED = 1 << 24;
+
+        private final Supplier<TupleValidator> validators;
+        private final int[][] doms;
+        private final long total;
+        private final long chunk;
+        /**
+         * Valid tuples of each chunk, packed
+         */
+        final int[][] parts;
+        /**
+         * Number of valid tuples of each chunk
+         */
+        final int[] sizes;
+
+        TuplesGenerator(Supplier<TupleValidator> validators, int[][] doms) {
+            this.validators = validators;
+            this.doms = doms;
+            long t = doms.length == 0 ? 0 : 1;
+            for (int[] d : doms) {
+                if (Long.MAX_VALUE / Math.max(1, d.length) < t) {
+                    throw new SolverException("Too many tuples to generate");
+                }
+                t *= d.length;
+            }
+            this.total = t;
+            this.chunk = Math.min(Math.max(CHUNK, total / (ForkJoinPool.getCommonPoolParallelism() * 16L)),
+                    Math.max(1, MAX_PACKED / Math.max(1, doms.length)));
+            long nbChunks = (total + chunk - 1) / chunk;
+            if (nbChunks > Integer.MAX_VALUE) {
+                throw new SolverException("Too many tuples to generate");
+            }
+            this.parts = new int[(int) nbChunks][];
+            this.sizes = new int[(int) nbChunks];
+        }
+
+        void generate(int c) {
+            int n = doms.length;
+            TupleValidator filter = validators.get();
+            int[] t = new int[n];
+            int[] i = new int[n];
+            long start = c * chunk;
+            long s = start;
+            for (int j = 0; j < n; j++) {
+                i[j] = (int) (s % doms[j].length);
+                t[j] = doms[j][i[j]];
+                s /= doms[j].length;
+            }
+            long count = Math.min(chunk, total - start);
+            int[] packed = new int[(int) Math.min(count * n, 1024)];
+            int size = 0;
+            for (long k = 0; k < count; k++) {
+                if (filter.valid(t)) {
+                    if (size + n > packed.length) {
+                        packed = Arrays.copyOf(packed, Math.max(size + n, packed.length * 2));
+                    }
+                    System.arraycopy(t, 0, packed, size, n);
+                    size += n;
+                }
+                for (int j = 0; j < n; j++) {
+                    if (++i[j] < doms[j].length) {
+                        t[j] = doms[j][i[j]];
+                        break;
+                    }
+                    i[j] = 0;
+                    t[j] = doms[j][0];
+                }
+            }
+            parts[c] = packed;
+            sizes[c] = size / Math.max(1, n);
+        }
+
+        /**
+         * Recursively splits a range of chunks
+         */
+        private class Split extends RecursiveAction {
+
+            private final int from, to;
+
+            Split(int from, int to) {
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from == 1) {
+                    generate(from);
+                } else {
+                    int mid = (from + to) >>> 1;
+                    invokeAll(new Split(from, mid), new Split(mid, to));
+                }
+            }
+        }
     }
 
     // BEWARE: PLEASE, keep signatures sorted by increasing arity and alphabetical order!!
@@ -449,6 +617,106 @@ public class TuplesFactory {
         }, true, ArrayUtils.append(VARS, new IntVar[]{SUM}));
     }
 
+    /**
+     * Compress allowed tuples into short tuples, using <code>STAR</code> as universal value.
+     * For each column, tuples which are equal on all other columns and which cover the whole domain
+     * of the column's variable are replaced by a single tuple with <code>STAR</code> in this column.
+     * The resulting tuples can only be filtered with "CT+" algorithm.
+     *
+     * @param TUPLES allowed tuples over <code>VARS</code>
+     * @param STAR   the universal value, which should not belong to any domain
+     * @param VARS   concerned variables
+     * @return a new Tuples object, with universal value, reserved for a table constraint
+     */
+    public static Tuples compress(Tuples TUPLES, int STAR, IntVar... VARS) {
+        if (!TUPLES.isFeasible()) {
+            throw new SolverException("Only allowed tuples can be compressed");
+        }
+        if (TUPLES.allowUniversalValue() && TUPLES.getStarValue() != STAR) {
+            throw new SolverException("Tuples already rely on another universal value");
+        }
+        List<int[]> current = new ArrayList<>(TUPLES.tuples);
+        for (int c = VARS.length - 1; c >= 0; c--) {
+            int size = VARS[c].getDomainSize();
+            Map<Key, Set<Integer>> groups = new HashMap<>();
+            List<int[]> next = new ArrayList<>(current.size());
+            for (int[] t : current) {
+                if (t[c] == STAR || !VARS[c].contains(t[c])) {
+                    next.add(t);
+                } else {
+                    groups.computeIfAbsent(new Key(t, c), k -> new HashSet<>()).add(t[c]);
+                }
+            }
+            for (int[] t : current) {
+                if (t[c] != STAR && VARS[c].contains(t[c])) {
+                    Set<Integer> values = groups.get(new Key(t, c));
+                    if (values == null) {
+                        // already replaced by a short tuple
+                        continue;
+                    }
+                    if (values.size() == size) {
+                        int[] st = t.clone();
+                        st[c] = STAR;
+                        next.add(st);
+                        groups.remove(new Key(t, c));
+                    } else {
+                        next.add(t);
+                    }
+                }
+            }
+            current = next;
+        }
+        Tuples tuples = new Tuples(true);
+        tuples.setUniversalValue(STAR);
+        for (int[] t : current) {
+            tuples.add(t);
+        }
+        return tuples;
+    }
+
+    /**
+     * A view of a tuple ignoring one of its columns, for hashing purpose.
+     */
+    private static final class Key {
+        private final int[] t;
+        private final int c;
+        private final int hash;
+
+        private Key(int[] t, int c) {
+            this.t = t;
+            this.c = c;
+            int h = 1;
+            for (int i = 0; i < t.length; i++) {
+                if (i != c) {
+                    h = 31 * h + t[i];
+                }
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            if (k.c != c) {
+                return false;
+            }
+            for (int i = 0; i < t.length; i++) {
+                if (i != c && t[i] != k.t[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
     /**
      * Check whether the intension constraint to extension constraint substitution is enabled and can be achieved
      *
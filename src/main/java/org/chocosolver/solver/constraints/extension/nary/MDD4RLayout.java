@@ -0,0 +1,199 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.constraints.extension.nary;
+
+import org.chocosolver.solver.Model;
+import org.chocosolver.util.objects.graphs.MultivaluedDecisionDiagram;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * The fixed arc layout of a MDD, as used by {@link PropLargeMDD4R}.
+ * <p>
+ * The layout is stored in flat arrays and never modified: it is shared by all the propagators posted in a model
+ * on the same MDD (see {@link #get(Model, MultivaluedDecisionDiagram)}).
+ * <ul>
+ * <li>nodes are numbered layer per layer from the root, which is 0, the terminal node comes last,</li>
+ * <li>the values of the i^th variable are at positions [valStart[i], valStart[i+1]), the value at position
+ * valStart[i] + j is MDD.getOffset(i) + j,</li>
+ * <li>arcs are sorted by value, the arcs labelled with the value at position p are in [arcStart[p], arcStart[p+1]),</li>
+ * <li>the arcs going out of (resp. coming in) node u are
+ * <code>outArcs[outStart[u]..outStart[u+1]-1]</code> (resp. <code>inArcs[inStart[u]..inStart[u+1]-1]</code>).</li>
+ * </ul>
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+final class MDD4RLayout {
+
+    /**
+     * Name of the model hook which stores the layouts already built
+     */
+    private static final String HOOK = MDD4RLayout.class.getName();
+
+    /**
+     * Number of nodes
+     */
+    final int nbNodes;
+    /**
+     * Index of the terminal node
+     */
+    final int terminal;
+    /**
+     * Values of the i^th variable are at positions [valStart[i], valStart[i+1])
+     */
+    final int[] valStart;
+    /**
+     * Arcs labelled with the value at position p are in [arcStart[p], arcStart[p+1])
+     */
+    final int[] arcStart;
+    /**
+     * Origin of each arc
+     */
+    final int[] arcSrc;
+    /**
+     * Destination of each arc
+     */
+    final int[] arcDst;
+    /**
+     * Position of the value labelling each arc
+     */
+    final int[] arcVal;
+    final int[] outStart;
+    final int[] outArcs;
+    final int[] inStart;
+    final int[] inArcs;
+
+    private MDD4RLayout(MultivaluedDecisionDiagram MDD) {
+        int nvars = MDD.getNbLayers();
+        int[] diag = MDD.getDiagram();
+        this.valStart = new int[nvars + 1];
+        for (int i = 0; i < nvars; i++) {
+            valStart[i + 1] = valStart[i] + MDD.getNodeSize(i);
+        }
+        // nodes, layer per layer from the root, the terminal node comes last
+        int[] ids = new int[diag.length];
+        int[] nodes = new int[16];
+        int[] layerStart = new int[nvars + 1];
+        int nbNodes = 1;
+        this.arcStart = new int[valStart[nvars] + 1];
+        for (int i = 0; i < nvars; i++) {
+            layerStart[i + 1] = nbNodes;
+            for (int k = layerStart[i]; k < layerStart[i + 1]; k++) {
+                for (int j = 0; j < MDD.getNodeSize(i); j++) {
+                    int e = diag[nodes[k] + j];
+                    if (e != MultivaluedDecisionDiagram.EMPTY) {
+                        arcStart[valStart[i] + j + 1]++;
+                        if (e != MultivaluedDecisionDiagram.TERMINAL && ids[e] == 0) {
+                            if (nbNodes == nodes.length) {
+                                nodes = Arrays.copyOf(nodes, nbNodes * 2);
+                            }
+                            nodes[nbNodes] = e;
+                            ids[e] = nbNodes++;
+                        }
+                    }
+                }
+            }
+        }
+        this.terminal = nbNodes++;
+        this.nbNodes = nbNodes;
+        for (int p = 0; p < valStart[nvars]; p++) {
+            arcStart[p + 1] += arcStart[p];
+        }
+        // arcs, sorted by value
+        int nbArcs = arcStart[valStart[nvars]];
+        this.arcSrc = new int[nbArcs];
+        this.arcDst = new int[nbArcs];
+        this.arcVal = new int[nbArcs];
+        this.outStart = new int[nbNodes + 1];
+        this.inStart = new int[nbNodes + 1];
+        int[] next = Arrays.copyOf(arcStart, valStart[nvars]);
+        for (int i = 0; i < nvars; i++) {
+            for (int k = layerStart[i]; k < layerStart[i + 1]; k++) {
+                for (int j = 0; j < MDD.getNodeSize(i); j++) {
+                    int e = diag[nodes[k] + j];
+                    if (e != MultivaluedDecisionDiagram.EMPTY) {
+                        int p = valStart[i] + j;
+                        int a = next[p]++;
+                        arcSrc[a] = k;
+                        arcDst[a] = e == MultivaluedDecisionDiagram.TERMINAL ? terminal : ids[e];
+                        arcVal[a] = p;
+                        outStart[k + 1]++;
+                        inStart[arcDst[a] + 1]++;
+                    }
+                }
+            }
+        }
+        for (int u = 0; u < nbNodes; u++) {
+            outStart[u + 1] += outStart[u];
+            inStart[u + 1] += inStart[u];
+        }
+        this.outArcs = new int[nbArcs];
+        this.inArcs = new int[nbArcs];
+        int[] outPos = Arrays.copyOf(outStart, nbNodes);
+        int[] inPos = Arrays.copyOf(inStart, nbNodes);
+        for (int a = 0; a < nbArcs; a++) {
+            outArcs[outPos[arcSrc[a]]++] = a;
+            inArcs[inPos[arcDst[a]]++] = a;
+        }
+    }
+
+    /**
+     * @return the number of arcs of the layout
+     */
+    int getNbArcs() {
+        return arcSrc.length;
+    }
+
+    /**
+     * Return the arc layout of <i>MDD</i>, which is built only once per model.
+     *
+     * @param model a model, which stores the layouts already built
+     * @param MDD   a Multi-valued Decision Diagram
+     * @return the arc layout of <i>MDD</i>
+     */
+    @SuppressWarnings("unchecked")
+    static MDD4RLayout get(Model model, MultivaluedDecisionDiagram MDD) {
+        Map<MultivaluedDecisionDiagram, MDD4RLayout> layouts =
+                (Map<MultivaluedDecisionDiagram, MDD4RLayout>) model.getHook(HOOK);
+        if (layouts == null) {
+            layouts = new IdentityHashMap<>();
+            model.addHook(HOOK, layouts);
+        }
+        MDD4RLayout layout = layouts.get(MDD);
+        if (layout == null) {
+            layout = new MDD4RLayout(MDD);
+            layouts.put(MDD, layout);
+        }
+        return layout;
+    }
+}
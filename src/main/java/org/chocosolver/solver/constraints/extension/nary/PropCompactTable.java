@@ -29,11 +29,9 @@
  */
 package org.chocosolver.solver.constraints.extension.nary;
 
-import org.chocosolver.memory.IEnvironment;
-import org.chocosolver.memory.IStateInt;
-import org.chocosolver.memory.IStateLong;
 import org.chocosolver.solver.constraints.Propagator;
 import org.chocosolver.solver.constraints.PropagatorPriority;
+import org.chocosolver.solver.constraints.extension.TableSupports;
 import org.chocosolver.solver.constraints.extension.Tuples;
 import org.chocosolver.solver.exception.ContradictionException;
 import org.chocosolver.solver.variables.IntVar;
@@ -58,7 +56,7 @@ public class PropCompactTable extends Propagator<IntVar> {
 
     private RSparseBitSet currTable;
     private Tuples tuples;
-    private long[][][] supports;
+    private TableSupports supports;
     private int[][] residues;
     private int[] offset;
     private IIntDeltaMonitor[] monitors;
@@ -70,81 +68,41 @@ public class PropCompactTable extends Propagator<IntVar> {
 
 	/**
      * Create a propagator for table constraint
-     * Only for feasible Tuples
+     * Only for feasible Tuples.
+     * Supports are shared with any other table constraint posted with the same <code>tuples</code>,
+     * which may contain the universal value.
 	 * @param vars scope
      * @param tuples list of feasible tuples
      */
     public PropCompactTable(IntVar[] vars, Tuples tuples) {
         super(vars, PropagatorPriority.QUADRATIC, true);
-        copyValidTuples(tuples);
-        computeSupports();
+        this.tuples = tuples;
+        this.supports = tuples.getSupports();
+        this.currTable = new RSparseBitSet(model.getEnvironment(), supports.nbTuples());
+        this.offset = new int[vars.length];
+        this.residues = new int[vars.length][];
+        for (int i = 0; i < vars.length; i++) {
+            offset[i] = vars[i].getLB();
+            residues[i] = new int[vars[i].getUB() - vars[i].getLB() + 1];
+        }
         monitors = new IIntDeltaMonitor[vars.length];
         for (int i = 0; i < vars.length; i++) {
             monitors[i] = vars[i].monitorDelta(this);
         }
         onValRem = new UnaryIntProcedure<Integer>() {
-            int var, off;
+            int var;
             @Override
             public UnaryIntProcedure set(Integer o) {
                 var = o;
-                off = offset[var];
                 return this;
             }
             @Override
             public void execute(int i) throws ContradictionException {
-                currTable.addToMask(supports[var][i - off]);
+                currTable.addToMask(supports.getIndices(var, i), supports.getWords(var, i));
             }
         };
     }
 
-    //***********************************************************************************
-   	// INITIALIZATION
-   	//***********************************************************************************
-
-    private void copyValidTuples(Tuples tuples) {
-        this.tuples = new Tuples(tuples.isFeasible());
-        for (int ti = 0; ti < tuples.nbTuples(); ti++) {
-            int[] tuple = tuples.get(ti);
-            boolean valid = true;
-            for (int i = 0; i < vars.length && valid; i++) {
-                if (!vars[i].contains(tuple[i])) valid = false;
-            }
-            if (valid) {
-                this.tuples.add(tuple);
-            }
-        }
-        currTable = new RSparseBitSet(model.getEnvironment(), this.tuples.nbTuples());
-    }
-
-    private void computeSupports() {
-        int n = vars.length;
-        offset = new int[n];
-        supports = new long[n][][];
-        residues = new int[n][];
-        for (int i = 0; i < n; i++) {
-            int lb = vars[i].getLB();
-            int ub = vars[i].getUB();
-            offset[i] = lb;
-            supports[i] = new long[ub - lb + 1][currTable.words.length];
-            residues[i] = new int[ub - lb + 1];
-            for (int v : vars[i]) {
-                long[] tmp = supports[i][v - lb];
-                int wI = 0;
-                int bI = 63;
-                for (int ti = 0; ti < tuples.nbTuples(); ti++) {
-                    if (tuples.get(ti)[i] == v) {
-                        tmp[wI] |= 1L << (bI);
-                    }
-                    bI--;
-                    if (bI < 0) {
-                        bI = 63;
-                        wI++;
-                    }
-                }
-            }
-        }
-    }
-
     //***********************************************************************************
    	// FILTERING
    	//***********************************************************************************
@@ -154,9 +112,7 @@ public class PropCompactTable extends Propagator<IntVar> {
         if (PropagatorEventType.isFullPropagation(evtmask)) {
             for (int i = 0; i < vars.length; i++) {
                 currTable.clearMask();
-                for (int v : vars[i]) {
-                    currTable.addToMask(supports[i][v - offset[i]]);
-                }
+                addDomainToMask(i);
                 currTable.intersectWithMask();
             }
         }
@@ -171,12 +127,11 @@ public class PropCompactTable extends Propagator<IntVar> {
         currTable.clearMask();
 		monitors[vIdx].freeze();
         if (vars[vIdx].getDomainSize()>monitors[vIdx].sizeApproximation()) {
+            // tuples with the universal value are not concerned by value removals
             monitors[vIdx].forEachRemVal(onValRem.set(vIdx));
             currTable.reverseMask();
         } else {
-            for (int v : vars[vIdx]) {
-                currTable.addToMask(supports[vIdx][v - offset[vIdx]]);
-            }
+            addDomainToMask(vIdx);
         }
         currTable.intersectWithMask();
         monitors[vIdx].unfreeze();
@@ -186,6 +141,13 @@ public class PropCompactTable extends Propagator<IntVar> {
         forcePropagate(PropagatorEventType.CUSTOM_PROPAGATION);
     }
 
+	private void addDomainToMask(int i) {
+		for (int v : vars[i]) {
+			currTable.addToMask(supports.getIndices(i, v), supports.getWords(i, v));
+		}
+		currTable.addToMask(supports.getStarIndices(i), supports.getStarWords(i));
+	}
+
 	private void filterDomains() throws ContradictionException {
 		if(currTable.isEmpty()){// to keep as we skip instantiated vars
 			fails();
@@ -199,51 +161,43 @@ public class PropCompactTable extends Propagator<IntVar> {
 		}
 	}
 
+	/**
+	 * @return <tt>true</tt> if the value <code>v</code> of the <code>i</code>^th variable is still supported,
+	 * its residue being updated if needed
+	 */
+	private boolean supported(int i, int v) {
+		int[] idx = supports.getIndices(i, v);
+		long[] wrd = supports.getWords(i, v);
+		int k = residues[i][v - offset[i]];
+		if (k < idx.length && (currTable.getWord(idx[k]) & wrd[k]) != 0L) {
+			return true;
+		}
+		k = currTable.intersectIndex(idx, wrd);
+		if (k == -1) {
+			// a tuple with the universal value supports any value
+			return currTable.intersectIndex(supports.getStarIndices(i), supports.getStarWords(i)) > -1;
+		}
+		residues[i][v - offset[i]] = k;
+		return true;
+	}
+
 	private void boundFilter(int i) throws ContradictionException {
 		int lb = vars[i].getLB();
 		int ub = vars[i].getUB();
-		for (int v=lb;v<=ub;v++) {
-			int index = residues[i][v - offset[i]];
-			if ((currTable.words[index].get() & supports[i][v - offset[i]][index]) == 0L) {
-				index = currTable.intersectIndex(supports[i][v - offset[i]]);
-				if (index == -1) {
-					lb ++;
-				} else {
-					residues[i][v - offset[i]] = index;
-					break;
-				}
-			}else{
-				break;
-			}
+		while (lb <= ub && !supported(i, lb)) {
+			lb++;
 		}
 		vars[i].updateLowerBound(lb, this);
-		for (int v=ub;v>=ub;v--) {
-			int index = residues[i][v - offset[i]];
-			if ((currTable.words[index].get() & supports[i][v - offset[i]][index]) == 0L) {
-				index = currTable.intersectIndex(supports[i][v - offset[i]]);
-				if (index == -1) {
-					ub --;
-				} else {
-					residues[i][v - offset[i]] = index;
-					break;
-				}
-			}else{
-				break;
-			}
+		while (ub >= lb && !supported(i, ub)) {
+			ub--;
 		}
 		vars[i].updateUpperBound(ub, this);
 	}
 
 	private void enumFilter(int i) throws ContradictionException {
 		for (int v : vars[i]) {
-			int index = residues[i][v - offset[i]];
-			if ((currTable.words[index].get() & supports[i][v - offset[i]][index]) == 0L) {
-				index = currTable.intersectIndex(supports[i][v - offset[i]]);
-				if (index == -1) {
-					vars[i].removeValue(v, this);
-				} else {
-					residues[i][v - offset[i]] = index;
-				}
+			if (!supported(i, v)) {
+				vars[i].removeValue(v, this);
 			}
 		}
 	}
@@ -253,78 +207,4 @@ public class PropCompactTable extends Propagator<IntVar> {
 		// TODO optim : check current according to currTable?
         return tuples.check(vars);
     }
-
-    //***********************************************************************************
-   	// RSparseBitSet
-   	//***********************************************************************************
-
-    private class RSparseBitSet {
-        private IStateLong[] words;
-        private int[] index;
-        private IStateInt limit;
-        private long[] mask;
-
-		private RSparseBitSet(IEnvironment environment, int nbBits) {
-            int nw = nbBits / 64;
-            if (nw * 64 < nbBits) nw++;
-            index = new int[nw];
-            mask = new long[nw];
-            limit = environment.makeInt(nw - 1);
-            words = new IStateLong[nw];
-            for (int i = 0; i < nw; i++) {
-                index[i] = i;
-                words[i] = environment.makeLong(-1L);
-            }
-        }
-
-		private boolean isEmpty() {
-            return limit.get() == -1;
-        }
-
-		private void clearMask() {
-            for (int i = limit.get(); i >= 0; i--) {
-                int offset = index[i];
-                mask[offset] = 0L;
-            }
-        }
-
-		private void reverseMask() {
-            for (int i = limit.get(); i >= 0; i--) {
-                int offset = index[i];
-                mask[offset] = ~mask[offset];
-            }
-        }
-
-		private void addToMask(long[] wordsToAdd) {
-            for (int i = limit.get(); i >= 0; i--) {
-                int offset = index[i];
-                mask[offset] = mask[offset] | wordsToAdd[offset];
-            }
-        }
-
-		private void intersectWithMask() {
-            for (int i = limit.get(); i >= 0; i--) {
-                int offset = index[i];
-                long w = words[offset].get() & mask[offset];
-                if (words[offset].get() != w) {
-                    words[offset].set(w);
-                    if (w == 0L) {
-                        index[i] = index[limit.get()];
-                        index[limit.get()] = offset;
-                        limit.add(-1);
-                    }
-                }
-            }
-        }
-
-		private int intersectIndex(long[] m) {
-            for (int i = limit.get(); i >= 0; i--) {
-                int offset = index[i];
-                if ((words[offset].get() & m[offset]) != 0L) {
-                    return offset;
-                }
-            }
-            return -1;
-        }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,223 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.constraints.extension.nary;
+
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.constraints.PropagatorPriority;
+import org.chocosolver.solver.constraints.extension.TableSupports;
+import org.chocosolver.solver.constraints.extension.Tuples;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.exception.SolverException;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.delta.IIntDeltaMonitor;
+import org.chocosolver.solver.variables.events.PropagatorEventType;
+import org.chocosolver.util.ESat;
+import org.chocosolver.util.procedure.UnaryIntProcedure;
+
+/**
+ * Propagator for table constraint based on
+ * "Extending Compact-Table to Negative and Short Tables" (CT-)
+ * Only for infeasible Tuples, without universal value.
+ * <br/>
+ * The forbidden tuples which values all belong to the domains (the valid ones) are maintained
+ * in a reversible sparse bit-set, as in {@link PropCompactTable}.
+ * A value <i>a</i> of <i>x</i> is removed when the valid forbidden tuples with <i>x = a</i>
+ * cover all the combinations of values of the other variables.
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class PropCompactTableNeg extends Propagator<IntVar> {
+
+    //***********************************************************************************
+    // VARIABLES
+    //***********************************************************************************
+
+    private RSparseBitSet currTable;
+    private Tuples tuples;
+    private TableSupports supports;
+    private IIntDeltaMonitor[] monitors;
+    private UnaryIntProcedure<Integer> onValRem;
+    private long[] prefix, suffix;
+
+    //***********************************************************************************
+    // CONSTRUCTOR
+    //***********************************************************************************
+
+    /**
+     * Create a propagator for table constraint
+     * Only for infeasible Tuples, without universal value.
+     * Supports are shared with any other table constraint posted with the same <code>tuples</code>.
+     * @param vars scope
+     * @param tuples list of infeasible tuples
+     */
+    public PropCompactTableNeg(IntVar[] vars, Tuples tuples) {
+        super(vars, PropagatorPriority.QUADRATIC, true);
+        if (tuples.isFeasible() || tuples.allowUniversalValue()) {
+            throw new SolverException("PropCompactTableNeg only deals with forbidden tuples, without universal value");
+        }
+        this.tuples = tuples;
+        this.supports = tuples.getSupports();
+        this.currTable = new RSparseBitSet(model.getEnvironment(), supports.nbTuples());
+        this.prefix = new long[vars.length + 1];
+        this.suffix = new long[vars.length + 1];
+        monitors = new IIntDeltaMonitor[vars.length];
+        for (int i = 0; i < vars.length; i++) {
+            monitors[i] = vars[i].monitorDelta(this);
+        }
+        onValRem = new UnaryIntProcedure<Integer>() {
+            int var;
+            @Override
+            public UnaryIntProcedure set(Integer o) {
+                var = o;
+                return this;
+            }
+            @Override
+            public void execute(int i) throws ContradictionException {
+                currTable.addToMask(supports.getIndices(var, i), supports.getWords(var, i));
+            }
+        };
+    }
+
+    //***********************************************************************************
+    // FILTERING
+    //***********************************************************************************
+
+    @Override
+    public void propagate(int evtmask) throws ContradictionException {
+        if (PropagatorEventType.isFullPropagation(evtmask)) {
+            for (int i = 0; i < vars.length; i++) {
+                currTable.clearMask();
+                addDomainToMask(i);
+                currTable.intersectWithMask();
+            }
+        }
+        filterDomains();
+        for (int i = 0; i < vars.length; i++) {
+            monitors[i].unfreeze();
+        }
+    }
+
+    @Override
+    public void propagate(int vIdx, int mask) throws ContradictionException {
+        currTable.clearMask();
+        monitors[vIdx].freeze();
+        if (vars[vIdx].getDomainSize() > monitors[vIdx].sizeApproximation()) {
+            monitors[vIdx].forEachRemVal(onValRem.set(vIdx));
+            currTable.reverseMask();
+        } else {
+            addDomainToMask(vIdx);
+        }
+        currTable.intersectWithMask();
+        monitors[vIdx].unfreeze();
+        forcePropagate(PropagatorEventType.CUSTOM_PROPAGATION);
+    }
+
+    private void addDomainToMask(int i) {
+        for (int v : vars[i]) {
+            currTable.addToMask(supports.getIndices(i, v), supports.getWords(i, v));
+        }
+    }
+
+    private void filterDomains() throws ContradictionException {
+        boolean again = true;
+        while (again) {
+            again = false;
+            if (currTable.isEmpty()) {
+                // no forbidden tuple can be reached anymore
+                setPassive();
+                return;
+            }
+            long count = currTable.cardinality();
+            // number of combinations of values of the other variables, saturated beyond count
+            prefix[0] = 1;
+            for (int i = 0; i < vars.length; i++) {
+                prefix[i + 1] = mul(prefix[i], vars[i].getDomainSize(), count);
+            }
+            suffix[vars.length] = 1;
+            for (int i = vars.length - 1; i >= 0; i--) {
+                suffix[i] = mul(suffix[i + 1], vars[i].getDomainSize(), count);
+            }
+            for (int i = 0; i < vars.length && !again; i++) {
+                long others = mul(prefix[i], suffix[i + 1], count);
+                // a value is forbidden only if all the combinations of the other variables are
+                if (others <= count) {
+                    int size = vars[i].getDomainSize();
+                    if (vars[i].hasEnumeratedDomain()) {
+                        enumFilter(i, others);
+                    } else {
+                        boundFilter(i, others);
+                    }
+                    if (vars[i].getDomainSize() < size) {
+                        // forbidden tuples with removed values are not valid anymore, counts have to be updated
+                        currTable.clearMask();
+                        addDomainToMask(i);
+                        currTable.intersectWithMask();
+                        again = true;
+                    }
+                }
+            }
+        }
+    }
+
+    private static long mul(long a, long b, long count) {
+        return a > count || b > count ? count + 1 : Math.min(a * b, count + 1);
+    }
+
+    private boolean forbidden(int i, int v, long others) {
+        return currTable.intersectCount(supports.getIndices(i, v), supports.getWords(i, v)) == others;
+    }
+
+    private void boundFilter(int i, long others) throws ContradictionException {
+        int lb = vars[i].getLB();
+        int ub = vars[i].getUB();
+        while (lb <= ub && forbidden(i, lb, others)) {
+            lb++;
+        }
+        vars[i].updateLowerBound(lb, this);
+        while (ub >= lb && forbidden(i, ub, others)) {
+            ub--;
+        }
+        vars[i].updateUpperBound(ub, this);
+    }
+
+    private void enumFilter(int i, long others) throws ContradictionException {
+        for (int v : vars[i]) {
+            if (forbidden(i, v, others)) {
+                vars[i].removeValue(v, this);
+            }
+        }
+    }
+
+    @Override
+    public ESat isEntailed() {
+        return tuples.check(vars);
+    }
+}
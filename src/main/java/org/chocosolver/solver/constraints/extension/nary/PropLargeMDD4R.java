@@ -0,0 +1,246 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.constraints.extension.nary;
+
+import org.chocosolver.memory.IStateIntVector;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.constraints.PropagatorPriority;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.util.ESat;
+import org.chocosolver.util.objects.graphs.MultivaluedDecisionDiagram;
+import org.chocosolver.util.tools.VariableUtils;
+
+import java.util.Arrays;
+
+/**
+ * Implementation based on "Improving GAC-4 for Table and MDD Constraints", Perez and Régin, CP14 (MDD4R).
+ * <p/>
+ * The arcs of the MDD are maintained in reversible sparse sets, one per value: the arcs labelled with a value
+ * are stored in a segment of <code>dense</code>, the alive ones first, the number of removed ones being
+ * backtrackable.
+ * When a value is removed, its arcs are deleted; a node left without incoming or outgoing arc is deleted
+ * together with its remaining arcs; a value left without arc is removed.
+ * The MDD, and its arc layout, can be shared between multiple propagators, no copy is achieved.
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class PropLargeMDD4R extends Propagator<IntVar> {
+
+    private final MultivaluedDecisionDiagram MDD;
+    private final int nvars;
+    /**
+     * Fixed arc layout of the MDD, shared by the propagators posted on it
+     */
+    private final MDD4RLayout layout;
+    /**
+     * Values of the i^th variable are at positions [valStart[i], valStart[i+1]), the value at position
+     * valStart[i] + j is MDD.getOffset(i) + j
+     */
+    private final int[] valStart;
+    /**
+     * Arcs labelled with the value at position p are stored in [arcStart[p], arcStart[p+1])
+     */
+    private final int[] arcStart;
+    /**
+     * Reversible sparse sets of arcs, one per value
+     */
+    private final int[] dense, position;
+    /**
+     * Number of removed arcs, per value
+     */
+    private final IStateIntVector removedArcs;
+    /**
+     * Number of removed outgoing and incoming arcs, per node
+     */
+    private final IStateIntVector removedOut, removedIn;
+    /**
+     * For each variable position, next position of the same variable (itself if it appears once)
+     */
+    private final int[] twins;
+    /**
+     * Nodes deleted but not yet processed
+     */
+    private final int[] stack;
+    private int top;
+
+    /**
+     * Create a propagator maintaining GAC based on a MDD.
+     *
+     * @param MDD  Multi-valued Decision Diagram, stores the solutions
+     * @param VARS the related variables -- the order is important, and need to match the MDD.
+     */
+    public PropLargeMDD4R(MultivaluedDecisionDiagram MDD, IntVar... VARS) {
+        super(VARS, PropagatorPriority.QUADRATIC, true);
+        this.MDD = MDD;
+        this.nvars = vars.length;
+        this.layout = MDD4RLayout.get(model, MDD);
+        this.valStart = layout.valStart;
+        this.arcStart = layout.arcStart;
+        int nbArcs = layout.getNbArcs();
+        int nbNodes = layout.nbNodes;
+        this.dense = new int[nbArcs];
+        this.position = new int[nbArcs];
+        for (int a = 0; a < nbArcs; a++) {
+            dense[a] = position[a] = a;
+        }
+        this.removedArcs = model.getEnvironment().makeIntVector(valStart[nvars], 0);
+        this.removedOut = model.getEnvironment().makeIntVector(nbNodes, 0);
+        this.removedIn = model.getEnvironment().makeIntVector(nbNodes, 0);
+        this.stack = new int[2 * nbNodes];
+        this.twins = VariableUtils.twins(vars);
+    }
+
+    @Override
+    public void propagate(int evtmask) throws ContradictionException {
+        top = 0;
+        for (int i = 0; i < nvars; i++) {
+            int o = MDD.getOffset(i);
+            vars[i].updateBounds(o, o + MDD.getNodeSize(i) - 1, this);
+        }
+        if (layout.outStart[1] == 0) { // no tuple
+            fails();
+        }
+        for (int i = 0; i < nvars; i++) {
+            checkLayer(i);
+            for (int p = valStart[i]; p < valStart[i + 1]; p++) {
+                if (arcStart[p] == arcStart[p + 1]) {
+                    removeValue(i, p);
+                }
+            }
+        }
+        filter();
+    }
+
+    @Override
+    public void propagate(int varIdx, int mask) throws ContradictionException {
+        top = 0;
+        checkLayer(varIdx);
+        filter();
+    }
+
+    @Override
+    public ESat isEntailed() {
+        if (isCompletelyInstantiated()) {
+            int[] diag = MDD.getDiagram();
+            int node = 0;
+            for (int l = 0; l < nvars; l++) {
+                int j = vars[l].getValue() - MDD.getOffset(l);
+                if (j < 0 || j >= MDD.getNodeSize(l) || diag[node + j] == MultivaluedDecisionDiagram.EMPTY) {
+                    return ESat.FALSE;
+                }
+                node = diag[node + j];
+            }
+            return ESat.TRUE;
+        }
+        return ESat.UNDEFINED;
+    }
+
+    /**
+     * Delete the arcs labelled with values removed from the domain of the i^th variable.
+     */
+    private void checkLayer(int i) throws ContradictionException {
+        int o = MDD.getOffset(i);
+        for (int p = valStart[i]; p < valStart[i + 1]; p++) {
+            if (!vars[i].contains(o + p - valStart[i])) {
+                while (nbArcs(p) > 0) {
+                    deleteArc(dense[arcStart[p]]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Delete the remaining arcs of deleted nodes, until a fix point is reached.
+     */
+    private void filter() throws ContradictionException {
+        while (top > 0) {
+            int u = stack[--top];
+            for (int k = layout.outStart[u]; k < layout.outStart[u + 1]; k++) {
+                deleteArc(layout.outArcs[k]);
+            }
+            for (int k = layout.inStart[u]; k < layout.inStart[u + 1]; k++) {
+                deleteArc(layout.inArcs[k]);
+            }
+        }
+    }
+
+    private int nbArcs(int p) {
+        return arcStart[p + 1] - arcStart[p] - removedArcs.quickGet(p);
+    }
+
+    private void deleteArc(int a) throws ContradictionException {
+        int p = layout.arcVal[a];
+        int last = arcStart[p + 1] - 1 - removedArcs.quickGet(p);
+        int k = position[a];
+        if (k > last) { // already deleted
+            return;
+        }
+        int b = dense[last];
+        dense[last] = a;
+        position[a] = last;
+        dense[k] = b;
+        position[b] = k;
+        removedArcs.quickSet(p, removedArcs.quickGet(p) + 1);
+        int u = layout.arcSrc[a];
+        removedOut.quickSet(u, removedOut.quickGet(u) + 1);
+        if (removedOut.quickGet(u) == layout.outStart[u + 1] - layout.outStart[u]) {
+            if (u == 0) { // the root
+                fails();
+            }
+            stack[top++] = u;
+        }
+        u = layout.arcDst[a];
+        removedIn.quickSet(u, removedIn.quickGet(u) + 1);
+        if (removedIn.quickGet(u) == layout.inStart[u + 1] - layout.inStart[u]) {
+            if (u == layout.terminal) {
+                fails();
+            }
+            stack[top++] = u;
+        }
+        if (last == arcStart[p]) {
+            int i = Arrays.binarySearch(valStart, p);
+            removeValue(i < 0 ? -i - 2 : i, p);
+        }
+    }
+
+    /**
+     * Remove the value at position <i>p</i> from the domain of the i^th variable.
+     */
+    private void removeValue(int i, int p) throws ContradictionException {
+        if (vars[i].removeValue(MDD.getOffset(i) + p - valStart[i], this)) {
+            // the other occurrences of the variable are not notified
+            for (int j = twins[i]; j != i; j = twins[j]) {
+                checkLayer(j);
+            }
+        }
+    }
+}
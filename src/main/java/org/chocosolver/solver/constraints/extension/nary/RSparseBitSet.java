@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.constraints.extension.nary;
+
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.memory.IStateInt;
+import org.chocosolver.memory.IStateLong;
+
+/**
+ * Reversible sparse bit-set, as defined in
+ * "Compact-Table: Efficiently Filtering Table Constraints with Reversible Sparse Bit-Sets".
+ * Non-empty words are kept in the prefix of <code>index</code>, up to <code>limit</code>.
+ *
+ * @author Jean-Guillaume FAGES
+ * @since 28/04/2016
+ */
+class RSparseBitSet {
+
+    private IStateLong[] words;
+    private int[] index;
+    private IStateInt limit;
+    private long[] mask;
+
+    RSparseBitSet(IEnvironment environment, int nbBits) {
+        int nw = nbBits / 64;
+        if (nw * 64 < nbBits) nw++;
+        index = new int[nw];
+        mask = new long[nw];
+        limit = environment.makeInt(nw - 1);
+        words = new IStateLong[nw];
+        for (int i = 0; i < nw; i++) {
+            index[i] = i;
+            words[i] = environment.makeLong(-1L);
+        }
+        // bits beyond nbBits are not set
+        if (nw * 64 > nbBits) {
+            words[nw - 1] = environment.makeLong(-1L >>> (nw * 64 - nbBits));
+        }
+    }
+
+    boolean isEmpty() {
+        return limit.get() == -1;
+    }
+
+    long getWord(int i) {
+        return words[i].get();
+    }
+
+    void clearMask() {
+        for (int i = limit.get(); i >= 0; i--) {
+            int offset = index[i];
+            mask[offset] = 0L;
+        }
+    }
+
+    void reverseMask() {
+        for (int i = limit.get(); i >= 0; i--) {
+            int offset = index[i];
+            mask[offset] = ~mask[offset];
+        }
+    }
+
+    void addToMask(int[] idx, long[] wordsToAdd) {
+        for (int k = 0; k < idx.length; k++) {
+            mask[idx[k]] |= wordsToAdd[k];
+        }
+    }
+
+    void intersectWithMask() {
+        for (int i = limit.get(); i >= 0; i--) {
+            int offset = index[i];
+            long w = words[offset].get() & mask[offset];
+            if (words[offset].get() != w) {
+                words[offset].set(w);
+                if (w == 0L) {
+                    index[i] = index[limit.get()];
+                    index[limit.get()] = offset;
+                    limit.add(-1);
+                }
+            }
+        }
+    }
+
+    int intersectIndex(int[] idx, long[] m) {
+        for (int k = 0; k < idx.length; k++) {
+            if ((words[idx[k]].get() & m[k]) != 0L) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the number of bits set
+     */
+    long cardinality() {
+        long count = 0;
+        for (int i = limit.get(); i >= 0; i--) {
+            count += Long.bitCount(words[index[i]].get());
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of bits set both in this and in the sparse words <code>m</code>
+     */
+    long intersectCount(int[] idx, long[] m) {
+        long count = 0;
+        for (int k = 0; k < idx.length; k++) {
+            count += Long.bitCount(words[idx[k]].get() & m[k]);
+        }
+        return count;
+    }
+}
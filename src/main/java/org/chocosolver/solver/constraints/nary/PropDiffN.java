@@ -29,6 +29,7 @@
  */
 package org.chocosolver.solver.constraints.nary;
 
+import org.chocosolver.memory.IStateBool;
 import org.chocosolver.solver.constraints.Propagator;
 import org.chocosolver.solver.constraints.PropagatorPriority;
 import org.chocosolver.solver.exception.ContradictionException;
@@ -36,13 +37,20 @@ import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.solver.variables.events.IntEventType;
 import org.chocosolver.solver.variables.events.PropagatorEventType;
 import org.chocosolver.util.ESat;
-import org.chocosolver.util.objects.graphs.UndirectedGraph;
+import org.chocosolver.util.objects.KDBoxTree;
 import org.chocosolver.util.objects.setDataStructures.ISet;
 import org.chocosolver.util.objects.setDataStructures.SetFactory;
 import org.chocosolver.util.objects.setDataStructures.SetType;
 import org.chocosolver.util.tools.ArrayUtils;
 
 /**
+ * Non-overlapping propagator.
+ * Potentially overlapping boxes are retrieved from a k-d tree of the areas reachable by the boxes
+ * when the propagator is created, so that neither the memory nor the filtering of a box depends on
+ * the total number of pairs of boxes.
+ * If the propagator is created during search, the tree is rebuilt once search backtracks above the world
+ * it was built in, since areas may then grow out of it.
+ *
  * @author Jean-Guillaume Fages
  * @since 31/01/13
  */
@@ -53,7 +61,11 @@ public class PropDiffN extends Propagator<IntVar> {
     //***********************************************************************************
 
     private int n;
-    private UndirectedGraph overlappingBoxes;
+    /** areas reachable by the boxes when the tree was built, areas only shrink in this world and below */
+    private KDBoxTree reachable;
+    /** set to <tt>true</tt> in the world {@link #reachable} is built in, so it is reset on backtrack above it */
+    private final IStateBool upToDate;
+    private int[] neighbours;
     private ISet boxesToCompute;
     private boolean fast;
 
@@ -68,9 +80,11 @@ public class PropDiffN extends Propagator<IntVar> {
         if (!(n == y.length && n == dx.length && n == dy.length)) {
             throw new UnsupportedOperationException();
         }
-        overlappingBoxes = new UndirectedGraph(model, n, SetType.LINKED_LIST, true);
+        neighbours = new int[n];
         boxesToCompute = SetFactory.makeStoredSet(SetType.LINKED_LIST, 0, model);
-     }
+        upToDate = model.getEnvironment().makeBool(false);
+        buildReachable();
+    }
 
     //***********************************************************************************
     // METHODS
@@ -85,11 +99,6 @@ public class PropDiffN extends Propagator<IntVar> {
 	@Override
 	public void propagate(int varIdx, int mask) throws ContradictionException {
 		int v = varIdx % n;
-		for (int i : overlappingBoxes.getNeighOf(v)) {
-			if (!mayOverlap(v, i)) {
-				overlappingBoxes.removeEdge(v, i);
-			}
-		}
 		if (!boxesToCompute.contain(v)) {
 			boxesToCompute.add(v);
 		}
@@ -100,13 +109,10 @@ public class PropDiffN extends Propagator<IntVar> {
     public void propagate(int evtmask) throws ContradictionException {
         if (PropagatorEventType.isFullPropagation(evtmask)) {
             for (int i = 0; i < n; i++) {
-                overlappingBoxes.getNeighOf(i).clear();
-            }
-            for (int i = 0; i < n; i++) {
-                for (int j = i + 1; j < n; j++) {
-                    if (mayOverlap(i, j)) {
-                        overlappingBoxes.addEdge(i, j);
-                        if (boxInstantiated(i) && boxInstantiated(j)) {
+                if (boxInstantiated(i)) {
+                    int nb = getNeighbours(i);
+                    for (int k = 0; k < nb; k++) {
+                        if (boxInstantiated(neighbours[k])) {
                             fails(); // TODO: could be more precise, for explanation purpose
                         }
                     }
@@ -123,6 +129,43 @@ public class PropDiffN extends Propagator<IntVar> {
         boxesToCompute.clear();
     }
 
+    /**
+     * Build the k-d tree of the areas currently reachable by the boxes
+     */
+    private void buildReachable() {
+        int[] xm = new int[n], xM = new int[n], ym = new int[n], yM = new int[n];
+        for (int i = 0; i < n; i++) {
+            xm[i] = vars[i].getLB();
+            xM[i] = vars[i].getUB() + vars[i + 2 * n].getUB();
+            ym[i] = vars[i + n].getLB();
+            yM[i] = vars[i + n].getUB() + vars[i + 3 * n].getUB();
+        }
+        reachable = new KDBoxTree(xm, xM, ym, yM);
+        upToDate.set(true);
+    }
+
+    /**
+     * Store in {@link #neighbours} the boxes, other than <i>i</i>, that may overlap <i>i</i>
+     * @param i a box
+     * @return the number of boxes stored
+     */
+    private int getNeighbours(int i) {
+        if (!upToDate.get()) {
+            // search has backtracked above the world the tree was built in
+            buildReachable();
+        }
+        int nb = reachable.query(vars[i].getLB(), vars[i].getUB() + vars[i + 2 * n].getUB(),
+                vars[i + n].getLB(), vars[i + n].getUB() + vars[i + 3 * n].getUB(), neighbours);
+        int size = 0;
+        for (int k = 0; k < nb; k++) {
+            int j = neighbours[k];
+            if (j != i && mayOverlap(i, j)) {
+                neighbours[size++] = j;
+            }
+        }
+        return size;
+    }
+
     private boolean mayOverlap(int i, int j) {
         return isNotDisjoint(i, j, true) && isNotDisjoint(i, j, false);
     }
@@ -140,7 +183,9 @@ public class PropDiffN extends Propagator<IntVar> {
         int ym = vars[i + n].getLB();
         int yM = vars[i + n].getUB() + vars[i + 3 * n].getUB();
         int am = vars[i + 2 * n].getLB() * vars[i + 3 * n].getLB();
-        for (int j : overlappingBoxes.getNeighOf(i)) {
+        int nb = getNeighbours(i);
+        for (int k = 0; k < nb; k++) {
+            int j = neighbours[k];
             xm = Math.min(xm, vars[j].getLB());
             xM = Math.max(xM, vars[j].getUB() + vars[j + 2 * n].getUB());
             ym = Math.min(ym, vars[j + n].getLB());
@@ -153,7 +198,8 @@ public class PropDiffN extends Propagator<IntVar> {
         // mandatory part based filtering
         boolean horizontal = true;
         boolean vertical = false;
-        for (int j : overlappingBoxes.getNeighOf(i)) {
+        for (int k = 0; k < nb; k++) {
+            int j = neighbours[k];
             if (doOverlap(i, j, horizontal)) {
                 filter(i, j, vertical);
             }
@@ -197,14 +243,23 @@ public class PropDiffN extends Propagator<IntVar> {
     @Override
     public ESat isEntailed() {
         for (int i = 0; i < n; i++) {
-            if (boxInstantiated(i))
-                for (int j = i + 1; j < n; j++) {
-                    if (boxInstantiated(j)) {
-                        if (mayOverlap(i, j)) {
+            if (boxInstantiated(i)) {
+                if (upToDate.get()) {
+                    int nb = getNeighbours(i);
+                    for (int k = 0; k < nb; k++) {
+                        if (boxInstantiated(neighbours[k])) {
+                            return ESat.FALSE;
+                        }
+                    }
+                } else {
+                    // the tree is out of date, and is not rebuilt from the current domains here
+                    for (int j = 0; j < n; j++) {
+                        if (j != i && boxInstantiated(j) && mayOverlap(i, j)) {
                             return ESat.FALSE;
                         }
                     }
                 }
+            }
         }
         if (isCompletelyInstantiated()) {
             return ESat.TRUE;
@@ -0,0 +1,426 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.constraints.nary;
+
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.constraints.PropagatorPriority;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.expression.discrete.arithmetic.ArExpression;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.events.IntEventType;
+import org.chocosolver.util.ESat;
+import org.chocosolver.util.tools.ArrayUtils;
+
+/**
+ * A bound consistent propagator for a set of arithmetic expressions, each of them being equal to a variable:
+ * <br/>
+ * RESULTS[r] = expression rooted in node ROOTS[r].
+ * <p>
+ * The expressions are stored as a directed acyclic graph of nodes, sub-expressions being shared, and sorted
+ * such that any node comes after its children.
+ * A node is either a leaf, <code>OPS[k]</code> is <i>null</i> and <code>LEFT[k]</code> is the index of a variable in
+ * LEAVES, or an operator applied to node <code>LEFT[k]</code> (and <code>RIGHT[k]</code> for binary operators).
+ * <p>
+ * The filtering is based on interval arithmetic (HC4-revise): the interval of each node is first evaluated from the
+ * bounds of the leaves, intersected with the bounds of the result for roots, and then projected back onto the
+ * children, down to the leaves.
+ * {@link ArExpression.Operator#POW} is not supported, it should be given as a leaf.
+ * <br/>
+ * Values are evaluated with saturated arithmetic, as {@link ArExpression#eval(int[], java.util.Map)} does.
+ * A node whose interval is saturated is not projected.
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class PropExpression extends Propagator<IntVar> {
+
+    /**
+     * Maximum number of forward/backward passes in a call to {@link #propagate(int)}, to prevent slow convergence
+     * when a variable occurs more than once.
+     */
+    private static final int MAX_PASSES = 64;
+
+    private final int nbLeaves;
+    private final ArExpression.Operator[] ops;
+    private final int[] left;
+    private final int[] right;
+    private final int[] roots;
+    private final long[] lbs;
+    private final long[] ubs;
+    private final boolean[] exact;
+    private final long[] itv = new long[2];
+
+    /**
+     * Create a propagator for RESULTS[r] = expression rooted in node ROOTS[r], for each r.
+     *
+     * @param leaves  variables of the expressions
+     * @param results variables equal to the expressions
+     * @param ops     operator of each node, <i>null</i> for leaves
+     * @param left    first child of each node, or index of the variable in <i>leaves</i>
+     * @param right   second child of each node, -1 for unary operators and leaves
+     * @param roots   root node of each expression
+     */
+    public PropExpression(IntVar[] leaves, IntVar[] results, ArExpression.Operator[] ops, int[] left, int[] right,
+                          int[] roots) {
+        super(ArrayUtils.append(leaves, results), PropagatorPriority.LINEAR, false);
+        this.nbLeaves = leaves.length;
+        this.ops = ops;
+        this.left = left;
+        this.right = right;
+        this.roots = roots;
+        this.lbs = new long[ops.length];
+        this.ubs = new long[ops.length];
+        this.exact = new boolean[ops.length];
+    }
+
+    @Override
+    public int getPropagationConditions(int vIdx) {
+        return IntEventType.boundAndInst();
+    }
+
+    @Override
+    public void propagate(int evtmask) throws ContradictionException {
+        boolean change;
+        int pass = 0;
+        do {
+            change = false;
+            if (!forward()) {
+                fails();
+            }
+            for (int r = 0; r < roots.length; r++) {
+                int k = roots[r];
+                IntVar res = vars[nbLeaves + r];
+                change |= res.updateBounds((int) lbs[k], (int) ubs[k], this);
+                narrow(k, res.getLB(), res.getUB());
+            }
+            for (int k = ops.length - 1; k >= 0; k--) {
+                if (ops[k] == null) {
+                    change |= vars[left[k]].updateBounds((int) lbs[k], (int) ubs[k], this);
+                } else if (exact[k]) {
+                    backward(k);
+                }
+            }
+        } while (change && ++pass < MAX_PASSES);
+        if (isCompletelyInstantiated()) {
+            // the last pass may have instantiated the last variables
+            if (isEntailed() != ESat.TRUE) {
+                fails();
+            }
+            setPassive();
+        }
+    }
+
+    @Override
+    public ESat isEntailed() {
+        if (!forward()) {
+            return ESat.FALSE;
+        }
+        for (int r = 0; r < roots.length; r++) {
+            int k = roots[r];
+            IntVar res = vars[nbLeaves + r];
+            if (lbs[k] > res.getUB() || ubs[k] < res.getLB()) {
+                return ESat.FALSE;
+            }
+        }
+        return isCompletelyInstantiated() ? ESat.TRUE : ESat.UNDEFINED;
+    }
+
+    /**
+     * Evaluate the interval of each node from the bounds of the leaves.
+     *
+     * @return <i>false</i> if a node has no value
+     */
+    private boolean forward() {
+        for (int k = 0; k < ops.length; k++) {
+            if (ops[k] == null) {
+                lbs[k] = vars[left[k]].getLB();
+                ubs[k] = vars[left[k]].getUB();
+                exact[k] = true;
+            } else {
+                int x = left[k], y = right[k];
+                if (!interval(ops[k], lbs[x], ubs[x], y < 0 ? 0 : lbs[y], y < 0 ? 0 : ubs[y], itv)) {
+                    return false;
+                }
+                exact[k] = itv[0] >= Integer.MIN_VALUE && itv[1] <= Integer.MAX_VALUE;
+                lbs[k] = Math.max(itv[0], Integer.MIN_VALUE);
+                ubs[k] = Math.min(itv[1], Integer.MAX_VALUE);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Project the interval of node <i>k</i> onto its children.
+     */
+    private void backward(int k) throws ContradictionException {
+        int x = left[k], y = right[k];
+        long zl = lbs[k], zu = ubs[k];
+        switch (ops[k]) {
+            case NEG:
+                narrow(x, -zu, -zl);
+                break;
+            case ABS:
+                if (lbs[x] >= 0) {
+                    narrow(x, zl, zu);
+                } else if (ubs[x] <= 0) {
+                    narrow(x, -zu, -zl);
+                } else {
+                    narrow(x, -zu, zu);
+                }
+                break;
+            case ADD:
+                narrow(x, zl - ubs[y], zu - lbs[y]);
+                narrow(y, zl - ubs[x], zu - lbs[x]);
+                break;
+            case SUB:
+                narrow(x, zl + lbs[y], zu + ubs[y]);
+                narrow(y, lbs[x] - zu, ubs[x] - zl);
+                break;
+            case MUL:
+                divide(x, zl, zu, lbs[y], ubs[y]);
+                divide(y, zl, zu, lbs[x], ubs[x]);
+                break;
+            case SQR: {
+                long s = floorSqrt(zu);
+                narrow(x, -s, s);
+                long r = zl <= 0 ? 0 : floorSqrt(zl - 1) + 1;
+                if (lbs[x] >= 0) {
+                    narrow(x, r, s);
+                } else if (ubs[x] <= 0) {
+                    narrow(x, -s, -r);
+                }
+                break;
+            }
+            case MIN:
+                narrow(x, zl, Long.MAX_VALUE);
+                narrow(y, zl, Long.MAX_VALUE);
+                if (lbs[y] > zu) {
+                    narrow(x, Long.MIN_VALUE, zu);
+                }
+                if (lbs[x] > zu) {
+                    narrow(y, Long.MIN_VALUE, zu);
+                }
+                break;
+            case MAX:
+                narrow(x, Long.MIN_VALUE, zu);
+                narrow(y, Long.MIN_VALUE, zu);
+                if (ubs[y] < zl) {
+                    narrow(x, zl, Long.MAX_VALUE);
+                }
+                if (ubs[x] < zl) {
+                    narrow(y, zl, Long.MAX_VALUE);
+                }
+                break;
+            case DIV:
+            case MOD:
+                // the divisor cannot be 0
+                if (lbs[y] == 0) {
+                    narrow(y, 1, Long.MAX_VALUE);
+                }
+                if (ubs[y] == 0) {
+                    narrow(y, Long.MIN_VALUE, -1);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Narrow node <i>x</i> wrt z = x * y, when y does not contain 0.
+     */
+    private void divide(int x, long zl, long zu, long yl, long yu) throws ContradictionException {
+        if (yl > 0 || yu < 0) {
+            // rounding is monotonic, so the bounds are the rounded extremal quotients
+            long l = Math.min(Math.min(ceilDiv(zl, yl), ceilDiv(zl, yu)), Math.min(ceilDiv(zu, yl), ceilDiv(zu, yu)));
+            long u = Math.max(Math.max(Math.floorDiv(zl, yl), Math.floorDiv(zl, yu)),
+                    Math.max(Math.floorDiv(zu, yl), Math.floorDiv(zu, yu)));
+            narrow(x, l, u);
+        } else if (yl == 0 && yu == 0 && (zl > 0 || zu < 0)) {
+            fails();
+        }
+    }
+
+    private static long ceilDiv(long a, long b) {
+        return -Math.floorDiv(-a, b);
+    }
+
+    /**
+     * @return the largest integer whose square is less than or equal to <i>v</i>
+     */
+    private static long floorSqrt(long v) {
+        if (v < 0) {
+            return -1;
+        }
+        long s = (long) Math.sqrt(v);
+        while (s * s > v) {
+            s--;
+        }
+        while ((s + 1) * (s + 1) <= v) {
+            s++;
+        }
+        return s;
+    }
+
+    private void narrow(int k, long l, long u) throws ContradictionException {
+        lbs[k] = Math.max(lbs[k], l);
+        ubs[k] = Math.min(ubs[k], u);
+        if (lbs[k] > ubs[k]) {
+            fails();
+        }
+    }
+
+    /**
+     * Compute the interval of <i>op</i> applied to [xl,xu] (and [yl,yu] for binary operators).
+     * Bounds are expected to be in the int range.
+     *
+     * @param op  an operator, but {@link ArExpression.Operator#POW}
+     * @param xl  lower bound of the first operand
+     * @param xu  upper bound of the first operand
+     * @param yl  lower bound of the second operand, ignored for unary operators
+     * @param yu  upper bound of the second operand, ignored for unary operators
+     * @param out stores the lower bound and the upper bound of the result
+     * @return <i>false</i> if the result is empty, that is, a division by 0
+     */
+    public static boolean interval(ArExpression.Operator op, long xl, long xu, long yl, long yu, long[] out) {
+        long l, u;
+        switch (op) {
+            case NEG:
+                l = -xu;
+                u = -xl;
+                break;
+            case ABS:
+                if (xl >= 0) {
+                    l = xl;
+                    u = xu;
+                } else if (xu <= 0) {
+                    l = -xu;
+                    u = -xl;
+                } else {
+                    l = 0;
+                    u = Math.max(-xl, xu);
+                }
+                break;
+            case ADD:
+                l = xl + yl;
+                u = xu + yu;
+                break;
+            case SUB:
+                l = xl - yu;
+                u = xu - yl;
+                break;
+            case MUL: {
+                long a = xl * yl, b = xl * yu, c = xu * yl, d = xu * yu;
+                l = Math.min(Math.min(a, b), Math.min(c, d));
+                u = Math.max(Math.max(a, b), Math.max(c, d));
+                break;
+            }
+            case SQR:
+                if (xl >= 0) {
+                    l = xl * xl;
+                    u = xu * xu;
+                } else if (xu <= 0) {
+                    l = xu * xu;
+                    u = xl * xl;
+                } else {
+                    l = 0;
+                    u = Math.max(xl * xl, xu * xu);
+                }
+                break;
+            case MIN:
+                l = Math.min(xl, yl);
+                u = Math.min(xu, yu);
+                break;
+            case MAX:
+                l = Math.max(xl, yl);
+                u = Math.max(xu, yu);
+                break;
+            case DIV:
+                // truncated division is monotonic in both operands on each side of 0
+                l = Long.MAX_VALUE;
+                u = Long.MIN_VALUE;
+                if (yu > 0) {
+                    long a = Math.max(yl, 1);
+                    l = Math.min(Math.min(xl / a, xl / yu), Math.min(xu / a, xu / yu));
+                    u = Math.max(Math.max(xl / a, xl / yu), Math.max(xu / a, xu / yu));
+                }
+                if (yl < 0) {
+                    long b = Math.min(yu, -1);
+                    l = Math.min(l, Math.min(Math.min(xl / yl, xl / b), Math.min(xu / yl, xu / b)));
+                    u = Math.max(u, Math.max(Math.max(xl / yl, xl / b), Math.max(xu / yl, xu / b)));
+                }
+                break;
+            case MOD: {
+                if (yl == 0 && yu == 0) {
+                    return false;
+                }
+                if (xl == xu && yl == yu) {
+                    l = u = xl % yl;
+                    break;
+                }
+                // the result has the sign of the dividend, and is smaller than the divisor in absolute value
+                long m = Math.max(Math.abs(yl), Math.abs(yu)) - 1;
+                l = xl >= 0 ? 0 : Math.max(xl, -m);
+                u = xu <= 0 ? 0 : Math.min(xu, m);
+                break;
+            }
+            default:
+                throw new UnsupportedOperationException("Interval arithmetic does not support " + op.name());
+        }
+        out[0] = l;
+        out[1] = u;
+        return l <= u;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Expression(");
+        for (int r = 0; r < roots.length; r++) {
+            if (r > 0) {
+                sb.append(", ");
+            }
+            sb.append(vars[nbLeaves + r].getName()).append(" = ");
+            toString(sb, roots[r]);
+        }
+        return sb.append(')').toString();
+    }
+
+    private void toString(StringBuilder sb, int k) {
+        if (ops[k] == null) {
+            sb.append(vars[left[k]].getName());
+        } else {
+            sb.append(ops[k].name()).append('(');
+            toString(sb, left[k]);
+            if (right[k] >= 0) {
+                sb.append(',');
+                toString(sb, right[k]);
+            }
+            sb.append(')');
+        }
+    }
+}
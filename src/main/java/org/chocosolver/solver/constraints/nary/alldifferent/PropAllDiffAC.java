@@ -32,8 +32,10 @@ package org.chocosolver.solver.constraints.nary.alldifferent;
 import org.chocosolver.solver.constraints.Propagator;
 import org.chocosolver.solver.constraints.PropagatorPriority;
 import org.chocosolver.solver.constraints.nary.alldifferent.algo.AlgoAllDiffAC;
+import org.chocosolver.solver.constraints.nary.alldifferent.algo.AlgoAllDiffACBitset;
 import org.chocosolver.solver.exception.ContradictionException;
 import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.events.PropagatorEventType;
 import org.chocosolver.util.ESat;
 
 /**
@@ -45,6 +47,9 @@ import org.chocosolver.util.ESat;
  * <p/>
  * Runs incrementally for maintaining a matching
  * <p/>
+ * When all variables have an enumerated domain, the incremental word-level algorithm {@link AlgoAllDiffACBitset}
+ * is used, otherwise {@link AlgoAllDiffAC} is.
+ * <p/>
  *
  * @author Jean-Guillaume Fages
  */
@@ -55,6 +60,7 @@ public class PropAllDiffAC extends Propagator<IntVar> {
     //***********************************************************************************
 
     protected AlgoAllDiffAC filter;
+    private AlgoAllDiffACBitset bitFilter;
 
     //***********************************************************************************
     // CONSTRUCTORS
@@ -67,8 +73,32 @@ public class PropAllDiffAC extends Propagator<IntVar> {
      * @param variables array of integer variables
      */
     public PropAllDiffAC(IntVar[] variables) {
-        super(variables, PropagatorPriority.QUADRATIC, false);
-        this.filter = new AlgoAllDiffAC(variables, this);
+        this(variables, true);
+    }
+
+    /**
+     * AllDifferent constraint for integer variables
+     *
+     * @param variables array of integer variables
+     * @param incremental set to <code>true</code> to use the incremental word-level algorithm
+     *                    when all variables have an enumerated domain
+     */
+    protected PropAllDiffAC(IntVar[] variables, boolean incremental) {
+        super(variables, PropagatorPriority.QUADRATIC, incremental && enumerated(variables));
+        if (reactToFineEvt) {
+            this.bitFilter = new AlgoAllDiffACBitset(vars, this);
+        } else {
+            this.filter = new AlgoAllDiffAC(vars, this);
+        }
+    }
+
+    private static boolean enumerated(IntVar[] variables) {
+        for (int i = 0; i < variables.length; i++) {
+            if (!variables[i].hasEnumeratedDomain()) {
+                return false;
+            }
+        }
+        return variables.length > 0;
     }
 
     //***********************************************************************************
@@ -77,7 +107,20 @@ public class PropAllDiffAC extends Propagator<IntVar> {
 
     @Override
     public void propagate(int evtmask) throws ContradictionException {
-        filter.propagate();
+        if (bitFilter != null) {
+            if (PropagatorEventType.isFullPropagation(evtmask)) {
+                bitFilter.reset();
+            }
+            bitFilter.propagate();
+        } else {
+            filter.propagate();
+        }
+    }
+
+    @Override
+    public void propagate(int idxVarInProp, int mask) throws ContradictionException {
+        bitFilter.onRemovals(idxVarInProp);
+        forcePropagate(PropagatorEventType.CUSTOM_PROPAGATION);
     }
 
     @Override
@@ -66,7 +66,7 @@ public class PropAllDiffAdaptative extends PropAllDiffAC {
      * @param variables array of integer variables
      */
     public PropAllDiffAdaptative(IntVar[] variables) {
-        super(variables);
+        super(variables, false);
         rd = new Random(0);
         calls = success = 1;
     }
@@ -0,0 +1,577 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.constraints.nary.alldifferent.algo;
+
+import gnu.trove.map.hash.TIntIntHashMap;
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.memory.IStateLong;
+import org.chocosolver.solver.ICause;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.delta.IIntDeltaMonitor;
+import org.chocosolver.util.procedure.UnaryIntProcedure;
+
+/**
+ * Incremental algorithm of Alldifferent with AC, dedicated to variables with enumerated domains.
+ * <p>
+ * Variable/value adjacency is stored in 64-bit words, both by variable and by value, and is maintained
+ * from the removed values ({@link IIntDeltaMonitor}), so that it is restored upon backtrack.
+ * The maximum matching is kept from one call to another and is only repaired for variables whose matched value
+ * has been removed.
+ * Augmenting paths and strongly connected components (Kosaraju) are computed word by word,
+ * in O(n.m/64) where n is the number of variables and m the number of values.
+ * <p>
+ * The propagator using this algorithm must react on fine events, and
+ * call {@link #onRemovals(int)} on each of them.
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class AlgoAllDiffACBitset {
+
+    //***********************************************************************************
+    // VARIABLES
+    //***********************************************************************************
+
+    private static final int NONE = -1;
+
+    private final IntVar[] vars;
+    private final ICause aCause;
+    private final int n, m, S;
+    // number of words to store a set of values, a set of variables
+    private final int wm, wn;
+    // value index <-> value
+    private final int[] values;
+    private final int offset;
+    private final int[] v2i;
+    private final TIntIntHashMap map;
+    // backtrackable adjacency: values of each variable, variables of each value
+    private final IStateLong[][] dom, sup;
+    private final IIntDeltaMonitor[] monitors;
+    private final UnaryIntProcedure<Integer> onValRem;
+    // maximum matching, kept over calls
+    private final int[] mateOfVar, mateOfVal;
+    private final long[] matchedVals;
+    // for augmenting matching (BFS)
+    private final long[] visitedVals;
+    private final int[] father, fifo;
+    // for SCC
+    private final long[] unvisitedVars, unvisitedVals;
+    private final int[] stack, cursor, order;
+    private final int[] compOfVar, compOfVal;
+    private final long[][] compVals;
+
+    //***********************************************************************************
+    // CONSTRUCTORS
+    //***********************************************************************************
+
+    public AlgoAllDiffACBitset(IntVar[] variables, ICause cause) {
+        this.vars = variables;
+        this.aCause = cause;
+        this.n = vars.length;
+        int lb = Integer.MAX_VALUE, ub = Integer.MIN_VALUE;
+        TIntIntHashMap tmap = new TIntIntHashMap();
+        int k = 0;
+        int[] vals = new int[16];
+        for (int i = 0; i < n; i++) {
+            IntVar v = vars[i];
+            lb = Math.min(lb, v.getLB());
+            ub = Math.max(ub, v.getUB());
+            for (int j = v.getLB(); j <= v.getUB(); j = v.nextValue(j)) {
+                if (!tmap.containsKey(j)) {
+                    if (k == vals.length) {
+                        int[] _vals = vals;
+                        vals = new int[k * 3 / 2 + 1];
+                        System.arraycopy(_vals, 0, vals, 0, k);
+                    }
+                    tmap.put(j, k);
+                    vals[k++] = j;
+                }
+            }
+        }
+        this.m = k;
+        this.S = n + m;
+        this.values = new int[m];
+        System.arraycopy(vals, 0, values, 0, m);
+        if (m > 0 && (long) ub - lb + 1 <= 4L * m + 64) {
+            this.offset = lb;
+            this.v2i = new int[ub - lb + 1];
+            for (int j = 0; j < m; j++) {
+                v2i[values[j] - lb] = j;
+            }
+            this.map = null;
+        } else {
+            this.offset = 0;
+            this.v2i = null;
+            this.map = tmap;
+        }
+        this.wm = (m >> 6) + 1;
+        this.wn = (n >> 6) + 1;
+        IEnvironment environment = vars[0].getModel().getEnvironment();
+        this.dom = new IStateLong[n][wm];
+        for (int i = 0; i < n; i++) {
+            for (int w = 0; w < wm; w++) {
+                dom[i][w] = environment.makeLong(0L);
+            }
+        }
+        this.sup = new IStateLong[m][wn];
+        for (int j = 0; j < m; j++) {
+            for (int w = 0; w < wn; w++) {
+                sup[j][w] = environment.makeLong(0L);
+            }
+        }
+        this.monitors = new IIntDeltaMonitor[n];
+        for (int i = 0; i < n; i++) {
+            monitors[i] = vars[i].monitorDelta(cause);
+        }
+        this.onValRem = new UnaryIntProcedure<Integer>() {
+            int var;
+
+            @Override
+            public UnaryIntProcedure set(Integer o) {
+                var = o;
+                return this;
+            }
+
+            @Override
+            public void execute(int value) throws ContradictionException {
+                removeEdge(var, idx(value));
+            }
+        };
+        this.mateOfVar = new int[n];
+        this.mateOfVal = new int[m];
+        for (int i = 0; i < n; i++) {
+            mateOfVar[i] = NONE;
+        }
+        for (int j = 0; j < m; j++) {
+            mateOfVal[j] = NONE;
+        }
+        this.matchedVals = new long[wm];
+        this.visitedVals = new long[wm];
+        this.father = new int[m];
+        this.fifo = new int[n];
+        this.unvisitedVars = new long[wn];
+        this.unvisitedVals = new long[wm];
+        this.stack = new int[n + m + 1];
+        this.cursor = new int[n + m + 1];
+        this.order = new int[n + m + 1];
+        this.compOfVar = new int[n];
+        this.compOfVal = new int[m];
+        this.compVals = new long[n + m + 1][];
+    }
+
+    //***********************************************************************************
+    // ADJACENCY
+    //***********************************************************************************
+
+    private int idx(int value) {
+        return v2i != null ? v2i[value - offset] : map.get(value);
+    }
+
+    private boolean hasEdge(int i, int j) {
+        return (dom[i][j >> 6].get() & (1L << j)) != 0;
+    }
+
+    private void removeEdge(int i, int j) {
+        IStateLong w = dom[i][j >> 6];
+        long word = w.get();
+        if ((word & (1L << j)) != 0) {
+            w.set(word & ~(1L << j));
+            w = sup[j][i >> 6];
+            w.set(w.get() & ~(1L << i));
+            if (mateOfVar[i] == j) {
+                unmatch(i, j);
+            }
+        }
+    }
+
+    /**
+     * Reads the current domains from scratch, to call on full propagation.
+     */
+    public void reset() {
+        long[] words = new long[wm];
+        for (int i = 0; i < n; i++) {
+            IntVar v = vars[i];
+            int ub = v.getUB();
+            for (int k = v.getLB(); k <= ub; k = v.nextValue(k)) {
+                int j = idx(k);
+                words[j >> 6] |= 1L << j;
+            }
+            for (int w = 0; w < wm; w++) {
+                if (words[w] != dom[i][w].get()) {
+                    dom[i][w].set(words[w]);
+                }
+                words[w] = 0L;
+            }
+        }
+        for (int j = 0; j < m; j++) {
+            for (int w = 0; w < wn; w++) {
+                long word = 0L;
+                for (int i = w << 6; i < Math.min(n, (w + 1) << 6); i++) {
+                    if (hasEdge(i, j)) {
+                        word |= 1L << i;
+                    }
+                }
+                if (word != sup[j][w].get()) {
+                    sup[j][w].set(word);
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            if (mateOfVar[i] != NONE && !hasEdge(i, mateOfVar[i])) {
+                unmatch(i, mateOfVar[i]);
+            }
+            monitors[i].unfreeze();
+        }
+    }
+
+    /**
+     * Updates the adjacency with the values removed from the domain of the <code>i</code>-th variable
+     * since the last call.
+     *
+     * @param i index of the modified variable
+     * @throws ContradictionException never thrown
+     */
+    public void onRemovals(int i) throws ContradictionException {
+        monitors[i].freeze();
+        monitors[i].forEachRemVal(onValRem.set(i));
+        monitors[i].unfreeze();
+    }
+
+    //***********************************************************************************
+    // PROPAGATION
+    //***********************************************************************************
+
+    /**
+     * Repairs the matching and filters the domains.
+     *
+     * @return <code>true</code> if at least one value has been removed
+     * @throws ContradictionException if no matching covers all variables
+     */
+    public boolean propagate() throws ContradictionException {
+        repairMatching();
+        computeSCC();
+        return filter();
+    }
+
+    //***********************************************************************************
+    // MATCHING
+    //***********************************************************************************
+
+    private void match(int i, int j) {
+        mateOfVar[i] = j;
+        mateOfVal[j] = i;
+        matchedVals[j >> 6] |= 1L << j;
+    }
+
+    private void unmatch(int i, int j) {
+        mateOfVar[i] = NONE;
+        mateOfVal[j] = NONE;
+        matchedVals[j >> 6] &= ~(1L << j);
+    }
+
+    private void repairMatching() throws ContradictionException {
+        for (int i = 0; i < n; i++) {
+            if (mateOfVar[i] == NONE) {
+                // first, look for a free value
+                for (int w = 0; w < wm; w++) {
+                    long word = dom[i][w].get() & ~matchedVals[w];
+                    if (word != 0) {
+                        match(i, (w << 6) + Long.numberOfTrailingZeros(word));
+                        break;
+                    }
+                }
+                if (mateOfVar[i] == NONE && !augment(i)) {
+                    vars[0].instantiateTo(vars[0].getLB() - 1, aCause);
+                }
+            }
+        }
+    }
+
+    private boolean augment(int root) {
+        for (int w = 0; w < wm; w++) {
+            visitedVals[w] = 0L;
+        }
+        int first = 0, last = 0;
+        fifo[last++] = root;
+        while (first < last) {
+            int x = fifo[first++];
+            for (int w = 0; w < wm; w++) {
+                long word = dom[x][w].get() & ~visitedVals[w];
+                while (word != 0) {
+                    int j = (w << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    visitedVals[w] |= 1L << j;
+                    father[j] = x;
+                    int y = mateOfVal[j];
+                    if (y == NONE) {
+                        // flip the alternating path
+                        while (j != NONE) {
+                            y = father[j];
+                            int p = mateOfVar[y];
+                            match(y, j);
+                            j = y == root ? NONE : p;
+                        }
+                        return true;
+                    }
+                    fifo[last++] = y;
+                }
+            }
+        }
+        return false;
+    }
+
+    //***********************************************************************************
+    // SCC
+    //***********************************************************************************
+
+    /*
+     * Nodes are variables [0,n-1], values [n,n+m-1] and a sink n+m.
+     * Arcs are: variable -> value, for unmatched edges; value -> variable, for matched edges;
+     * free value -> sink and sink -> matched value.
+     * Kosaraju: a first DFS computes the finishing order, a second one on the transposed graph,
+     * in reverse order, computes the components.
+     */
+    private void computeSCC() {
+        for (int w = 0; w < wn; w++) {
+            unvisitedVars[w] = -1L;
+        }
+        for (int w = 0; w < wm; w++) {
+            unvisitedVals[w] = -1L;
+        }
+        int nbo = 0;
+        boolean sink = true;
+        for (int r = 0; r <= S; r++) {
+            if (visited(r, sink)) {
+                continue;
+            }
+            if (r == S) {
+                sink = false;
+            } else {
+                visit(r);
+            }
+            int top = 0;
+            stack[top] = r;
+            cursor[top] = 0;
+            while (top >= 0) {
+                int x = stack[top];
+                int y = nextSucc(x, top, sink);
+                if (y == NONE) {
+                    order[nbo++] = x;
+                    top--;
+                } else {
+                    if (y == S) {
+                        sink = false;
+                    } else {
+                        visit(y);
+                    }
+                    stack[++top] = y;
+                    cursor[top] = 0;
+                }
+            }
+        }
+        for (int w = 0; w < wn; w++) {
+            unvisitedVars[w] = -1L;
+        }
+        for (int w = 0; w < wm; w++) {
+            unvisitedVals[w] = -1L;
+        }
+        sink = true;
+        int nbc = 0;
+        for (int o = nbo - 1; o >= 0; o--) {
+            int r = order[o];
+            if (visited(r, sink)) {
+                continue;
+            }
+            if (r == S) {
+                sink = false;
+            } else {
+                visit(r);
+            }
+            int top = 0;
+            stack[top] = r;
+            cursor[top] = 0;
+            while (top >= 0) {
+                int x = stack[top];
+                int y = nextPred(x, top, sink);
+                if (y == NONE) {
+                    if (x < n) {
+                        compOfVar[x] = nbc;
+                    } else if (x < S) {
+                        compOfVal[x - n] = nbc;
+                    }
+                    top--;
+                } else {
+                    if (y == S) {
+                        sink = false;
+                    } else {
+                        visit(y);
+                    }
+                    stack[++top] = y;
+                    cursor[top] = 0;
+                }
+            }
+            nbc++;
+        }
+    }
+
+    private boolean visited(int x, boolean sink) {
+        if (x < n) {
+            return (unvisitedVars[x >> 6] & (1L << x)) == 0;
+        } else if (x < S) {
+            x -= n;
+            return (unvisitedVals[x >> 6] & (1L << x)) == 0;
+        }
+        return !sink;
+    }
+
+    private void visit(int x) {
+        if (x < n) {
+            unvisitedVars[x >> 6] &= ~(1L << x);
+        } else {
+            x -= n;
+            unvisitedVals[x >> 6] &= ~(1L << x);
+        }
+    }
+
+    private int nextSucc(int x, int top, boolean sink) {
+        if (x < n) {
+            int mate = mateOfVar[x];
+            for (int w = cursor[top]; w < wm; w++) {
+                long word = dom[x][w].get() & unvisitedVals[w];
+                if (w == mate >> 6) {
+                    word &= ~(1L << mate);
+                }
+                if (word != 0) {
+                    cursor[top] = w;
+                    return n + (w << 6) + Long.numberOfTrailingZeros(word);
+                }
+            }
+            cursor[top] = wm;
+        } else if (x < S) {
+            int y = mateOfVal[x - n];
+            if (y != NONE) {
+                if (!visited(y, sink)) {
+                    return y;
+                }
+            } else if (sink) {
+                return S;
+            }
+        } else {
+            for (int w = cursor[top]; w < wm; w++) {
+                long word = matchedVals[w] & unvisitedVals[w];
+                if (word != 0) {
+                    cursor[top] = w;
+                    return n + (w << 6) + Long.numberOfTrailingZeros(word);
+                }
+            }
+            cursor[top] = wm;
+        }
+        return NONE;
+    }
+
+    private int nextPred(int x, int top, boolean sink) {
+        if (x < n) {
+            int j = mateOfVar[x];
+            if (!visited(n + j, sink)) {
+                return n + j;
+            }
+        } else if (x < S) {
+            int j = x - n;
+            int mate = mateOfVal[j];
+            for (int w = cursor[top]; w < wn; w++) {
+                long word = sup[j][w].get() & unvisitedVars[w];
+                if (w == mate >> 6 && mate != NONE) {
+                    word &= ~(1L << mate);
+                }
+                if (word != 0) {
+                    cursor[top] = w;
+                    return (w << 6) + Long.numberOfTrailingZeros(word);
+                }
+            }
+            cursor[top] = wn;
+            if (mate != NONE && sink) {
+                return S;
+            }
+        } else {
+            for (int w = cursor[top]; w < wm; w++) {
+                long word = ~matchedVals[w] & unvisitedVals[w];
+                if (w == wm - 1) {
+                    word &= (1L << (m & 63)) - 1;
+                }
+                if (word != 0) {
+                    cursor[top] = w;
+                    return n + (w << 6) + Long.numberOfTrailingZeros(word);
+                }
+            }
+            cursor[top] = wm;
+        }
+        return NONE;
+    }
+
+    //***********************************************************************************
+    // PRUNING
+    //***********************************************************************************
+
+    private boolean filter() throws ContradictionException {
+        for (int j = 0; j < m; j++) {
+            long[] cv = compVals[compOfVal[j]];
+            if (cv == null) {
+                cv = compVals[compOfVal[j]] = new long[wm];
+            }
+            cv[j >> 6] |= 1L << j;
+        }
+        boolean filter = false;
+        for (int i = 0; i < n; i++) {
+            long[] cv = compVals[compOfVar[i]];
+            int mate = mateOfVar[i];
+            for (int w = 0; w < wm; w++) {
+                long word = dom[i][w].get();
+                if (cv != null) {
+                    word &= ~cv[w];
+                }
+                if (w == mate >> 6) {
+                    word &= ~(1L << mate);
+                }
+                while (word != 0) {
+                    int j = (w << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    filter |= vars[i].removeValue(values[j], aCause);
+                    removeEdge(i, j);
+                }
+            }
+        }
+        for (int j = 0; j < m; j++) {
+            long[] cv = compVals[compOfVal[j]];
+            cv[j >> 6] = 0L;
+        }
+        return filter;
+    }
+}
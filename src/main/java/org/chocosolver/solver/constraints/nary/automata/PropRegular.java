@@ -29,74 +29,88 @@
  */
 package org.chocosolver.solver.constraints.nary.automata;
 
-import gnu.trove.iterator.TIntIterator;
-import gnu.trove.set.hash.TIntHashSet;
-import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.memory.IStateBitSet;
 import org.chocosolver.solver.constraints.Propagator;
 import org.chocosolver.solver.constraints.PropagatorPriority;
 import org.chocosolver.solver.constraints.nary.automata.FA.IAutomaton;
-import org.chocosolver.solver.constraints.nary.automata.structure.Node;
-import org.chocosolver.solver.constraints.nary.automata.structure.regular.Arc;
-import org.chocosolver.solver.constraints.nary.automata.structure.regular.StoredDirectedMultiGraph;
+import org.chocosolver.solver.constraints.nary.automata.structure.regular.LayeredGraph;
 import org.chocosolver.solver.exception.ContradictionException;
 import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.solver.variables.Variable;
-import org.chocosolver.solver.variables.delta.IIntDeltaMonitor;
-import org.chocosolver.solver.variables.events.PropagatorEventType;
 import org.chocosolver.util.ESat;
-import org.chocosolver.util.procedure.UnaryIntProcedure;
-import org.jgrapht.graph.DirectedMultigraph;
+import org.chocosolver.util.tools.VariableUtils;
 
-import java.util.ArrayList;
-import java.util.BitSet;
-import java.util.HashSet;
+import java.util.Arrays;
 
 /**
+ * Propagator for the regular constraint.
  * <br/>
+ * The layered graph of the automaton is shared among constraints (see {@link LayeredGraph}),
+ * only the set of alive nodes, which is backtrackable, and the residual supports of values are specific to
+ * a propagator.
+ * A node is alive while it has an alive successor (resp. predecessor) through an arc labelled with a value of
+ * the domain of the variable of its layer (resp. of the previous layer).
+ * A value is supported while an arc labelled with it connects two alive nodes.
  *
  * @author Charles Prud'homme
  * @since 06/06/11
  */
 public class PropRegular extends Propagator<IntVar> {
 
-    private StoredDirectedMultiGraph graph;
     private final IAutomaton automaton;
-    private static int num;
-
-    private final RemProc rem_proc;
-    private final IIntDeltaMonitor[] idms;
+    private final LayeredGraph graph;
+    /**
+     * Alive nodes of the graph
+     */
+    private final IStateBitSet alive;
+    /**
+     * Last arc found supporting a value, per value position in the graph
+     */
+    private final int[] residues;
+    /**
+     * For each variable position, next position of the same variable (itself if it appears once)
+     */
+    private final int[] twins;
+    /**
+     * Nodes killed but not yet processed
+     */
+    private final int[] stack;
+    private int top;
 
     public PropRegular(IntVar[] variables, IAutomaton automaton) {
         super(variables, PropagatorPriority.LINEAR, true);
-        this.idms = new IIntDeltaMonitor[this.vars.length];
-        for (int i = 0; i < this.vars.length; i++) {
-            idms[i] = this.vars[i].monitorDelta(this);
-        }
-        rem_proc = new RemProc(this);
         this.automaton = automaton;
-        graph = initGraph(model.getEnvironment(), vars, automaton);
+        this.graph = LayeredGraph.get(model, vars, automaton);
+        this.alive = model.getEnvironment().makeBitSet(Math.max(1, graph.nbNodes));
+        this.alive.set(0, graph.nbNodes);
+        this.residues = Arrays.copyOf(graph.valArcStart, graph.values.length);
+        this.stack = new int[graph.nbNodes];
+        this.twins = VariableUtils.twins(vars);
     }
 
     @Override
     public void propagate(int evtmask) throws ContradictionException {
-        assert evtmask == PropagatorEventType.FULL_PROPAGATION.getMask();
-        for (int i = 0; i < idms.length; i++) {
-            idms[i].freeze(); // as the graph was build on initial domain, this is allowed (specific case)
-            idms[i].forEachRemVal(rem_proc.set(i));
-            for (int j = vars[i].getLB(); j <= vars[i].getUB(); j = vars[i].nextValue(j)) {
-                if (!graph.hasSupport(i, j)) {
-                    vars[i].removeValue(j, this);
-                }
+        if (graph.nbNodes == 0) {
+            fails();
+        }
+        top = 0;
+        for (int i = 0; i < vars.length; i++) {
+            checkLayer(i);
+        }
+        filter();
+        for (int i = 0; i < vars.length; i++) {
+            for (int p = graph.valueStart[i]; p < graph.valueStart[i + 1]; p++) {
+                checkValue(i, p);
             }
-            idms[i].unfreeze();
         }
+        filter();
     }
 
     @Override
     public void propagate(int varIdx, int mask) throws ContradictionException {
-        idms[varIdx].freeze();
-        idms[varIdx].forEachRemVal(rem_proc.set(varIdx));
-        idms[varIdx].unfreeze();
+        top = 0;
+        checkLayer(varIdx);
+        filter();
     }
 
     @Override
@@ -111,27 +125,111 @@ public class PropRegular extends Propagator<IntVar> {
         return ESat.UNDEFINED;
     }
 
-    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Kill the alive nodes of layers <i>i</i> and <i>i+1</i> which lost all their arcs labelled with
+     * a value of the domain of the i^th variable.
+     */
+    private void checkLayer(int i) {
+        int end = graph.nodeStart[i + 1];
+        for (int u = alive.nextSetBit(graph.nodeStart[i]); u > -1 && u < end; u = alive.nextSetBit(u + 1)) {
+            if (!hasOut(u, i)) {
+                kill(u);
+            }
+        }
+        end = graph.nodeStart[i + 2];
+        for (int u = alive.nextSetBit(graph.nodeStart[i + 1]); u > -1 && u < end; u = alive.nextSetBit(u + 1)) {
+            if (!hasIn(u, i)) {
+                kill(u);
+            }
+        }
+    }
+
+    /**
+     * Process killed nodes until a fix point is reached: kill neighbours left without path and remove values
+     * left without support.
+     */
+    private void filter() throws ContradictionException {
+        while (top > 0) {
+            int u = stack[--top];
+            int l = graph.nodeLayer[u];
+            if (l < vars.length) {
+                for (int k = graph.outStart[u]; k < graph.outStart[u + 1]; k++) {
+                    int a = graph.outArcs[k];
+                    int w = graph.arcDst[a];
+                    if (alive.get(w) && !hasIn(w, l)) {
+                        kill(w);
+                    }
+                    checkValue(l, graph.arcPos[a]);
+                }
+            }
+            if (l > 0) {
+                for (int k = graph.inStart[u]; k < graph.inStart[u + 1]; k++) {
+                    int a = graph.inArcs[k];
+                    int w = graph.arcSrc[a];
+                    if (alive.get(w) && !hasOut(w, l - 1)) {
+                        kill(w);
+                    }
+                    checkValue(l - 1, graph.arcPos[a]);
+                }
+            }
+        }
+        if (!alive.get(0)) {
+            fails();
+        }
+    }
 
-    private static class RemProc implements UnaryIntProcedure<Integer> {
+    private void kill(int u) {
+        alive.clear(u);
+        stack[top++] = u;
+    }
 
-        private final PropRegular p;
-        private int idxVar;
+    private boolean hasOut(int u, int i) {
+        for (int k = graph.outStart[u]; k < graph.outStart[u + 1]; k++) {
+            int a = graph.outArcs[k];
+            if (alive.get(graph.arcDst[a]) && vars[i].contains(graph.values[graph.arcPos[a]])) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        public RemProc(PropRegular p) {
-            this.p = p;
+    private boolean hasIn(int u, int i) {
+        for (int k = graph.inStart[u]; k < graph.inStart[u + 1]; k++) {
+            int a = graph.inArcs[k];
+            if (alive.get(graph.arcSrc[a]) && vars[i].contains(graph.values[graph.arcPos[a]])) {
+                return true;
+            }
         }
+        return false;
+    }
 
-        @Override
-        public UnaryIntProcedure set(Integer idxVar) {
-            this.idxVar = idxVar;
-            return this;
+    /**
+     * Remove the value at position <i>p</i> from the domain of the i^th variable if no arc labelled with it
+     * connects two alive nodes.
+     */
+    private void checkValue(int i, int p) throws ContradictionException {
+        int v = graph.values[p];
+        if (vars[i].contains(v) && !isSupported(p)) {
+            vars[i].removeValue(v, this);
+            // the other occurrences of the variable are not notified
+            for (int j = twins[i]; j != i; j = twins[j]) {
+                checkLayer(j);
+            }
         }
+    }
 
-        @Override
-        public void execute(int i) throws ContradictionException {
-            p.graph.clearSupports(idxVar, i, p);
+    private boolean isSupported(int p) {
+        int r = residues[p];
+        if (r < graph.valArcStart[p + 1] && alive.get(graph.arcSrc[r]) && alive.get(graph.arcDst[r])) {
+            return true;
         }
+        for (int a = graph.valArcStart[p]; a < graph.valArcStart[p + 1]; a++) {
+            if (alive.get(graph.arcSrc[a]) && alive.get(graph.arcDst[a])) {
+                residues[p] = a;
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
@@ -144,141 +242,6 @@ public class PropRegular extends Propagator<IntVar> {
             sb.append(var.getName());
         }
         sb.append(")");
-        //        sb.append(propagators[0].toString());
         return sb.toString();
     }
-
-    //////////////////////
-
-    private static StoredDirectedMultiGraph initGraph(IEnvironment environment, IntVar[] vars, IAutomaton auto) {
-        int aid = 0;
-        int nid = 0;
-
-        int[] offsets = new int[vars.length];
-        int[] sizes = new int[vars.length];
-        int[] starts = new int[vars.length];
-
-        int totalSizes = 0;
-
-        starts[0] = 0;
-        for (int i = 0; i < vars.length; i++) {
-            offsets[i] = vars[i].getLB();
-            sizes[i] = vars[i].getUB() - vars[i].getLB() + 1;
-            if (i > 0) starts[i] = sizes[i - 1] + starts[i - 1];
-            totalSizes += sizes[i];
-        }
-
-
-        DirectedMultigraph<Node, Arc> graph;
-
-        int n = vars.length;
-        graph = new DirectedMultigraph<>(new Arc.ArcFactory());
-        ArrayList<HashSet<Arc>> tmp = new ArrayList<>(totalSizes);
-        for (int i = 0; i < totalSizes; i++)
-            tmp.add(new HashSet<>());
-
-
-        int i, j, k;
-        TIntIterator layerIter;
-        TIntIterator qijIter;
-
-
-        //forward pass, construct all paths described by the automaton for word of length nbVars.
-        TIntHashSet[] layer = new TIntHashSet[n + 1];
-        TIntHashSet[] tmpQ = new TIntHashSet[totalSizes];
-        for (i = 0; i <= n; i++) {
-            layer[i] = new TIntHashSet();
-        }
-        layer[0].add(auto.getInitialState());
-        TIntHashSet nexts = new TIntHashSet();
-        for (i = 0; i < n; i++) {
-            int ub = vars[i].getUB();
-            for (j = vars[i].getLB(); j <= ub; j = vars[i].nextValue(j)) {
-                layerIter = layer[i].iterator();
-                while (layerIter.hasNext()) {
-                    k = layerIter.next();
-                    nexts.clear();
-                    auto.delta(k, j, nexts);
-                    for (TIntIterator it = nexts.iterator(); it.hasNext(); ) {
-                        int succ = it.next();
-                        layer[i + 1].add(succ);
-                    }
-                    if (!nexts.isEmpty()) {
-                        int idx = starts[i] + j - offsets[i];
-                        if (tmpQ[idx] == null)
-                            tmpQ[idx] = new TIntHashSet();
-                        tmpQ[idx].add(k);
-                    }
-                }
-            }
-        }
-
-        //removing reachable non accepting states
-        layerIter = layer[n].iterator();
-        while (layerIter.hasNext()) {
-            k = layerIter.next();
-            if (auto.isNotFinal(k)) {
-                layerIter.remove();
-            }
-        }
-        //backward pass, removing arcs that does not lead to an accepting state
-        int nbNodes = auto.getNbStates();
-        BitSet mark = new BitSet(nbNodes);
-
-        Node[] in = new Node[auto.getNbStates() * (n + 1)];
-
-        for (i = n - 1; i >= 0; i--) {
-            mark.clear(0, nbNodes);
-            int ub = vars[i].getUB();
-            for (j = vars[i].getLB(); j <= ub; j = vars[i].nextValue(j)) {
-                int idx = starts[i] + j - offsets[i];
-                TIntHashSet l = tmpQ[idx];
-                if (l != null) {
-                    qijIter = l.iterator();
-                    while (qijIter.hasNext()) {
-                        k = qijIter.next();
-                        nexts.clear();
-                        auto.delta(k, j, nexts);
-                        boolean added = false;
-                        for (TIntIterator it = nexts.iterator(); it.hasNext(); ) {
-                            int qn = it.next();
-                            if (layer[i + 1].contains(qn)) {
-
-                                added = true;
-                                Node a = in[i * auto.getNbStates() + k];
-                                if (a == null) {
-                                    a = new Node(k, i, nid++);
-                                    in[i * auto.getNbStates() + k] = a;
-                                    graph.addVertex(a);
-                                }
-
-                                Node b = in[(i + 1) * auto.getNbStates() + qn];
-                                if (b == null) {
-                                    b = new Node(qn, i + 1, nid++);
-                                    in[(i + 1) * auto.getNbStates() + qn] = b;
-                                    graph.addVertex(b);
-                                }
-
-                                // BEWARE<CPRU>: cost is not required, 0.0 is a default value
-                                Arc arc = new Arc(a, b, j, aid++);
-                                graph.addEdge(a, b, arc);
-                                tmp.get(idx).add(arc);
-
-                                mark.set(k);
-                            }
-                        }
-                        if (!added)
-                            qijIter.remove();
-                    }
-                }
-            }
-            layerIter = layer[i].iterator();
-            // If no more arcs go out of a given state in the layer, then we remove the state from that layer
-            while (layerIter.hasNext())
-                if (!mark.get(layerIter.next()))
-                    layerIter.remove();
-        }
-        return new StoredDirectedMultiGraph(environment, graph, starts, offsets, totalSizes);
-    }
-
 }
@@ -0,0 +1,353 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.constraints.nary.automata.structure.regular;
+
+import gnu.trove.set.hash.TIntHashSet;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.constraints.nary.automata.FA.IAutomaton;
+import org.chocosolver.solver.variables.IntVar;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * The layered graph of a regular constraint: the paths from the source to a sink are the words of length <i>n</i>
+ * recognized by an automaton, the i^th letter being taken in the initial domain of the i^th variable.
+ * Only nodes which are both reachable from the source and co-reachable from a sink are stored.
+ * <p>
+ * The graph is stored in flat arrays and never modified: it is shared by all regular constraints posted in a model
+ * with an automaton behaving the same way on the same domains (see {@link #get(Model, IntVar[], IAutomaton)}).
+ * <ul>
+ * <li>nodes of layer i, 0 &le; i &le; n, are in [nodeStart[i], nodeStart[i+1]),</li>
+ * <li>the values of the i^th variable, 0 &le; i &lt; n, are stored by increasing order in <code>values</code>,
+ * at positions [valueStart[i], valueStart[i+1]),</li>
+ * <li>arcs are sorted by layer then by value, the arcs labelled with the value at position p are in
+ * [valArcStart[p], valArcStart[p+1]),</li>
+ * <li>the arcs going out of (resp. coming in) node u are
+ * <code>outArcs[outStart[u]..outStart[u+1]-1]</code> (resp. <code>inArcs[inStart[u]..inStart[u+1]-1]</code>).</li>
+ * </ul>
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public final class LayeredGraph {
+
+    /**
+     * Name of the model hook which stores the graphs already built
+     */
+    private static final String HOOK = LayeredGraph.class.getName();
+
+    /**
+     * Number of variables
+     */
+    public final int nbLayers;
+    /**
+     * Number of nodes
+     */
+    public final int nbNodes;
+    /**
+     * Nodes of layer i are in [nodeStart[i], nodeStart[i+1])
+     */
+    public final int[] nodeStart;
+    /**
+     * Layer of each node
+     */
+    public final int[] nodeLayer;
+    /**
+     * Values of the variables, layer per layer
+     */
+    public final int[] values;
+    /**
+     * Values of layer i are at positions [valueStart[i], valueStart[i+1])
+     */
+    public final int[] valueStart;
+    /**
+     * Arcs labelled with the value at position p are in [valArcStart[p], valArcStart[p+1])
+     */
+    public final int[] valArcStart;
+    /**
+     * Origin of each arc
+     */
+    public final int[] arcSrc;
+    /**
+     * Destination of each arc
+     */
+    public final int[] arcDst;
+    /**
+     * Position of the value labelling each arc
+     */
+    public final int[] arcPos;
+    public final int[] outStart;
+    public final int[] outArcs;
+    public final int[] inStart;
+    public final int[] inArcs;
+
+    private LayeredGraph(int[][] doms, int nbStates, boolean[] finals, int[] symbols,
+                         int[] succStart, int[] succ) {
+        int n = doms.length;
+        int nbSymbols = symbols.length;
+        // forward pass: reachable states
+        boolean[] reach = new boolean[(n + 1) * nbStates];
+        reach[0] = true;
+        int[][] sym = new int[n][];
+        for (int i = 0; i < n; i++) {
+            sym[i] = new int[doms[i].length];
+            for (int j = 0; j < doms[i].length; j++) {
+                sym[i][j] = Arrays.binarySearch(symbols, doms[i][j]);
+            }
+            for (int k = 0; k < nbStates; k++) {
+                if (reach[i * nbStates + k]) {
+                    for (int s : sym[i]) {
+                        for (int t = succStart[k * nbSymbols + s]; t < succStart[k * nbSymbols + s + 1]; t++) {
+                            reach[(i + 1) * nbStates + succ[t]] = true;
+                        }
+                    }
+                }
+            }
+        }
+        // backward pass: co-reachable states, among reachable ones
+        boolean[] keep = new boolean[(n + 1) * nbStates];
+        for (int k = 0; k < nbStates; k++) {
+            keep[n * nbStates + k] = reach[n * nbStates + k] && finals[k];
+        }
+        int nbArcs = 0;
+        for (int i = n - 1; i >= 0; i--) {
+            for (int k = 0; k < nbStates; k++) {
+                if (reach[i * nbStates + k]) {
+                    for (int s : sym[i]) {
+                        for (int t = succStart[k * nbSymbols + s]; t < succStart[k * nbSymbols + s + 1]; t++) {
+                            if (keep[(i + 1) * nbStates + succ[t]]) {
+                                keep[i * nbStates + k] = true;
+                                nbArcs++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        // nodes
+        this.nbLayers = n;
+        int[] nodeOf = new int[(n + 1) * nbStates];
+        this.nodeStart = new int[n + 2];
+        int nb = 0;
+        for (int i = 0; i <= n; i++) {
+            nodeStart[i] = nb;
+            for (int k = 0; k < nbStates; k++) {
+                if (keep[i * nbStates + k]) {
+                    nodeOf[i * nbStates + k] = nb++;
+                }
+            }
+        }
+        nodeStart[n + 1] = nb;
+        this.nbNodes = nb;
+        this.nodeLayer = new int[nb];
+        for (int i = 0; i <= n; i++) {
+            for (int k = 0; k < nbStates; k++) {
+                if (keep[i * nbStates + k]) {
+                    nodeLayer[nodeOf[i * nbStates + k]] = i;
+                }
+            }
+        }
+        // arcs, sorted by layer then value
+        this.valueStart = new int[n + 1];
+        int nbValues = 0;
+        for (int i = 0; i < n; i++) {
+            valueStart[i] = nbValues;
+            nbValues += doms[i].length;
+        }
+        valueStart[n] = nbValues;
+        this.values = new int[nbValues];
+        this.valArcStart = new int[nbValues + 1];
+        this.arcSrc = new int[nbArcs];
+        this.arcDst = new int[nbArcs];
+        this.arcPos = new int[nbArcs];
+        this.outStart = new int[nb + 1];
+        this.inStart = new int[nb + 1];
+        int a = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < doms[i].length; j++) {
+                int p = valueStart[i] + j;
+                values[p] = doms[i][j];
+                valArcStart[p] = a;
+                int s = sym[i][j];
+                for (int k = 0; k < nbStates; k++) {
+                    if (keep[i * nbStates + k]) {
+                        for (int t = succStart[k * nbSymbols + s]; t < succStart[k * nbSymbols + s + 1]; t++) {
+                            if (keep[(i + 1) * nbStates + succ[t]]) {
+                                arcSrc[a] = nodeOf[i * nbStates + k];
+                                arcDst[a] = nodeOf[(i + 1) * nbStates + succ[t]];
+                                arcPos[a] = p;
+                                outStart[arcSrc[a] + 1]++;
+                                inStart[arcDst[a] + 1]++;
+                                a++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        valArcStart[nbValues] = a;
+        // adjacency
+        for (int u = 0; u < nb; u++) {
+            outStart[u + 1] += outStart[u];
+            inStart[u + 1] += inStart[u];
+        }
+        this.outArcs = new int[nbArcs];
+        this.inArcs = new int[nbArcs];
+        int[] outPos = Arrays.copyOf(outStart, nb);
+        int[] inPos = Arrays.copyOf(inStart, nb);
+        for (a = 0; a < nbArcs; a++) {
+            outArcs[outPos[arcSrc[a]]++] = a;
+            inArcs[inPos[arcDst[a]]++] = a;
+        }
+    }
+
+    /**
+     * @return the number of arcs of the graph
+     */
+    public int getNbArcs() {
+        return arcSrc.length;
+    }
+
+    /**
+     * Return the layered graph of <i>automaton</i> wrt the domains of <i>vars</i>.
+     * A graph is built only once per model for a given behaviour of an automaton on given domains:
+     * regular constraints posted on variables with the same domains and identical automata share the same graph,
+     * even if these automata are distinct objects.
+     *
+     * @param model     a model, which stores the graphs already built
+     * @param vars      variables, their current domains are considered
+     * @param automaton an automaton
+     * @return the layered graph
+     */
+    @SuppressWarnings("unchecked")
+    public static LayeredGraph get(Model model, IntVar[] vars, IAutomaton automaton) {
+        int n = vars.length;
+        int[][] doms = new int[n][];
+        TreeSet<Integer> union = new TreeSet<>();
+        for (int i = 0; i < n; i++) {
+            doms[i] = new int[vars[i].getDomainSize()];
+            int j = 0;
+            for (int v = vars[i].getLB(); v <= vars[i].getUB(); v = vars[i].nextValue(v)) {
+                doms[i][j++] = v;
+                union.add(v);
+            }
+        }
+        int[] symbols = union.stream().mapToInt(i -> i).toArray();
+        // the behaviour of the automaton on the values of the variables, states being renumbered
+        // in breadth-first order from the initial state, so that identical automata get the same description
+        int[] ids = new int[automaton.getNbStates()];
+        Arrays.fill(ids, -1);
+        int[] queue = new int[ids.length];
+        queue[0] = automaton.getInitialState();
+        ids[queue[0]] = 0;
+        int nbStates = 1;
+        int[] succStart = new int[ids.length * symbols.length + 1];
+        int[] succ = new int[16];
+        TIntHashSet nexts = new TIntHashSet();
+        for (int k = 0; k < nbStates; k++) {
+            for (int s = 0; s < symbols.length; s++) {
+                int idx = k * symbols.length + s;
+                nexts.clear();
+                automaton.delta(queue[k], symbols[s], nexts);
+                int[] next = nexts.toArray();
+                Arrays.sort(next);
+                for (int j = 0; j < next.length; j++) {
+                    if (ids[next[j]] < 0) {
+                        queue[nbStates] = next[j];
+                        ids[next[j]] = nbStates++;
+                    }
+                    next[j] = ids[next[j]];
+                }
+                Arrays.sort(next);
+                if (succStart[idx] + next.length > succ.length) {
+                    succ = Arrays.copyOf(succ, Math.max(succ.length * 2, succStart[idx] + next.length));
+                }
+                System.arraycopy(next, 0, succ, succStart[idx], next.length);
+                succStart[idx + 1] = succStart[idx] + next.length;
+            }
+        }
+        succStart = Arrays.copyOf(succStart, nbStates * symbols.length + 1);
+        boolean[] finals = new boolean[nbStates];
+        for (int k = 0; k < nbStates; k++) {
+            finals[k] = !automaton.isNotFinal(queue[k]);
+        }
+        succ = Arrays.copyOf(succ, succStart[succStart.length - 1]);
+        Key key = new Key(doms, nbStates, finals, succStart, succ);
+        Map<Key, LayeredGraph> graphs = (Map<Key, LayeredGraph>) model.getHook(HOOK);
+        if (graphs == null) {
+            graphs = new HashMap<>();
+            model.addHook(HOOK, graphs);
+        }
+        LayeredGraph graph = graphs.get(key);
+        if (graph == null) {
+            graph = new LayeredGraph(doms, nbStates, finals, symbols, succStart, succ);
+            graphs.put(key, graph);
+        }
+        return graph;
+    }
+
+    /**
+     * Identifies a layered graph
+     */
+    private static final class Key {
+
+        private final int[][] doms;
+        private final int[] automaton;
+        private final boolean[] finals;
+        private final int hash;
+
+        Key(int[][] doms, int nbStates, boolean[] finals, int[] succStart, int[] succ) {
+            this.doms = doms;
+            this.finals = finals;
+            this.automaton = new int[1 + succStart.length + succ.length];
+            automaton[0] = nbStates;
+            System.arraycopy(succStart, 0, automaton, 1, succStart.length);
+            System.arraycopy(succ, 0, automaton, 1 + succStart.length, succ.length);
+            this.hash = 31 * (31 * Arrays.deepHashCode(doms) + Arrays.hashCode(automaton)) + Arrays.hashCode(finals);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return hash == key.hash && Arrays.equals(automaton, key.automaton) && Arrays.equals(finals, key.finals)
+                    && Arrays.deepEquals(doms, key.doms);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -63,6 +63,9 @@ public class Cumulative extends Constraint {
 	 *                         - SWEEP: filters time-table with a sweep-based algorithm
 	 *                         - NRJ: greedy energy-based filter.
 	 *                         BEWARE: should not be used alone, use it in addition to either SWEEP or TIME.
+	 *                         - EDGE_FINDING, NOT_FIRST_NOT_LAST, TIME_TABLE_EDGE_FINDING: Theta-Lambda tree based filters,
+	 *                         scale to large sets of tasks.
+	 *                         BEWARE: should not be used alone, use them in addition to either SWEEP or TIME.
 	 *
 	 */
 	public Cumulative(Task[] tasks, IntVar[] heights, IntVar capacity, boolean graphBased, Filter... filters) {
@@ -173,6 +176,37 @@ public class Cumulative extends Constraint {
 				return new DisjunctiveTaskIntervalFilter(n,cause);
 			}
 		},
+		/**
+		 * edge-finding based on a Theta-Lambda tree, in O(kn.log(n)) (k being the number of distinct heights)
+		 * not idempotent
+		 * not enough to ensure correctness (only an additional filtering)
+		 */
+		EDGE_FINDING {
+			public CumulFilter make(int n, Propagator<IntVar> cause){
+				return new EdgeFindingCumulFilter(n,cause);
+			}
+		},
+		/**
+		 * not-first/not-last rules based on a Theta-Lambda tree
+		 * not idempotent
+		 * not enough to ensure correctness (only an additional filtering)
+		 */
+		NOT_FIRST_NOT_LAST {
+			public CumulFilter make(int n, Propagator<IntVar> cause){
+				return new NotFirstNotLastCumulFilter(n,cause);
+			}
+		},
+		/**
+		 * time-table edge-finding (energy of the compulsory parts added to edge-finding windows),
+		 * based on a Theta-Lambda tree, in O(n.log(n))
+		 * not idempotent
+		 * not enough to ensure correctness (only an additional filtering)
+		 */
+		TIME_TABLE_EDGE_FINDING {
+			public CumulFilter make(int n, Propagator<IntVar> cause){
+				return new TimeTableEdgeFindingCumulFilter(n,cause);
+			}
+		},
 		/**
 		 * Combines above filters as a black-box
 		 * not idempotent
@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.constraints.nary.cumulative;
+
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.util.sort.ArraySort;
+
+/**
+ * Edge-finding filtering in O(kn.log(n)), k being the number of distinct heights (Vilim, CP 2009).
+ * When a task cannot end before the latest end <i>lct</i> of a set of tasks (detection),
+ * its earliest start is raised to <i>lct+1-p</i> and with respect to the energy
+ * the set leaves to the task (adjustment).
+ * not idempotent
+ * not enough to ensure correctness (only an additional filtering)
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class EdgeFindingCumulFilter extends ThetaCumulFilter {
+
+	//***********************************************************************************
+	// VARIABLES
+	//***********************************************************************************
+
+	private final int[] prec, detected;
+	private final long[] update;
+	private final ThetaLambdaTree treeC;
+	private final ArraySort sorter;
+
+	//***********************************************************************************
+	// CONSTRUCTORS
+	//***********************************************************************************
+
+	public EdgeFindingCumulFilter(int n, Propagator cause) {
+		super(n, cause);
+		prec = new int[n];
+		detected = new int[n];
+		update = new long[n];
+		treeC = new ThetaLambdaTree(n);
+		sorter = new ArraySort(n, false, true);
+	}
+
+	//***********************************************************************************
+	// METHODS
+	//***********************************************************************************
+
+	@Override
+	protected void adjust(int capaMax) throws ContradictionException {
+		long capa = capaMax;
+		for (int k = 0; k < nb; k++) {
+			tree.addWhite(rank[k], capa * est[k], energy(k));
+		}
+		// detection: Theta is the set of tasks ending before lct[j], Lambda the others
+		int nbDetected = 0;
+		for (int q = nb - 1; q >= 0; q--) {
+			int j = byLct[q];
+			long lctj = lct[j];
+			if (tree.getEnv() > capa * lctj) {
+				aCause.fails();
+			}
+			while (tree.getEnvLambda() > capa * lctj) {
+				int pos = tree.getResponsible();
+				int i = taskAt[pos];
+				// i cannot end before lct[j]
+				raise(i, lctj + 1 - p[i]);
+				prec[i] = q;
+				detected[nbDetected++] = i;
+				tree.remove(pos);
+			}
+			tree.addGray(rank[j], capa * est[j], energy(j));
+		}
+		if (nbDetected == 0) {
+			return;
+		}
+		// adjustment: once per distinct height of detected tasks
+		sorter.sort(detected, nbDetected, (i1, i2) -> Integer.compare(c[i1], c[i2]));
+		int from = 0;
+		while (from < nbDetected) {
+			int height = c[detected[from]];
+			int to = from;
+			int last = 0;
+			while (to < nbDetected && c[detected[to]] == height) {
+				last = Math.max(last, prec[detected[to]]);
+				to++;
+			}
+			computeUpdates(capa, height, last);
+			for (int k = from; k < to; k++) {
+				raise(detected[k], update[prec[detected[k]]]);
+			}
+			from = to;
+		}
+	}
+
+	/**
+	 * For each left cut <i>LCut(j)</i> of the tasks sorted by latest end, computes
+	 * the maximum, over <i>j' <= j</i> and sets <i>O</i> included in <i>LCut(j')</i>
+	 * such that <i>rest = e(O) - (C - height).(lct(j') - est(O))</i> is positive,
+	 * of <i>est(O) + ceil(rest / height)</i>.
+	 */
+	private void computeUpdates(long capa, int height, int last) {
+		tree.clear();
+		treeC.clear();
+		long c2 = capa - height;
+		long best = Long.MIN_VALUE;
+		for (int q = 0; q <= last; q++) {
+			int j = byLct[q];
+			tree.addWhite(rank[j], capa * est[j], energy(j));
+			treeC.addWhite(rank[j], c2 * est[j], energy(j));
+			int pos = treeC.getRightmostAbove(c2 * lct[j]);
+			if (pos >= 0) {
+				long v = tree.getEnvUpTo(pos) - c2 * lct[j];
+				best = Math.max(best, -Math.floorDiv(-v, height));
+			}
+			update[q] = best;
+		}
+	}
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.constraints.nary.cumulative;
+
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.exception.ContradictionException;
+
+/**
+ * Not-first/not-last filtering based on a Theta-Lambda tree.
+ * Let <i>O</i> be the set of tasks ending before <i>lct</i>, and <i>m</i> the minimal earliest end of <i>O</i>.
+ * A task <i>i</i> not in <i>O</i> starting before <i>m</i> uses at least <i>c.min(p, lct-m+1)</i>
+ * of any window <i>[a, lct)</i> with <i>a <= est(i)</i>:
+ * when this overloads the window, <i>i</i> cannot start before <i>m</i>.
+ * The energies of the gray leaves are lowered lazily, when they are responsible for a detection.
+ * not idempotent
+ * not enough to ensure correctness (only an additional filtering)
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class NotFirstNotLastCumulFilter extends ThetaCumulFilter {
+
+	//***********************************************************************************
+	// VARIABLES
+	//***********************************************************************************
+
+	private final long[] minEct, gray;
+
+	//***********************************************************************************
+	// CONSTRUCTORS
+	//***********************************************************************************
+
+	public NotFirstNotLastCumulFilter(int n, Propagator cause) {
+		super(n, cause);
+		minEct = new long[n];
+		gray = new long[n];
+	}
+
+	//***********************************************************************************
+	// METHODS
+	//***********************************************************************************
+
+	@Override
+	protected void adjust(int capaMax) throws ContradictionException {
+		long capa = capaMax;
+		long m = Long.MAX_VALUE;
+		for (int q = 0; q < nb; q++) {
+			int j = byLct[q];
+			m = Math.min(m, (long) est[j] + p[j]);
+			minEct[q] = m;
+			tree.addWhite(rank[j], capa * est[j], energy(j));
+		}
+		for (int q = nb - 1; q >= 0; q--) {
+			int j = byLct[q];
+			long lctj = lct[j];
+			// minEct only increases and lctj only decreases, so do the gray energies
+			m = minEct[q];
+			long w = lctj - m + 1;
+			if (tree.getEnv() > capa * lctj) {
+				aCause.fails();
+			}
+			while (tree.getEnvLambda() > capa * lctj) {
+				int pos = tree.getResponsible();
+				int i = taskAt[pos];
+				if (est[i] >= m) {
+					tree.remove(pos);
+					continue;
+				}
+				long g = c[i] * Math.min(p[i], w);
+				if (g < gray[i]) {
+					gray[i] = g;
+					tree.addGray(pos, capa * est[i], g);
+				} else {
+					// i cannot start before the end of a task of Theta
+					raise(i, m);
+					tree.remove(pos);
+				}
+			}
+			gray[j] = c[j] * Math.min(p[j], w);
+			tree.addGray(rank[j], capa * est[j], gray[j]);
+		}
+	}
+}
@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.constraints.nary.cumulative;
+
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.util.objects.setDataStructures.ISet;
+import org.chocosolver.util.sort.ArraySort;
+import org.chocosolver.util.sort.IntComparator;
+
+/**
+ * Base class of the filters relying on a {@link ThetaLambdaTree}.
+ * Only tasks with positive minimal duration and height are considered.
+ * Subclasses raise earliest start times, latest end times are reduced
+ * by applying the same algorithm to mirrored tasks.
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public abstract class ThetaCumulFilter extends CumulFilter {
+
+	//***********************************************************************************
+	// VARIABLES
+	//***********************************************************************************
+
+	/** number of tasks considered */
+	protected int nb;
+	/** original index, earliest start, latest end, minimal duration and minimal height of each task considered */
+	protected final int[] task, est, lct, p, c;
+	/** new earliest start of each task considered */
+	protected final int[] newEst;
+	/** tasks sorted by earliest start and by latest end */
+	protected final int[] byEst, byLct;
+	/** position of the leaf of each task, task at each leaf */
+	protected final int[] rank, taskAt;
+	/** tree which leaves are tasks sorted by earliest start */
+	protected final ThetaLambdaTree tree;
+
+	private final ArraySort sorter;
+	private final IntComparator estComparator, lctComparator;
+
+	//***********************************************************************************
+	// CONSTRUCTORS
+	//***********************************************************************************
+
+	public ThetaCumulFilter(int n, Propagator cause) {
+		super(n, cause);
+		task = new int[n];
+		est = new int[n];
+		lct = new int[n];
+		p = new int[n];
+		c = new int[n];
+		newEst = new int[n];
+		byEst = new int[n];
+		byLct = new int[n];
+		rank = new int[n];
+		taskAt = new int[n];
+		tree = new ThetaLambdaTree(n);
+		sorter = new ArraySort(n, false, true);
+		estComparator = (i1, i2) -> Integer.compare(est[i1], est[i2]);
+		lctComparator = (i1, i2) -> Integer.compare(lct[i1], lct[i2]);
+	}
+
+	//***********************************************************************************
+	// METHODS
+	//***********************************************************************************
+
+	@Override
+	public void filter(IntVar[] s, IntVar[] d, IntVar[] e, IntVar[] h, IntVar capa, ISet tasks) throws ContradictionException {
+		int capaMax = capa.getUB();
+		nb = 0;
+		for (int i : tasks) {
+			if (d[i].getLB() > 0 && h[i].getLB() > 0) {
+				if (h[i].getLB() > capaMax) {
+					aCause.fails();
+				}
+				task[nb] = i;
+				p[nb] = d[i].getLB();
+				c[nb] = h[i].getLB();
+				nb++;
+			}
+		}
+		if (nb == 0) {
+			return;
+		}
+		for (int k = 0; k < nb; k++) {
+			est[k] = s[task[k]].getLB();
+			lct[k] = e[task[k]].getUB();
+		}
+		run(capaMax);
+		for (int k = 0; k < nb; k++) {
+			s[task[k]].updateLowerBound(newEst[k], aCause);
+		}
+		// mirrored tasks: [-end, -start)
+		for (int k = 0; k < nb; k++) {
+			est[k] = -e[task[k]].getUB();
+			lct[k] = -s[task[k]].getLB();
+		}
+		run(capaMax);
+		for (int k = 0; k < nb; k++) {
+			e[task[k]].updateUpperBound(-newEst[k], aCause);
+		}
+	}
+
+	private void run(int capaMax) throws ContradictionException {
+		for (int k = 0; k < nb; k++) {
+			newEst[k] = est[k];
+			byEst[k] = k;
+			byLct[k] = k;
+		}
+		sorter.sort(byEst, nb, estComparator);
+		sorter.sort(byLct, nb, lctComparator);
+		for (int k = 0; k < nb; k++) {
+			rank[byEst[k]] = k;
+			taskAt[k] = byEst[k];
+		}
+		tree.clear();
+		adjust(capaMax);
+	}
+
+	/**
+	 * Raise the earliest start times, stored in {@link #newEst},
+	 * of the tasks currently described by {@link #est}, {@link #lct}, {@link #p} and {@link #c}
+	 * @param capaMax maximum capacity of the resource
+	 * @throws ContradictionException if an overload is detected
+	 */
+	protected abstract void adjust(int capaMax) throws ContradictionException;
+
+	/**
+	 * Raise the new earliest start of task <i>k</i> to <i>v</i>, if greater
+	 * @param k a task
+	 * @param v a lower bound of the start of <i>k</i>
+	 */
+	protected void raise(int k, long v) {
+		if (v > newEst[k]) {
+			newEst[k] = (int) Math.min(v, Integer.MAX_VALUE);
+		}
+	}
+
+	/**
+	 * @param k a task
+	 * @return the minimal energy of task <i>k</i>
+	 */
+	protected long energy(int k) {
+		return (long) c[k] * p[k];
+	}
+}
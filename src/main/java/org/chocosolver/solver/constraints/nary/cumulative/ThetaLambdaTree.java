@@ -0,0 +1,247 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.constraints.nary.cumulative;
+
+import java.util.Arrays;
+
+/**
+ * Theta-Lambda tree for cumulative resources (Vilim, 2009).
+ * Leaves are tasks sorted by non-decreasing earliest start time.
+ * A leaf is either empty, white (the task belongs to Theta) or gray (the task belongs to Lambda).
+ * Each non-empty leaf holds a key (typically <i>C.est</i>) and an energy (typically <i>c.p</i>),
+ * so that the envelope of a set of leaves is the maximum, over its leaves <i>l</i>,
+ * of the key of <i>l</i> plus the energy of the leaves from <i>l</i> to the last one.
+ * <br/>
+ * The envelope of Theta, and the envelope of Theta extended with at most one gray leaf,
+ * are maintained in O(log(n)) per leaf update.
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class ThetaLambdaTree {
+
+	//***********************************************************************************
+	// VARIABLES
+	//***********************************************************************************
+
+	/**
+	 * Value standing for an empty envelope, low enough to be safely summed with energies
+	 */
+	public static final long NONE = Long.MIN_VALUE / 4;
+
+	private int size;
+	private long[] e, env, eL, envL;
+	private int[] respE, respEnv;
+
+	//***********************************************************************************
+	// CONSTRUCTORS
+	//***********************************************************************************
+
+	/**
+	 * Create a Theta-Lambda tree
+	 * @param n maximum number of leaves
+	 */
+	public ThetaLambdaTree(int n) {
+		size = 1;
+		while (size < n) {
+			size <<= 1;
+		}
+		e = new long[2 * size];
+		env = new long[2 * size];
+		eL = new long[2 * size];
+		envL = new long[2 * size];
+		respE = new int[2 * size];
+		respEnv = new int[2 * size];
+	}
+
+	//***********************************************************************************
+	// METHODS
+	//***********************************************************************************
+
+	/**
+	 * Empty the tree
+	 */
+	public void clear() {
+		Arrays.fill(e, 0);
+		Arrays.fill(env, NONE);
+		Arrays.fill(eL, 0);
+		Arrays.fill(envL, NONE);
+		Arrays.fill(respE, -1);
+		Arrays.fill(respEnv, -1);
+	}
+
+	/**
+	 * Put the leaf at position <i>pos</i> in Theta
+	 * @param pos    position of the leaf
+	 * @param key    key of the leaf
+	 * @param energy energy of the leaf
+	 */
+	public void addWhite(int pos, long key, long energy) {
+		int v = size + pos;
+		e[v] = energy;
+		env[v] = key + energy;
+		eL[v] = energy;
+		envL[v] = key + energy;
+		respE[v] = -1;
+		respEnv[v] = -1;
+		update(v);
+	}
+
+	/**
+	 * Put the leaf at position <i>pos</i> in Lambda
+	 * @param pos    position of the leaf
+	 * @param key    key of the leaf
+	 * @param energy energy of the leaf
+	 */
+	public void addGray(int pos, long key, long energy) {
+		int v = size + pos;
+		e[v] = 0;
+		env[v] = NONE;
+		eL[v] = energy;
+		envL[v] = key + energy;
+		respE[v] = pos;
+		respEnv[v] = pos;
+		update(v);
+	}
+
+	/**
+	 * Empty the leaf at position <i>pos</i>
+	 * @param pos position of the leaf
+	 */
+	public void remove(int pos) {
+		int v = size + pos;
+		e[v] = 0;
+		env[v] = NONE;
+		eL[v] = 0;
+		envL[v] = NONE;
+		respE[v] = -1;
+		respEnv[v] = -1;
+		update(v);
+	}
+
+	private void update(int v) {
+		v >>= 1;
+		while (v > 0) {
+			int l = v << 1, r = l + 1;
+			e[v] = e[l] + e[r];
+			env[v] = Math.max(env[r], env[l] + e[r]);
+			if (eL[l] + e[r] >= e[l] + eL[r]) {
+				eL[v] = eL[l] + e[r];
+				respE[v] = respE[l];
+			} else {
+				eL[v] = e[l] + eL[r];
+				respE[v] = respE[r];
+			}
+			long a = envL[r], b = env[l] + eL[r], c = envL[l] + e[r];
+			if (a >= b && a >= c) {
+				envL[v] = a;
+				respEnv[v] = respEnv[r];
+			} else if (b >= c) {
+				envL[v] = b;
+				respEnv[v] = respE[r];
+			} else {
+				envL[v] = c;
+				respEnv[v] = respEnv[l];
+			}
+			v >>= 1;
+		}
+	}
+
+	/**
+	 * @return the envelope of Theta
+	 */
+	public long getEnv() {
+		return env[1];
+	}
+
+	/**
+	 * @return the envelope of Theta extended with at most one gray leaf
+	 */
+	public long getEnvLambda() {
+		return envL[1];
+	}
+
+	/**
+	 * @return the position of the gray leaf responsible for {@link #getEnvLambda()},
+	 * relevant only when {@link #getEnvLambda()} is strictly greater than {@link #getEnv()}
+	 */
+	public int getResponsible() {
+		return respEnv[1];
+	}
+
+	/**
+	 * @param pos position of a leaf
+	 * @return the maximum, over white leaves <i>l</i> up to <i>pos</i>,
+	 * of the key of <i>l</i> plus the energy of Theta from <i>l</i> to the last leaf
+	 */
+	public long getEnvUpTo(int pos) {
+		long best = NONE;
+		long acc = 0;
+		int v = 1, lo = 0, hi = size - 1;
+		while (v < size) {
+			int mid = (lo + hi) >>> 1;
+			int l = v << 1, r = l + 1;
+			if (pos <= mid) {
+				acc += e[r];
+				v = l;
+				hi = mid;
+			} else {
+				best = Math.max(best, env[l] + e[r] + acc);
+				v = r;
+				lo = mid + 1;
+			}
+		}
+		return Math.max(best, env[v] + acc);
+	}
+
+	/**
+	 * @param threshold a value
+	 * @return the rightmost white leaf <i>l</i> such that the key of <i>l</i> plus
+	 * the energy of Theta from <i>l</i> to the last leaf is strictly greater than <i>threshold</i>,
+	 * or -1 if there is none
+	 */
+	public int getRightmostAbove(long threshold) {
+		if (env[1] <= threshold) {
+			return -1;
+		}
+		long acc = 0;
+		int v = 1;
+		while (v < size) {
+			int r = (v << 1) + 1;
+			if (env[r] + acc > threshold) {
+				v = r;
+			} else {
+				acc += e[r];
+				v = r - 1;
+			}
+		}
+		return v - size;
+	}
+}
@@ -0,0 +1,195 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.constraints.nary.cumulative;
+
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.util.sort.ArraySort;
+
+/**
+ * Time-table edge-finding filtering (after Vilim, CPAIOR 2011), in O(n.log(n)).
+ * The energy of a window <i>[a, b)</i> is the free energy (i.e., out of the compulsory part) of the tasks
+ * within the window, plus the energy of the compulsory parts overlapping the window.
+ * Being <i>TT(t)</i> the energy of the compulsory parts before <i>t</i>, leaves are keyed by <i>C.est - TT(est)</i>,
+ * so that window energies are still maintained by a Theta-Lambda tree.
+ * A task which free part, started at its earliest start, overloads a window, is pushed to the right.
+ * not idempotent
+ * not enough to ensure correctness (only an additional filtering)
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class TimeTableEdgeFindingCumulFilter extends ThetaCumulFilter {
+
+	//***********************************************************************************
+	// VARIABLES
+	//***********************************************************************************
+
+	private final long[] key, free, gray;
+	// compulsory parts profile
+	private final int[] evt, times, points;
+	private final long[] deltas, heights, integrals;
+	private int nbTimes;
+	private final ArraySort sorter;
+
+	//***********************************************************************************
+	// CONSTRUCTORS
+	//***********************************************************************************
+
+	public TimeTableEdgeFindingCumulFilter(int n, Propagator cause) {
+		super(n, cause);
+		key = new long[n];
+		free = new long[n];
+		gray = new long[n];
+		evt = new int[2 * n];
+		times = new int[2 * n];
+		points = new int[2 * n];
+		deltas = new long[2 * n];
+		heights = new long[2 * n];
+		integrals = new long[2 * n];
+		sorter = new ArraySort(2 * n, false, true);
+	}
+
+	//***********************************************************************************
+	// METHODS
+	//***********************************************************************************
+
+	@Override
+	protected void adjust(int capaMax) throws ContradictionException {
+		long capa = capaMax;
+		buildProfile();
+		for (int k = 0; k < nb; k++) {
+			key[k] = capa * est[k] - tt(est[k]);
+			free[k] = (long) c[k] * (p[k] - Math.max(0, est[k] + p[k] - lct[k] + p[k]));
+			tree.addWhite(rank[k], key[k], free[k]);
+		}
+		for (int q = nb - 1; q >= 0; q--) {
+			int j = byLct[q];
+			int lctj = lct[j];
+			long bound = capa * lctj - tt(lctj);
+			if (tree.getEnv() > bound) {
+				aCause.fails();
+			}
+			while (tree.getEnvLambda() > bound) {
+				int pos = tree.getResponsible();
+				int i = taskAt[pos];
+				// part of i, out of its compulsory part, in [est(i), lct(j)) when i starts at est(i)
+				long cp = compulsory(i, lctj);
+				long g = c[i] * (Math.min(p[i], (long) lctj - est[i]) - cp);
+				if (g <= 0) {
+					tree.remove(pos);
+				} else if (g < gray[i]) {
+					gray[i] = g;
+					tree.addGray(pos, key[i], g);
+				} else {
+					long avail = bound - (tree.getEnvLambda() - g);
+					if (avail < 0) {
+						aCause.fails();
+					}
+					raise(i, lctj - cp - avail / c[i]);
+					tree.remove(pos);
+				}
+			}
+			gray[j] = free[j];
+			tree.addGray(rank[j], key[j], free[j]);
+		}
+	}
+
+	/**
+	 * @return the size of the compulsory part of task <i>k</i> before <i>t</i>
+	 */
+	private long compulsory(int k, int t) {
+		return Math.max(0, Math.min((long) est[k] + p[k], t) - ((long) lct[k] - p[k]));
+	}
+
+	/**
+	 * Build the profile of the compulsory parts [lct - p, est + p)
+	 */
+	private void buildProfile() {
+		int nbEvt = 0;
+		for (int k = 0; k < nb; k++) {
+			int lst = lct[k] - p[k];
+			int ect = est[k] + p[k];
+			if (lst < ect) {
+				times[nbEvt] = lst;
+				deltas[nbEvt] = c[k];
+				evt[nbEvt] = nbEvt;
+				nbEvt++;
+				times[nbEvt] = ect;
+				deltas[nbEvt] = -c[k];
+				evt[nbEvt] = nbEvt;
+				nbEvt++;
+			}
+		}
+		sorter.sort(evt, nbEvt, (e1, e2) -> Integer.compare(times[e1], times[e2]));
+		// merge events occurring at the same time
+		nbTimes = 0;
+		long height = 0, integral = 0;
+		int prev = 0;
+		for (int k = 0; k < nbEvt; k++) {
+			int t = times[evt[k]];
+			long delta = deltas[evt[k]];
+			if (nbTimes > 0 && t == prev) {
+				height += delta;
+				heights[nbTimes - 1] = height;
+			} else {
+				if (nbTimes > 0) {
+					integral += height * ((long) t - prev);
+				}
+				height += delta;
+				points[nbTimes] = t;
+				integrals[nbTimes] = integral;
+				heights[nbTimes] = height;
+				nbTimes++;
+				prev = t;
+			}
+		}
+	}
+
+	/**
+	 * @return the energy of the compulsory parts before <i>t</i>
+	 */
+	private long tt(int t) {
+		int lo = 0, hi = nbTimes - 1, idx = -1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			if (points[mid] <= t) {
+				idx = mid;
+				lo = mid + 1;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		if (idx < 0) {
+			return 0;
+		}
+		return integrals[idx] + heights[idx] * ((long) t - points[idx]);
+	}
+}
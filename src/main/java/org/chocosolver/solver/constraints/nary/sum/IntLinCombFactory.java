@@ -35,6 +35,7 @@ import org.chocosolver.solver.constraints.Operator;
 import org.chocosolver.solver.constraints.extension.TuplesFactory;
 import org.chocosolver.solver.constraints.ternary.PropXplusYeqZ;
 import org.chocosolver.solver.exception.SolverException;
+import org.chocosolver.solver.variables.BoolVar;
 import org.chocosolver.solver.variables.IntVar;
 
 import java.util.Arrays;
@@ -252,6 +253,13 @@ public class IntLinCombFactory {
                 }
                 //TODO: deal with clauses and reification
                 Model Model = VARS[0].getModel();
+                if (OPERATOR != Operator.NQ && nbools >= VARS.length - 1
+                        && Model.getSettings().enablePseudoBooleanOnBoolLinear(tmpV.length)) {
+                    int[] tmpC = new int[tmpV.length];
+                    Arrays.fill(tmpC, 0, b, 1);
+                    Arrays.fill(tmpC, b, tmpC.length, -1);
+                    return selectPseudoBoolean(tmpV, tmpC, OPERATOR, RESULT);
+                }
                 if (nbools == VARS.length) {
                     if (Model.getSettings().enableIncrementalityOnBoolSum(tmpV.length)) {
                         return new Constraint("BoolSum", new PropSumBoolIncr(Model.toBoolVar(tmpV), b, OPERATOR,
@@ -306,6 +314,12 @@ public class IntLinCombFactory {
                 return s.times(VARS[0], COEFFS[0], VARS[1]);
             }
         }
+        if (OPERATOR != Operator.NQ && s.getSettings().enablePseudoBooleanOnBoolLinear(VARS.length)) {
+            Constraint c = selectPseudoBoolean(VARS, COEFFS, OPERATOR, RESULT);
+            if (c != null) {
+                return c;
+            }
+        }
         if (Operator.EQ == OPERATOR && VARS[VARS.length - 1].hasEnumeratedDomain() && TuplesFactory.canBeTupled(Arrays.copyOf(VARS, VARS.length - 1))) {
             return s.table(VARS, TuplesFactory.scalar(Arrays.copyOf(VARS, VARS.length - 1), Arrays.copyOf(COEFFS, COEFFS.length - 1),
                     OPERATOR.toString(), VARS[VARS.length - 1], -COEFFS[COEFFS.length - 1], RESULT));
@@ -325,14 +339,61 @@ public class IntLinCombFactory {
         }
         if (OPERATOR == Operator.GT) {
             OPERATOR = Operator.GE;
-            RESULT--;
+            RESULT++;
         } else if (OPERATOR == Operator.LT) {
             OPERATOR = Operator.LE;
-            RESULT++;
+            RESULT--;
         }
         return new Constraint("ScalarProduct", new PropScalar(tmpV, tmpC, b, OPERATOR, RESULT));
     }
 
+    /**
+     * Return a pseudo-boolean constraint when all variables but at most one are boolean,
+     * and the non-boolean one, if any, has a coefficient equal to 1 or -1.
+     *
+     * @param VARS     array of integer variables
+     * @param COEFFS   array of non-null integers
+     * @param OPERATOR an operator, but "!="
+     * @param RESULT   an integer
+     * @return a constraint, or <tt>null</tt> if the input does not fit a pseudo-boolean constraint
+     */
+    public static Constraint selectPseudoBoolean(IntVar[] VARS, int[] COEFFS, Operator OPERATOR, int RESULT) {
+        Model s = VARS[0].getModel();
+        int k = -1;
+        for (int i = 0; i < VARS.length; i++) {
+            if (!VARS[i].isBool()) {
+                if (k > -1 || Math.abs(COEFFS[i]) != 1) {
+                    return null;
+                }
+                k = i;
+            }
+        }
+        if (OPERATOR == Operator.GT) {
+            OPERATOR = Operator.GE;
+            RESULT++;
+        } else if (OPERATOR == Operator.LT) {
+            OPERATOR = Operator.LE;
+            RESULT--;
+        }
+        // SUM(c_i.b_i) + k.Y o R  <=> SUM(c_i.b_i) o Y + R (k = -1) or SUM(-c_i.b_i) o' Y - R (k = 1)
+        int m = k == -1 ? VARS.length : VARS.length - 1;
+        BoolVar[] bvars = new BoolVar[m];
+        int[] bcoeffs = new int[m];
+        boolean flip = k > -1 && COEFFS[k] == 1;
+        for (int i = 0, j = 0; i < VARS.length; i++) {
+            if (i != k) {
+                bvars[j] = (BoolVar) VARS[i];
+                bcoeffs[j++] = flip ? -COEFFS[i] : COEFFS[i];
+            }
+        }
+        IntVar Y = k == -1 ? s.intVar(0) : VARS[k];
+        if (flip) {
+            OPERATOR = Operator.get(Operator.getFlip(OPERATOR.toString()));
+            RESULT = -RESULT;
+        }
+        return new Constraint("PseudoBoolean", new PropPseudoBoolean(bvars, bcoeffs, OPERATOR, Y, RESULT));
+    }
+
 ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
     /**
@@ -0,0 +1,392 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.constraints.nary.sum;
+
+import org.chocosolver.memory.IStateInt;
+import org.chocosolver.solver.constraints.Operator;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.constraints.PropagatorPriority;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.exception.SolverException;
+import org.chocosolver.solver.variables.BoolVar;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.events.IntEventType;
+import org.chocosolver.solver.variables.events.PropagatorEventType;
+import org.chocosolver.util.ESat;
+import org.chocosolver.util.tools.ArrayUtils;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A counter-based propagator for SUM(c_i * x_i) o y + b, where x_i are boolean variables,
+ * c_i are non-null coefficients and o is one among EQ, LE and GE.
+ * <br/>
+ * Each term c_i * x_i is turned into a literal with a positive weight |c_i|, x_i or (1 - x_i) depending on the sign of c_i.
+ * Two counters are maintained incrementally: the weight of the literals set to true,
+ * and the weight of the literals not set to false.
+ * Literals are sorted by decreasing weight, and a backtrackable pointer per direction
+ * indicates the heaviest literal which may still be forced.
+ * Thus, each instantiation of a boolean variable is dealt with in constant time, and the filtering itself
+ * only iterates over the literals that are actually forced (amortized over a branch).
+ * <p>
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class PropPseudoBoolean extends Propagator<IntVar> {
+
+    /**
+     * Number of boolean variables
+     */
+    private final int n;
+
+    /**
+     * Weight of each literal, in decreasing order
+     */
+    private final int[] w;
+
+    /**
+     * Set to <tt>true</tt> when the literal is (1 - x_i)
+     */
+    private final boolean[] neg;
+
+    /**
+     * The resulting variable
+     */
+    private final IntVar sum;
+
+    /**
+     * Bound to respect, once literals are normalized
+     */
+    private final int b;
+
+    /**
+     * The operator among EQ, LE and GE
+     */
+    private final Operator o;
+
+    /**
+     * Weight of the literals set to true
+     */
+    private final IStateInt lo;
+
+    /**
+     * Weight of the literals not set to false
+     */
+    private final IStateInt hi;
+
+    /**
+     * Any literal before this pointer is instantiated or cannot be forced to false
+     */
+    private final IStateInt pLE;
+
+    /**
+     * Any literal before this pointer is instantiated or cannot be forced to true
+     */
+    private final IStateInt pGE;
+
+    /**
+     * Creates a pseudo-boolean propagator: SUM(coeffs_i * x_i) o sum + b, where x_i are boolean variables.
+     *
+     * @param variables list of boolean variables
+     * @param coeffs    list of non-null coefficients
+     * @param o         operator among EQ, LE and GE
+     * @param sum       resulting variable
+     * @param b         bound to respect
+     */
+    public PropPseudoBoolean(BoolVar[] variables, int[] coeffs, Operator o, IntVar sum, int b) {
+        super(ArrayUtils.append(permute(variables, order(coeffs)), new IntVar[]{sum}),
+                PropagatorPriority.LINEAR, true);
+        if (o != Operator.EQ && o != Operator.LE && o != Operator.GE) {
+            throw new SolverException("PropPseudoBoolean only deals with EQ, LE and GE operators, not " + o);
+        }
+        this.n = variables.length;
+        this.o = o;
+        this.sum = sum;
+        this.w = new int[n];
+        this.neg = new boolean[n];
+        Integer[] order = order(coeffs);
+        int k = b;
+        for (int i = 0; i < n; i++) {
+            int c = coeffs[order[i]];
+            if (c == 0) {
+                throw new SolverException("PropPseudoBoolean expects non-null coefficients");
+            }
+            w[i] = Math.abs(c);
+            neg[i] = c < 0;
+            if (neg[i]) {
+                // c.x = c + |c|.(1 - x)
+                k -= c;
+            }
+        }
+        this.b = k;
+        this.lo = model.getEnvironment().makeInt(0);
+        this.hi = model.getEnvironment().makeInt(0);
+        this.pLE = model.getEnvironment().makeInt(0);
+        this.pGE = model.getEnvironment().makeInt(0);
+    }
+
+    private static Integer[] order(int[] coeffs) {
+        Integer[] order = new Integer[coeffs.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> -Math.abs(coeffs[i])));
+        return order;
+    }
+
+    private static BoolVar[] permute(BoolVar[] variables, Integer[] order) {
+        BoolVar[] sorted = new BoolVar[variables.length];
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = variables[order[i]];
+        }
+        return sorted;
+    }
+
+    @Override
+    public int getPropagationConditions(int vIdx) {
+        if (vIdx < n) {
+            return IntEventType.instantiation();
+        }
+        switch (o) {
+            case LE:
+                return IntEventType.combine(IntEventType.INSTANTIATE, IntEventType.DECUPP);
+            case GE:
+                return IntEventType.combine(IntEventType.INSTANTIATE, IntEventType.INCLOW);
+            default:
+                return IntEventType.boundAndInst();
+        }
+    }
+
+    /**
+     * @param i index of an instantiated boolean variable
+     * @return <tt>true</tt> if the i^th literal is true
+     */
+    private boolean isTrue(int i) {
+        return (vars[i].getValue() == 1) != neg[i];
+    }
+
+    @Override
+    public void propagate(int evtmask) throws ContradictionException {
+        if (PropagatorEventType.isFullPropagation(evtmask)) {
+            int l = 0, h = 0;
+            for (int i = 0; i < n; i++) {
+                if (vars[i].isInstantiated()) {
+                    if (isTrue(i)) {
+                        l += w[i];
+                        h += w[i];
+                    }
+                } else {
+                    h += w[i];
+                }
+            }
+            lo.set(l);
+            hi.set(h);
+            pLE.set(0);
+            pGE.set(0);
+        }
+        filter();
+    }
+
+    @Override
+    public void propagate(int idxVarInProp, int mask) throws ContradictionException {
+        if (idxVarInProp < n) {
+            if (isTrue(idxVarInProp)) {
+                lo.add(w[idxVarInProp]);
+            } else {
+                hi.add(-w[idxVarInProp]);
+            }
+            if (needFilter()) {
+                forcePropagate(PropagatorEventType.CUSTOM_PROPAGATION);
+            }
+        } else {
+            forcePropagate(PropagatorEventType.CUSTOM_PROPAGATION);
+        }
+    }
+
+    /**
+     * @return <tt>true</tt> if a literal or the resulting variable may be modified, in constant time
+     */
+    private boolean needFilter() {
+        if (o != Operator.GE) {
+            int slack = sum.getUB() + b - lo.get();
+            int p = pLE.get();
+            if (slack < 0 || (p < n && w[p] > slack) || lo.get() - b > sum.getLB()) {
+                return true;
+            }
+        }
+        if (o != Operator.LE) {
+            int slack = hi.get() - b - sum.getLB();
+            int p = pGE.get();
+            if (slack < 0 || (p < n && w[p] > slack) || hi.get() - b < sum.getUB()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void filter() throws ContradictionException {
+        boolean fix;
+        do {
+            fix = false;
+            if (o != Operator.GE) {
+                fix = filterOnLeq();
+            }
+            if (o != Operator.LE) {
+                fix |= filterOnGeq();
+            }
+        } while (fix && o == Operator.EQ);
+        if (o == Operator.LE && hi.get() <= sum.getLB() + b) {
+            setPassive();
+        } else if (o == Operator.GE && lo.get() >= sum.getUB() + b) {
+            setPassive();
+        }
+    }
+
+    /**
+     * Filtering of SUM(w_i * l_i) <= sum + b
+     *
+     * @return <tt>true</tt> if a literal has been set to false or if the resulting variable has been modified
+     * @throws ContradictionException if a failure occurs
+     */
+    private boolean filterOnLeq() throws ContradictionException {
+        boolean fix = sum.updateLowerBound(lo.get() - b, this);
+        int slack = sum.getUB() + b - lo.get();
+        if (slack < 0) {
+            fails();
+        }
+        int p = pLE.get();
+        int h = hi.get();
+        int h0 = h;
+        while (p < n && (w[p] > slack || vars[p].isInstantiated())) {
+            if (!vars[p].isInstantiated()) {
+                vars[p].instantiateTo(neg[p] ? 1 : 0, this);
+                h -= w[p];
+                fix = true;
+            }
+            p++;
+        }
+        pLE.set(p);
+        if (h != h0) {
+            hi.set(h);
+        }
+        return fix;
+    }
+
+    /**
+     * Filtering of SUM(w_i * l_i) >= sum + b
+     *
+     * @return <tt>true</tt> if a literal has been set to true or if the resulting variable has been modified
+     * @throws ContradictionException if a failure occurs
+     */
+    private boolean filterOnGeq() throws ContradictionException {
+        boolean fix = sum.updateUpperBound(hi.get() - b, this);
+        int slack = hi.get() - b - sum.getLB();
+        if (slack < 0) {
+            fails();
+        }
+        int p = pGE.get();
+        int l = lo.get();
+        int l0 = l;
+        while (p < n && (w[p] > slack || vars[p].isInstantiated())) {
+            if (!vars[p].isInstantiated()) {
+                vars[p].instantiateTo(neg[p] ? 0 : 1, this);
+                l += w[p];
+                fix = true;
+            }
+            p++;
+        }
+        pGE.set(p);
+        if (l != l0) {
+            lo.set(l);
+        }
+        return fix;
+    }
+
+    @Override
+    public ESat isEntailed() {
+        int l = 0, h = 0;
+        for (int i = 0; i < n; i++) {
+            if (vars[i].isInstantiated()) {
+                if (isTrue(i)) {
+                    l += w[i];
+                    h += w[i];
+                }
+            } else {
+                h += w[i];
+            }
+        }
+        // SUM(w_i * l_i) - sum o b
+        int min = l - sum.getUB();
+        int max = h - sum.getLB();
+        switch (o) {
+            case LE:
+                if (max <= b) {
+                    return ESat.TRUE;
+                }
+                if (min > b) {
+                    return ESat.FALSE;
+                }
+                return ESat.UNDEFINED;
+            case GE:
+                if (min >= b) {
+                    return ESat.TRUE;
+                }
+                if (max < b) {
+                    return ESat.FALSE;
+                }
+                return ESat.UNDEFINED;
+            default:
+                if (min == b && max == b) {
+                    return ESat.TRUE;
+                }
+                if (max < b || min > b) {
+                    return ESat.FALSE;
+                }
+                return ESat.UNDEFINED;
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder linComb = new StringBuilder(20);
+        for (int i = 0; i < n; i++) {
+            if (i > 0) {
+                linComb.append(" + ");
+            }
+            linComb.append(w[i]).append('.');
+            linComb.append(neg[i] ? "~" : "").append(vars[i].getName());
+        }
+        linComb.append(" ").append(o).append(" ");
+        linComb.append(sum.getName()).append(" ").append(b < 0 ? "- " : "+ ").append(Math.abs(b));
+        return linComb.toString();
+    }
+}
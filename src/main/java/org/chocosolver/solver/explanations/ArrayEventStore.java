@@ -32,6 +32,7 @@ package org.chocosolver.solver.explanations;
 import org.chocosolver.memory.IEnvironment;
 import org.chocosolver.memory.IStateInt;
 import org.chocosolver.solver.ICause;
+import org.chocosolver.solver.explanations.store.IEventStore;
 import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.solver.variables.events.IEventType;
 
@@ -42,7 +43,7 @@ import org.chocosolver.solver.variables.events.IEventType;
  * @author Charles Prud'homme
  * @since 13/11/14
  */
-public class ArrayEventStore {
+public class ArrayEventStore implements IEventStore {
 
     /**
      * Default size of arrays
@@ -33,6 +33,8 @@ import org.chocosolver.solver.ICause;
 import org.chocosolver.solver.Model;
 import org.chocosolver.solver.constraints.Propagator;
 import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.explanations.store.IEventStore;
+import org.chocosolver.solver.explanations.store.PackedEventStore;
 import org.chocosolver.solver.search.strategy.decision.Decision;
 import org.chocosolver.solver.variables.BoolVar;
 import org.chocosolver.solver.variables.IntVar;
@@ -53,7 +55,7 @@ public class ExplanationEngine implements IExplanationEngine{
     /**
      * Events generated during search
      */
-    private final ArrayEventStore eventStore;
+    private final IEventStore eventStore;
     /**
      * Active rules, to compute explanation backward
      */
@@ -81,7 +83,7 @@ public class ExplanationEngine implements IExplanationEngine{
     public ExplanationEngine(Model model, boolean partialExplanationsOn, boolean recordCauses) {
         this.saveCauses = recordCauses;
         this.enablePartialExplanation = partialExplanationsOn;
-        eventStore = new ArrayEventStore(model.getEnvironment());
+        eventStore = new PackedEventStore(model.getEnvironment());
         ruleStore = new RuleStore(saveCauses, enablePartialExplanation);
         model.getSolver().setExplainer(this);
         this.explanationPool = new PoolManager<>();
@@ -148,7 +150,7 @@ public class ExplanationEngine implements IExplanationEngine{
     /**
      * @return the current store of events
      */
-    public ArrayEventStore getEventStore() {
+    public IEventStore getEventStore() {
         return eventStore;
     }
 
@@ -32,6 +32,7 @@ package org.chocosolver.solver.explanations;
 import org.chocosolver.solver.ICause;
 import org.chocosolver.solver.constraints.Propagator;
 import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.explanations.store.IEventStore;
 import org.chocosolver.solver.search.strategy.decision.Decision;
 import org.chocosolver.solver.variables.BoolVar;
 import org.chocosolver.solver.variables.IntVar;
@@ -82,7 +83,7 @@ public interface IExplanationEngine {
     /**
      * @return the current store of events
      */
-    default ArrayEventStore getEventStore() {
+    default IEventStore getEventStore() {
         return null;
     }
 
@@ -33,6 +33,7 @@ import gnu.trove.set.TIntSet;
 import org.chocosolver.solver.ICause;
 import org.chocosolver.solver.constraints.Propagator;
 import org.chocosolver.solver.exception.SolverException;
+import org.chocosolver.solver.explanations.store.IEventStore;
 import org.chocosolver.solver.search.strategy.decision.Decision;
 import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.solver.variables.Variable;
@@ -115,6 +116,19 @@ public class RuleStore {
      * Reference to the last value popped from the event store.
      */
     private int lastValue;
+    /**
+     * Per-conflict memo of {@link Propagator#why(RuleStore, IntVar, IEventType, int)} default implementation.
+     * For a propagator id, stores the id of the variable excluded on first explanation, or -1 once the whole scope is explained.
+     */
+    private int[] scopeMemo;
+    /**
+     * Stamp of the conflict in which {@link #scopeMemo} was set, for a propagator id
+     */
+    private int[] scopeStamp;
+    /**
+     * Stamp of the current conflict
+     */
+    private int stamp;
 
     /**
      * Instantiate a rule store to compute explanations
@@ -125,6 +139,8 @@ public class RuleStore {
         this.saveCauses = saveCauses;
         this.enablePartialExplanation = enablePartialExplanation;
         decRefut = new Explanation[16];
+        scopeMemo = new int[16];
+        scopeStamp = new int[16];
     }
 
     /**
@@ -134,6 +150,7 @@ public class RuleStore {
     public void init(Explanation expl) {
         this.cRules = expl.getRules();
         preemptedStop = false;
+        stamp++;
     }
 
     /**
@@ -152,24 +169,27 @@ public class RuleStore {
      * @throws org.chocosolver.solver.exception.SolverException when the type of the variable is neither {@link Variable#BOOL} or {@link Variable#INT}.
      * @return <tt>true</tt> if the event in position {@code idx} in {@code eventStore} matches a rule
      */
-    public boolean match(final int idx, final ArrayEventStore eventStore) {
-        lastVar = eventStore.getVariable(idx);
-        lastValue = eventStore.getFirstValue(idx); // either the propagator ID, or a value related to the variable event (eg, instantiated value)
+    public boolean match(final int idx, final IEventStore eventStore) {
         lastEvt = eventStore.getEventType(idx);
 
         if (lastEvt != FULL_PROPAGATION) {
             // the event is a variable modification
-            int lastVid = lastVar.getId();
-            int lastMask = cRules.getVmRules(lastVid);
+            int lastMask = cRules.getVmRules(eventStore.getVariableId(idx));
+            if (lastMask == NO_ENTRY) { // most events do not match, no need to decode them
+                return false;
+            }
+            lastVar = eventStore.getVariable(idx);
+            lastValue = eventStore.getFirstValue(idx); // a value related to the variable event (eg, instantiated value)
 
             if (lastMask == DM) { // only to speed up the entire process
                 return true;
-            } else if (lastMask != NO_ENTRY) {
+            } else {
                 IntEventType ievt = (IntEventType) lastEvt;
                 return matchDomain(lastMask, lastVar, ievt, lastValue, eventStore.getSecondValue(idx), eventStore.getThirdValue(idx));
             }
-            return false;
         } else {
+            lastVar = eventStore.getVariable(idx);
+            lastValue = eventStore.getFirstValue(idx); // the propagator ID
             // Does it match a propagator activation known rule?
             return cRules.getPaRules(lastValue);
         }
@@ -248,7 +268,7 @@ public class RuleStore {
      * @param explanation the explanation to compute
      */
     @SuppressWarnings({"PointlessBooleanExpression", "ConstantConditions"})
-    public void update(final int idx, final ArrayEventStore eventStore, Explanation explanation) {
+    public void update(final int idx, final IEventStore eventStore, Explanation explanation) {
         assert lastVar == eventStore.getVariable(idx) : "Wrong variable loaded";
         assert lastEvt == eventStore.getEventType(idx) : "Wrong event loaded";
         if (!lastEvt.equals(FULL_PROPAGATION)) {
@@ -389,6 +409,41 @@ public class RuleStore {
     }
 
 
+    /**
+     * Memoise, for the current explanation, that all variables of <i>propagator</i> but <i>var</i> are about to get a full domain rule.
+     * Since rules can only be strengthened during an explanation, it avoids iterating over the scope
+     * of a propagator which generates many events.
+     *
+     * @param propagator a propagator
+     * @param var        the variable excluded from the explanation, may be <tt>null</tt>
+     * @return <tt>true</tt> if no new rule can be added by explaining the scope of <i>propagator</i> but <i>var</i>
+     */
+    public boolean isScopeExplained(Propagator propagator, IntVar var) {
+        int pid = propagator.getId();
+        if (pid >= scopeMemo.length) {
+            int nsize = Math.max(pid + 1, scopeMemo.length * 3 / 2 + 1);
+            int[] tmp = scopeMemo;
+            scopeMemo = new int[nsize];
+            System.arraycopy(tmp, 0, scopeMemo, 0, tmp.length);
+            tmp = scopeStamp;
+            scopeStamp = new int[nsize];
+            System.arraycopy(tmp, 0, scopeStamp, 0, tmp.length);
+        }
+        int vid = var == null ? -1 : var.getId();
+        if (scopeStamp[pid] != stamp) {
+            scopeStamp[pid] = stamp;
+            scopeMemo[pid] = vid;
+            return false;
+        }
+        int excluded = scopeMemo[pid];
+        if (excluded == -1 || excluded == vid) {
+            return true;
+        }
+        // the previously excluded variable is now explained too
+        scopeMemo[pid] = -1;
+        return false;
+    }
+
     /**
      * Store a decision refutation, for future reasoning.
      *
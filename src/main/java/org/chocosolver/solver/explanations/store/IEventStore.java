@@ -41,10 +41,22 @@ public interface IEventStore {
 
     void pushEvent(IntVar var, ICause cause, IEventType mask, int one, int two, int three);
 
+    void forgetLast();
+
     int getSize();
 
     IntVar getVariable(int evt);
 
+    /**
+     * Should be preferred to {@link #getVariable(int)} when only the identity of the variable matters,
+     * since some stores can answer without decoding the event.
+     * @param evt event index
+     * @return the id of the variable associated to the event in position <i>evt</i>
+     */
+    default int getVariableId(int evt) {
+        return getVariable(evt).getId();
+    }
+
     IEventType getEventType(int evt);
 
     ICause getCause(int evt);
@@ -0,0 +1,379 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.explanations.store;
+
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.memory.IStateInt;
+import org.chocosolver.solver.ICause;
+import org.chocosolver.solver.Identity;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.events.IEventType;
+import org.chocosolver.solver.variables.events.IntEventType;
+import org.chocosolver.solver.variables.events.PropagatorEventType;
+
+/**
+ * A compact data structure which stores events during search, for lazy explanation purpose.
+ * <p>
+ * Each event is packed into two consecutive <code>long</code> of a single array:
+ * <ul>
+ * <li>the first one stores the variable id (32 high bits), the interned cause (29 bits) and the event type (3 low bits),</li>
+ * <li>the second one stores the first value (32 high bits) and the other values, delta-encoded wrt the first one (32 low bits).</li>
+ * </ul>
+ * Variables and causes are interned, that is, referenced by their id ({@link Identity#getId()}).
+ * Causes without identity (eg, decisions) and events which do not fit the encoding (unexpected type or values)
+ * are stored in side arrays, indexed like events and allocated on demand:
+ * nothing is kept for them beyond the largest number of events stored at once.
+ * <p>
+ * Compared to {@link org.chocosolver.solver.explanations.ArrayEventStore}, reading an event touches one array only,
+ * and the variable id can be read without decoding the rest of the event (see {@link #getVariableId(int)}).
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class PackedEventStore implements IEventStore {
+
+    /**
+     * Default number of events
+     */
+    private static final int SIZE = 128;
+    /**
+     * Type code: value removal
+     */
+    private static final int REMOVE = 0;
+    /**
+     * Type code: lower bound modification
+     */
+    private static final int INCLOW = 1;
+    /**
+     * Type code: upper bound modification
+     */
+    private static final int DECUPP = 2;
+    /**
+     * Type code: instantiation
+     */
+    private static final int INSTANTIATE = 3;
+    /**
+     * Type code: propagator activation
+     */
+    private static final int FULL_PROPAGATION = 4;
+    /**
+     * Type code: event stored in the side table
+     */
+    private static final int WIDE = 7;
+    /**
+     * Code of causes stored in {@link #otherCauses}, ids of causes are smaller
+     */
+    private static final int OTHER = 1 << 28;
+    /**
+     * Code of the <i>null</i> cause
+     */
+    private static final int NULL_CAUSE = OTHER + 1;
+    /**
+     * Largest delta of the instantiation event that can be packed
+     */
+    private static final long SHORT = 0xFFFF;
+
+    /**
+     * Packed events, in chronological order, two <code>long</code> per event
+     */
+    private long[] events;
+    /**
+     * Variables, indexed by their id
+     */
+    private IntVar[] vars;
+    /**
+     * Causes with an identity, indexed by their id
+     */
+    private ICause[] causes;
+    /**
+     * Causes without identity, indexed by event
+     */
+    private ICause[] otherCauses;
+    /**
+     * Last cause interned, and its code (most of the time, a cause generates consecutive events)
+     */
+    private ICause lastCause;
+    /**
+     * Code of {@link #lastCause}
+     */
+    private int lastCode;
+    /**
+     * Event types of events which cannot be packed, indexed by event
+     */
+    private IEventType[] wideTypes;
+    /**
+     * Values of events which cannot be packed, three per event
+     */
+    private int[] wideValues;
+    /**
+     * Number of events stored
+     */
+    private final IStateInt size;
+
+    /**
+     * Create a packed event store
+     * @param env backtracking environment
+     */
+    public PackedEventStore(IEnvironment env) {
+        size = env.makeInt(0);
+        size._set(0, 0); // to force history manually -- required when created during the search
+        events = new long[SIZE << 1];
+        vars = new IntVar[SIZE];
+        causes = new ICause[SIZE];
+        otherCauses = new ICause[0];
+        wideTypes = new IEventType[0];
+        wideValues = new int[0];
+    }
+
+    @Override
+    public void pushEvent(IntVar var, ICause cause, IEventType mask, int one, int two, int three) {
+        int idx = size.get();
+        int capacity = events.length >> 1;
+        if (idx >= capacity) {
+            long[] tmp = events;
+            events = new long[(capacity + (capacity >> 1)) << 1];
+            System.arraycopy(tmp, 0, events, 0, tmp.length);
+        }
+        int type = WIDE;
+        long rest = 0;
+        if (mask == IntEventType.REMOVE) {
+            if (two == -1 && three == -1) {
+                type = REMOVE;
+            }
+        } else if (mask == IntEventType.INCLOW) {
+            if (two <= one && three == -1) {
+                type = INCLOW;
+                rest = (long) one - two;
+            }
+        } else if (mask == IntEventType.DECUPP) {
+            if (two >= one && three == -1) {
+                type = DECUPP;
+                rest = (long) two - one;
+            }
+        } else if (mask == IntEventType.INSTANTIATE) {
+            long dl = (long) one - two;
+            long du = (long) three - one;
+            if (dl >= 0 && dl <= SHORT && du >= 0 && du <= SHORT) {
+                type = INSTANTIATE;
+                rest = dl << 16 | du;
+            }
+        } else if (mask == PropagatorEventType.FULL_PROPAGATION) {
+            if (two == 0 && three == 0) {
+                type = FULL_PROPAGATION;
+            }
+        }
+        if (type == WIDE) {
+            pushWide(idx, mask, one, two, three);
+        }
+        events[idx << 1] = (long) internVariable(var) << 32 | (internCause(idx, cause) << 3 | type) & 0xFFFFFFFFL;
+        events[(idx << 1) + 1] = (long) one << 32 | rest;
+        size.add(1);
+    }
+
+    /**
+     * Store an event which cannot be packed in the side arrays
+     */
+    private void pushWide(int idx, IEventType mask, int one, int two, int three) {
+        if (idx >= wideTypes.length) {
+            int nsize = Math.max(idx + 1, events.length >> 1);
+            IEventType[] tmp = wideTypes;
+            wideTypes = new IEventType[nsize];
+            System.arraycopy(tmp, 0, wideTypes, 0, tmp.length);
+            int[] tmpv = wideValues;
+            wideValues = new int[3 * nsize];
+            System.arraycopy(tmpv, 0, wideValues, 0, tmpv.length);
+        }
+        wideTypes[idx] = mask;
+        wideValues[3 * idx] = one;
+        wideValues[3 * idx + 1] = two;
+        wideValues[3 * idx + 2] = three;
+    }
+
+    /**
+     * @param var a variable
+     * @return the id of the variable, which is now known by this
+     */
+    private int internVariable(IntVar var) {
+        int id = var.getId();
+        if (id >= vars.length) {
+            IntVar[] tmp = vars;
+            vars = new IntVar[Math.max(id + 1, tmp.length + (tmp.length >> 1))];
+            System.arraycopy(tmp, 0, vars, 0, tmp.length);
+        }
+        vars[id] = var;
+        return id;
+    }
+
+    /**
+     * @param idx   index of the event
+     * @param cause a cause
+     * @return the code of the cause, which is now known by this
+     */
+    private int internCause(int idx, ICause cause) {
+        if (idx < otherCauses.length) {
+            // forget the cause of a former event
+            otherCauses[idx] = null;
+        }
+        if (cause == lastCause) {
+            return lastCode;
+        }
+        int code;
+        if (cause == null) {
+            code = NULL_CAUSE;
+        } else if (cause instanceof Identity && ((Identity) cause).getId() < OTHER) {
+            code = ((Identity) cause).getId();
+            if (code >= causes.length) {
+                ICause[] tmp = causes;
+                causes = new ICause[Math.max(code + 1, tmp.length + (tmp.length >> 1))];
+                System.arraycopy(tmp, 0, causes, 0, tmp.length);
+            }
+            causes[code] = cause;
+        } else {
+            if (idx >= otherCauses.length) {
+                ICause[] tmp = otherCauses;
+                otherCauses = new ICause[Math.max(idx + 1, events.length >> 1)];
+                System.arraycopy(tmp, 0, otherCauses, 0, tmp.length);
+            }
+            otherCauses[idx] = cause;
+            // not memoized: the code does not tell the event
+            return OTHER;
+        }
+        lastCause = cause;
+        lastCode = code;
+        return code;
+    }
+
+    @Override
+    public void forgetLast() {
+        size.add(-1);
+    }
+
+    @Override
+    public int getSize() {
+        return size.get();
+    }
+
+    @Override
+    public int getVariableId(int evt) {
+        return (int) (events[evt << 1] >>> 32);
+    }
+
+    @Override
+    public IntVar getVariable(int evt) {
+        return vars[getVariableId(evt)];
+    }
+
+    /**
+     * @param evt event index
+     * @return the type code of the event in position <i>evt</i>
+     */
+    private int type(int evt) {
+        return (int) events[evt << 1] & 7;
+    }
+
+    /**
+     * @param evt event index
+     * @return the packed values of the event in position <i>evt</i>
+     */
+    private int rest(int evt) {
+        return (int) events[(evt << 1) + 1];
+    }
+
+    @Override
+    public IEventType getEventType(int evt) {
+        switch (type(evt)) {
+            case REMOVE:
+                return IntEventType.REMOVE;
+            case INCLOW:
+                return IntEventType.INCLOW;
+            case DECUPP:
+                return IntEventType.DECUPP;
+            case INSTANTIATE:
+                return IntEventType.INSTANTIATE;
+            case FULL_PROPAGATION:
+                return PropagatorEventType.FULL_PROPAGATION;
+            default:
+                return wideTypes[evt];
+        }
+    }
+
+    @Override
+    public ICause getCause(int evt) {
+        int code = (int) events[evt << 1] >>> 3;
+        if (code == NULL_CAUSE) {
+            return null;
+        } else if (code == OTHER) {
+            return otherCauses[evt];
+        }
+        return causes[code];
+    }
+
+    @Override
+    public int getFirstValue(int evt) {
+        if (type(evt) == WIDE) {
+            return wideValues[3 * evt];
+        }
+        return (int) (events[(evt << 1) + 1] >>> 32);
+    }
+
+    @Override
+    public int getSecondValue(int evt) {
+        switch (type(evt)) {
+            case REMOVE:
+                return -1;
+            case INCLOW:
+                return getFirstValue(evt) - rest(evt);
+            case DECUPP:
+                return getFirstValue(evt) + rest(evt);
+            case INSTANTIATE:
+                return getFirstValue(evt) - (rest(evt) >>> 16);
+            case FULL_PROPAGATION:
+                return 0;
+            default:
+                return wideValues[3 * evt + 1];
+        }
+    }
+
+    @Override
+    public int getThirdValue(int evt) {
+        switch (type(evt)) {
+            case REMOVE:
+            case INCLOW:
+            case DECUPP:
+                return -1;
+            case INSTANTIATE:
+                return getFirstValue(evt) + (rest(evt) & 0xFFFF);
+            case FULL_PROPAGATION:
+                return 0;
+            default:
+                return wideValues[3 * evt + 2];
+        }
+    }
+}
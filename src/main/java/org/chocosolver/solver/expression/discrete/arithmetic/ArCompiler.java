@@ -0,0 +1,266 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.expression.discrete.arithmetic;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.constraints.nary.PropExpression;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.util.tools.StringUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles arithmetic expressions into a linear constraint and, if needed, a propagator for the non-linear parts.
+ * <p>
+ * Additions, subtractions, negations and multiplications by a constant are flattened into a single linear
+ * constraint (see {@link Model#scalar(IntVar[], int[], String, IntVar)}).
+ * Any other sub-expression is a non-linear term: it is replaced in the linear constraint by a variable, equal to the
+ * term thanks to a single {@link PropExpression} shared by all terms. This propagator is posted on its own,
+ * so that the terms stay defined when the linear constraint is reified or negated.
+ * Identical sub-expressions are compiled once, and so share the same variable.
+ * Only {@link ArExpression.Operator#POW} is decomposed, as in {@link ArExpression#intVar()}.
+ * <p>
+ * Compared to the decomposition, this does not create a variable and a propagator per operator.
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public final class ArCompiler {
+
+    private final Model model;
+    /**
+     * Coefficients of the linear part
+     */
+    private final Map<IntVar, Long> linear = new LinkedHashMap<>();
+    /**
+     * Constant of the linear part
+     */
+    private long constant;
+    /**
+     * Node index of each sub-expression, identified by its operator and the index of its children
+     */
+    private final Map<String, Integer> nodes = new HashMap<>();
+    private final List<ArExpression.Operator> ops = new ArrayList<>();
+    private final TIntArrayList left = new TIntArrayList();
+    private final TIntArrayList right = new TIntArrayList();
+    private final TLongArrayList lbs = new TLongArrayList();
+    private final TLongArrayList ubs = new TLongArrayList();
+    private final List<IntVar> leaves = new ArrayList<>();
+    /**
+     * Coefficients of the non-linear terms, indexed by their root node
+     */
+    private final Map<Integer, Long> terms = new LinkedHashMap<>();
+    /**
+     * Set to <i>true</i> when a sub-expression has no value, e.g. a division by 0
+     */
+    private boolean empty;
+
+    /**
+     * Create a compiler for expressions of <i>model</i>
+     *
+     * @param model a model
+     */
+    public ArCompiler(Model model) {
+        this.model = model;
+    }
+
+    /**
+     * Add <i>coef</i> * <i>e</i> to the compiled expression.
+     *
+     * @param e    an arithmetic expression
+     * @param coef a coefficient
+     */
+    public void add(ArExpression e, long coef) {
+        // a null coefficient is not ignored, e might not be defined everywhere (e.g., a division by 0)
+        if (e.isExpressionLeaf()) {
+            IntVar v = (IntVar) e;
+            if (v.isInstantiated()) {
+                constant = Math.addExact(constant, Math.multiplyExact(coef, v.getValue()));
+            } else {
+                linear.merge(v, coef, Math::addExact);
+            }
+            return;
+        }
+        if (e instanceof UnArExpression && ((UnArExpression) e).op == ArExpression.Operator.NEG) {
+            add(((UnArExpression) e).e, -coef);
+            return;
+        }
+        if (e instanceof BiArExpression) {
+            BiArExpression b = (BiArExpression) e;
+            switch (b.op) {
+                case ADD:
+                    add(b.e1, coef);
+                    add(b.e2, coef);
+                    return;
+                case SUB:
+                    add(b.e1, coef);
+                    add(b.e2, -coef);
+                    return;
+                case MUL:
+                    if (isConstant(b.e1)) {
+                        add(b.e2, Math.multiplyExact(coef, ((IntVar) b.e1).getValue()));
+                        return;
+                    }
+                    if (isConstant(b.e2)) {
+                        add(b.e1, Math.multiplyExact(coef, ((IntVar) b.e2).getValue()));
+                        return;
+                    }
+                    break;
+            }
+        }
+        terms.merge(node(e), coef, Math::addExact);
+    }
+
+    private static boolean isConstant(ArExpression e) {
+        return e.isExpressionLeaf() && ((IntVar) e).isInstantiated();
+    }
+
+    /**
+     * @return the index of the node of <i>e</i>, created if needed
+     */
+    private int node(ArExpression e) {
+        ArExpression.Operator op = null;
+        int x, y = -1;
+        String key;
+        if (e.isExpressionLeaf() || e instanceof BiArExpression && ((BiArExpression) e).op == ArExpression.Operator.POW) {
+            IntVar v = e.intVar();
+            key = v.isInstantiated() ? "#" + v.getValue() : "v" + v.getId();
+            if (nodes.containsKey(key)) {
+                return nodes.get(key);
+            }
+            x = leaves.size();
+            leaves.add(v);
+        } else if (e instanceof UnArExpression) {
+            op = ((UnArExpression) e).op;
+            x = node(((UnArExpression) e).e);
+            key = op.name() + "(" + x + ")";
+        } else if (e instanceof BiArExpression) {
+            op = ((BiArExpression) e).op;
+            x = node(((BiArExpression) e).e1);
+            y = node(((BiArExpression) e).e2);
+            if (x > y && (op == ArExpression.Operator.ADD || op == ArExpression.Operator.MUL
+                    || op == ArExpression.Operator.MIN || op == ArExpression.Operator.MAX)) {
+                int t = x;
+                x = y;
+                y = t;
+            }
+            key = op.name() + "(" + x + "," + y + ")";
+        } else {
+            throw new UnsupportedOperationException("Cannot compile " + e);
+        }
+        Integer k = nodes.get(key);
+        if (k == null) {
+            k = ops.size();
+            nodes.put(key, k);
+            ops.add(op);
+            left.add(x);
+            right.add(y);
+            long[] itv = new long[2];
+            if (op == null) {
+                itv[0] = leaves.get(x).getLB();
+                itv[1] = leaves.get(x).getUB();
+            } else if (!PropExpression.interval(op, lbs.get(x), ubs.get(x),
+                    y < 0 ? 0 : lbs.get(y), y < 0 ? 0 : ubs.get(y), itv)) {
+                empty = true;
+                itv[0] = itv[1] = 0;
+            }
+            lbs.add(Math.max(itv[0], Integer.MIN_VALUE));
+            ubs.add(Math.min(itv[1], Integer.MAX_VALUE));
+        }
+        return k;
+    }
+
+    /**
+     * Build the constraint: (sum of the compiled expressions) <i>op</i> 0.
+     * If non-linear terms are replaced by variables, the propagator which defines them is posted,
+     * and only the linear constraint is returned.
+     *
+     * @param op an operator in {"=", "!=", ">","<",">=","<="}
+     * @return a constraint
+     */
+    public Constraint toConstraint(String op) {
+        if (empty) {
+            return model.falseConstraint();
+        }
+        if (terms.size() == 1 && linear.size() == 1 && constant == 0 && op.equals("=")) {
+            Map.Entry<Integer, Long> t = terms.entrySet().iterator().next();
+            Map.Entry<IntVar, Long> l = linear.entrySet().iterator().next();
+            if (t.getValue() != 0 && t.getValue() == -l.getValue() && !leaves.contains(l.getKey())) {
+                // a single term equal to a variable, which is not an operand of the term:
+                // no linear constraint is needed
+                return new Constraint("ArExpression", propagator(new IntVar[]{l.getKey()}, new int[]{t.getKey()}));
+            }
+        }
+        List<IntVar> vars = new ArrayList<>();
+        TIntArrayList coeffs = new TIntArrayList();
+        for (Map.Entry<IntVar, Long> entry : linear.entrySet()) {
+            if (entry.getValue() != 0) {
+                vars.add(entry.getKey());
+                coeffs.add(Math.toIntExact(entry.getValue()));
+            }
+        }
+        IntVar[] results = new IntVar[terms.size()];
+        int[] roots = new int[terms.size()];
+        int r = 0;
+        for (Map.Entry<Integer, Long> entry : terms.entrySet()) {
+            int k = entry.getKey();
+            roots[r] = k;
+            results[r] = model.intVar(StringUtils.randomName("exp_"),
+                    (int) Math.max(lbs.get(k), IntVar.MIN_INT_BOUND),
+                    (int) Math.min(ubs.get(k), IntVar.MAX_INT_BOUND), true);
+            // terms whose coefficients cancel out are kept, to restrict their operands (e.g., no division by 0)
+            if (entry.getValue() != 0) {
+                vars.add(results[r]);
+                coeffs.add(Math.toIntExact(entry.getValue()));
+            }
+            r++;
+        }
+        Constraint lin = model.scalar(vars.toArray(new IntVar[0]), coeffs.toArray(), op,
+                model.intVar(Math.toIntExact(-constant)));
+        if (!terms.isEmpty()) {
+            // the terms are defined whatever the status of the linear constraint, e.g. when it is reified,
+            // as in ArExpression#intVar()
+            new Constraint("ArExpression", propagator(results, roots)).post();
+        }
+        return lin;
+    }
+
+    private PropExpression propagator(IntVar[] results, int[] roots) {
+        return new PropExpression(leaves.toArray(new IntVar[0]), results, ops.toArray(new ArExpression.Operator[0]),
+                left.toArray(), right.toArray(), roots);
+    }
+}
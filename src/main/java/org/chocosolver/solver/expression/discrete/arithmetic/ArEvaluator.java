@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.expression.discrete.arithmetic;
+
+import org.chocosolver.solver.variables.IntVar;
+
+import java.util.Map;
+
+/**
+ * A flat evaluator of an arithmetic expression.
+ * <p>
+ * The expression tree is compiled once into a postfix program: a leaf loads the value of a variable from the tuple,
+ * an operator pops its operands from a stack and pushes the result back.
+ * Contrary to {@link ArExpression#eval(int[], Map)}, the evaluation neither walks the tree nor looks up a map.
+ * <p>
+ * An evaluator is immutable and can be shared between threads, as long as each thread provides its own stack
+ * (see {@link #stackSize()}).
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public final class ArEvaluator {
+
+    /**
+     * Op code of a unary operator, any positive code refers to a variable index
+     */
+    private static final int UNARY = -1;
+    /**
+     * Op code of a binary operator
+     */
+    private static final int BINARY = -2;
+
+    /**
+     * The postfix program
+     */
+    private final int[] code;
+    /**
+     * Operators of the program, <i>null</i> for loads
+     */
+    private final ArExpression.Operator[] ops;
+    /**
+     * Size of the stack required to evaluate the program
+     */
+    private int depth;
+
+    /**
+     * Compile <i>expression</i> into a postfix program.
+     *
+     * @param expression an arithmetic expression
+     * @param map        index of each leaf of <i>expression</i> in the tuples to evaluate
+     */
+    public ArEvaluator(ArExpression expression, Map<IntVar, Integer> map) {
+        int size = size(expression);
+        this.code = new int[size];
+        this.ops = new ArExpression.Operator[size];
+        compile(expression, map, 0, 0);
+    }
+
+    private static int size(ArExpression e) {
+        int s = 1;
+        if (!e.isExpressionLeaf()) {
+            for (ArExpression c : e.getExpressionChild()) {
+                s += size(c);
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Write the program of <i>e</i> from <i>pc</i>, <i>height</i> being the number of operands already pushed.
+     *
+     * @return the position following the program of <i>e</i>
+     */
+    @SuppressWarnings("SuspiciousMethodCalls")
+    private int compile(ArExpression e, Map<IntVar, Integer> map, int pc, int height) {
+        if (e.isExpressionLeaf()) {
+            Integer idx = map.get(e);
+            if (idx == null) {
+                throw new IllegalArgumentException("No index is given for " + e);
+            }
+            depth = Math.max(depth, height + 1);
+            code[pc] = idx;
+        } else if (e instanceof UnArExpression) {
+            pc = compile(((UnArExpression) e).e, map, pc, height);
+            code[pc] = UNARY;
+            ops[pc] = ((UnArExpression) e).op;
+        } else if (e instanceof BiArExpression) {
+            pc = compile(((BiArExpression) e).e1, map, pc, height);
+            pc = compile(((BiArExpression) e).e2, map, pc, height + 1);
+            code[pc] = BINARY;
+            ops[pc] = ((BiArExpression) e).op;
+        } else {
+            throw new UnsupportedOperationException("Cannot compile " + e);
+        }
+        return pc + 1;
+    }
+
+    /**
+     * @return the size of the stack to give to {@link #eval(int[], int[])}
+     */
+    public int stackSize() {
+        return depth;
+    }
+
+    /**
+     * Evaluate the expression on <i>values</i>.
+     *
+     * @param values a tuple, indexed as declared on construction
+     * @param stack  a stack of at least {@link #stackSize()} cells, overwritten by this method
+     * @return the value of the expression
+     */
+    public int eval(int[] values, int[] stack) {
+        int top = -1;
+        for (int pc = 0; pc < code.length; pc++) {
+            int c = code[pc];
+            if (c >= 0) {
+                stack[++top] = values[c];
+            } else if (c == UNARY) {
+                stack[top] = ops[pc].eval(stack[top]);
+            } else {
+                top--;
+                stack[top] = ops[pc].eval(stack[top], stack[top + 1]);
+            }
+        }
+        return stack[0];
+    }
+}
@@ -66,11 +66,11 @@ public class BiArExpression implements ArExpression {
     /**
      * The first expression this expression relies on
      */
-    private ArExpression e1;
+    ArExpression e1;
     /**
      * The second expression this expression relies on
      */
-    private ArExpression e2;
+    ArExpression e2;
 
     /**
      * Builds a binary expression
@@ -64,7 +64,7 @@ public class UnArExpression implements ArExpression {
     /**
      * The expression this expression relies on
      */
-    private ArExpression e;
+    ArExpression e;
 
     /**
      * Builds a unary expression
@@ -34,6 +34,8 @@ import org.chocosolver.solver.constraints.Constraint;
 import org.chocosolver.solver.constraints.extension.Tuples;
 import org.chocosolver.solver.constraints.extension.TuplesFactory;
 import org.chocosolver.solver.exception.SolverException;
+import org.chocosolver.solver.expression.discrete.arithmetic.ArCompiler;
+import org.chocosolver.solver.expression.discrete.arithmetic.ArEvaluator;
 import org.chocosolver.solver.expression.discrete.arithmetic.ArExpression;
 import org.chocosolver.solver.variables.IntVar;
 
@@ -102,6 +104,28 @@ public class BiReExpression implements ReExpression {
         throw new SolverException("Unexpected case");
     }
 
+    @Override
+    public Constraint compile() {
+        ArCompiler compiler = new ArCompiler(e1.getModel());
+        compiler.add(e1, 1);
+        compiler.add(e2, -1);
+        switch (op) {
+            case LT:
+                return compiler.toConstraint("<");
+            case LE:
+                return compiler.toConstraint("<=");
+            case GE:
+                return compiler.toConstraint(">=");
+            case GT:
+                return compiler.toConstraint(">");
+            case NE:
+                return compiler.toConstraint("!=");
+            case EQ:
+                return compiler.toConstraint("=");
+        }
+        throw new SolverException("Unexpected case");
+    }
+
     @Override
     public Constraint extension() {
         HashSet<IntVar> avars = new LinkedHashSet<>();
@@ -109,7 +133,13 @@ public class BiReExpression implements ReExpression {
         extractVar(avars, e2);
         IntVar[] uvars = avars.stream().sorted().toArray(IntVar[]::new);
         Map<IntVar, Integer> map = IntStream.range(0, uvars.length).boxed().collect(Collectors.toMap(i -> uvars[i], i -> i));
-        Tuples tuples = TuplesFactory.generateTuples(values -> eval(values, map), true, uvars);
+        ArEvaluator ev1 = new ArEvaluator(e1, map);
+        ArEvaluator ev2 = new ArEvaluator(e2, map);
+        int size = Math.max(ev1.stackSize(), ev2.stackSize());
+        Tuples tuples = TuplesFactory.generateTuples(() -> {
+            int[] stack = new int[size];
+            return values -> op.eval(ev1.eval(values, stack), ev2.eval(values, stack));
+        }, true, uvars);
 //        System.out.printf("%d -> %d\n", VariableUtils.domainCardinality(uvars), tuples.nbTuples());
         return e1.getModel().table(uvars, tuples);
     }
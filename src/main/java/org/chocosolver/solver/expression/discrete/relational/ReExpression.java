@@ -125,5 +125,14 @@ public interface ReExpression {
      */
     Constraint extension();
 
+    /**
+     * @return a linear constraint over the linear parts of the expression. If needed, a call to this method
+     * replaces the non-linear parts by variables and posts a single bound consistent propagator defining them.
+     * Identical sub-expressions are shared.
+     * Contrary to {@link #decompose()}, no variable is created per operator.
+     * @see org.chocosolver.solver.expression.discrete.arithmetic.ArCompiler
+     */
+    Constraint compile();
+
     boolean eval(int[] values, Map<IntVar, Integer> map);
 }
@@ -132,6 +132,22 @@ public interface IPropagationEngine  {
     default void propagate() throws ContradictionException {
     }
 
+    /**
+     * @return the number of calls to {@link Propagator#propagate(int)} and {@link Propagator#propagate(int, int)}
+     * done by <code>this</code> so far, excluding initial propagations, or 0 if <code>this</code> does not count them
+     */
+    default long getPropagationCount() {
+        return 0;
+    }
+
+    /**
+     * Attach a profiler to <code>this</code>, which is then informed of every propagator execution.
+     * Engines which do not support profiling ignore it.
+     * @param profiler a profiler, or <tt>null</tt> to stop profiling
+     */
+    default void setProfiler(PropagationProfiler profiler) {
+    }
+
     /**
      * Flush <code>this</code>, ie. remove every pending events
      */
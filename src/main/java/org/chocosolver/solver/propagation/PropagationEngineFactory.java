@@ -30,6 +30,7 @@
 package org.chocosolver.solver.propagation;
 
 import org.chocosolver.solver.Model;
+import org.chocosolver.solver.propagation.hardcoded.FlatPropagatorEngine;
 import org.chocosolver.solver.propagation.hardcoded.SevenQueuesPropagatorEngine;
 import org.chocosolver.solver.propagation.hardcoded.TwoBucketPropagationEngine;
 
@@ -66,6 +67,17 @@ public enum PropagationEngineFactory {
         }
     },
 
+    /**
+     * Create a seven queue propagator-oriented propagation engine based on flat arrays,
+     * which does not allocate objects while propagating
+     */
+    PROPAGATORDRIVEN_FLAT() {
+        @Override
+        public IPropagationEngine make(Model model) {
+            return new FlatPropagatorEngine(model);
+        }
+    },
+
     DEFAULT() {
         @Override
         public IPropagationEngine make(Model model) {
@@ -0,0 +1,378 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.propagation;
+
+import org.chocosolver.solver.ICause;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.Variable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A per-propagator execution profiler, fed by a propagation engine (see {@link IPropagationEngine#setProfiler(PropagationProfiler)}).
+ * <br/>
+ * For each propagator, it counts exactly the number of calls, the number of calls which modified no variable (no-op calls),
+ * the number of variable modifications and the number of calls interrupted by a failure.
+ * To keep the overhead low, only one call out of <i>samplingRate</i> is timed with {@link System#nanoTime()},
+ * and, on such a call, the number of values removed from the integer variables of the propagator is computed.
+ * Time and filtered values are then extrapolated to all calls.
+ * <br/>
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class PropagationProfiler {
+
+    /**
+     * Denotes no running propagator
+     */
+    private static final int NONE = -1;
+    /**
+     * One call out of <code>samplingRate</code> is timed
+     */
+    private final int samplingRate;
+    /**
+     * Per propagator id: the propagator
+     */
+    private Propagator[] propagators = new Propagator[16];
+    /**
+     * Per propagator id: number of calls
+     */
+    private long[] calls = new long[16];
+    /**
+     * Per propagator id: number of calls which did not modify any variable
+     */
+    private long[] noops = new long[16];
+    /**
+     * Per propagator id: number of variable modifications
+     */
+    private long[] events = new long[16];
+    /**
+     * Per propagator id: number of calls which failed
+     */
+    private long[] fails = new long[16];
+    /**
+     * Per propagator id: number of timed calls
+     */
+    private long[] sampled = new long[16];
+    /**
+     * Per propagator id: time spent in timed calls, in nanoseconds
+     */
+    private long[] times = new long[16];
+    /**
+     * Per propagator id: number of values removed during timed calls
+     */
+    private long[] removed = new long[16];
+    /**
+     * Id of the running propagator, or {@link #NONE}
+     */
+    private int running = NONE;
+    /**
+     * The running propagator
+     */
+    private Propagator current;
+    /**
+     * Number of modifications of the running propagator when it started
+     */
+    private long eventsAtStart;
+    /**
+     * Number of calls before the next timed one
+     */
+    private int countdown;
+    /**
+     * Set to <tt>true</tt> when the running call is timed
+     */
+    private boolean sampling;
+    /**
+     * Starting time of the running call, if timed
+     */
+    private long start;
+    /**
+     * Sum of domain sizes of the running propagator when it started, if timed
+     */
+    private long sizes;
+
+    /**
+     * Create a profiler
+     * @param samplingRate one call out of <code>samplingRate</code> is timed, must be strictly positive
+     */
+    public PropagationProfiler(int samplingRate) {
+        if (samplingRate < 1) {
+            throw new IllegalArgumentException("The sampling rate should be strictly positive");
+        }
+        this.samplingRate = samplingRate;
+        this.countdown = 1;
+    }
+
+    /**
+     * To call right before a propagator is executed.
+     * @param propagator the propagator about to be executed
+     */
+    public void before(Propagator propagator) {
+        interrupt();
+        int id = propagator.getId();
+        if (id >= calls.length) {
+            ensureCapacity(id);
+        }
+        propagators[id] = propagator;
+        running = id;
+        current = propagator;
+        calls[id]++;
+        eventsAtStart = events[id];
+        if (--countdown == 0) {
+            countdown = samplingRate;
+            sampling = true;
+            sizes = domainSizes(propagator);
+            start = System.nanoTime();
+        }
+    }
+
+    /**
+     * To call right after a propagator was executed without failure.
+     */
+    public void after() {
+        if (running != NONE) {
+            if (sampling) {
+                times[running] += System.nanoTime() - start;
+                sampled[running]++;
+                removed[running] += sizes - domainSizes(current);
+                sampling = false;
+            }
+            if (events[running] == eventsAtStart) {
+                noops[running]++;
+            }
+            running = NONE;
+            current = null;
+        }
+    }
+
+    /**
+     * To call when a variable is modified.
+     * @param cause the cause of the modification
+     */
+    public void onModification(ICause cause) {
+        if (cause == current) {
+            events[running]++;
+        }
+    }
+
+    /**
+     * To call when the propagation is interrupted: the running propagator, if any, is considered as failed.
+     */
+    public void interrupt() {
+        if (running != NONE) {
+            fails[running]++;
+            sampling = false;
+            running = NONE;
+            current = null;
+        }
+    }
+
+    private static long domainSizes(Propagator<?> propagator) {
+        long s = 0;
+        Variable[] vars = propagator.getVars();
+        for (int i = 0; i < vars.length; i++) {
+            if ((vars[i].getTypeAndKind() & Variable.INT) != 0) {
+                s += ((IntVar) vars[i]).getDomainSize();
+            }
+        }
+        return s;
+    }
+
+    private void ensureCapacity(int id) {
+        int ncapacity = Math.max(id + 1, calls.length * 3 / 2 + 1);
+        Propagator[] _propagators = propagators;
+        propagators = new Propagator[ncapacity];
+        System.arraycopy(_propagators, 0, propagators, 0, _propagators.length);
+        calls = grow(calls, ncapacity);
+        noops = grow(noops, ncapacity);
+        events = grow(events, ncapacity);
+        fails = grow(fails, ncapacity);
+        sampled = grow(sampled, ncapacity);
+        times = grow(times, ncapacity);
+        removed = grow(removed, ncapacity);
+    }
+
+    private static long[] grow(long[] array, int ncapacity) {
+        long[] tmp = new long[ncapacity];
+        System.arraycopy(array, 0, tmp, 0, array.length);
+        return tmp;
+    }
+
+    private boolean known(Propagator propagator) {
+        int id = propagator.getId();
+        return id < calls.length && propagators[id] == propagator;
+    }
+
+    /**
+     * @return one call out of this value is timed
+     */
+    public int getSamplingRate() {
+        return samplingRate;
+    }
+
+    /**
+     * @param propagator a propagator
+     * @return the number of times <code>propagator</code> was executed
+     */
+    public long getCalls(Propagator propagator) {
+        return known(propagator) ? calls[propagator.getId()] : 0;
+    }
+
+    /**
+     * @param propagator a propagator
+     * @return the number of executions of <code>propagator</code> which modified no variable and did not fail
+     */
+    public long getNoOpCalls(Propagator propagator) {
+        return known(propagator) ? noops[propagator.getId()] : 0;
+    }
+
+    /**
+     * @param propagator a propagator
+     * @return the ratio of no-op executions of <code>propagator</code> over its executions, 0 if it was never executed
+     */
+    public double getNoOpRatio(Propagator propagator) {
+        long c = getCalls(propagator);
+        return c == 0 ? 0d : (double) getNoOpCalls(propagator) / c;
+    }
+
+    /**
+     * @param propagator a propagator
+     * @return the number of variable modifications done by <code>propagator</code>
+     */
+    public long getModifications(Propagator propagator) {
+        return known(propagator) ? events[propagator.getId()] : 0;
+    }
+
+    /**
+     * @param propagator a propagator
+     * @return the number of executions of <code>propagator</code> which failed
+     */
+    public long getFails(Propagator propagator) {
+        return known(propagator) ? fails[propagator.getId()] : 0;
+    }
+
+    /**
+     * @param propagator a propagator
+     * @return the estimated time spent in <code>propagator</code>, in nanoseconds
+     */
+    public long getEstimatedTime(Propagator propagator) {
+        if (!known(propagator)) {
+            return 0;
+        }
+        int id = propagator.getId();
+        return sampled[id] == 0 ? 0 : times[id] * (calls[id] - fails[id]) / sampled[id];
+    }
+
+    /**
+     * @param propagator a propagator
+     * @return the estimated number of values removed by <code>propagator</code> from its integer variables
+     */
+    public long getEstimatedFilteredValues(Propagator propagator) {
+        if (!known(propagator)) {
+            return 0;
+        }
+        int id = propagator.getId();
+        return sampled[id] == 0 ? 0 : removed[id] * (calls[id] - fails[id]) / sampled[id];
+    }
+
+    /**
+     * @return the propagators executed at least once, by decreasing estimated time, then by decreasing number of calls
+     */
+    public List<Propagator> getPropagators() {
+        List<Propagator> list = new ArrayList<>();
+        for (int id = 0; id < calls.length; id++) {
+            if (calls[id] > 0) {
+                list.add(propagators[id]);
+            }
+        }
+        list.sort((p1, p2) -> {
+            int c = Long.compare(getEstimatedTime(p2), getEstimatedTime(p1));
+            return c != 0 ? c : Long.compare(getCalls(p2), getCalls(p1));
+        });
+        return list;
+    }
+
+    /**
+     * Resets all counters.
+     */
+    public void reset() {
+        int n = calls.length;
+        propagators = new Propagator[n];
+        calls = new long[n];
+        noops = new long[n];
+        events = new long[n];
+        fails = new long[n];
+        sampled = new long[n];
+        times = new long[n];
+        removed = new long[n];
+        running = NONE;
+        current = null;
+        sampling = false;
+        countdown = 1;
+    }
+
+    /**
+     * @param top maximum number of propagators to output
+     * @return a report of the <code>top</code> most time-consuming propagators
+     */
+    public String report(int top) {
+        List<Propagator> list = getPropagators();
+        long total = 0;
+        for (Propagator p : list) {
+            total += getEstimatedTime(p);
+        }
+        StringBuilder st = new StringBuilder(256);
+        st.append(String.format("- Propagation profile (1 call out of %d timed) -\n", samplingRate));
+        st.append(String.format("%12s %8s %12s %12s %10s %6s %10s  %s\n",
+                "calls", "no-op", "modifs", "~filtered", "~time(ms)", "~time", "fails", "propagator"));
+        for (int i = 0; i < Math.min(top, list.size()); i++) {
+            Propagator p = list.get(i);
+            long t = getEstimatedTime(p);
+            st.append(String.format("%,12d %7.1f%% %,12d %,12d %,10.1f %5.1f%% %,10d  %s\n",
+                    getCalls(p),
+                    getNoOpRatio(p) * 100,
+                    getModifications(p),
+                    getEstimatedFilteredValues(p),
+                    t / 1e6,
+                    total == 0 ? 0d : t * 100d / total,
+                    getFails(p),
+                    p));
+        }
+        return st.toString();
+    }
+
+    @Override
+    public String toString() {
+        return report(Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,669 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.propagation.hardcoded;
+
+import org.chocosolver.solver.ICause;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.Settings;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.exception.SolverException;
+import org.chocosolver.solver.propagation.IPropagationEngine;
+import org.chocosolver.solver.propagation.PropagationProfiler;
+import org.chocosolver.solver.propagation.PropagationTrigger;
+import org.chocosolver.solver.variables.Variable;
+import org.chocosolver.solver.variables.events.IEventType;
+import org.chocosolver.solver.variables.events.PropagatorEventType;
+import org.chocosolver.util.iterators.EvtScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This engine is priority-driven constraint-oriented seven queues engine, like {@link SevenQueuesPropagatorEngine},
+ * but all its data structures are flat int arrays indexed by propagator id.
+ * <br/>
+ * The seven queues are intrusive linked lists: a propagator points to the next one in its queue.
+ * Per propagator, pending variable events are stored in a ring buffer, which is a slice of a shared pool,
+ * next to the event masks.
+ * Arrays are allocated on {@link #initialize()} and only grown on dynamic addition,
+ * so no object is allocated during {@link #propagate()}.
+ * A slice grows geometrically when its propagator gains variables, and the cells of released slices
+ * are reclaimed by compacting the pools once they represent half of them.
+ * <br/>
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class FlatPropagatorEngine implements IPropagationEngine {
+
+    /**
+     * Mask to deal with emptiness (see {@link #notEmpty})
+     */
+    private static final int WORD_MASK = 0xffffffff;
+    /**
+     * Denotes the end of a queue
+     */
+    private static final int NONE = -1;
+    /**
+     * For debugging purpose: set to <tt>true</tt> to output debugging information
+     */
+    private final boolean DEBUG;
+    /**
+     * For debugging purpose: set to <tt>true</tt> to use color on console when debugging
+     */
+    private final boolean COLOR;
+    /**
+     * The strategy to use for idempotency (for debugging purpose)
+     */
+    private final Settings.Idem idemStrat;
+    /**
+     * Internal unique contradiction exception, used on propagation failures
+     */
+    private final ContradictionException exception;
+    /**
+     * The model declaring this engine
+     */
+    private final Model model;
+    /**
+     * A specific object to deal with first propagation
+     */
+    private final PropagationTrigger trigger;
+    /**
+     * Per priority: id of the first propagator of the queue, or {@link #NONE}
+     */
+    private final int[] heads = new int[8];
+    /**
+     * Per priority: id of the last propagator of the queue, or {@link #NONE}
+     */
+    private final int[] tails = new int[8];
+    /**
+     * One bit per queue: true if the queue is not empty.
+     */
+    private int notEmpty;
+    /**
+     * Per propagator id: the propagator, or <tt>null</tt>
+     */
+    private Propagator[] propagators;
+    /**
+     * Per propagator id: id of the next propagator in its queue, or {@link #NONE}
+     */
+    private int[] next;
+    /**
+     * Per propagator id: indicates whether it is scheduled (and in which queue) or not.
+     */
+    private byte[] scheduled;
+    /**
+     * Per propagator id: offset of its slice in {@link #evtPool} and {@link #maskPool}
+     */
+    private int[] offsets;
+    /**
+     * Per propagator id: size of its slice, at least its number of variables
+     */
+    private int[] capacities;
+    /**
+     * Per propagator id: position, in its slice, of the first pending event
+     */
+    private int[] firsts;
+    /**
+     * Per propagator id: counter of events to be propagated
+     */
+    private int[] pendingEvt;
+    /**
+     * Ring buffers of indices of modified variables, one slice per propagator
+     */
+    private int[] evtPool;
+    /**
+     * Modification event masks of variables since the last propagation, one slice per propagator
+     */
+    private int[] maskPool;
+    /**
+     * Number of cells used in the pools
+     */
+    private int poolSize;
+    /**
+     * Number of cells of the pools which belong to released slices
+     */
+    private int freeCells;
+    /**
+     * The last propagator executed
+     */
+    private Propagator lastProp;
+    /**
+     * PropagatorEventType's mask for delayed propagation
+     */
+    private int delayedPropagationType;
+    /**
+     * Number of propagations done so far
+     */
+    private long propagationCount;
+    /**
+     * Profiler informed of propagator executions, may be null
+     */
+    private PropagationProfiler profiler;
+    /**
+     * Set to <tt>true</tt> once {@link #initialize()} has been called.
+     */
+    private boolean init;
+
+    /**
+     * A seven-queue propagation engine based on flat arrays.
+     * Each of the seven queues deals with on priority.
+     * When a propagator needs to be executed, it is scheduled in the queue corresponding to its priority.
+     * The lowest priority queue is emptied before one element of the second lowest queue is popped, etc.
+     * @param model the declaring model
+     */
+    public FlatPropagatorEngine(Model model) {
+        this.exception = new ContradictionException();
+        this.trigger = new PropagationTrigger(this, model);
+        this.idemStrat = model.getSettings().getIdempotencyStrategy();
+        this.model = model;
+        this.DEBUG = model.getSettings().debugPropagation();
+        this.COLOR = model.getSettings().outputWithANSIColors();
+    }
+
+    @Override
+    public void fails(ICause cause, Variable variable, String message) throws ContradictionException {
+        throw exception.set(cause, variable, message);
+    }
+
+    @Override
+    public ContradictionException getContradictionException() {
+        return exception;
+    }
+
+    @Override
+    public void initialize() throws SolverException {
+        if (!init) {
+            List<Propagator> _propagators = new ArrayList<>();
+            Constraint[] constraints = model.getCstrs();
+            int maxId = 0, nbVars = 0;
+            for (int c = 0; c < constraints.length; c++) {
+                Propagator[] cprops = constraints[c].getPropagators();
+                for (int j = 0; j < cprops.length; j++) {
+                    _propagators.add(cprops[j]);
+                    maxId = Math.max(maxId, cprops[j].getId());
+                    nbVars += cprops[j].getNbVars();
+                }
+            }
+            propagators = new Propagator[maxId + 1];
+            next = new int[maxId + 1];
+            scheduled = new byte[maxId + 1];
+            offsets = new int[maxId + 1];
+            capacities = new int[maxId + 1];
+            firsts = new int[maxId + 1];
+            pendingEvt = new int[maxId + 1];
+            evtPool = new int[Math.max(16, nbVars)];
+            maskPool = new int[evtPool.length];
+            poolSize = 0;
+            freeCells = 0;
+            for (int i = 0; i < 8; i++) {
+                heads[i] = tails[i] = NONE;
+            }
+            notEmpty = 0;
+            for (int j = 0; j < _propagators.size(); j++) {
+                declare(_propagators.get(j));
+            }
+            init = true;
+            trigger.addAll(_propagators.toArray(new Propagator[_propagators.size()]));
+        } else {
+            List<Propagator> _propagators = new ArrayList<>();
+            for (int id = 0; id < propagators.length; id++) {
+                if (propagators[id] != null) {
+                    _propagators.add(propagators[id]);
+                }
+            }
+            trigger.addAll(_propagators.toArray(new Propagator[_propagators.size()]));
+        }
+    }
+
+    /**
+     * Declares a propagator in this engine, the arrays are supposed to be large enough.
+     */
+    private void declare(Propagator propagator) {
+        int id = propagator.getId();
+        if (propagators[id] != null) {
+            throw new SolverException("The following propagator " +
+                    "is declared more than once into the propagation engine " +
+                    "(this happens when a constraint is posted twice " +
+                    "or when a posted constraint is also reified.)\n" +
+                    propagator + " of " + propagator.getConstraint());
+        }
+        propagators[id] = propagator;
+        next[id] = NONE;
+        scheduled[id] = 0;
+        if (propagator.reactToFineEvent()) {
+            allocateSlice(id, propagator.getNbVars());
+        }
+    }
+
+    /**
+     * Allocates a new slice of the pools for the propagator <i>id</i>
+     */
+    private void allocateSlice(int id, int nbv) {
+        ensurePoolCapacity(nbv);
+        offsets[id] = poolSize;
+        capacities[id] = nbv;
+        firsts[id] = 0;
+        pendingEvt[id] = 0;
+        poolSize += nbv;
+    }
+
+    /**
+     * Grows the slice of the propagator <i>id</i> so that it can store <i>nbv</i> variables.
+     * The capacity is at least doubled, so a propagator gaining variables one by one is reallocated
+     * a logarithmic number of times.
+     * The slice is extended in place when it is the last one of the pools, otherwise it is released
+     * and a new one is allocated.
+     * The pending events of the propagator are expected to be cleared.
+     */
+    private void growSlice(int id, int nbv) {
+        assert pendingEvt[id] == 0;
+        int ncapacity = Math.max(nbv, capacities[id] * 2);
+        if (offsets[id] + capacities[id] == poolSize) {
+            poolSize = offsets[id];
+            ensurePoolCapacity(ncapacity);
+            capacities[id] = ncapacity;
+            poolSize += ncapacity;
+        } else {
+            releaseSlice(id);
+            allocateSlice(id, ncapacity);
+        }
+    }
+
+    /**
+     * Releases the slice of the propagator <i>id</i>, its cells are reclaimed on next compaction
+     */
+    private void releaseSlice(int id) {
+        freeCells += capacities[id];
+        capacities[id] = 0;
+        if (freeCells > 16 && 2 * freeCells > poolSize) {
+            compact();
+        }
+    }
+
+    /**
+     * Copies the slices in use into new pools, contiguously, to reclaim cells of released slices.
+     * The content of each slice is kept as is, so pending events are not lost.
+     */
+    private void compact() {
+        int size = poolSize - freeCells;
+        int[] _evtPool = new int[Math.max(16, size * 3 / 2)];
+        int[] _maskPool = new int[_evtPool.length];
+        int k = 0;
+        for (int id = 0; id < propagators.length; id++) {
+            if (propagators[id] != null && propagators[id].reactToFineEvent() && capacities[id] > 0) {
+                System.arraycopy(evtPool, offsets[id], _evtPool, k, capacities[id]);
+                System.arraycopy(maskPool, offsets[id], _maskPool, k, capacities[id]);
+                offsets[id] = k;
+                k += capacities[id];
+            }
+        }
+        assert k == size;
+        evtPool = _evtPool;
+        maskPool = _maskPool;
+        poolSize = k;
+        freeCells = 0;
+    }
+
+    /**
+     * Ensures the pools can store <i>nbv</i> more cells
+     */
+    private void ensurePoolCapacity(int nbv) {
+        if (poolSize + nbv > evtPool.length) {
+            int ncapacity = Math.max(poolSize + nbv, evtPool.length * 3 / 2 + 1);
+            int[] tmp = evtPool;
+            evtPool = new int[ncapacity];
+            System.arraycopy(tmp, 0, evtPool, 0, poolSize);
+            tmp = maskPool;
+            maskPool = new int[ncapacity];
+            System.arraycopy(tmp, 0, maskPool, 0, poolSize);
+        }
+    }
+
+    /**
+     * Ensures arrays indexed by propagator id can store <i>id</i>
+     */
+    private void ensureCapacity(int id) {
+        if (id >= propagators.length) {
+            int ncapacity = Math.max(id + 1, propagators.length * 3 / 2 + 1);
+            Propagator[] _propagators = propagators;
+            propagators = new Propagator[ncapacity];
+            System.arraycopy(_propagators, 0, propagators, 0, _propagators.length);
+            next = grow(next, ncapacity);
+            offsets = grow(offsets, ncapacity);
+            capacities = grow(capacities, ncapacity);
+            firsts = grow(firsts, ncapacity);
+            pendingEvt = grow(pendingEvt, ncapacity);
+            byte[] _scheduled = scheduled;
+            scheduled = new byte[ncapacity];
+            System.arraycopy(_scheduled, 0, scheduled, 0, _scheduled.length);
+        }
+    }
+
+    private static int[] grow(int[] array, int ncapacity) {
+        int[] tmp = new int[ncapacity];
+        System.arraycopy(array, 0, tmp, 0, array.length);
+        return tmp;
+    }
+
+    @Override
+    public long getPropagationCount() {
+        return propagationCount;
+    }
+
+    /**
+     * @return the number of cells of the pools in use, including the ones of released slices not reclaimed yet
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    @Override
+    public void setProfiler(PropagationProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    @Override
+    public boolean isInitialized() {
+        return init;
+    }
+
+    @Override
+    public void propagate() throws ContradictionException {
+        int mask, id, off, v;
+        if (trigger.needToRun()) {
+            trigger.propagate();
+        }
+        for (int i = nextNotEmpty(); i > -1; i = nextNotEmpty()) {
+            while (heads[i] != NONE) {
+                id = heads[i];
+                heads[i] = next[id];
+                if (heads[i] == NONE) {
+                    tails[i] = NONE;
+                }
+                lastProp = propagators[id];
+                scheduled[id] = 0;
+                delayedPropagationType = 0;
+                if (lastProp.reactToFineEvent()) {
+                    while (pendingEvt[id] > 0) {
+                        // the pools may have been compacted by the previous propagation
+                        off = offsets[id];
+                        // poll the first event
+                        v = evtPool[off + firsts[id]];
+                        if (++firsts[id] == capacities[id]) {
+                            firsts[id] = 0;
+                        }
+                        pendingEvt[id]--;
+                        assert lastProp.isActive() : "propagator is not active:" + lastProp;
+                        if (DEBUG) {
+                            IPropagationEngine.Trace.printPropagation(lastProp.getVar(v), lastProp, COLOR);
+                        }
+                        // clear event
+                        mask = maskPool[off + v];
+                        maskPool[off + v] = 0;
+                        // run propagation on the specific event
+                        propagationCount++;
+                        if (profiler != null) {
+                            profiler.before(lastProp);
+                        }
+                        lastProp.propagate(v, mask);
+                        if (profiler != null) {
+                            profiler.after();
+                        }
+                    }
+                    // now we can check whether a delayed propagation has been scheduled
+                    if (delayedPropagationType > 0) {
+                        if (DEBUG) {
+                            IPropagationEngine.Trace.printPropagation(null, lastProp, COLOR);
+                        }
+                        propagationCount++;
+                        if (profiler != null) {
+                            profiler.before(lastProp);
+                        }
+                        lastProp.propagate(delayedPropagationType);
+                        if (profiler != null) {
+                            profiler.after();
+                        }
+                    }
+                } else if (lastProp.isActive()) { // need to be checked due to views
+                    if (DEBUG) {
+                        IPropagationEngine.Trace.printPropagation(null, lastProp, COLOR);
+                    }
+                    propagationCount++;
+                    if (profiler != null) {
+                        profiler.before(lastProp);
+                    }
+                    lastProp.propagate(PropagatorEventType.FULL_PROPAGATION.getMask());
+                    if (profiler != null) {
+                        profiler.after();
+                    }
+                }
+                // This part is for debugging only!!
+                if (Settings.Idem.disabled != idemStrat) {
+                    FakeEngine.checkIdempotency(lastProp);
+                }
+            }
+            notEmpty = notEmpty & ~(1 << i);
+        }
+    }
+
+    private int nextNotEmpty() {
+        if (notEmpty != 0) {
+            return Integer.numberOfTrailingZeros(notEmpty & WORD_MASK);
+        } else {
+            return -1;
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (profiler != null) {
+            profiler.interrupt();
+        }
+        if (lastProp != null) {
+            flush(lastProp.getId());
+        }
+        for (int i = nextNotEmpty(); i > -1; i = nextNotEmpty()) {
+            for (int id = heads[i]; id != NONE; id = next[id]) {
+                flush(id);
+            }
+            heads[i] = tails[i] = NONE;
+            notEmpty = notEmpty & ~(1 << i);
+        }
+        lastProp = null;
+    }
+
+    private void flush(int id) {
+        clearEvents(id);
+        scheduled[id] = 0;
+    }
+
+    /**
+     * Clears the pending events of the propagator <i>id</i>
+     */
+    private void clearEvents(int id) {
+        if (propagators[id] != null && propagators[id].reactToFineEvent()) {
+            int off = offsets[id];
+            int cap = capacities[id];
+            int f = firsts[id];
+            for (int k = pendingEvt[id]; k > 0; k--) {
+                maskPool[off + evtPool[off + f]] = 0;
+                if (++f == cap) {
+                    f = 0;
+                }
+            }
+            firsts[id] = 0;
+            pendingEvt[id] = 0;
+        }
+    }
+
+    @Override
+    public void onVariableUpdate(Variable variable, IEventType type, ICause cause) {
+        if (profiler != null) {
+            profiler.onModification(cause);
+        }
+        if (DEBUG) {
+            IPropagationEngine.Trace.printModification(variable, type, cause, COLOR);
+        }
+        Propagator[] vpropagators = variable.getPropagators();
+        int[] vindices = variable.getPIndices();
+        Propagator prop;
+        int pindice, id, off, pos;
+        EvtScheduler si = variable._schedIter();
+        //noinspection unchecked
+        si.init(type);
+        while (si.hasNext()) {
+            int p = variable.getDindex(si.next());
+            int t = variable.getDindex(si.next());
+            for (; p < t; p++) {
+                prop = vpropagators[p];
+                pindice = vindices[p];
+                if (prop.isActive() && cause != prop) {
+                    id = prop.getId();
+                    if (prop.reactToFineEvent()) {
+                        off = offsets[id];
+                        if (maskPool[off + pindice] == 0) {
+                            if (DEBUG) {
+                                IPropagationEngine.Trace.printFineSchedule(prop, COLOR);
+                            }
+                            pos = firsts[id] + pendingEvt[id];
+                            if (pos >= capacities[id]) {
+                                pos -= capacities[id];
+                            }
+                            evtPool[off + pos] = pindice;
+                            pendingEvt[id]++;
+                        }
+                        maskPool[off + pindice] |= type.getMask();
+                    }
+                    if (scheduled[id] == 0) {
+                        int prio = prop.getPriority().priority;
+                        next[id] = NONE;
+                        if (tails[prio] == NONE) {
+                            heads[prio] = id;
+                        } else {
+                            next[tails[prio]] = id;
+                        }
+                        tails[prio] = id;
+                        scheduled[id] = (byte) (prio + 1);
+                        notEmpty = notEmpty | (1 << prio);
+                        if (DEBUG) {
+                            IPropagationEngine.Trace.printCoarseSchedule(prop, COLOR);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void delayedPropagation(Propagator propagator, PropagatorEventType type) throws ContradictionException {
+        assert propagator == lastProp;
+        assert delayedPropagationType == 0 || delayedPropagationType == type.getMask();
+        delayedPropagationType = type.getMask();
+    }
+
+    @Override
+    public void onPropagatorExecution(Propagator propagator) {
+        desactivatePropagator(propagator);
+    }
+
+    @Override
+    public void desactivatePropagator(Propagator propagator) {
+        if (propagator.reactToFineEvent()) {
+            int id = propagator.getId();
+            if (id < propagators.length && propagators[id] != null) {
+                // we don't remove the element from its queue to avoid costly operations
+                clearEvents(id);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        propagators = null;
+        trigger.clear();
+        next = null;
+        scheduled = null;
+        offsets = null;
+        capacities = null;
+        firsts = null;
+        pendingEvt = null;
+        evtPool = null;
+        maskPool = null;
+        poolSize = 0;
+        freeCells = 0;
+        notEmpty = 0;
+        init = false;
+    }
+
+    @Override
+    public void dynamicAddition(boolean permanent, Propagator... ps) throws SolverException {
+        for (int j = 0; j < ps.length; j++) {
+            ensureCapacity(ps[j].getId());
+            declare(ps[j]);
+            trigger.dynAdd(ps[j], permanent);
+        }
+    }
+
+    @Override
+    public void updateInvolvedVariables(Propagator p) {
+        if (p.reactToFineEvent()) {
+            int id = p.getId();
+            assert scheduled[id] == 0 : "Try to update variable scope during propagation";
+            int nbv = p.getNbVars();
+            clearEvents(id);
+            if (nbv > capacities[id]) {
+                growSlice(id, nbv);
+            }
+        }
+        propagateOnBacktrack(p);
+    }
+
+    @Override
+    public void propagateOnBacktrack(Propagator p) {
+        trigger.dynAdd(p, true);
+    }
+
+    @Override
+    public void dynamicDeletion(Propagator... ps) {
+        for (Propagator toDelete : ps) {
+            int id = toDelete.getId();
+            assert scheduled[id] == 0 : "try to delete a propagator which is scheduled (fine)";
+            assert !toDelete.reactToFineEvent() || pendingEvt[id] == 0 : "try to delete a propagator which has events to propagate (fine)";
+            if (toDelete.reactToFineEvent()) {
+                releaseSlice(id);
+            }
+            propagators[id] = null;
+            trigger.remove(toDelete);
+        }
+    }
+}
@@ -37,6 +37,7 @@ import org.chocosolver.solver.constraints.Propagator;
 import org.chocosolver.solver.exception.ContradictionException;
 import org.chocosolver.solver.exception.SolverException;
 import org.chocosolver.solver.propagation.IPropagationEngine;
+import org.chocosolver.solver.propagation.PropagationProfiler;
 import org.chocosolver.solver.propagation.PropagationTrigger;
 import org.chocosolver.solver.variables.Variable;
 import org.chocosolver.solver.variables.events.IEventType;
@@ -119,6 +120,14 @@ public class SevenQueuesPropagatorEngine implements IPropagationEngine {
      * PropagatorEventType's mask for delayed propagation
      */
     private int delayedPropagationType;
+    /**
+     * Number of propagations done so far
+     */
+    private long propagationCount;
+    /**
+     * Profiler informed of propagator executions, may be null
+     */
+    private PropagationProfiler profiler;
     /**
      * Set to <tt>true</tt> once {@link #initialize()} has been called.
      */
@@ -214,6 +223,16 @@ public class SevenQueuesPropagatorEngine implements IPropagationEngine {
         trigger.addAll(propagators);
     }
 
+    @Override
+    public long getPropagationCount() {
+        return propagationCount;
+    }
+
+    @Override
+    public void setProfiler(PropagationProfiler profiler) {
+        this.profiler = profiler;
+    }
+
     @Override
     public boolean isInitialized() {
         return init;
@@ -248,21 +267,42 @@ public class SevenQueuesPropagatorEngine implements IPropagationEngine {
                         assert (pendingEvt[aid] > 0) : "number of enqueued records is <= 0 " + this;
                         pendingEvt[aid]--;
                         // run propagation on the specific event
+                        propagationCount++;
+                        if (profiler != null) {
+                            profiler.before(lastProp);
+                        }
                         lastProp.propagate(v, mask);
+                        if (profiler != null) {
+                            profiler.after();
+                        }
                     }
                     // now we can check whether a delayed propagation has been scheduled
                     if(delayedPropagationType > 0){
                         if (DEBUG) {
                             IPropagationEngine.Trace.printPropagation(null, lastProp, COLOR);
                         }
+                        propagationCount++;
+                        if (profiler != null) {
+                            profiler.before(lastProp);
+                        }
                         lastProp.propagate(delayedPropagationType);
+                        if (profiler != null) {
+                            profiler.after();
+                        }
                     }
                 } else if (lastProp.isActive()) { // need to be checked due to views
                     //assert lastProp.isActive() : "propagator is not active:" + lastProp;
                     if (DEBUG) {
                         IPropagationEngine.Trace.printPropagation(null, lastProp, COLOR);
                     }
+                    propagationCount++;
+                    if (profiler != null) {
+                        profiler.before(lastProp);
+                    }
                     lastProp.propagate(PropagatorEventType.FULL_PROPAGATION.getMask());
+                    if (profiler != null) {
+                        profiler.after();
+                    }
                 }
                 // This part is for debugging only!!
                 if (Settings.Idem.disabled != idemStrat) {
@@ -284,6 +324,9 @@ public class SevenQueuesPropagatorEngine implements IPropagationEngine {
 
     @Override
     public void flush() {
+        if (profiler != null) {
+            profiler.interrupt();
+        }
         if (lastProp != null) {
             flush(p2i.get(lastProp.getId()));
         }
@@ -314,6 +357,9 @@ public class SevenQueuesPropagatorEngine implements IPropagationEngine {
 
     @Override
     public void onVariableUpdate(Variable variable, IEventType type, ICause cause) {
+        if (profiler != null) {
+            profiler.onModification(cause);
+        }
         if (DEBUG) {
             IPropagationEngine.Trace.printModification(variable, type, cause, COLOR);
         }
@@ -38,6 +38,7 @@ import org.chocosolver.solver.constraints.PropagatorPriority;
 import org.chocosolver.solver.exception.ContradictionException;
 import org.chocosolver.solver.exception.SolverException;
 import org.chocosolver.solver.propagation.IPropagationEngine;
+import org.chocosolver.solver.propagation.PropagationProfiler;
 import org.chocosolver.solver.propagation.PropagationTrigger;
 import org.chocosolver.solver.variables.Variable;
 import org.chocosolver.solver.variables.events.IEventType;
@@ -176,6 +177,15 @@ public class TwoBucketPropagationEngine implements IPropagationEngine {
      */
     private PropagatorEventType[] event_c;
 
+    /**
+     * Number of propagations done so far
+     */
+    private long propagationCount;
+    /**
+     * Profiler informed of propagator executions, may be null
+     */
+    private PropagationProfiler profiler;
+
     /**
      * Set to <tt>true</tt> when this propagation engine is initialized, thus after {@link #initialize()}.
      */
@@ -292,6 +302,16 @@ public class TwoBucketPropagationEngine implements IPropagationEngine {
         return exception;
     }
 
+    @Override
+    public long getPropagationCount() {
+        return propagationCount;
+    }
+
+    @Override
+    public void setProfiler(PropagationProfiler profiler) {
+        this.profiler = profiler;
+    }
+
     @Override
     public boolean isInitialized() {
         return init;
@@ -351,14 +371,28 @@ public class TwoBucketPropagationEngine implements IPropagationEngine {
                 int mask = eventmasks[aid][v];
                 eventmasks[aid][v] = 0;
                 // run propagation on the specific event
+                propagationCount++;
+                if (profiler != null) {
+                    profiler.before(lastProp);
+                }
                 lastProp.propagate(v, mask);
+                if (profiler != null) {
+                    profiler.after();
+                }
             }
         } else if (lastProp.isActive()) { // need to be checked due to views
             //assert lastProp.isActive() : "propagator is not active:" + lastProp;
             if (DEBUG) {
                 IPropagationEngine.Trace.printPropagation(null, lastProp, COLOR);
             }
+            propagationCount++;
+            if (profiler != null) {
+                profiler.before(lastProp);
+            }
             lastProp.propagate(PropagatorEventType.FULL_PROPAGATION.getMask());
+            if (profiler != null) {
+                profiler.after();
+            }
         }
         // This part is for debugging only!!
         if (Settings.Idem.disabled != idemStrat) {
@@ -378,12 +412,22 @@ public class TwoBucketPropagationEngine implements IPropagationEngine {
         if (DEBUG) {
             IPropagationEngine.Trace.printPropagation(null, lastProp, COLOR);
         }
+        propagationCount++;
+        if (profiler != null) {
+            profiler.before(lastProp);
+        }
         lastProp.propagate(evt.getMask());
+        if (profiler != null) {
+            profiler.after();
+        }
     }
 
 
     @Override
     public void flush() {
+        if (profiler != null) {
+            profiler.interrupt();
+        }
         if (lastProp != null) {
             flushFine();
             flushCoarse();
@@ -425,6 +469,9 @@ public class TwoBucketPropagationEngine implements IPropagationEngine {
 
     @Override
     public void onVariableUpdate(Variable variable, IEventType type, ICause cause) {
+        if (profiler != null) {
+            profiler.onModification(cause);
+        }
         if (DEBUG) {
             IPropagationEngine.Trace.printModification(variable, type, cause, COLOR);
         }
@@ -37,6 +37,9 @@ import org.chocosolver.solver.constraints.nary.lex.PropLexInt;
 import org.chocosolver.solver.objective.ParetoOptimizer;
 import org.chocosolver.solver.search.limits.ACounter;
 import org.chocosolver.solver.search.measure.IMeasures;
+import org.chocosolver.solver.search.solution.ColumnarSolutionSink;
+import org.chocosolver.solver.search.solution.SolutionChunk;
+import org.chocosolver.solver.search.solution.SolutionColumns;
 import org.chocosolver.solver.search.strategy.Search;
 import org.chocosolver.solver.search.strategy.strategy.IntStrategy;
 import org.chocosolver.solver.variables.IntVar;
@@ -226,6 +229,43 @@ public interface IResolutionHelper extends ISelf<Solver> {
         return StreamSupport.stream(it, false);
     }
 
+    /**
+     * Attempts to find all solutions of the declared problem, and stores the values of <i>vars</i> column-wise.
+     * Contrary to {@link #findAllSolutions(Criterion...)}, no object is created per solution,
+     * which makes it better suited to the enumeration of many solutions.
+     * <p>
+     * The solutions can be read with {@link SolutionColumns#cursor()}.
+     *
+     * @param vars variables to store, expected to be instantiated on solutions
+     * @param stop optional criterion to stop the search before finding all solutions
+     * @return the found solutions
+     */
+    default SolutionColumns findAllSolutionColumns(IntVar[] vars, Criterion... stop) {
+        SolutionColumns columns = new SolutionColumns(vars.length);
+        streamSolutionChunks(vars, 4096, columns, stop);
+        return columns;
+    }
+
+    /**
+     * Attempts to find all solutions of the declared problem,
+     * and passes the values of <i>vars</i> to <i>consumer</i> by chunks of solutions stored column-wise.
+     * A chunk is reused once the consumer returns, see {@link ColumnarSolutionSink}.
+     *
+     * @param vars      variables to store, expected to be instantiated on solutions
+     * @param chunkSize maximum number of solutions per chunk
+     * @param consumer  consumer of the chunks
+     * @param stop      optional criterion to stop the search before finding all solutions
+     */
+    default void streamSolutionChunks(IntVar[] vars, int chunkSize, Consumer<SolutionChunk> consumer, Criterion... stop) {
+        _me().addStopCriterion(stop);
+        ColumnarSolutionSink sink = new ColumnarSolutionSink(vars, chunkSize, consumer);
+        _me().plugMonitor(sink);
+        while (_me().solve()) ;
+        sink.flush();
+        _me().unplugMonitor(sink);
+        _me().removeStopCriterion(stop);
+    }
+
     /**
      * Attempt to find the solution that optimizes the mono-objective problem defined by a unique objective variable and
      * an optimization criteria.
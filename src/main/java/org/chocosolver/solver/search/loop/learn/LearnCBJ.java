@@ -35,8 +35,10 @@ import org.chocosolver.sat.PropNogoods;
 import org.chocosolver.sat.SatSolver;
 import org.chocosolver.solver.Model;
 import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.search.strategy.assignments.DecisionOperator;
 import org.chocosolver.solver.search.strategy.decision.Decision;
 import org.chocosolver.solver.search.strategy.decision.DecisionPath;
+import org.chocosolver.solver.search.strategy.decision.IntDecision;
 import org.chocosolver.solver.variables.IntVar;
 
 /**
@@ -66,6 +68,12 @@ public class LearnCBJ extends LearnExplained {
      */
     private TIntList ps;
 
+    /**
+     * Number of learnt clauses above which the nogood store is reduced.
+     * It grows geometrically after each reduction.
+     */
+    private double maxLearnts = 2000;
+
 
     /**
      * Create a Conflict-based Backjumping strategy.
@@ -110,6 +118,10 @@ public class LearnCBJ extends LearnExplained {
        super.onFailure(solver);
         if (this.nogoodFromConflict) {
             postNogood();
+            if (ngstore.getNbLearnts() > maxLearnts) {
+                ngstore.reduceLearnts();
+                maxLearnts *= 1.1;
+            }
         }
         int upto = compute(mModel.getSolver().getDecisionPath());
         assert upto > 0 && upto <= solver.getDecisionPath().size();
@@ -117,30 +129,73 @@ public class LearnCBJ extends LearnExplained {
         identifyRefutedDecision(upto);
     }
 
+    /**
+     * Set the number of learnt clauses above which the nogood store is reduced.
+     * Only relevant when nogoods are extracted from explanations.
+     *
+     * @param maxLearnts initial limit of learnt clauses, which grows after each reduction
+     */
+    public void setMaxLearnts(int maxLearnts) {
+        this.maxLearnts = maxLearnts;
+    }
+
     /**
      * Extracts a nogod from this explanation (which needs to be complete) and add it to the no-good store.
-     * If this explanation is not complete, it does nothing.
+     * If this explanation is not complete, or if a decision cannot be expressed as a literal, it does nothing.
      */
-    @SuppressWarnings("unchecked")
     private void postNogood() {
         if (lastExplanation.isComplete()) {
             Model mModel = ngstore.getModel();
             DecisionPath dp = mModel.getSolver().getDecisionPath();
             int last = dp.size()-1;
-            Decision<IntVar> decision;
+            Decision decision;
             ps.clear();
             while (last > 0) {
                 decision = dp.getDecision(last--);
                 if (lastExplanation.getDecisions().get(decision.getPosition())) {
                     assert decision.hasNext();
-                    ps.add(SatSolver.negated(ngstore.Literal(decision.getDecisionVariable(),
-                            (Integer) decision.getDecisionValue(), true)));
+                    if (!(decision instanceof IntDecision)) {
+                        return;
+                    }
+                    int lit = refutation((IntDecision) decision);
+                    if (lit == Integer.MIN_VALUE) {
+                        return;
+                    }
+                    ps.add(lit);
                 }
             }
             ngstore.addLearnt(ps.toArray());
         }
     }
 
+    /**
+     * Return the literal which refutes the decision currently applied, that is,
+     * <ul>
+     *     <li>&not;[x = v] for x = v,</li>
+     *     <li>[x = v] for x &ne; v,</li>
+     *     <li>&not;[x &le; v] for x &le; v,</li>
+     *     <li>[x &le; v - 1] for x &ge; v.</li>
+     * </ul>
+     *
+     * @param decision a decision, whose left branch is applied
+     * @return the literal refuting <i>decision</i>, or {@link Integer#MIN_VALUE} if the decision operator is unknown
+     */
+    private int refutation(IntDecision decision) {
+        IntVar var = decision.getDecisionVariable();
+        int value = decision.getDecisionValue();
+        DecisionOperator<IntVar> dop = decision.getDecOp();
+        if (dop == DecisionOperator.int_eq) {
+            return SatSolver.negated(ngstore.Literal(var, value, true));
+        } else if (dop == DecisionOperator.int_neq) {
+            return ngstore.Literal(var, value, true);
+        } else if (dop == DecisionOperator.int_split) {
+            return SatSolver.negated(ngstore.Literal(var, value, false));
+        } else if (dop == DecisionOperator.int_reverse_split) {
+            return ngstore.Literal(var, value - 1, false);
+        }
+        return Integer.MIN_VALUE;
+    }
+
 
     /**
      * Compute the world to backtrack to
@@ -30,10 +30,10 @@
 package org.chocosolver.solver.search.loop.learn;
 
 import org.chocosolver.solver.Model;
-import org.chocosolver.solver.explanations.ArrayEventStore;
 import org.chocosolver.solver.explanations.Explanation;
 import org.chocosolver.solver.explanations.IExplanationEngine;
 import org.chocosolver.solver.explanations.RuleStore;
+import org.chocosolver.solver.explanations.store.IEventStore;
 import org.chocosolver.solver.search.loop.monitors.IMonitorInitialize;
 import org.chocosolver.solver.search.strategy.decision.Decision;
 import org.chocosolver.solver.search.strategy.decision.DecisionPath;
@@ -67,10 +67,10 @@ public class LearnDBT extends LearnCBJ {
     private final RuleStore mRuleStore;
 
     /**
-     * Because computing explanation can be lazy, a {@link ArrayEventStore} is needed to continue computing partial explanations.
+     * Because computing explanation can be lazy, a {@link IEventStore} is needed to continue computing partial explanations.
      * A reference to the one used by the explanation engine is thus needed.
      */
-    private final ArrayEventStore mEventStore;
+    private final IEventStore mEventStore;
 
     /**
      * Create a Dynamic Backtracking strategy.
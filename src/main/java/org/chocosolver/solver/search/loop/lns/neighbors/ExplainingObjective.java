@@ -36,6 +36,7 @@ import org.chocosolver.solver.Model;
 import org.chocosolver.solver.ResolutionPolicy;
 import org.chocosolver.solver.Solver;
 import org.chocosolver.solver.explanations.*;
+import org.chocosolver.solver.explanations.store.IEventStore;
 import org.chocosolver.solver.objective.ObjectiveManager;
 import org.chocosolver.solver.search.restart.GeometricalRestartStrategy;
 import org.chocosolver.solver.search.restart.IRestartStrategy;
@@ -245,7 +246,7 @@ class ExplainingObjective extends ExplainingCut{
         RuleStore rs = mExplanationEngine.getRuleStore();
         rs.init(explanation);
         rs.addRemovalRule(objective, value);
-        ArrayEventStore es = mExplanationEngine.getEventStore();
+        IEventStore es = mExplanationEngine.getEventStore();
         int i = es.getSize() - 1;
 
         while (i > -1) {
@@ -277,7 +278,7 @@ class ExplainingObjective extends ExplainingCut{
         boolean ismax = om.getPolicy() == ResolutionPolicy.MAXIMIZE;
         Explanation explanation = mExplanationEngine.makeExplanation(false);
         RuleStore rs = mExplanationEngine.getRuleStore();
-        ArrayEventStore es = mExplanationEngine.getEventStore();
+        IEventStore es = mExplanationEngine.getEventStore();
         rs.init(explanation);
         int i = 0;
         int far, near;
@@ -332,7 +333,7 @@ class ExplainingObjective extends ExplainingCut{
     }
 
 
-    private void explainValueB(int value, ArrayEventStore es, int i) {
+    private void explainValueB(int value, IEventStore es, int i) {
 
         // mimic explanation computation
         Explanation explanation = mExplanationEngine.makeExplanation(false);
@@ -65,6 +65,12 @@ public class NogoodFromRestarts implements IMonitorRestart {
      */
     private final PropNogoods png;
 
+    /**
+     * Number of learnt clauses above which the nogood store is reduced on restart.
+     * It grows geometrically after each reduction.
+     */
+    private double maxLearnts = 2000;
+
     /**
      * A constraint for the specific Nogood store designed to store ONLY positive decisions.
      * Beware :
@@ -85,6 +91,25 @@ public class NogoodFromRestarts implements IMonitorRestart {
         extractNogoodFromPath();
     }
 
+    @Override
+    public void afterRestart() {
+        // back to root node: learnt clauses can safely be simplified, or forgotten
+        png.simplifyLearnts();
+        if (png.getNbLearnts() > maxLearnts) {
+            png.reduceLearnts();
+            maxLearnts *= 1.1;
+        }
+    }
+
+    /**
+     * Set the number of learnt clauses above which the nogood store is reduced on restart.
+     *
+     * @param maxLearnts initial limit of learnt clauses, which grows after each reduction
+     */
+    public void setMaxLearnts(int maxLearnts) {
+        this.maxLearnts = maxLearnts;
+    }
+
     @SuppressWarnings("unchecked")
     private void extractNogoodFromPath() {
         int d = (int) png.getModel().getSolver().getNodeCount();
@@ -76,7 +76,8 @@ public class NogoodFromSolutions implements IMonitorSolution {
         for (int i = 0; i < n; i++) {
             ps.add(SatSolver.negated(png.Literal(decisionVars[i], decisionVars[i].getValue(), true)));
         }
-        png.addLearnt(ps.toArray());
+        // the nogood is not implied by the model, it can never be forgotten
+        png.addPermanentLearnt(ps.toArray());
     }
 
 }
@@ -48,6 +48,18 @@ import java.util.List;
  */
 public class MoveLNS implements Move {
 
+    /**
+     * How a fragment ends
+     */
+    public enum Outcome {
+        /** a new solution has been found */
+        IMPROVED,
+        /** the fragment has been entirely explored without solution */
+        EXHAUSTED,
+        /** the restart counter has been met */
+        INTERRUPTED
+    }
+
     /**
      * the strategy required to complete the generated fragment
      */
@@ -72,6 +84,10 @@ public class MoveLNS implements Move {
      * For restart strategy
      */
     private long frequency;
+    /**
+     * How the last fragment ends, <tt>null</tt> before the first restart
+     */
+    private Outcome outcome;
 
     /**
      * Create a move which defines a Large Neighborhood Search.
@@ -141,7 +157,7 @@ public class MoveLNS implements Move {
                 // if fast restart is on
                 if (counter.isMet()) {
                     // then is restart is triggered
-                    doRestart(solver);
+                    doRestart(solver, Outcome.INTERRUPTED);
                     extend = true;
                 } else {
                     extend = move.extend(solver);
@@ -200,7 +216,7 @@ public class MoveLNS implements Move {
                 assert solutions == solver.getSolutionCount() - 1;
                 solutions++;
                 neighbor.recordSolution();
-                doRestart(solver);
+                doRestart(solver, Outcome.IMPROVED);
                 repair = true;
             }
             // when posting the cut directly at root node fails
@@ -212,14 +228,14 @@ public class MoveLNS implements Move {
                 // but the neighbor cannot ensure completeness
                 if (!neighbor.isSearchComplete()) {
                     // then a restart is triggered
-                    doRestart(solver);
+                    doRestart(solver, Outcome.EXHAUSTED);
                     repair = true;
                 }
             }
             // or a fast restart is on
             else if (counter.isMet()) {
                 // then is restart is triggered
-                doRestart(solver);
+                doRestart(solver, Outcome.INTERRUPTED);
                 repair = true;
             }
         }else{
@@ -243,15 +259,25 @@ public class MoveLNS implements Move {
         move.setStrategy(aStrategy);
     }
 
+    /**
+     * @return how the last fragment ends, <tt>null</tt> if no fragment has ended yet.
+     * When read by a restart monitor, this is the fragment which triggers the restart.
+     */
+    public Outcome getLastOutcome() {
+        return outcome;
+    }
+
     /**
      * Extend the neighbor when conditions are met and do the restart
      *
      * @param solver SearchLoop
+     * @param outcome how the current fragment ends
      */
-    private void doRestart(Solver solver) {
+    private void doRestart(Solver solver, Outcome outcome) {
         if (!freshRestart) {
             neighbor.restrictLess();
         }
+        this.outcome = outcome;
         freshRestart = true;
         counter.overrideLimit(counter.currentValue() + frequency);
         solver.restart();
@@ -31,6 +31,7 @@ package org.chocosolver.solver.search.measure;
 
 
 import org.chocosolver.solver.objective.BoundsManager;
+import org.chocosolver.solver.propagation.PropagationProfiler;
 import org.chocosolver.solver.search.SearchState;
 
 /**
@@ -125,6 +126,12 @@ public interface IMeasures<N extends Number> {
      */
     BoundsManager<N> getBoundsManager();
 
+    /**
+     * @return the per-propagator profiler, or <tt>null</tt> if propagation is not profiled
+     * (see {@link org.chocosolver.solver.Solver#profilePropagation(int)})
+     */
+    PropagationProfiler getPropagationProfiler();
+
     /**
      * @return a summary of recorded statistics
      */
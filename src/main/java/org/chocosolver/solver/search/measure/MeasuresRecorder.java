@@ -31,6 +31,7 @@ package org.chocosolver.solver.search.measure;
 
 
 import org.chocosolver.solver.objective.BoundsManager;
+import org.chocosolver.solver.propagation.PropagationProfiler;
 import org.chocosolver.solver.search.SearchState;
 
 /**
@@ -60,6 +61,11 @@ public class MeasuresRecorder<N extends Number> implements IMeasures<N>, Cloneab
      */
     protected BoundsManager<N> boundsManager;
 
+    /**
+     * Reference to the propagation profiler, may be null
+     */
+    protected PropagationProfiler propagationProfiler;
+
     /**
      * Indicates if an objective is declared (<tt>false</tt> means satisfaction problem).
      */
@@ -350,6 +356,14 @@ public class MeasuresRecorder<N extends Number> implements IMeasures<N>, Cloneab
         declareObjective(boundsManager.isOptimization());
     }
 
+    /**
+     * Update the propagation profiler
+     * @param propagationProfiler new propagation profiler
+     */
+    public void setPropagationProfiler(PropagationProfiler propagationProfiler) {
+        this.propagationProfiler = propagationProfiler;
+    }
+
     @Override
     public IMeasures copyMeasures() {
         MeasuresRecorder ret = new MeasuresRecorder(modelName);
@@ -366,6 +380,7 @@ public class MeasuresRecorder<N extends Number> implements IMeasures<N>, Cloneab
         ret.objectiveOptimal = this.objectiveOptimal;
         ret.readingTimeCount = this.readingTimeCount;
         ret.startingTime = this.startingTime;
+        ret.propagationProfiler = this.propagationProfiler;
         return ret;
     }
 
@@ -388,6 +403,11 @@ public class MeasuresRecorder<N extends Number> implements IMeasures<N>, Cloneab
         return boundsManager;
     }
 
+    @Override
+    public PropagationProfiler getPropagationProfiler() {
+        return propagationProfiler;
+    }
+
     //****************************************************************************************************************//
 
     @Override
@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.search.solution;
+
+import org.chocosolver.solver.search.loop.monitors.IMonitorSolution;
+import org.chocosolver.solver.variables.IntVar;
+
+import java.util.function.Consumer;
+
+/**
+ * A solution monitor which records the values of a fixed array of integer variables in a {@link SolutionChunk}.
+ * When the chunk is full, it is passed to a consumer and then cleared.
+ * So, recording a solution allocates nothing and does not rely on any map.
+ * <p>
+ * The chunk is reused once the consumer returns, which therefore has to copy the values it keeps
+ * (see {@link SolutionColumns} or {@link MappedSolutionFile}).
+ * The last chunk, which may not be full, is only passed on a call to {@link #flush()}.
+ * <pre>
+ *     {@code
+ *     SolutionColumns columns = new SolutionColumns(vars.length);
+ *     ColumnarSolutionSink sink = new ColumnarSolutionSink(vars, 4096, columns);
+ *     solver.plugMonitor(sink);
+ *     while (solver.solve());
+ *     sink.flush();
+ *     }
+ * </pre>
+ * <br/>
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class ColumnarSolutionSink implements IMonitorSolution {
+
+    /**
+     * Variables to record
+     */
+    private final IntVar[] vars;
+
+    /**
+     * The current chunk
+     */
+    private final SolutionChunk chunk;
+
+    /**
+     * Consumer of full chunks
+     */
+    private final Consumer<SolutionChunk> consumer;
+
+    /**
+     * Creates a columnar solution sink
+     *
+     * @param vars      variables to record, expected to be instantiated on solutions
+     * @param chunkSize number of solutions per chunk
+     * @param consumer  consumer of the chunks
+     */
+    public ColumnarSolutionSink(IntVar[] vars, int chunkSize, Consumer<SolutionChunk> consumer) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("The chunk size should be strictly positive");
+        }
+        this.vars = vars;
+        this.chunk = new SolutionChunk(vars.length, chunkSize);
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void onSolution() {
+        for (int i = 0; i < vars.length; i++) {
+            assert vars[i].isInstantiated() : vars[i] + " is not instantiated";
+            chunk.set(i, vars[i].getValue());
+        }
+        chunk.commit();
+        if (chunk.isFull()) {
+            consumer.accept(chunk);
+            chunk.clear();
+        }
+    }
+
+    /**
+     * Passes the solutions recorded since the last full chunk, if any, to the consumer.
+     */
+    public void flush() {
+        if (chunk.size() > 0) {
+            consumer.accept(chunk);
+            chunk.clear();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.search.solution;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Streams {@link SolutionChunk} to a memory-mapped file, and reads them back with a {@link SolutionCursor}.
+ * <p>
+ * The file starts with the number of variables, then each chunk is stored as its number of solutions
+ * followed by its columns.
+ * All integers are written in big-endian order.
+ * <br/>
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class MappedSolutionFile implements Consumer<SolutionChunk>, Closeable {
+
+    /**
+     * Channel to the file
+     */
+    private final FileChannel channel;
+
+    /**
+     * Number of variables per solution
+     */
+    private final int nbVars;
+
+    /**
+     * Writing position in the file
+     */
+    private long position;
+
+    /**
+     * Creates (or truncates) <i>path</i> and writes its header.
+     *
+     * @param path   path to the file
+     * @param nbVars number of variables per solution
+     * @throws IOException if the file cannot be created
+     */
+    public MappedSolutionFile(Path path, int nbVars) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.nbVars = nbVars;
+        channel.map(FileChannel.MapMode.READ_WRITE, 0, Integer.BYTES).putInt(nbVars);
+        this.position = Integer.BYTES;
+    }
+
+    @Override
+    public void accept(SolutionChunk chunk) {
+        assert chunk.nbVars() == nbVars;
+        int n = chunk.size();
+        long bytes = Integer.BYTES * (1 + (long) n * nbVars);
+        try {
+            IntBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, bytes).asIntBuffer();
+            buffer.put(n);
+            for (int i = 0; i < nbVars; i++) {
+                buffer.put(chunk.getColumn(i), 0, n);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        position += bytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Opens a file written by a {@link MappedSolutionFile}.
+     * Chunks are mapped one at a time, while the cursor moves forward.
+     *
+     * @param path path to the file
+     * @return a cursor over the solutions of the file, to be closed after use
+     * @throws IOException if the file cannot be read
+     */
+    public static Reader open(Path path) throws IOException {
+        return new Reader(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    /**
+     * A cursor over the solutions of a file
+     */
+    public static final class Reader implements SolutionCursor, Closeable {
+
+        /**
+         * Channel to the file
+         */
+        private final FileChannel channel;
+
+        /**
+         * Number of variables per solution
+         */
+        private final int nbVars;
+
+        /**
+         * Position of the next chunk in the file
+         */
+        private long position;
+
+        /**
+         * Values of the current chunk
+         */
+        private IntBuffer values;
+
+        /**
+         * Number of solutions in the current chunk
+         */
+        private int size;
+
+        /**
+         * Index of the current solution in the current chunk
+         */
+        private int row;
+
+        private Reader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.nbVars = readInt(0);
+            this.position = Integer.BYTES;
+        }
+
+        private int readInt(long at) throws IOException {
+            ByteBuffer b = ByteBuffer.allocate(Integer.BYTES);
+            while (b.hasRemaining()) {
+                if (channel.read(b, at + b.position()) < 0) {
+                    throw new IOException("Unexpected end of file");
+                }
+            }
+            b.flip();
+            return b.getInt();
+        }
+
+        @Override
+        public boolean next() {
+            if (++row < size) {
+                return true;
+            }
+            try {
+                while (position < channel.size()) {
+                    size = readInt(position);
+                    long bytes = Integer.BYTES * (long) size * nbVars;
+                    values = channel.map(FileChannel.MapMode.READ_ONLY, position + Integer.BYTES, bytes).asIntBuffer();
+                    position += Integer.BYTES + bytes;
+                    row = 0;
+                    if (size > 0) {
+                        return true;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            size = 0;
+            return false;
+        }
+
+        @Override
+        public int getValue(int var) {
+            return values.get(var * size + row);
+        }
+
+        @Override
+        public int nbVars() {
+            return nbVars;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
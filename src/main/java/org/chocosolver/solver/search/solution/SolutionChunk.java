@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.search.solution;
+
+/**
+ * A chunk of solutions stored column-wise:
+ * for each variable, the values it takes in the consecutive solutions are stored in a primitive array.
+ * <br/>
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public final class SolutionChunk {
+
+    /**
+     * Columns of values, one per variable
+     */
+    private final int[][] columns;
+
+    /**
+     * Number of solutions in this chunk
+     */
+    private int size;
+
+    /**
+     * Creates an empty chunk
+     *
+     * @param nbVars   number of variables, that is of columns
+     * @param capacity maximum number of solutions
+     */
+    public SolutionChunk(int nbVars, int capacity) {
+        this.columns = new int[nbVars][capacity];
+    }
+
+    /**
+     * @return the number of solutions in this chunk
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the maximum number of solutions in this chunk
+     */
+    public int capacity() {
+        return columns.length == 0 ? Integer.MAX_VALUE : columns[0].length;
+    }
+
+    /**
+     * @return the number of variables, that is of columns
+     */
+    public int nbVars() {
+        return columns.length;
+    }
+
+    /**
+     * @return <i>true</i> if no more solution can be added to this chunk
+     */
+    public boolean isFull() {
+        return size == capacity();
+    }
+
+    /**
+     * @param row index of a solution in this chunk
+     * @param var index of a variable
+     * @return the value of the variable <i>var</i> in the solution <i>row</i>
+     */
+    public int getValue(int row, int var) {
+        assert row < size;
+        return columns[var][row];
+    }
+
+    /**
+     * Returns the backing array of the values of the variable <i>var</i>.
+     * Only the first {@link #size()} entries are meaningful.
+     *
+     * @param var index of a variable
+     * @return the column of <i>var</i>
+     */
+    public int[] getColumn(int var) {
+        return columns[var];
+    }
+
+    /**
+     * Sets the value of <i>var</i> in the solution being added.
+     * The solution is added on a call to {@link #commit()}.
+     *
+     * @param var   index of a variable
+     * @param value its value
+     */
+    public void set(int var, int value) {
+        columns[var][size] = value;
+    }
+
+    /**
+     * Adds the solution being set.
+     */
+    public void commit() {
+        assert !isFull();
+        size++;
+    }
+
+    /**
+     * Removes all solutions of this chunk.
+     */
+    public void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.search.solution;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * An in-memory columnar store of solutions, filled with {@link SolutionChunk}.
+ * Each column is a growing primitive array.
+ * <br/>
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class SolutionColumns implements Consumer<SolutionChunk> {
+
+    /**
+     * Columns of values, one per variable
+     */
+    private int[][] columns;
+
+    /**
+     * Number of stored solutions
+     */
+    private int size;
+
+    /**
+     * Creates an empty store
+     *
+     * @param nbVars number of variables, that is of columns
+     */
+    public SolutionColumns(int nbVars) {
+        this.columns = new int[nbVars][16];
+    }
+
+    @Override
+    public void accept(SolutionChunk chunk) {
+        assert chunk.nbVars() == columns.length;
+        int n = chunk.size();
+        if (columns.length > 0 && size + n > columns[0].length) {
+            int c = Math.max(size + n, columns[0].length * 3 / 2 + 1);
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = Arrays.copyOf(columns[i], c);
+            }
+        }
+        for (int i = 0; i < columns.length; i++) {
+            System.arraycopy(chunk.getColumn(i), 0, columns[i], size, n);
+        }
+        size += n;
+    }
+
+    /**
+     * @return the number of stored solutions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of variables, that is of columns
+     */
+    public int nbVars() {
+        return columns.length;
+    }
+
+    /**
+     * @param row index of a solution
+     * @param var index of a variable
+     * @return the value of the variable <i>var</i> in the solution <i>row</i>
+     */
+    public int getValue(int row, int var) {
+        assert row < size;
+        return columns[var][row];
+    }
+
+    /**
+     * Returns the backing array of the values of the variable <i>var</i>.
+     * Only the first {@link #size()} entries are meaningful.
+     *
+     * @param var index of a variable
+     * @return the column of <i>var</i>
+     */
+    public int[] getColumn(int var) {
+        return columns[var];
+    }
+
+    /**
+     * @return a cursor over the stored solutions
+     */
+    public SolutionCursor cursor() {
+        return new SolutionCursor() {
+            int row = -1;
+
+            @Override
+            public boolean next() {
+                return ++row < size;
+            }
+
+            @Override
+            public int getValue(int var) {
+                return columns[var][row];
+            }
+
+            @Override
+            public int nbVars() {
+                return columns.length;
+            }
+        };
+    }
+}
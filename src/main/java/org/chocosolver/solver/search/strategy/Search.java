@@ -211,6 +211,27 @@ public class Search {
         return new DomOverWDeg(vars, 0, new IntDomainMin());
     }
 
+    /**
+     * Assignment strategy which selects a variable according to <code>DomOverWDeg</code> and assign it to its lower bound.
+     * Weighted degrees are maintained incrementally and scores are stored in a heap,
+     * which is better suited to models with many variables.
+     * @param vars list of variables
+     * @return assignment strategy
+     */
+    public static AbstractStrategy<IntVar> domOverWDegIncSearch(IntVar... vars) {
+        return new DomOverWDegInc(vars, new IntDomainMin());
+    }
+
+    /**
+     * Assignment strategy which selects a variable according to the conflict-aging variant of <code>DomOverWDeg</code>
+     * and assign it to its lower bound.
+     * @param vars list of variables
+     * @return assignment strategy
+     */
+    public static AbstractStrategy<IntVar> domOverWDegCASearch(IntVar... vars) {
+        return new DomOverWDegCA(vars, new IntDomainMin());
+    }
+
     /**
      * Create an Activity based search strategy.
      * <p>
@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.search.strategy.selectors.variables;
+
+import gnu.trove.map.hash.TIntDoubleHashMap;
+import gnu.trove.map.hash.TIntLongHashMap;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.search.strategy.selectors.values.IntValueSelector;
+import org.chocosolver.solver.variables.IntVar;
+
+/**
+ * Conflict-aging variant of {@link DomOverWDegInc}, inspired by Conflict History Search[1].
+ * <p>
+ * The score of a propagator is an exponential moving average of rewards: when it fails,
+ * it is rewarded with 1/(d+1), where d is the number of conflicts since its previous failure.
+ * So, recent failures prevail over old ones.
+ * The step size decreases from 0.4 to 0.06, by 1e-6 on each conflict.
+ * The variation of the score of a failing propagator is pushed to its uninstantiated variables.
+ * <p>
+ * [1]: D. Habet and C. Terrioux, Conflict History based Branching Heuristic for CSP Solving, RCRA-18.
+ * <br/>
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class DomOverWDegCA extends DomOverWDegInc {
+
+    /**
+     * Initial step size
+     */
+    private static final double ALPHA = .4d;
+
+    /**
+     * Lowest step size
+     */
+    private static final double ALPHA_MIN = .06d;
+
+    /**
+     * Step size decrease on each conflict
+     */
+    private static final double DECAY = 1e-6d;
+
+    /**
+     * Initial weight of the variables
+     */
+    private static final double DELTA = 1e-4d;
+
+    /**
+     * Map (propagator id - score)
+     */
+    private final TIntDoubleHashMap scores;
+
+    /**
+     * Map (propagator id - conflict of its last failure)
+     */
+    private final TIntLongHashMap lasts;
+
+    /**
+     * Current step size
+     */
+    private double alpha;
+
+    /**
+     * Number of conflicts so far
+     */
+    private long conflicts;
+
+    /**
+     * Creates a conflict-aging DomOverWDeg variable selector
+     *
+     * @param variables     decision variables
+     * @param valueSelector a value selector
+     */
+    public DomOverWDegCA(IntVar[] variables, IntValueSelector valueSelector) {
+        super(variables, DELTA, valueSelector);
+        this.scores = new TIntDoubleHashMap();
+        this.lasts = new TIntLongHashMap();
+        this.alpha = ALPHA;
+    }
+
+    @Override
+    public void onContradiction(ContradictionException cex) {
+        super.onContradiction(cex);
+        conflicts++;
+        alpha = Math.max(ALPHA_MIN, alpha - DECAY);
+    }
+
+    @Override
+    protected double increment(Propagator<?> prop) {
+        int id = prop.getId();
+        double q = scores.get(id);
+        double r = 1d / (conflicts - lasts.get(id) + 1);
+        double nq = (1d - alpha) * q + alpha * r;
+        scores.put(id, nq);
+        lasts.put(id, conflicts);
+        return nq - q;
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.search.strategy.selectors.variables;
+
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.search.loop.monitors.IMonitorContradiction;
+import org.chocosolver.solver.search.strategy.assignments.DecisionOperator;
+import org.chocosolver.solver.search.strategy.decision.Decision;
+import org.chocosolver.solver.search.strategy.selectors.values.IntValueSelector;
+import org.chocosolver.solver.search.strategy.strategy.AbstractStrategy;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.Variable;
+import org.chocosolver.util.objects.IntMap;
+import org.chocosolver.util.objects.StoredIndexedHeap;
+
+/**
+ * Incremental implementation of DowOverWDeg[1].
+ * <p>
+ * Contrary to {@link DomOverWDeg}, the weighted degree of a variable is not computed on each decision.
+ * When a propagator fails, its weight increment is pushed to its uninstantiated variables.
+ * The scores (domain size divided by weighted degree) are stored in a {@link StoredIndexedHeap}, which is lazily repaired:
+ * only the variables whose domain or weight has changed since the previous decision are re-evaluated.
+ * So, selecting a variable costs O(k.log(n)), where k is the number of such variables.
+ * <p>
+ * Ties are broken by variable index, and propagators are weighted regardless of their current arity.
+ * So the decisions may differ from {@link DomOverWDeg}.
+ * <p>
+ * [1]: F. Boussemart, F. Hemery, C. Lecoutre, and L. Sais, Boosting Systematic Search by Weighting Constraints, ECAI-04.
+ * <br/>
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class DomOverWDegInc extends AbstractStrategy<IntVar> implements IMonitorContradiction {
+
+    /**
+     * Map (variable id - variable index)
+     */
+    private final IntMap v2i;
+
+    /**
+     * Weighted degree of each variable
+     */
+    protected final double[] weights;
+
+    /**
+     * Lowest weight considered when computing a score
+     */
+    private final double minWeight;
+
+    /**
+     * Variables ordered by score
+     */
+    private final StoredIndexedHeap<IntVar> heap;
+
+    /**
+     * The way value is selected for a given variable
+     */
+    private final IntValueSelector valueSelector;
+
+    /**
+     * Creates an incremental DomOverWDeg variable selector
+     *
+     * @param variables     decision variables
+     * @param valueSelector a value selector
+     */
+    public DomOverWDegInc(IntVar[] variables, IntValueSelector valueSelector) {
+        this(variables, 1d, valueSelector);
+    }
+
+    /**
+     * Creates an incremental DomOverWDeg variable selector
+     *
+     * @param variables     decision variables
+     * @param initialWeight initial weight of each variable, also the lowest weight considered
+     * @param valueSelector a value selector
+     */
+    protected DomOverWDegInc(IntVar[] variables, double initialWeight, IntValueSelector valueSelector) {
+        super(variables);
+        Model model = variables[0].getModel();
+        int n = variables.length;
+        this.valueSelector = valueSelector;
+        this.minWeight = initialWeight;
+        this.v2i = new IntMap(n * 3 / 2 + 1, -1);
+        this.weights = new double[n];
+        for (int i = 0; i < n; i++) {
+            weights[i] = initialWeight;
+            if (v2i.get(variables[i].getId()) == -1) {
+                v2i.put(variables[i].getId(), i);
+            }
+        }
+        this.heap = new StoredIndexedHeap<>(model.getEnvironment(), variables,
+                v -> v.getDomainSize() / Math.max(weights[v2i.get(v.getId())], minWeight));
+        model.getSolver().plugMonitor(this);
+    }
+
+    @Override
+    public Decision<IntVar> computeDecision(IntVar variable) {
+        if (variable == null || variable.isInstantiated()) {
+            return null;
+        }
+        int currentVal = valueSelector.selectValue(variable);
+        return variable.getModel().getSolver().getDecisionPath().makeIntDecision(variable, DecisionOperator.int_eq, currentVal);
+    }
+
+    @Override
+    public Decision<IntVar> getDecision() {
+        return computeDecision(heap.top());
+    }
+
+    @Override
+    public void onContradiction(ContradictionException cex) {
+        if (cex.c instanceof Propagator) {
+            Propagator<?> prop = (Propagator<?>) cex.c;
+            double inc = increment(prop);
+            if (inc != 0d) {
+                for (int j = 0; j < prop.getNbVars(); j++) {
+                    Variable v = prop.getVar(j);
+                    int i = v2i.get(v.getId());
+                    if (i > -1 && !v.isInstantiated()) {
+                        weights[i] += inc;
+                        heap.invalidate(vars[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the amount to add to the weight of the uninstantiated variables of <i>prop</i>, which has just failed.
+     * @param prop a propagator which has failed
+     * @return the weight increment
+     */
+    protected double increment(Propagator<?> prop) {
+        return 1d;
+    }
+}
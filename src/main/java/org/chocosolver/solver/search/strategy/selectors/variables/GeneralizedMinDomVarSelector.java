@@ -41,7 +41,7 @@ import org.chocosolver.solver.variables.Variable;
  *
  * @author Jean-Guillaume Fages
  */
-public class GeneralizedMinDomVarSelector implements VariableSelector {
+public class GeneralizedMinDomVarSelector implements VariableSelector, VariableEvaluator<Variable> {
 
     private boolean least;
 
@@ -68,19 +68,7 @@ public class GeneralizedMinDomVarSelector implements VariableSelector {
         Variable nextVar = null;
         for (Variable v:variables) {
             if(!v.isInstantiated()) {
-                int kind = (v.getTypeAndKind() & Variable.KIND);
-                int dsize;
-                if (kind == Variable.INT || kind == Variable.BOOL) {
-                    dsize = ((IntVar) v).getDomainSize();
-                } else if (kind == Variable.REAL) {
-                    RealVar rv = (RealVar) v;
-                    dsize = 2 + (int) ((rv.getUB() - rv.getLB())/rv.getPrecision());
-                } else if (kind == Variable.SET) {
-                    SetVar sv = (SetVar) v;
-                    dsize = 1 + (sv.getUB().getSize() - sv.getLB().getSize());
-                } else {
-                    throw new UnsupportedOperationException("unrocognised variable kind");
-                }
+                int dsize = domainSize(v);
                 if (nextVar == null) {
                     nextVar = v;
                     small_dsize = dsize;
@@ -94,4 +82,25 @@ public class GeneralizedMinDomVarSelector implements VariableSelector {
         }
         return nextVar;
     }
+
+    @Override
+    public double evaluate(Variable variable) {
+        int dsize = domainSize(variable);
+        return least ? dsize : -dsize;
+    }
+
+    private static int domainSize(Variable v) {
+        int kind = (v.getTypeAndKind() & Variable.KIND);
+        if (kind == Variable.INT || kind == Variable.BOOL) {
+            return ((IntVar) v).getDomainSize();
+        } else if (kind == Variable.REAL) {
+            RealVar rv = (RealVar) v;
+            return 2 + (int) ((rv.getUB() - rv.getLB())/rv.getPrecision());
+        } else if (kind == Variable.SET) {
+            SetVar sv = (SetVar) v;
+            return 1 + (sv.getUB().getSize() - sv.getLB().getSize());
+        } else {
+            throw new UnsupportedOperationException("unrocognised variable kind");
+        }
+    }
 }
@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.search.strategy.selectors.variables;
+
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.variables.Variable;
+import org.chocosolver.util.objects.StoredIndexedHeap;
+
+/**
+ * A variable selector which relies on a {@link StoredIndexedHeap} to select, among a fixed set of variables,
+ * the non-instantiated one which minimizes the evaluators, ties being broken lexicographically then by index.
+ * <p>
+ * It makes the same choices than the linear-scan selectors, for instance:
+ * <ul>
+ *     <li>{@link FirstFail}: <code>new HeapVariableSelector&lt;&gt;(model, vars, new FirstFail(model))</code>,</li>
+ *     <li>{@link Smallest}, {@link Largest}, {@link MaxRegret} and {@link GeneralizedMinDomVarSelector} likewise,</li>
+ *     <li>{@link VariableSelectorWithTies}: <code>new HeapVariableSelector&lt;&gt;(model, vars, h1, h2)</code>,</li>
+ * </ul>
+ * but only the variables modified since the previous decision are re-evaluated,
+ * which pays off on large models where few domains change per node.
+ * <br/>
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class HeapVariableSelector<V extends Variable> implements VariableSelector<V> {
+
+    /**
+     * The priority queue
+     */
+    private final StoredIndexedHeap<V> heap;
+
+    /**
+     * Creates a heap-based variable selector.
+     *
+     * @param model      the model
+     * @param variables  variables to select from, the same array is expected in {@link #getVariable(Variable[])}
+     * @param evaluators evaluators to minimize, each one breaks ties of the previous ones
+     */
+    @SafeVarargs
+    public HeapVariableSelector(Model model, V[] variables, VariableEvaluator<V>... evaluators) {
+        this.heap = new StoredIndexedHeap<>(model.getEnvironment(), variables, evaluators);
+    }
+
+    @Override
+    public V getVariable(V[] variables) {
+        return heap.top();
+    }
+}
@@ -251,6 +251,21 @@ public interface IOutputFactory extends ISelf<Solver> {
         }
     }
 
+    /**
+     * Plug a search monitor which records time-stamped solutions, bound updates, restarts and LNS fragment outcomes,
+     * and drains them to {@code sink} every {@code f} ms.
+     * The returned monitor also computes anytime metrics and has to be closed once the resolution is over.
+     *
+     * @param sink destination of the events
+     * @param f    frequency, in millisecond
+     * @return the telemetry monitor
+     */
+    default SearchTelemetry recordTelemetry(TelemetrySink sink, long f) {
+        SearchTelemetry telemetry = new SearchTelemetry(_me(), sink, 1 << 16, f);
+        _me().plugMonitor(telemetry);
+        return telemetry;
+    }
+
 
     //////////////
 
@@ -0,0 +1,475 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.trace;
+
+import org.chocosolver.solver.ResolutionPolicy;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.objective.ObjectiveManager;
+import org.chocosolver.solver.search.loop.monitors.IMonitorClose;
+import org.chocosolver.solver.search.loop.monitors.IMonitorInitialize;
+import org.chocosolver.solver.search.loop.monitors.IMonitorRestart;
+import org.chocosolver.solver.search.loop.monitors.IMonitorSolution;
+import org.chocosolver.solver.search.loop.move.Move;
+import org.chocosolver.solver.search.loop.move.MoveLNS;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.RealVar;
+import org.chocosolver.solver.variables.Variable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A search monitor which records time-stamped events: solutions, bound updates, restarts and LNS fragment outcomes.
+ * <p>
+ * Events are written by the resolution thread in a ring of primitive arrays, so recording an event allocates nothing.
+ * If a {@link TelemetrySink} is given, a daemon thread drains the ring every <i>period</i> milliseconds,
+ * and the ring is drained and flushed when a resolution ends.
+ * If the sink fails while drained in the background, the thread stops and the failure is thrown by {@link #close()}.
+ * Events which do not fit in the ring before being drained are dropped, and counted (see {@link #getDropped()}).
+ * <p>
+ * The solutions are also kept to compute anytime metrics: the primal integral and the time to target.
+ * <p>
+ * Each event comes with two values:
+ * <ul>
+ *     <li>{@link #SOLUTION}: the objective value (NaN on satisfaction problems), the number of solutions,</li>
+ *     <li>{@link #BOUNDS}: the best lower bound and the best upper bound of the objective,</li>
+ *     <li>{@link #RESTART}: the number of restarts, the number of fails,</li>
+ *     <li>{@link #LNS_IMPROVED}, {@link #LNS_EXHAUSTED}, {@link #LNS_INTERRUPTED}:
+ *     the number of restarts, the number of fails.</li>
+ * </ul>
+ * <br/>
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class SearchTelemetry implements IMonitorInitialize, IMonitorSolution, IMonitorRestart, IMonitorClose, Closeable {
+
+    /** A solution has been found */
+    public static final int SOLUTION = 0;
+    /** The best bounds of the objective have changed */
+    public static final int BOUNDS = 1;
+    /** A restart, which is not triggered by a LNS */
+    public static final int RESTART = 2;
+    /** A LNS fragment ends with a new solution */
+    public static final int LNS_IMPROVED = 3;
+    /** A LNS fragment is entirely explored without solution */
+    public static final int LNS_EXHAUSTED = 4;
+    /** A LNS fragment is interrupted by its restart counter */
+    public static final int LNS_INTERRUPTED = 5;
+
+    /** Names of the events, as written in CSV files */
+    static final String[] NAMES = {"solution", "bounds", "restart", "lns_improved", "lns_exhausted", "lns_interrupted"};
+
+    private final Solver solver;
+
+    /** Destination of the events, may be <tt>null</tt> */
+    private final TelemetrySink sink;
+
+    /** Delay between two drains, in milliseconds */
+    private final long period;
+
+    // THE RING
+    private final long[] times;
+    private final int[] events;
+    private final double[] as;
+    private final double[] bs;
+    private final int mask;
+    /** Number of events recorded, only modified by the resolution thread */
+    private final AtomicLong published = new AtomicLong();
+    /** Number of events drained, only modified by the draining thread */
+    private final AtomicLong consumed = new AtomicLong();
+    /** Number of dropped events */
+    private volatile long dropped;
+
+    /** Origin of times, in nanoseconds, set on the first initialization */
+    private long t0 = -1;
+    /** Time of the last end of resolution, in nanoseconds since {@link #t0} */
+    private long elapsed;
+    /** Last recorded bounds */
+    private double lastLB = Double.NaN, lastUB = Double.NaN;
+
+    // THE SOLUTIONS
+    private long[] solTimes = new long[16];
+    private double[] solValues = new double[16];
+    private int nbSols;
+
+    /** The thread draining the ring */
+    private Thread drainer;
+    private volatile boolean alive;
+    /** The first failure of the sink while draining the ring in the background, rethrown on {@link #close()} */
+    private volatile IOException failure;
+
+    /**
+     * Creates a telemetry monitor which only keeps the solutions, to compute anytime metrics.
+     * It has to be plugged to <i>solver</i>.
+     *
+     * @param solver the solver to instrument
+     */
+    public SearchTelemetry(Solver solver) {
+        this(solver, null, 16, 1000);
+    }
+
+    /**
+     * Creates a telemetry monitor.
+     * It has to be plugged to <i>solver</i>.
+     *
+     * @param solver   the solver to instrument
+     * @param sink     destination of the events, may be <tt>null</tt>
+     * @param capacity capacity of the ring, rounded up to a power of 2
+     * @param period   delay between two drains of the ring, in milliseconds, strictly positive
+     * @throws IllegalArgumentException if <i>period</i> is not strictly positive
+     */
+    public SearchTelemetry(Solver solver, TelemetrySink sink, int capacity, long period) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("The drain period must be strictly positive, got " + period);
+        }
+        this.solver = solver;
+        this.sink = sink;
+        this.period = period;
+        int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.times = new long[size];
+        this.events = new int[size];
+        this.as = new double[size];
+        this.bs = new double[size];
+        this.mask = size - 1;
+    }
+
+    //***********************************************************************************
+    // MONITORS
+    //***********************************************************************************
+
+    @Override
+    public void afterInitialize() {
+        if (t0 < 0) {
+            t0 = System.nanoTime();
+        }
+        checkBounds(now());
+        if (sink != null && drainer == null) {
+            alive = true;
+            drainer = new Thread(() -> {
+                try {
+                    while (alive) {
+                        Thread.sleep(period);
+                        drain();
+                    }
+                } catch (InterruptedException ignored) {
+                } catch (UncheckedIOException e) {
+                    // the thread stops, the failure is reported on close
+                    failure = e.getCause();
+                }
+            });
+            drainer.setDaemon(true);
+            drainer.start();
+        }
+    }
+
+    @Override
+    public void onSolution() {
+        long t = now();
+        Variable obj = solver.getModel().getObjective();
+        double value = Double.NaN;
+        if (obj != null && solver.getModel().getResolutionPolicy() != ResolutionPolicy.SATISFACTION) {
+            value = (obj.getTypeAndKind() & Variable.REAL) != 0 ? ((RealVar) obj).getLB() : ((IntVar) obj).getValue();
+        }
+        if (nbSols == solTimes.length) {
+            solTimes = Arrays.copyOf(solTimes, nbSols * 2);
+            solValues = Arrays.copyOf(solValues, nbSols * 2);
+        }
+        solTimes[nbSols] = t;
+        solValues[nbSols++] = value;
+        record(t, SOLUTION, value, solver.getSolutionCount());
+        checkBounds(t);
+    }
+
+    @Override
+    public void beforeRestart() {
+        long t = now();
+        int event = RESTART;
+        MoveLNS lns = findLNS(solver.getMove());
+        if (lns != null && lns.getLastOutcome() != null) {
+            event = LNS_IMPROVED + lns.getLastOutcome().ordinal();
+        }
+        record(t, event, solver.getRestartCount() + 1, solver.getFailCount());
+        checkBounds(t);
+    }
+
+    @Override
+    public void afterClose() {
+        long t = now();
+        checkBounds(t);
+        elapsed = t;
+        if (sink != null) {
+            drain();
+            try {
+                sink.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Stops the draining thread, drains the ring and closes the sink.
+     *
+     * @throws IOException if the sink failed while draining, in the background or now, or cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        alive = false;
+        if (drainer != null) {
+            drainer.interrupt();
+            try {
+                drainer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            drainer = null;
+        }
+        IOException error = failure;
+        failure = null;
+        if (sink != null) {
+            try {
+                drain();
+            } catch (UncheckedIOException e) {
+                error = merge(error, e.getCause());
+            }
+            try {
+                sink.close();
+            } catch (IOException e) {
+                error = merge(error, e);
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * @return <i>first</i> if not <tt>null</tt>, with <i>next</i> suppressed, <i>next</i> otherwise
+     */
+    private static IOException merge(IOException first, IOException next) {
+        if (first == null) {
+            return next;
+        }
+        if (first != next) {
+            first.addSuppressed(next);
+        }
+        return first;
+    }
+
+    //***********************************************************************************
+    // METRICS
+    //***********************************************************************************
+
+    /**
+     * @return the number of events dropped because the ring was full
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * @return the number of recorded solutions
+     */
+    public int getNbSolutions() {
+        return nbSols;
+    }
+
+    /**
+     * @param i index of a solution
+     * @return the time of the <i>i</i><sup>th</sup> solution, in seconds since the beginning of the resolution
+     */
+    public double getSolutionTime(int i) {
+        return solTimes[i] / 1e9;
+    }
+
+    /**
+     * @param i index of a solution
+     * @return the objective value of the <i>i</i><sup>th</sup> solution
+     */
+    public double getSolutionValue(int i) {
+        return solValues[i];
+    }
+
+    /**
+     * Computes the primal integral[1] over the resolution, the best solution found being the reference.
+     * <p>
+     * [1]: T. Berthold, Measuring the impact of primal heuristics, Operations Research Letters, 2013.
+     *
+     * @return the primal integral, in seconds
+     * @see #getPrimalIntegral(double, double)
+     */
+    public double getPrimalIntegral() {
+        if (nbSols == 0) {
+            return elapsed / 1e9;
+        }
+        double ref = solValues[nbSols - 1];
+        for (int i = 0; i < nbSols; i++) {
+            ref = better(solValues[i], ref) ? solValues[i] : ref;
+        }
+        return getPrimalIntegral(ref, elapsed / 1e9);
+    }
+
+    /**
+     * Computes the primal integral[1], that is the integral of the primal gap over time.
+     * The primal gap of a value z wrt the reference value r is 0 if z = r, 1 if z.r &lt; 0 or if there is no solution,
+     * and |z - r| / max(|z|, |r|) otherwise.
+     * The lower the integral, the sooner good solutions are found.
+     * <p>
+     * [1]: T. Berthold, Measuring the impact of primal heuristics, Operations Research Letters, 2013.
+     *
+     * @param reference the optimal, or best known, objective value
+     * @param horizon   upper bound of the integral, in seconds since the beginning of the resolution
+     * @return the primal integral, in seconds
+     */
+    public double getPrimalIntegral(double reference, double horizon) {
+        double integral = 0;
+        double gap = 1d;
+        double from = 0d;
+        double best = Double.NaN;
+        for (int i = 0; i < nbSols && getSolutionTime(i) < horizon; i++) {
+            double t = getSolutionTime(i);
+            integral += gap * (t - from);
+            from = t;
+            if (Double.isNaN(best) || better(solValues[i], best)) {
+                best = solValues[i];
+            }
+            gap = gap(best, reference);
+        }
+        integral += gap * Math.max(0d, horizon - from);
+        return integral;
+    }
+
+    /**
+     * @param target an objective value
+     * @return the time of the first solution at least as good as <i>target</i>, in seconds,
+     * or a negative value if no such solution has been found
+     */
+    public double getTimeToTarget(double target) {
+        for (int i = 0; i < nbSols; i++) {
+            if (solValues[i] == target || better(solValues[i], target)) {
+                return getSolutionTime(i);
+            }
+        }
+        return -1d;
+    }
+
+    //***********************************************************************************
+    // INTERNAL METHODS
+    //***********************************************************************************
+
+    private long now() {
+        return System.nanoTime() - t0;
+    }
+
+    private boolean better(double a, double b) {
+        return solver.getModel().getResolutionPolicy() == ResolutionPolicy.MAXIMIZE ? a > b : a < b;
+    }
+
+    private static double gap(double z, double r) {
+        if (z == r) {
+            return 0d;
+        }
+        if (z * r < 0) {
+            return 1d;
+        }
+        return Math.abs(z - r) / Math.max(Math.abs(z), Math.abs(r));
+    }
+
+    private static MoveLNS findLNS(Move move) {
+        if (move instanceof MoveLNS) {
+            return (MoveLNS) move;
+        }
+        if (move.getChildMoves() != null) {
+            for (Move m : move.getChildMoves()) {
+                MoveLNS lns = findLNS(m);
+                if (lns != null) {
+                    return lns;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void checkBounds(long t) {
+        ObjectiveManager<?, ?> om = solver.getObjectiveManager();
+        if (om.isOptimization()) {
+            double lb = om.getBestLB().doubleValue();
+            double ub = om.getBestUB().doubleValue();
+            if (lb != lastLB || ub != lastUB) {
+                lastLB = lb;
+                lastUB = ub;
+                record(t, BOUNDS, lb, ub);
+            }
+        }
+    }
+
+    /**
+     * Adds an event to the ring, or drops it if the ring is full.
+     * Only called by the resolution thread.
+     */
+    private void record(long time, int event, double a, double b) {
+        if (sink == null) {
+            return;
+        }
+        long p = published.get();
+        if (p - consumed.get() > mask) {
+            dropped++;
+            return;
+        }
+        int i = (int) (p & mask);
+        times[i] = time;
+        events[i] = event;
+        as[i] = a;
+        bs[i] = b;
+        published.lazySet(p + 1);
+    }
+
+    /**
+     * Passes the recorded events to the sink
+     */
+    private synchronized void drain() {
+        long p = published.get();
+        long c = consumed.get();
+        try {
+            for (; c < p; c++) {
+                int i = (int) (c & mask);
+                sink.accept(times[i], events[i], as[i], bs[i]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            consumed.lazySet(c);
+        }
+    }
+}
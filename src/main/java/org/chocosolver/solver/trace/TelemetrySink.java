@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.trace;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A destination of the events recorded by a {@link SearchTelemetry}.
+ * Events are given in chronological order by a single thread.
+ * <br/>
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public interface TelemetrySink extends Closeable {
+
+    /**
+     * Consumes an event
+     *
+     * @param time  time of the event, in nanoseconds since the beginning of the resolution
+     * @param event type of the event, one of the constants of {@link SearchTelemetry}
+     * @param a     first value of the event
+     * @param b     second value of the event
+     * @throws IOException if an I/O error occurs
+     */
+    void accept(long time, int event, double a, double b) throws IOException;
+
+    /**
+     * Flushes the events consumed so far
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    void flush() throws IOException;
+
+    /**
+     * Creates a sink which writes events in a CSV file, with the header <code>time,event,a,b</code>,
+     * where time is in nanoseconds and event is the name of the event type.
+     *
+     * @param path path to the file
+     * @return a CSV sink
+     * @throws IOException if the file cannot be created
+     */
+    static TelemetrySink csv(Path path) throws IOException {
+        BufferedWriter writer = Files.newBufferedWriter(path);
+        writer.write("time,event,a,b");
+        writer.newLine();
+        return new TelemetrySink() {
+            @Override
+            public void accept(long time, int event, double a, double b) throws IOException {
+                writer.write(time + "," + SearchTelemetry.NAMES[event] + "," + a + "," + b);
+                writer.newLine();
+            }
+
+            @Override
+            public void flush() throws IOException {
+                writer.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                writer.close();
+            }
+        };
+    }
+
+    /**
+     * Creates a sink which writes events in a binary file, as a sequence of records
+     * (long time, int event, double a, double b), in big-endian order.
+     *
+     * @param path path to the file
+     * @return a binary sink
+     * @throws IOException if the file cannot be created
+     */
+    static TelemetrySink binary(Path path) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+        return new TelemetrySink() {
+            @Override
+            public void accept(long time, int event, double a, double b) throws IOException {
+                out.writeLong(time);
+                out.writeInt(event);
+                out.writeDouble(a);
+                out.writeDouble(b);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                out.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                out.close();
+            }
+        };
+    }
+}
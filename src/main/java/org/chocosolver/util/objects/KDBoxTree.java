@@ -0,0 +1,190 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.util.objects;
+
+/**
+ * Static k-d tree of two-dimensional boxes <i>[xmin, xmax) x [ymin, ymax)</i>,
+ * answering which boxes intersect a given box.
+ * Boxes are split at the median of their centers, along the larger extent of the current bounding box,
+ * until a node holds at most {@link #BUCKET} boxes.
+ * Building the tree is done in O(n.log(n)), a query visits O(sqrt(n) + k) nodes, k being the number of answers.
+ * <br/>
+ * Once built, the tree is not modified: when boxes only shrink, answers remain a superset of
+ * the boxes that currently intersect the query.
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class KDBoxTree {
+
+	/**
+	 * Maximum number of boxes in a leaf
+	 */
+	private static final int BUCKET = 8;
+
+	private final int[] order;
+	private final int[] x1, x2, y1, y2;
+	// nodes: range of 'order' covered, right child (the left one is the next node) and bounding box
+	private int[] from, to, right, bx1, bx2, by1, by2;
+	private int nbNodes;
+	private final int[] stack;
+
+	/**
+	 * Build a k-d tree over <i>n</i> boxes, box <i>i</i> being <i>[xmin[i], xmax[i]) x [ymin[i], ymax[i])</i>.
+	 * Arrays are copied.
+	 * @param xmin lower bounds in the first dimension
+	 * @param xmax upper bounds (excluded) in the first dimension
+	 * @param ymin lower bounds in the second dimension
+	 * @param ymax upper bounds (excluded) in the second dimension
+	 */
+	public KDBoxTree(int[] xmin, int[] xmax, int[] ymin, int[] ymax) {
+		int n = xmin.length;
+		x1 = xmin.clone();
+		x2 = xmax.clone();
+		y1 = ymin.clone();
+		y2 = ymax.clone();
+		order = new int[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+		}
+		int cap = 1;
+		while (cap * BUCKET < n) {
+			cap <<= 1;
+		}
+		cap = 2 * cap + 1;
+		from = new int[cap];
+		to = new int[cap];
+		right = new int[cap];
+		bx1 = new int[cap];
+		bx2 = new int[cap];
+		by1 = new int[cap];
+		by2 = new int[cap];
+		stack = new int[cap];
+		nbNodes = 0;
+		if (n > 0) {
+			build(0, n);
+		}
+	}
+
+	private int build(int lo, int hi) {
+		int node = nbNodes++;
+		from[node] = lo;
+		to[node] = hi;
+		int ax1 = Integer.MAX_VALUE, ax2 = Integer.MIN_VALUE, ay1 = Integer.MAX_VALUE, ay2 = Integer.MIN_VALUE;
+		for (int k = lo; k < hi; k++) {
+			int i = order[k];
+			ax1 = Math.min(ax1, x1[i]);
+			ax2 = Math.max(ax2, x2[i]);
+			ay1 = Math.min(ay1, y1[i]);
+			ay2 = Math.max(ay2, y2[i]);
+		}
+		bx1[node] = ax1;
+		bx2[node] = ax2;
+		by1[node] = ay1;
+		by2[node] = ay2;
+		if (hi - lo > BUCKET) {
+			boolean horizontal = (long) ax2 - ax1 >= (long) ay2 - ay1;
+			int mid = (lo + hi) >>> 1;
+			select(lo, hi - 1, mid, horizontal);
+			build(lo, mid);
+			right[node] = build(mid, hi);
+		}
+		return node;
+	}
+
+	private long center(int i, boolean horizontal) {
+		return horizontal ? (long) x1[i] + x2[i] : (long) y1[i] + y2[i];
+	}
+
+	/**
+	 * Quickselect: reorder order[lo..hi] so that order[k] is at its sorted position
+	 */
+	private void select(int lo, int hi, int k, boolean horizontal) {
+		while (lo < hi) {
+			long pivot = center(order[(lo + hi) >>> 1], horizontal);
+			int i = lo, j = hi;
+			while (i <= j) {
+				while (center(order[i], horizontal) < pivot) i++;
+				while (center(order[j], horizontal) > pivot) j--;
+				if (i <= j) {
+					int t = order[i];
+					order[i] = order[j];
+					order[j] = t;
+					i++;
+					j--;
+				}
+			}
+			if (k <= j) {
+				hi = j;
+			} else if (k >= i) {
+				lo = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Collect the boxes intersecting <i>[xmin, xmax) x [ymin, ymax)</i>
+	 * @param xmin lower bound in the first dimension
+	 * @param xmax upper bound (excluded) in the first dimension
+	 * @param ymin lower bound in the second dimension
+	 * @param ymax upper bound (excluded) in the second dimension
+	 * @param out  array to store the boxes in, of size at least the number of boxes
+	 * @return the number of boxes stored in <i>out</i>
+	 */
+	public int query(int xmin, int xmax, int ymin, int ymax, int[] out) {
+		int size = 0;
+		if (nbNodes == 0) {
+			return 0;
+		}
+		int top = 0;
+		stack[top++] = 0;
+		while (top > 0) {
+			int node = stack[--top];
+			if (bx1[node] >= xmax || xmin >= bx2[node] || by1[node] >= ymax || ymin >= by2[node]) {
+				continue;
+			}
+			int lo = from[node], hi = to[node];
+			if (hi - lo > BUCKET) {
+				stack[top++] = node + 1;
+				stack[top++] = right[node];
+			} else {
+				for (int k = lo; k < hi; k++) {
+					int i = order[k];
+					if (x1[i] < xmax && xmin < x2[i] && y1[i] < ymax && ymin < y2[i]) {
+						out[size++] = i;
+					}
+				}
+			}
+		}
+		return size;
+	}
+}
@@ -0,0 +1,292 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.util.objects;
+
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.memory.IStateInt;
+import org.chocosolver.solver.search.strategy.selectors.variables.VariableEvaluator;
+import org.chocosolver.solver.variables.IVariableMonitor;
+import org.chocosolver.solver.variables.Variable;
+import org.chocosolver.solver.variables.events.IEventType;
+
+import java.util.Arrays;
+
+/**
+ * A backtrackable indexed priority queue of variables.
+ * <p>
+ * Variables are ordered by increasing evaluations, compared lexicographically
+ * (each evaluator breaks ties of the previous ones), then by increasing index.
+ * Instantiated variables are ranked last.
+ * <p>
+ * The queue listens to domain events: a modified variable is marked and re-evaluated on the next call to {@link #top()},
+ * in O(log(n)).
+ * Each re-evaluation is logged in a stored way, so that the variables re-evaluated in a world which has been
+ * backtracked are re-evaluated again.
+ * Thus, getting the best variable costs O(k.log(n)), where k is the number of variables modified since the previous call.
+ * <p>
+ * The queue is expected to be queried before pushing a new world (for instance, when a decision is computed),
+ * and the evaluations should only depend on the state of the variables,
+ * otherwise {@link #invalidate(Variable)} has to be called on change.
+ * <br/>
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class StoredIndexedHeap<V extends Variable> implements IVariableMonitor<V> {
+
+    /**
+     * Variables to order
+     */
+    private final V[] vars;
+
+    /**
+     * Evaluators, each one breaks ties of the previous ones
+     */
+    private final VariableEvaluator<V>[] evaluators;
+
+    /**
+     * Map (variable id - index of its first occurrence)
+     */
+    private final IntMap v2i;
+
+    /**
+     * Next occurrence of the same variable, -1 if none
+     */
+    private final int[] next;
+
+    /**
+     * Evaluations of the variables, flattened
+     */
+    private final double[] keys;
+
+    /**
+     * Binary heap of variable indices
+     */
+    private final int[] heap;
+
+    /**
+     * Position of each variable in the heap
+     */
+    private final int[] pos;
+
+    /**
+     * Variables to re-evaluate
+     */
+    private final int[] dirty;
+
+    /**
+     * Number of variables to re-evaluate
+     */
+    private int nbDirty;
+
+    /**
+     * Set to <i>true</i> when a variable is in {@link #dirty}
+     */
+    private final boolean[] isDirty;
+
+    /**
+     * Re-evaluated variables, in chronological order
+     */
+    private int[] log;
+
+    /**
+     * Size of the log, known by the queue
+     */
+    private int logSize;
+
+    /**
+     * Size of the log, in the current world
+     */
+    private final IStateInt storedLogSize;
+
+    /**
+     * Creates a backtrackable priority queue of <i>variables</i>.
+     * The queue is plugged to the variables as a monitor.
+     *
+     * @param environment backtracking environment
+     * @param variables   variables to order
+     * @param evaluators  evaluators, the first one has the highest priority
+     */
+    @SafeVarargs
+    public StoredIndexedHeap(IEnvironment environment, V[] variables, VariableEvaluator<V>... evaluators) {
+        int n = variables.length;
+        this.vars = variables;
+        this.evaluators = evaluators;
+        this.v2i = new IntMap(n * 3 / 2 + 1, -1);
+        this.next = new int[n];
+        this.keys = new double[n * evaluators.length];
+        this.heap = new int[n];
+        this.pos = new int[n];
+        this.dirty = new int[n];
+        this.isDirty = new boolean[n];
+        this.log = new int[Math.max(16, n)];
+        for (int i = n - 1; i >= 0; i--) {
+            next[i] = v2i.get(variables[i].getId());
+            if (next[i] == -1) {
+                variables[i].addMonitor(this);
+            }
+            v2i.put(variables[i].getId(), i);
+            evaluate(i);
+            heap[i] = i;
+            pos[i] = i;
+            log[logSize++] = i;
+        }
+        for (int k = n / 2 - 1; k >= 0; k--) {
+            siftDown(k);
+        }
+        this.storedLogSize = environment.makeInt(logSize);
+    }
+
+    /**
+     * Returns the variable with the lowest evaluations, if not instantiated.
+     *
+     * @return the best variable, or <i>null</i> if all variables are instantiated
+     */
+    public V top() {
+        int n = storedLogSize.get();
+        // the variables re-evaluated in a backtracked world may be out-of-date
+        while (logSize > n) {
+            mark(log[--logSize]);
+        }
+        for (int k = 0; k < nbDirty; k++) {
+            int i = dirty[k];
+            isDirty[i] = false;
+            update(i);
+            if (logSize == log.length) {
+                log = Arrays.copyOf(log, logSize * 3 / 2 + 1);
+            }
+            log[logSize++] = i;
+        }
+        nbDirty = 0;
+        storedLogSize.set(logSize);
+        if (vars.length == 0 || vars[heap[0]].isInstantiated()) {
+            return null;
+        }
+        return vars[heap[0]];
+    }
+
+    /**
+     * Forces the re-evaluation of <i>var</i> on the next call to {@link #top()}.
+     * This is needed when its evaluation depends on a non-backtrackable data which has changed.
+     *
+     * @param var a variable of the queue
+     */
+    public void invalidate(V var) {
+        for (int i = v2i.get(var.getId()); i > -1; i = next[i]) {
+            mark(i);
+        }
+    }
+
+    /**
+     * Unplugs the queue from the variables.
+     */
+    public void detach() {
+        for (int i = 0; i < vars.length; i++) {
+            if (v2i.get(vars[i].getId()) == i) {
+                vars[i].removeMonitor(this);
+            }
+        }
+    }
+
+    @Override
+    public void onUpdate(V var, IEventType evt) {
+        invalidate(var);
+    }
+
+    private void mark(int i) {
+        if (!isDirty[i]) {
+            isDirty[i] = true;
+            dirty[nbDirty++] = i;
+        }
+    }
+
+    private void evaluate(int i) {
+        int m = evaluators.length;
+        boolean inst = vars[i].isInstantiated();
+        for (int e = 0; e < m; e++) {
+            keys[i * m + e] = inst ? Double.POSITIVE_INFINITY : evaluators[e].evaluate(vars[i]);
+        }
+    }
+
+    private int compare(int i, int j) {
+        int m = evaluators.length;
+        for (int e = 0; e < m; e++) {
+            int c = Double.compare(keys[i * m + e], keys[j * m + e]);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return Integer.compare(i, j);
+    }
+
+    private void update(int i) {
+        evaluate(i);
+        int k = pos[i];
+        siftUp(k);
+        if (heap[k] == i) {
+            siftDown(k);
+        }
+    }
+
+    private void siftUp(int k) {
+        int i = heap[k];
+        while (k > 0) {
+            int p = (k - 1) >> 1;
+            if (compare(i, heap[p]) >= 0) {
+                break;
+            }
+            heap[k] = heap[p];
+            pos[heap[k]] = k;
+            k = p;
+        }
+        heap[k] = i;
+        pos[i] = k;
+    }
+
+    private void siftDown(int k) {
+        int n = heap.length;
+        int i = heap[k];
+        int half = n >> 1;
+        while (k < half) {
+            int c = 2 * k + 1;
+            if (c + 1 < n && compare(heap[c + 1], heap[c]) < 0) {
+                c++;
+            }
+            if (compare(heap[c], i) >= 0) {
+                break;
+            }
+            heap[k] = heap[c];
+            pos[heap[k]] = k;
+            k = c;
+        }
+        heap[k] = i;
+        pos[i] = k;
+    }
+}
@@ -29,13 +29,14 @@
  */
 package org.chocosolver.util.objects.graphs;
 
-import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.hash.TIntIntHashMap;
+import org.chocosolver.solver.Model;
 import org.chocosolver.solver.constraints.extension.Tuples;
 import org.chocosolver.solver.variables.IntVar;
 
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * A Multi-valued Decision Diagram (MDD for short) to store
@@ -54,6 +55,11 @@ public class MultivaluedDecisionDiagram  {
      */
     public static final int EMPTY = 0;
 
+    /**
+     * Name of the model hook which stores the MDDs already built
+     */
+    private static final String HOOK = MultivaluedDecisionDiagram.class.getName();
+
     /**
      * Store the number of variables
      */
@@ -82,8 +88,8 @@ public class MultivaluedDecisionDiagram  {
 
     // TEMPORARY DATA STRUCTURE, PREFIX WITH "_", CLEARED AFTER USAGE
     private TIntIntHashMap _nodesToRemove; // store the nodes to remove and the size of each node
-    private ArrayList<int[]>[][] _identicalNodes; // store child nodes of a node
-    private TIntArrayList[][] _nodeId; // store node id per layer and nb of mdds
+    private HashMap<Node, Integer> _uniqueTable; // store the unique node of each layer with given children
+    private TIntIntHashMap _visited; // store the nodes already analyzed and their unique representative
     private int _removedCells; // define the number of cells erased by the compaction
     private int[] _pos;
 
@@ -160,14 +166,45 @@ public class MultivaluedDecisionDiagram  {
         init(TUPLES);
     }
 
+    /**
+     * Return an MDD storing TUPLES wrt the initial domains of VARIABLES.
+     * MDDs are stored in MODEL and shared: an MDD is built once for a given set of tuples and given domains,
+     * and two MDDs with identical diagrams are merged.
+     * TUPLES should not be modified after this call.
+     *
+     * @param MODEL     a model, which stores the MDDs already built
+     * @param VARIABLES array of variables
+     * @param TUPLES    set of (allowed) tuples
+     * @return a MDD, possibly shared with other constraints
+     */
     @SuppressWarnings("unchecked")
+    public static MultivaluedDecisionDiagram get(Model MODEL, IntVar[] VARIABLES, Tuples TUPLES) {
+        Map<Object, MultivaluedDecisionDiagram> mdds = (Map<Object, MultivaluedDecisionDiagram>) MODEL.getHook(HOOK);
+        if (mdds == null) {
+            mdds = new HashMap<>();
+            MODEL.addHook(HOOK, mdds);
+        }
+        int[] bounds = new int[2 * VARIABLES.length];
+        for (int i = 0; i < VARIABLES.length; i++) {
+            bounds[2 * i] = VARIABLES[i].getLB();
+            bounds[2 * i + 1] = VARIABLES[i].getUB();
+        }
+        Relation relation = new Relation(TUPLES, bounds);
+        MultivaluedDecisionDiagram mdd = mdds.get(relation);
+        if (mdd == null) {
+            mdd = new MultivaluedDecisionDiagram(VARIABLES, TUPLES);
+            Diagram diagram = new Diagram(mdd);
+            mdd = mdds.computeIfAbsent(diagram, k -> diagram.mdd);
+            mdds.put(relation, mdd);
+        }
+        return mdd;
+    }
+
     private void init(Tuples TUPLES) {
         nextFreeCell = sizes[0];
         _pos = new int[nbLayers];
 
         _nodesToRemove = new TIntIntHashMap(16, .5f, -1, -1);
-        _identicalNodes = new ArrayList[nbLayers][];
-        _nodeId = new TIntArrayList[nbLayers][];
 
         // Then add tuples
         if (TUPLES.nbTuples() > 0) {
@@ -243,16 +280,15 @@ public class MultivaluedDecisionDiagram  {
     /**
      * Compact the MDD by removing equivalent branches
      */
-    @SuppressWarnings("unchecked")
     private void compact() {
         _nodesToRemove.clear();
-        for (int i = 0; i < nbLayers; i++) {
-            _identicalNodes[i] = new ArrayList[sizes[i]];
-            _nodeId[i] = new TIntArrayList[sizes[i]];
-        }
+        _uniqueTable = new HashMap<>();
+        _visited = new TIntIntHashMap(16, .5f, -1, -1);
         _removedCells = 0;
         detectIsomorphism(0, 0);
         deleteIsomorphism();
+        _uniqueTable = null;
+        _visited = null;
     }
 
     /**
@@ -263,51 +299,34 @@ public class MultivaluedDecisionDiagram  {
      * @return the node id
      */
     private int detectIsomorphism(int node, int layer) {
+        // a node shared by several parents is analyzed once
+        int unique = _visited.get(node);
+        if (unique != -1) {
+            return unique;
+        }
         int[] nodeChild = new int[sizes[layer]];
-        int nbChild = -1;
         for (int i = 0; i < sizes[layer]; i++) {
             switch (mdd[node + i]) {
                 case EMPTY: // nothing to be done
                     break;
                 case TERMINAL: // a terminal node
-                    nbChild++;
                     nodeChild[i] = TERMINAL;
                     break;
                 default: // a non terminal node
-                    nbChild++;
                     mdd[node + i] = nodeChild[i] = detectIsomorphism(mdd[node + i], layer + 1);
                     break;
             }
         }
-        boolean known = false;
-        if (_identicalNodes[layer][nbChild] == null) {
-            _identicalNodes[layer][nbChild] = new ArrayList<>();
-            _nodeId[layer][nbChild] = new TIntArrayList();
-        } else {
-            for (int j = _identicalNodes[layer][nbChild].size() - 1; j >= 0; j--) {
-                int[] currentNode = _identicalNodes[layer][nbChild].get(j);
-                boolean found = _nodeId[layer][nbChild].get(j) != node;  // deal with previously analyzed nodes
-                known |= !found;
-                for (int i = currentNode.length - 1; i >= 0 && found; i--) {
-                    if (currentNode[i] != nodeChild[i]) {
-                        found = false;
-                    }
-                }
-                if (found) {
-                    int insert = _nodesToRemove.put(node, sizes[layer]);
-                    if (insert == -1) {
-                        _removedCells += sizes[layer];
-                    }
-                    return _nodeId[layer][nbChild].get(j);
-                }
+        // hash-consing: the first node analyzed with these children, in this layer, is kept
+        unique = _uniqueTable.computeIfAbsent(new Node(layer, nodeChild), k -> node);
+        if (unique != node) {
+            int insert = _nodesToRemove.put(node, sizes[layer]);
+            if (insert == -1) {
+                _removedCells += sizes[layer];
             }
         }
-        if (!known) {
-            _nodeId[layer][nbChild].add(node);
-            _identicalNodes[layer][nbChild].add(nodeChild);
-        }
-
-        return node;
+        _visited.put(node, unique);
+        return unique;
     }
 
     /**
@@ -378,6 +397,13 @@ public class MultivaluedDecisionDiagram  {
         return mdd;
     }
 
+    /**
+     * Return the number of layers of the MDD, that is, the number of variables
+     */
+    public int getNbLayers() {
+        return nbLayers;
+    }
+
     /**
      * Return the initial domain size of the variable in layer
      *
@@ -429,4 +455,87 @@ public class MultivaluedDecisionDiagram  {
         }
         return false;
     }
+
+    /**
+     * Key of the unique table: the layer of a node and its children
+     */
+    private static final class Node {
+
+        private final int layer;
+        private final int[] children;
+        private final int hash;
+
+        Node(int layer, int[] children) {
+            this.layer = layer;
+            this.children = children;
+            this.hash = 31 * layer + Arrays.hashCode(children);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Node)) return false;
+            Node n = (Node) o;
+            return hash == n.hash && layer == n.layer && Arrays.equals(children, n.children);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Key of the MDD store: a set of tuples, compared by reference, and domain bounds
+     */
+    private static final class Relation {
+
+        private final Tuples tuples;
+        private final int nbTuples;
+        private final int[] bounds;
+
+        Relation(Tuples tuples, int[] bounds) {
+            this.tuples = tuples;
+            this.nbTuples = tuples.nbTuples();
+            this.bounds = bounds;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Relation)) return false;
+            Relation r = (Relation) o;
+            return tuples == r.tuples && nbTuples == r.nbTuples && Arrays.equals(bounds, r.bounds);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(tuples) + Arrays.hashCode(bounds);
+        }
+    }
+
+    /**
+     * Key of the MDD store: a diagram, compared by content
+     */
+    private static final class Diagram {
+
+        private final MultivaluedDecisionDiagram mdd;
+        private final int hash;
+
+        Diagram(MultivaluedDecisionDiagram mdd) {
+            this.mdd = mdd;
+            this.hash = 31 * (31 * Arrays.hashCode(mdd.offsets) + Arrays.hashCode(mdd.sizes)) + Arrays.hashCode(mdd.mdd);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Diagram)) return false;
+            Diagram d = (Diagram) o;
+            return hash == d.hash && Arrays.equals(mdd.offsets, d.mdd.offsets) && Arrays.equals(mdd.sizes, d.mdd.sizes)
+                    && Arrays.equals(mdd.mdd, d.mdd.mdd);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
 }
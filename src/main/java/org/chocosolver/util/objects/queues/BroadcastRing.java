@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.util.objects.queues;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * A fixed sized, lock-free, ring buffer with one producer and many consumers.
+ * <br/>
+ * The producer never waits: when the ring is full, the oldest elements are overwritten.
+ * Each consumer keeps its own cursor (the number of elements it has already read)
+ * and reads, with {@link #drain(long, Consumer)}, every element offered since then which is still in the ring.
+ * Elements are expected to be immutable once offered.
+ * <br/>
+ * As in {@link CircularQueue}, the size of the data is automatically set to the closest greater powers of 2 value.
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class BroadcastRing<E> {
+
+    //***********************************************************************************
+    // VARIABLE
+    //***********************************************************************************
+
+    private final AtomicReferenceArray<E> elementData;
+    private final int capacity;
+    private final int mask;
+    /**
+     * Number of elements offered since the creation of the ring, only modified by the producer.
+     */
+    private final AtomicLong published = new AtomicLong();
+
+    //***********************************************************************************
+    // CONSTRUCTOR
+    //***********************************************************************************
+
+    public BroadcastRing(int size) {
+        size = CircularQueue.closestGreater2n(size);
+        elementData = new AtomicReferenceArray<>(size);
+        capacity = size;
+        mask = size - 1;
+    }
+
+    //***********************************************************************************
+    // API
+    //***********************************************************************************
+
+    /**
+     * Adds an element to the ring, possibly overwriting the oldest one.
+     * Must only be called by the producer.
+     *
+     * @param e an element
+     */
+    public void offer(E e) {
+        long p = published.get();
+        elementData.lazySet((int) (p & mask), e);
+        published.lazySet(p + 1);
+    }
+
+    /**
+     * Reads every element offered since <i>cursor</i> which has not been overwritten yet.
+     * Elements are given to the consumer in their offering order.
+     *
+     * @param cursor   the number of elements offered when this consumer last drained this ring (0 at first)
+     * @param consumer action to apply on each element
+     * @return the new cursor of the consumer
+     */
+    public long drain(long cursor, Consumer<E> consumer) {
+        long p = published.get();
+        if (p - cursor > capacity) {
+            cursor = p - capacity;
+        }
+        for (; cursor < p; cursor++) {
+            E e = elementData.get((int) (cursor & mask));
+            // the producer may be writing this slot again, then it is skipped
+            if (published.get() - cursor < capacity) {
+                consumer.accept(e);
+            }
+        }
+        return p;
+    }
+
+    /**
+     * @return the number of elements offered since the creation of this ring
+     */
+    public long published() {
+        return published.get();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
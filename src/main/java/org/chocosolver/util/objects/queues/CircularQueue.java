@@ -261,7 +261,7 @@ public class CircularQueue<E> {
      * @param size the curent number of element
      * @return the powers of 2 value immediately greater to <code>size</code>
      */
-    private static int closestGreater2n(int size) {
+    static int closestGreater2n(int size) {
         if (size == 0) return 2;
         int _size = Integer.highestOneBit(size) << 1;
         assert (_size >= size);
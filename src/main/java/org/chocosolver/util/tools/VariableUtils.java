@@ -34,6 +34,7 @@ import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.solver.variables.RealVar;
 
 import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.stream.IntStream;
 
 import static java.util.Arrays.stream;
@@ -155,12 +156,22 @@ public class VariableUtils {
      * @return computes the bounds for "x / y"
      */
     public static int[] boundsForDivision(IntVar x, IntVar y) {
-        return bound(
-                x.getLB() / y.getLB(),
-                x.getLB() / y.getUB(),
-                x.getUB() / y.getLB(),
-                x.getUB() / y.getUB()
-        );
+        // the quotient is extremal for the extremal divisors on each side of 0, that is, -1 and 1 when y contains 0
+        long[] divs = {
+                y.getLB() == 0 ? 1 : y.getLB(),
+                y.getUB() == 0 ? -1 : y.getUB(),
+                y.getLB() < 0 && y.getUB() > 0 ? -1 : y.getLB(),
+                y.getLB() < 0 && y.getUB() > 0 ? 1 : y.getUB()
+        };
+        long[] values = new long[8];
+        int k = 0;
+        for (long d : divs) {
+            if (d != 0) {
+                values[k++] = x.getLB() / d;
+                values[k++] = x.getUB() / d;
+            }
+        }
+        return k == 0 ? new int[]{0, 0} : bound(Arrays.copyOf(values, k));
     }
 
     /**
@@ -183,23 +194,15 @@ public class VariableUtils {
      * @return computes the bounds for "x % y"
      */
     public static int[] boundsForModulo(IntVar x, IntVar y) {
-        long[] vals = new long[4];
         if (y.isInstantiatedTo(0)) {
-            vals[0] = Integer.MIN_VALUE;
-            vals[1] = Integer.MIN_VALUE;
-            vals[2] = Integer.MAX_VALUE;
-            vals[3] = Integer.MAX_VALUE;
-        } else {
-            int yl = y.getLB();
-            int yu = y.getUB();
-            if (yl == 0) yl = 1;
-            if (yu == 0) yu = 1;
-            vals[0] = x.getLB() % yl;
-            vals[1] = x.getLB() % yu;
-            vals[2] = x.getUB() % yl;
-            vals[3] = x.getUB() % yu;
+            return bound(Integer.MIN_VALUE, Integer.MAX_VALUE);
         }
-        return bound(vals);
+        // the remainder has the sign of x, and is smaller than y in absolute value
+        long m = Math.max(Math.abs((long) y.getLB()), Math.abs((long) y.getUB())) - 1;
+        return bound(
+                x.getLB() >= 0 ? 0 : Math.max(x.getLB(), -m),
+                x.getUB() <= 0 ? 0 : Math.min(x.getUB(), m)
+        );
     }
 
     /**
@@ -340,4 +343,28 @@ public class VariableUtils {
         return Arrays.stream(values).mapToObj(i -> model.intVar(i)).toArray(IntVar[]::new);
     }
 
+    /**
+     * Links the positions of each variable in <i>vars</i>, in one pass:
+     * twins[i] is the next position of <i>vars[i]</i> in <i>vars</i>, circularly,
+     * that is, <i>i</i> itself if the variable appears once.
+     *
+     * @param vars array of variables, which may contain duplicates
+     * @return for each position, the next position of the same variable
+     */
+    public static int[] twins(IntVar... vars) {
+        int[] twins = new int[vars.length];
+        IdentityHashMap<IntVar, Integer> last = new IdentityHashMap<>();
+        for (int i = 0; i < vars.length; i++) {
+            Integer j = last.put(vars[i], i);
+            if (j == null) {
+                twins[i] = i;
+            } else {
+                // insert i after j, the last position found, which points to the first one
+                twins[i] = twins[j];
+                twins[j] = i;
+            }
+        }
+        return twins;
+    }
+
 }
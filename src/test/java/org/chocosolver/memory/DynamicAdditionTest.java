@@ -29,7 +29,6 @@
  */
 package org.chocosolver.memory;
 
-import org.chocosolver.memory.trailing.EnvironmentTrailing;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -44,15 +43,18 @@ public class DynamicAdditionTest {
 
     @DataProvider(name = "env")
     public Object[][] getEnvs(){
-        return new EnvironmentTrailing[][]{
+        return new IEnvironment[][]{
                 {new EnvironmentBuilder().fromFlat().build()},
-                {new EnvironmentBuilder().fromChunk().build()}
+                {new EnvironmentBuilder().fromChunk().build()},
+                {new EnvironmentBuilder().fromUnsafe().build()},
+                {new EnvironmentBuilder().buildCopying()},
+                {new EnvironmentBuilder().buildHybrid()}
         };
     }
 
 
     @Test(groups="1s", timeOut=60000, dataProvider = "env")
-    public void test1(EnvironmentTrailing environment) {
+    public void test1(IEnvironment environment) {
         environment.buildFakeHistoryOn(new Except_0());
         IStateInt a = environment.makeInt(10);
         a.set(11);
@@ -114,7 +116,7 @@ public class DynamicAdditionTest {
     }
 
     @Test(groups="1s", timeOut=60000, dataProvider = "env")
-    public void test2(EnvironmentTrailing environment){
+    public void test2(IEnvironment environment){
         environment.buildFakeHistoryOn(new Except_0());
         int n = 100;
         int m = 100;
@@ -143,7 +145,7 @@ public class DynamicAdditionTest {
     }
 
     @Test(groups="5m", timeOut=300000, dataProvider = "env")
-    public void test3(EnvironmentTrailing environment) {
+    public void test3(IEnvironment environment) {
         environment.buildFakeHistoryOn(new Except_0());
         int n = 50000;
         int m = 3000;
@@ -0,0 +1,239 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.memory;
+
+import org.chocosolver.memory.copying.EnvironmentCopying;
+import org.chocosolver.memory.trailing.EnvironmentTrailing;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.variables.IntVar;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+
+/**
+ * <p>
+ * Project: choco-solver.
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class EnvironmentCopyingTest {
+
+    @DataProvider(name = "env")
+    public Object[][] getEnvs() {
+        return new EnvironmentCopying[][]{
+                {new EnvironmentBuilder().buildCopying()},
+                {new EnvironmentBuilder().buildHybrid()},
+                {new EnvironmentBuilder().setCopyRatio(0.).buildHybrid()},
+        };
+    }
+
+    @Test(groups = "1s", timeOut = 60000, dataProvider = "env")
+    public void testRandom(EnvironmentCopying env) {
+        EnvironmentTrailing ref = new EnvironmentBuilder().fromFlat().build();
+        Random rnd = new Random(0);
+        int n = 50;
+        IStateInt[] ci = new IStateInt[n], ti = new IStateInt[n];
+        IStateBool[] cb = new IStateBool[n], tb = new IStateBool[n];
+        IStateLong[] cl = new IStateLong[n], tl = new IStateLong[n];
+        IStateDouble[] cd = new IStateDouble[n], td = new IStateDouble[n];
+        for (int i = 0; i < n; i++) {
+            ci[i] = env.makeInt(i);
+            ti[i] = ref.makeInt(i);
+            cb[i] = env.makeBool(i % 2 == 0);
+            tb[i] = ref.makeBool(i % 2 == 0);
+            cl[i] = env.makeLong(i);
+            tl[i] = ref.makeLong(i);
+            cd[i] = env.makeFloat(i);
+            td[i] = ref.makeFloat(i);
+        }
+        for (int k = 0; k < 20000; k++) {
+            int op = rnd.nextInt(10);
+            if (op < 2) {
+                env.worldPush();
+                ref.worldPush();
+            } else if (op < 4) {
+                if (env.getWorldIndex() > 0) {
+                    env.worldPop();
+                    ref.worldPop();
+                }
+            } else {
+                int i = rnd.nextInt(n);
+                int v = rnd.nextInt(100);
+                ci[i].set(v);
+                ti[i].set(v);
+                cb[i].set(v % 2 == 0);
+                tb[i].set(v % 2 == 0);
+                cl[i].set(v);
+                tl[i].set(v);
+                cd[i].set(v);
+                td[i].set(v);
+            }
+            Assert.assertEquals(env.getWorldIndex(), ref.getWorldIndex());
+            for (int i = 0; i < n; i++) {
+                Assert.assertEquals(ci[i].get(), ti[i].get());
+                Assert.assertEquals(cb[i].get(), tb[i].get());
+                Assert.assertEquals(cl[i].get(), tl[i].get());
+                Assert.assertEquals(cd[i].get(), td[i].get());
+            }
+        }
+    }
+
+    @Test(groups = "1s", timeOut = 60000, dataProvider = "env")
+    public void testVector(EnvironmentCopying env) {
+        IStateIntVector vec = env.makeIntVector(3, 0);
+        env.worldPush();
+        vec.set(1, 5);
+        vec.add(7);
+        Assert.assertEquals(vec.size(), 4);
+        Assert.assertEquals(vec.get(1), 5);
+        env.worldPush();
+        vec.set(1, 6);
+        vec.remove(0);
+        Assert.assertEquals(vec.deepCopy(), new int[]{6, 0, 7});
+        env.worldPop();
+        Assert.assertEquals(vec.deepCopy(), new int[]{0, 5, 0, 7});
+        env.worldPop();
+        Assert.assertEquals(vec.deepCopy(), new int[]{0, 0, 0});
+    }
+
+    @Test(groups = "1s", timeOut = 60000)
+    public void testAdaptive() {
+        EnvironmentCopying env = new EnvironmentBuilder().setCopyRatio(.1).buildHybrid();
+        IStateInt[] si = new IStateInt[10];
+        for (int i = 0; i < si.length; i++) {
+            si[i] = env.makeInt(0);
+        }
+        // the first world is always trailed
+        env.worldPush();
+        Assert.assertFalse(env.isCopied());
+        boolean copied = false;
+        for (int k = 0; k < 10; k++) {
+            for (int i = 0; i < si.length; i++) {
+                si[i].add(1);
+            }
+            env.worldPop();
+            env.worldPush();
+            copied |= env.isCopied();
+        }
+        Assert.assertTrue(copied);
+        Assert.assertEquals(si[0].get(), 0);
+    }
+
+    @Test(groups = "1s", timeOut = 60000, expectedExceptions = IllegalStateException.class)
+    public void testCommitRoot() {
+        EnvironmentCopying env = new EnvironmentBuilder().buildCopying();
+        env.worldCommit();
+    }
+
+    @Test(groups = "1s", timeOut = 60000, dataProvider = "env")
+    public void testCommit(EnvironmentCopying env) {
+        // the reference is a stack of snapshots: committing a world drops its snapshot
+        Deque<int[]> ref = new ArrayDeque<>();
+        Random rnd = new Random(0);
+        int n = 50;
+        int[] values = new int[n];
+        IStateInt[] ci = new IStateInt[n];
+        IStateBool[] cb = new IStateBool[n];
+        IStateLong[] cl = new IStateLong[n];
+        IStateDouble[] cd = new IStateDouble[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = i;
+            ci[i] = env.makeInt(i);
+            cb[i] = env.makeBool(i % 2 == 0);
+            cl[i] = env.makeLong(i);
+            cd[i] = env.makeFloat(i);
+        }
+        IStateIntVector cv = env.makeIntVector(n, 0);
+        for (int i = 0; i < n; i++) {
+            cv.quickSet(i, i);
+        }
+        for (int k = 0; k < 20000; k++) {
+            int op = rnd.nextInt(10);
+            if (op < 2) {
+                env.worldPush();
+                ref.push(values.clone());
+            } else if (op < 3) {
+                if (env.getWorldIndex() > 0) {
+                    env.worldPop();
+                    values = ref.pop();
+                }
+            } else if (op < 4) {
+                if (env.getWorldIndex() > 0) {
+                    env.worldCommit();
+                    ref.pop();
+                }
+            } else {
+                int i = rnd.nextInt(n);
+                int v = rnd.nextInt(100);
+                values[i] = v;
+                ci[i].set(v);
+                cb[i].set(v % 2 == 0);
+                cl[i].set(v);
+                cd[i].set(v);
+                cv.quickSet(i, v);
+            }
+            Assert.assertEquals(env.getWorldIndex(), ref.size());
+            for (int i = 0; i < n; i++) {
+                Assert.assertEquals(ci[i].get(), values[i]);
+                Assert.assertEquals(cb[i].get(), values[i] % 2 == 0);
+                Assert.assertEquals(cl[i].get(), values[i]);
+                Assert.assertEquals(cd[i].get(), values[i], 0.);
+                Assert.assertEquals(cv.quickGet(i), values[i]);
+            }
+        }
+    }
+
+    @Test(groups = "1s", timeOut = 60000, dataProvider = "env")
+    public void testSolve(EnvironmentCopying env) {
+        Model ref = new Model();
+        Model model = new Model(env, "copying");
+        for (Model m : new Model[]{ref, model}) {
+            int n = 8;
+            IntVar[] vars = m.intVarArray("Q", n, 1, n, false);
+            m.allDifferent(vars, "BC").post();
+            for (int i = 0; i < n - 1; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    int k = j - i;
+                    m.arithm(vars[i], "!=", vars[j], "+", -k).post();
+                    m.arithm(vars[i], "!=", vars[j], "+", k).post();
+                }
+            }
+        }
+        while (ref.getSolver().solve()) ;
+        while (model.getSolver().solve()) ;
+        Assert.assertEquals(model.getSolver().getSolutionCount(), ref.getSolver().getSolutionCount());
+        Assert.assertEquals(model.getSolver().getNodeCount(), ref.getSolver().getNodeCount());
+    }
+}
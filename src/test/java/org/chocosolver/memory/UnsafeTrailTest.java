@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.memory;
+
+import org.chocosolver.memory.trailing.EnvironmentTrailing;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+/**
+ * <p>
+ * Project: choco-solver.
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class UnsafeTrailTest {
+
+    @Test(groups = "1s", timeOut = 60000)
+    public void testRandom() {
+        EnvironmentTrailing env = new EnvironmentBuilder().setWorldSize(16).setWorldNumber(4).fromUnsafe().build();
+        EnvironmentTrailing ref = new EnvironmentBuilder().fromFlat().build();
+        env.buildFakeHistoryOn(new Except_0());
+        ref.buildFakeHistoryOn(new Except_0());
+        Random rnd = new Random(0);
+        int n = 2000;
+        IStateInt[] ui = new IStateInt[n], ti = new IStateInt[n];
+        IStateBool[] ub = new IStateBool[n], tb = new IStateBool[n];
+        IStateLong[] ul = new IStateLong[n], tl = new IStateLong[n];
+        IStateDouble[] ud = new IStateDouble[n], td = new IStateDouble[n];
+        int size = 0;
+        for (int k = 0; k < 200000; k++) {
+            int op = rnd.nextInt(100);
+            if (op < 3 || size == 0) {
+                if (size < n) {
+                    ui[size] = env.makeInt(size);
+                    ti[size] = ref.makeInt(size);
+                    ub[size] = env.makeBool(size % 2 == 0);
+                    tb[size] = ref.makeBool(size % 2 == 0);
+                    ul[size] = env.makeLong(size);
+                    tl[size] = ref.makeLong(size);
+                    ud[size] = env.makeFloat(size);
+                    td[size] = ref.makeFloat(size);
+                    size++;
+                }
+            } else if (op < 8) {
+                env.worldPush();
+                ref.worldPush();
+            } else if (op < 12) {
+                if (env.getWorldIndex() > 0) {
+                    env.worldPop();
+                    ref.worldPop();
+                }
+            } else {
+                int i = rnd.nextInt(size);
+                int v = rnd.nextInt(100);
+                ui[i].set(v);
+                ti[i].set(v);
+                ub[i].set(v % 2 == 0);
+                tb[i].set(v % 2 == 0);
+                ul[i].set(v);
+                tl[i].set(v);
+                ud[i].set(v);
+                td[i].set(v);
+            }
+        }
+        while (env.getWorldIndex() >= 0) {
+            for (int i = 0; i < size; i++) {
+                Assert.assertEquals(ui[i].get(), ti[i].get());
+                Assert.assertEquals(ub[i].get(), tb[i].get());
+                Assert.assertEquals(ul[i].get(), tl[i].get());
+                Assert.assertEquals(ud[i].get(), td[i].get());
+                Assert.assertEquals(ui[i].getTimeStamp(), ti[i].getTimeStamp());
+            }
+            if (env.getWorldIndex() == 0) {
+                break;
+            }
+            env.worldPop();
+            ref.worldPop();
+        }
+    }
+
+    @Test(groups = "1s", timeOut = 60000)
+    public void testSegments() {
+        EnvironmentTrailing env = new EnvironmentBuilder().setWorldSize(16).fromUnsafe().build();
+        int n = 10000;
+        IStateInt[] si = new IStateInt[n];
+        for (int i = 0; i < n; i++) {
+            si[i] = env.makeInt(i);
+        }
+        for (int w = 0; w < 3; w++) {
+            env.worldPush();
+            for (int i = 0; i < n; i++) {
+                si[i].add(1);
+            }
+        }
+        for (int w = 3; w > 0; w--) {
+            env.worldPop();
+            for (int i = 0; i < n; i++) {
+                Assert.assertEquals(si[i].get(), i + w - 1);
+            }
+        }
+    }
+}
@@ -309,4 +309,95 @@ public class PropNogoodsTest {
             Assert.fail();
         }
     }
-}
\ No newline at end of file
+
+    @Test(groups="1s", timeOut=60000)
+    public void testReduceLearnts() throws ContradictionException {
+        for (int i = 0; i < 4; i++) {
+            int l2 = (i & 1) == 0 ? lits[2] : SatSolver.negated(lits[2]);
+            int l4 = (i & 2) == 0 ? lits[4] : SatSolver.negated(lits[4]);
+            PNG.addLearnt(lits[0], l2, l4);
+            int l3 = (i & 1) == 0 ? lits[3] : SatSolver.negated(lits[3]);
+            int l5 = (i & 2) == 0 ? lits[5] : SatSolver.negated(lits[5]);
+            PNG.addLearnt(lits[1], l3, l5);
+        }
+        Assert.assertEquals(PNG.getNbLearnts(), 8);
+        // clauses whose watched literals are known may explain the current domains: they are kept
+        vars[0].getModel().getEnvironment().worldPush();
+        vars[0].instantiateTo(0, Cause.Null);
+        vars[1].instantiateTo(0, Cause.Null);
+        Assert.assertEquals(PNG.reduceLearnts(), 0);
+        vars[0].getModel().getEnvironment().worldPop();
+        // the oldest, thus least active, clauses are removed
+        Assert.assertEquals(PNG.reduceLearnts(), 4);
+        Assert.assertEquals(PNG.getNbLearnts(), 4);
+        Assert.assertEquals(PNG.reduceLearnts(), 2);
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testSimplifyLearnts() throws ContradictionException {
+        PNG.addLearnt(lits[0], lits[2]);
+        PNG.addLearnt(lits[0], lits[2], lits[4]);
+        PNG.addLearnt(lits[1], lits[3]);
+        PNG.addLearnt(SatSolver.negated(lits[1]), lits[3], lits[5]);
+        Assert.assertEquals(PNG.getNbLearnts(), 4);
+        Assert.assertEquals(PNG.getNbLearntLiterals(), 10);
+        // the second clause is subsumed, the fourth one is strengthened into (lits[3] or lits[5])
+        Assert.assertEquals(PNG.simplifyLearnts(), 2);
+        Assert.assertEquals(PNG.getNbLearnts(), 3);
+        Assert.assertEquals(PNG.getNbLearntLiterals(), 6);
+        // nothing new to simplify
+        Assert.assertEquals(PNG.simplifyLearnts(), 0);
+        vars[1].instantiateTo(1, Cause.Null);
+        PNG.propagate(2);
+        Assert.assertTrue(vars[0].isInstantiatedTo(0));
+        Assert.assertTrue(vars[2].getUB() <= 0);
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testPermanentLearnts() throws ContradictionException {
+        // observers, e.g. ParallelPortfolio, are told which clauses are permanent
+        int[] nbPermanent = new int[2];
+        PNG.setLearntObserver((cl, permanent) -> nbPermanent[permanent ? 1 : 0]++);
+        for (int i = 0; i < 4; i++) {
+            int l2 = (i & 1) == 0 ? lits[2] : SatSolver.negated(lits[2]);
+            int l4 = (i & 2) == 0 ? lits[4] : SatSolver.negated(lits[4]);
+            PNG.addPermanentLearnt(lits[0], l2, l4);
+        }
+        PNG.addLearnt(lits[1], lits[3], lits[5]);
+        Assert.assertEquals(nbPermanent, new int[]{1, 4});
+        Assert.assertEquals(PNG.getNbLearnts(), 5);
+        Assert.assertEquals(PNG.reduceLearnts(), 1);
+        Assert.assertEquals(PNG.reduceLearnts(), 0);
+        Assert.assertEquals(PNG.getNbLearnts(), 4);
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testMaxLearntLiterals() throws ContradictionException {
+        PNG.setMaxLearntLiterals(9);
+        for (int i = 0; i < 4; i++) {
+            int l2 = (i & 1) == 0 ? lits[2] : SatSolver.negated(lits[2]);
+            int l4 = (i & 2) == 0 ? lits[4] : SatSolver.negated(lits[4]);
+            PNG.addLearnt(lits[0], l2, l4);
+            Assert.assertTrue(PNG.getNbLearntLiterals() <= 9);
+        }
+        Assert.assertEquals(PNG.getNbLearnts(), 2);
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testMaxLearntLiteralsExceededByPermanents() throws ContradictionException {
+        PNG.setMaxLearntLiterals(9);
+        for (int i = 0; i < 4; i++) {
+            int l2 = (i & 1) == 0 ? lits[2] : SatSolver.negated(lits[2]);
+            int l4 = (i & 2) == 0 ? lits[4] : SatSolver.negated(lits[4]);
+            PNG.addPermanentLearnt(lits[0], l2, l4);
+        }
+        Assert.assertEquals(PNG.getNbLearntLiterals(), 12);
+        // the store is above the limit, but it is not reduced again until it grows by a quarter
+        PNG.addLearnt(lits[1], lits[3], lits[5]);
+        Assert.assertEquals(PNG.getNbLearnts(), 5);
+        PNG.addLearnt(lits[1], SatSolver.negated(lits[3]), lits[5]);
+        Assert.assertEquals(PNG.getNbLearnts(), 5);
+        Assert.assertEquals(PNG.getNbLearntLiterals(), 15);
+    }
+
+}
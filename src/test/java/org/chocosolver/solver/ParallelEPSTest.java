@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver;
+
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.util.ESat;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import static org.chocosolver.solver.ModelTest.knapsack;
+
+/**
+ * <br/>
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class ParallelEPSTest {
+
+    private static Model queens(int n) {
+        Model model = new Model("queens-" + n);
+        IntVar[] q = model.intVarArray("Q", n, 1, n, false);
+        model.allDifferent(q, "BC").post();
+        for (int i = 0; i < n - 1; i++) {
+            for (int j = i + 1; j < n; j++) {
+                model.arithm(q[i], "!=", q[j], "+", j - i).post();
+                model.arithm(q[i], "!=", q[j], "-", j - i).post();
+            }
+        }
+        return model;
+    }
+
+    @Test(groups = "1s", timeOut = 60000)
+    public void testOptimization() {
+        for (int iter = 0; iter < 10; iter++) {
+            ParallelEPS eps = new ParallelEPS();
+            for (int i = 0; i < 4; i++) {
+                eps.addModel(knapsack());
+            }
+            Assert.assertTrue(eps.solve());
+            Assert.assertTrue(eps.isSearchCompleted());
+            Assert.assertTrue(eps.getNbSubProblems() >= 4);
+            Model finder = eps.getBestModel();
+            Assert.assertNotNull(finder);
+            Assert.assertEquals(eps.getBestSolution().getIntVal((IntVar) finder.getObjective()), 51);
+            for (Model m : eps.getModels()) {
+                Assert.assertEquals(m.getSolver().getObjectiveManager().getBestSolutionValue(), 51);
+            }
+        }
+    }
+
+    @Test(groups = "1s", timeOut = 60000)
+    public void testSatisfaction() {
+        ParallelEPS eps = new ParallelEPS(10);
+        for (int i = 0; i < 4; i++) {
+            eps.addModel(queens(12));
+        }
+        Assert.assertTrue(eps.solve());
+        Model finder = eps.getBestModel();
+        Assert.assertNotNull(finder);
+        Assert.assertEquals(finder.getSolver().isSatisfied(), ESat.TRUE);
+        Assert.assertTrue(eps.getNbSubProblems() >= 40);
+    }
+
+    @Test(groups = "1s", timeOut = 60000)
+    public void testNoSolution() {
+        ParallelEPS eps = new ParallelEPS(5);
+        for (int i = 0; i < 3; i++) {
+            eps.addModel(queens(3));
+        }
+        Assert.assertFalse(eps.solve());
+        Assert.assertTrue(eps.isSearchCompleted());
+        Assert.assertNull(eps.getBestModel());
+        Assert.assertNull(eps.getBestSolution());
+    }
+
+    @Test(groups = "1s", timeOut = 60000)
+    public void testOneWorker() {
+        ParallelEPS eps = new ParallelEPS(8);
+        eps.addModel(knapsack());
+        Assert.assertTrue(eps.solve());
+        Assert.assertEquals(eps.getBestModel().getSolver().getObjectiveManager().getBestSolutionValue(), 51);
+    }
+}
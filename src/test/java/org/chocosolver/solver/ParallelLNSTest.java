@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver;
+
+import org.chocosolver.solver.exception.SolverException;
+import org.chocosolver.solver.search.limits.FailCounter;
+import org.chocosolver.solver.search.loop.lns.neighbors.RandomNeighborhood;
+import org.chocosolver.solver.search.strategy.Search;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.util.ProblemMaker;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class ParallelLNSTest {
+
+    private static IntVar[] ticks(Model model, int seed) {
+        IntVar[] ticks = (IntVar[]) model.getHook("ticks");
+        model.getSolver().setSearch(Search.randomSearch(ticks, seed));
+        return ticks;
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testGolomb() {
+        ParallelLNS plns = new ParallelLNS();
+        for (int i = 0; i < 4; i++) {
+            Model model = ProblemMaker.makeGolombRuler(7);
+            model.getSolver().limitNode(3000);
+            plns.addModel(model, ticks(model, i));
+        }
+        Assert.assertTrue(plns.solve());
+        int[] best = plns.getBestValues();
+        Assert.assertEquals(best[best.length - 1], plns.getBestObjective());
+        Assert.assertTrue(plns.getBestObjective() >= 25);
+        for (Model m : plns.getModels()) {
+            // no worker publishes a solution worse than the incumbent
+            Assert.assertTrue(m.getSolver().getBestSolutionValue().intValue() >= plns.getBestObjective());
+        }
+        Assert.assertNotNull(plns.getBestModel());
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testReseed() {
+        ParallelLNS plns = new ParallelLNS();
+        Model m1 = ProblemMaker.makeGolombRuler(6);
+        m1.getSolver().limitNode(5000);
+        plns.addModel(m1, ticks(m1, 0), null, new FailCounter(m1, 50));
+        Model m2 = ProblemMaker.makeGolombRuler(6);
+        m2.getSolver().limitNode(5000);
+        IntVar[] t2 = ticks(m2, 1);
+        plns.addModel(m2, t2, new RandomNeighborhood(t2, 3, 1), new FailCounter(m2, 50));
+        plns.solve();
+        Assert.assertEquals(plns.getBestObjective(), 17);
+        // the worker which did not find the optimum has been re-seeded with it
+        Assert.assertEquals(m1.getSolver().getBestSolutionValue().intValue(), 17);
+        Assert.assertEquals(m2.getSolver().getBestSolutionValue().intValue(), 17);
+    }
+
+    @Test(groups="1s", timeOut=60000, expectedExceptions = SolverException.class)
+    public void testSatisfaction() {
+        ParallelLNS plns = new ParallelLNS();
+        Model model = ProblemMaker.makeNQueenWithBinaryConstraints(4);
+        plns.addModel(model, (IntVar[]) model.getHook("vars"));
+        plns.solve();
+    }
+
+    @Test(groups="1s", timeOut=60000, expectedExceptions = SolverException.class)
+    public void testNoSolution() {
+        new ParallelLNS().getBestObjective();
+    }
+}
@@ -29,6 +29,7 @@
  */
 package org.chocosolver.solver;
 
+import org.chocosolver.solver.search.limits.FailCounter;
 import org.chocosolver.solver.search.restart.MonotonicRestartStrategy;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -102,6 +103,27 @@ public class PortFolioTest {
     }
 
 
+    @Test(groups="1s", timeOut=60000)
+    public void testNogoodSharing() {
+        for (int iter = 0; iter < 20; iter++) {
+            ParallelPortfolio pares = new ParallelPortfolio(false);
+            for (int i = 0; i < 4; i++) {
+                Model m = knapsack();
+                m.getSolver().setSearch(randomSearch(m.retrieveIntVars(true), iter * 4 + i));
+                m.getSolver().setGeometricalRestart(10, 1.1d, new FailCounter(m, 10), 100);
+                m.getSolver().setNoGoodRecordingFromRestarts();
+                pares.addModel(m);
+            }
+            while(pares.solve());
+            Model finder = pares.getBestModel();
+            Assert.assertNotNull(finder);
+            Assert.assertEquals(finder.getSolver().getObjectiveManager().getBestSolutionValue(), 51);
+            for (Model m : pares.getModels()) {
+                Assert.assertEquals(m.getSolver().getObjectiveManager().getBestSolutionValue(), 51);
+            }
+        }
+    }
+
     @Test(groups="5m", timeOut=300000)
     public void testP2() {
         for (int iter = 0; iter < 500; iter++) {
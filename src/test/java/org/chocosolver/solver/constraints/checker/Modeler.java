@@ -34,6 +34,7 @@ import gnu.trove.map.hash.THashMap;
 import org.chocosolver.solver.Model;
 import org.chocosolver.solver.Settings;
 import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.constraints.extension.nary.PropLargeMDD4R;
 import org.chocosolver.solver.constraints.nary.nValue.PropAtLeastNValues_AC;
 import org.chocosolver.solver.constraints.nary.nValue.PropAtMostNValues_BC;
 import org.chocosolver.solver.variables.BoolVar;
@@ -727,6 +728,27 @@ public interface Modeler {
         }
     };
 
+    Modeler modelmdd4rAC = new Modeler() {
+        @Override
+        public Model model(int n, int[][] domains, THashMap<int[], IntVar> map, Object parameters) {
+            Model s = new Model("mdd4r_(sum)" + n);
+            IntVar[] vars = new IntVar[n];
+            for (int i = 0; i < vars.length; i++) {
+                vars[i] = s.intVar("v_" + i, domains[i]);
+                if (map != null) map.put(domains[i], vars[i]);
+            }
+
+            new Constraint("mdd4r", new PropLargeMDD4R((MultivaluedDecisionDiagram) parameters, vars)).post();
+            s.getSolver().setSearch(randomSearch(vars, 0));
+            return s;
+        }
+
+        @Override
+        public String name() {
+            return "modelmdd4rAC";
+        }
+    };
+
     Modeler modelivpcAC = new Modeler() {
         @Override
         public Model model(int n, int[][] domains, THashMap<int[], IntVar> map, Object parameters) {
@@ -338,6 +338,7 @@ public class TestCorrectness {
                             }
                         }, true, doms);
                 CorrectnessChecker.checkCorrectness(Modeler.modelmddcAC, n, -n / 2, n / 2, seed, new MultivaluedDecisionDiagram(doms, tuples));
+                CorrectnessChecker.checkCorrectness(Modeler.modelmdd4rAC, n, -n / 2, n / 2, seed, new MultivaluedDecisionDiagram(doms, tuples));
             }
         }
     }
@@ -32,6 +32,10 @@ package org.chocosolver.solver.constraints.nary;
 import org.chocosolver.solver.Cause;
 import org.chocosolver.solver.Model;
 import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.constraints.nary.alldifferent.PropAllDiffInst;
+import org.chocosolver.solver.constraints.nary.alldifferent.conditions.Condition;
+import org.chocosolver.solver.constraints.nary.alldifferent.conditions.PropCondAllDiff_AC;
 import org.chocosolver.solver.exception.ContradictionException;
 import org.chocosolver.solver.variables.IntVar;
 import org.testng.annotations.Test;
@@ -40,6 +44,7 @@ import java.util.Random;
 
 import static org.chocosolver.solver.constraints.checker.DomainBuilder.buildFullDomains;
 import static org.chocosolver.solver.search.strategy.Search.inputOrderLBSearch;
+import static org.chocosolver.solver.search.strategy.Search.randomSearch;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 
@@ -338,4 +343,66 @@ public class AllDifferentTest {
         assertEquals(X[14].getLB(), -16);
         assertEquals(X[14].getDomainSize(), 2);
     }
-}
\ No newline at end of file
+
+    @Test(groups="1s", timeOut=60000)
+    public void testBitset1() {
+        // same fixpoint as the former algorithm, on single and multi-word adjacency, with or without value offsets
+        for (int seed = 0; seed < 14; seed++) {
+            int n = seed < 10 ? 8 : 70;
+            int k = seed % 2 == 0 ? 1 : 1000;
+            long[] res1 = bitset(seed, n, k, true);
+            long[] res2 = bitset(seed, n, k, false);
+            assertEquals(res1[0], res2[0], "wrong nb solutions, seed=" + seed);
+            assertEquals(res1[1], res2[1], "wrong nb nodes, seed=" + seed);
+        }
+    }
+
+    private static long[] bitset(int seed, int n, int k, boolean bitset) {
+        Random rd = new Random(seed);
+        Model model = new Model();
+        IntVar[] X = new IntVar[n];
+        for (int i = 0; i < n; i++) {
+            int[] dom = new int[1 + rd.nextInt(n < 64 ? 4 : 12)];
+            for (int j = 0; j < dom.length; j++) {
+                dom[j] = rd.nextInt(n + n / 4) * k;
+            }
+            X[i] = model.intVar("X" + i, dom);
+        }
+        if (bitset) {
+            model.allDifferent(X, "AC").post();
+        } else {
+            new Constraint("AllDifferent", new PropAllDiffInst(X), new PropCondAllDiff_AC(X, Condition.TRUE)).post();
+        }
+        model.getSolver().setSearch(inputOrderLBSearch(X));
+        model.getSolver().limitSolution(50);
+        while (model.getSolver().solve()) ;
+        return new long[]{model.getSolver().getSolutionCount(), model.getSolver().getNodeCount()};
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testBitset2() {
+        // pigeons
+        Model model = new Model();
+        IntVar[] X = model.intVarArray("X", 100, 0, 98);
+        model.allDifferent(X, "AC").post();
+        assertEquals(model.getSolver().solve(), false);
+        assertEquals(model.getSolver().getNodeCount(), 0);
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testBitset3() {
+        for (int n = 4; n < 9; n++) {
+            Model model = new Model();
+            IntVar[] X = model.intVarArray("X", n, 0, n - 1);
+            model.allDifferent(X, "AC").post();
+            model.getSolver().setSearch(randomSearch(X, n));
+            while (model.getSolver().solve()) ;
+            long f = 1;
+            for (int i = 2; i <= n; i++) {
+                f *= i;
+            }
+            assertEquals(model.getSolver().getSolutionCount(), f);
+            assertEquals(model.getSolver().getFailCount(), 0);
+        }
+    }
+}
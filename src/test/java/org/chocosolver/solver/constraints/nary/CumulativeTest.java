@@ -32,10 +32,14 @@ package org.chocosolver.solver.constraints.nary;
 import org.chocosolver.solver.Model;
 import org.chocosolver.solver.Solver;
 import org.chocosolver.solver.constraints.nary.cumulative.Cumulative;
+import org.chocosolver.solver.exception.ContradictionException;
 import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.solver.variables.Task;
+import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.Random;
+
 import static org.chocosolver.solver.search.strategy.Search.lastConflict;
 import static org.chocosolver.solver.search.strategy.Search.randomSearch;
 
@@ -173,4 +177,142 @@ public class CumulativeTest {
 				throw new UnsupportedOperationException();
 		}
 	}
+
+	@Test(groups="1s", timeOut=60000)
+	public void testEdgeFinding() throws ContradictionException {
+		// A and B fill [0,5), C has to start after them
+		IntVar sC = propagateABC(Cumulative.Filter.EDGE_FINDING);
+		Assert.assertEquals(sC.getLB(), 5);
+		sC = propagateABC(Cumulative.Filter.TIME);
+		Assert.assertEquals(sC.getLB(), 3);
+	}
+
+	@Test(groups="1s", timeOut=60000)
+	public void testTimeTableEdgeFinding() throws ContradictionException {
+		IntVar sC = propagateABC(Cumulative.Filter.TIME_TABLE_EDGE_FINDING);
+		Assert.assertEquals(sC.getLB(), 5);
+	}
+
+	@Test(groups="1s", timeOut=60000)
+	public void testNotFirst() throws ContradictionException {
+		// A and B fill [0,4), a long task starting before one of them ends overloads [0,4)
+		Model model = new Model();
+		Task[] t = new Task[3];
+		t[0] = task(model, "A", 0, 2, 2);
+		t[1] = task(model, "B", 0, 2, 2);
+		t[2] = task(model, "I", 0, 10, 10);
+		IntVar[] h = model.intVarArray("h", 3, 1, 1);
+		new Cumulative(t, h, model.intVar(1), false, Cumulative.Filter.NOT_FIRST_NOT_LAST).post();
+		model.getSolver().propagate();
+		Assert.assertEquals(t[2].getStart().getLB(), 2);
+	}
+
+	private static IntVar propagateABC(Cumulative.Filter filter) throws ContradictionException {
+		Model model = new Model();
+		Task[] t = new Task[3];
+		t[0] = task(model, "A", 0, 2, 3);
+		t[1] = task(model, "B", 0, 3, 2);
+		t[2] = task(model, "C", 0, 17, 3);
+		IntVar[] h = model.intVarArray("h", 3, 1, 1);
+		new Cumulative(t, h, model.intVar(1), false, filter).post();
+		model.getSolver().propagate();
+		return t[2].getStart();
+	}
+
+	@Test(groups="1s", timeOut=60000)
+	public void testThetaFiltersLarge() throws ContradictionException {
+		// tasks are placed around a feasible schedule, which must not be filtered out
+		Random rnd = new Random(0);
+		int n = 2000;
+		int[] p = new int[n], h = new int[n], start = new int[n];
+		int[] usage = new int[20000];
+		for (int i = 0; i < n; i++) {
+			p[i] = 1 + rnd.nextInt(10);
+			h[i] = 1 + rnd.nextInt(5);
+			int s = rnd.nextInt(4000);
+			for (int k = s; k < s + p[i]; k++) {
+				if (usage[k] + h[i] > 10) {
+					s = k + 1;
+				}
+			}
+			start[i] = s;
+			for (int k = s; k < s + p[i]; k++) {
+				usage[k] += h[i];
+			}
+		}
+		int[][] windows = new int[n][2];
+		for (int i = 0; i < n; i++) {
+			windows[i][0] = Math.max(0, start[i] - rnd.nextInt(5));
+			windows[i][1] = start[i] + rnd.nextInt(5);
+		}
+		Task[] ref = propagateLarge(p, h, windows, Cumulative.Filter.SWEEP);
+		Task[] t = propagateLarge(p, h, windows, Cumulative.Filter.SWEEP, Cumulative.Filter.EDGE_FINDING,
+				Cumulative.Filter.NOT_FIRST_NOT_LAST, Cumulative.Filter.TIME_TABLE_EDGE_FINDING);
+		int tighter = 0;
+		for (int i = 0; i < n; i++) {
+			Assert.assertTrue(t[i].getStart().contains(start[i]), "task " + i);
+			// adding filters to SWEEP can only tighten the bounds
+			Assert.assertTrue(t[i].getStart().getLB() >= ref[i].getStart().getLB(), "task " + i);
+			Assert.assertTrue(t[i].getStart().getUB() <= ref[i].getStart().getUB(), "task " + i);
+			if (t[i].getStart().getLB() > ref[i].getStart().getLB() || t[i].getStart().getUB() < ref[i].getStart().getUB()) {
+				tighter++;
+			}
+		}
+		// energetic reasoning prunes more than the sweep on this instance
+		Assert.assertTrue(tighter > 0);
+	}
+
+	private static Task[] propagateLarge(int[] p, int[] h, int[][] windows, Cumulative.Filter... filters)
+			throws ContradictionException {
+		Model model = new Model();
+		Task[] t = new Task[p.length];
+		IntVar[] hs = new IntVar[p.length];
+		for (int i = 0; i < p.length; i++) {
+			t[i] = task(model, "" + i, windows[i][0], windows[i][1], p[i]);
+			hs[i] = model.intVar(h[i]);
+		}
+		new Cumulative(t, hs, model.intVar(10), false, filters).post();
+		model.getSolver().propagate();
+		return t;
+	}
+
+	private static Task task(Model model, String name, int smin, int smax, int p) {
+		return new Task(model.intVar("s" + name, smin, smax), model.intVar(p), model.intVar("e" + name, smin + p, smax + p));
+	}
+
+	@Test(groups="10s", timeOut=60000)
+	public void testThetaFilters() {
+		Cumulative.Filter[] filters = {Cumulative.Filter.EDGE_FINDING,
+				Cumulative.Filter.NOT_FIRST_NOT_LAST, Cumulative.Filter.TIME_TABLE_EDGE_FINDING};
+		for (long seed = 0; seed < 20; seed++) {
+			for (boolean g : new boolean[]{true, false}) {
+				long ref = count(seed, g, Cumulative.Filter.TIME);
+				for (Cumulative.Filter f : filters) {
+					Assert.assertEquals(count(seed, g, Cumulative.Filter.TIME, f), ref, "seed " + seed + ", " + f);
+				}
+			}
+		}
+	}
+
+	private static long count(long seed, boolean graph, Cumulative.Filter... filters) {
+		Random rnd = new Random(seed);
+		Model model = new Model();
+		int n = 5;
+		Task[] t = new Task[n];
+		IntVar[] h = new IntVar[n];
+		for (int i = 0; i < n; i++) {
+			int est = rnd.nextInt(3);
+			IntVar s = model.intVar("s" + i, est, est + 2 + rnd.nextInt(3));
+			int dmin = 1 + rnd.nextInt(3);
+			IntVar d = model.intVar("d" + i, dmin, dmin + rnd.nextInt(2));
+			t[i] = new Task(s, d, model.intVar("e" + i, s.getLB() + d.getLB(), s.getUB() + d.getUB()));
+			h[i] = model.intVar("h" + i, 1 + rnd.nextInt(2));
+		}
+		IntVar capa = model.intVar("capa", 2, 2 + rnd.nextInt(2));
+		new Cumulative(t, h, capa, graph, filters).post();
+		Solver r = model.getSolver();
+		r.setSearch(randomSearch(model.retrieveIntVars(true), seed));
+		while (r.solve()) ;
+		return r.getSolutionCount();
+	}
 }
@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.constraints.nary;
+
+import org.chocosolver.solver.Cause;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.IntVar;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.chocosolver.solver.search.strategy.Search.randomSearch;
+
+/**
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class DiffNTest {
+
+    @Test(groups="10s", timeOut=60000)
+    public void testDecomposition() {
+        for (long seed = 0; seed < 20; seed++) {
+            Assert.assertEquals(count(seed, true, false), count(seed, false, false), "seed " + seed);
+        }
+    }
+
+    @Test(groups="10s", timeOut=60000)
+    public void testReifiedDecomposition() {
+        // the propagator is checked for entailment before being activated, and in any world
+        for (long seed = 0; seed < 20; seed++) {
+            Assert.assertEquals(count(seed, true, true), count(seed, false, true), "seed " + seed);
+        }
+    }
+
+    private static long count(long seed, boolean global, boolean reified) {
+        Random rnd = new Random(seed);
+        Model model = new Model();
+        int n = 3;
+        IntVar[] x = new IntVar[n], y = new IntVar[n], dx = new IntVar[n], dy = new IntVar[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = model.intVar("x" + i, 0, 2 + rnd.nextInt(2));
+            y[i] = model.intVar("y" + i, 0, 2 + rnd.nextInt(2));
+            dx[i] = model.intVar("dx" + i, 1, 1 + rnd.nextInt(2));
+            dy[i] = model.intVar("dy" + i, 1, 1 + rnd.nextInt(2));
+        }
+        boolean cumulative = rnd.nextBoolean();
+        Constraint c;
+        if (global) {
+            c = model.diffN(x, y, dx, dy, cumulative && !reified);
+        } else {
+            Constraint[] pairs = new Constraint[n * (n - 1) / 2];
+            for (int i = 0, k = 0; i < n; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    pairs[k++] = model.or(
+                            model.arithm(x[i], "+", dx[i], "<=", x[j]),
+                            model.arithm(x[j], "+", dx[j], "<=", x[i]),
+                            model.arithm(y[i], "+", dy[i], "<=", y[j]),
+                            model.arithm(y[j], "+", dy[j], "<=", y[i])
+                    );
+                }
+            }
+            c = model.and(pairs);
+        }
+        if (reified) {
+            c.reify();
+        } else {
+            c.post();
+        }
+        Solver r = model.getSolver();
+        r.setSearch(randomSearch(model.retrieveIntVars(true), seed));
+        while (r.solve()) ;
+        return r.getSolutionCount();
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testLarge() throws ContradictionException {
+        // 20000 unit squares, in a 200x200 grid, each one with a 4x4 reachable area
+        Model model = new Model();
+        int n = 20000;
+        IntVar[] x = new IntVar[n], y = new IntVar[n], dx = new IntVar[n], dy = new IntVar[n];
+        for (int i = 0; i < n; i++) {
+            int cx = (i % 100) * 2, cy = (i / 100) * 2;
+            x[i] = model.intVar("x" + i, cx, cx + 3);
+            y[i] = model.intVar("y" + i, cy, cy + 3);
+            dx[i] = model.intVar(1);
+            dy[i] = model.intVar(1);
+        }
+        model.diffN(x, y, dx, dy, false).post();
+        model.getSolver().propagate();
+        x[0].instantiateTo(2, Cause.Null);
+        y[0].instantiateTo(2, Cause.Null);
+        x[1].instantiateTo(2, Cause.Null);
+        y[1].updateBounds(2, 3, Cause.Null);
+        model.getSolver().propagate();
+        Assert.assertTrue(y[1].isInstantiatedTo(3));
+    }
+}
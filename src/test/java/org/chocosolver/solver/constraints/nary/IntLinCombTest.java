@@ -37,6 +37,7 @@ import org.chocosolver.solver.constraints.Constraint;
 import org.chocosolver.solver.constraints.Operator;
 import org.chocosolver.solver.constraints.Propagator;
 import org.chocosolver.solver.constraints.nary.cnf.PropTrue;
+import org.chocosolver.solver.constraints.nary.sum.PropPseudoBoolean;
 import org.chocosolver.solver.constraints.nary.sum.PropScalar;
 import org.chocosolver.solver.constraints.nary.sum.PropSum;
 import org.chocosolver.solver.constraints.nary.sum.PropSumBool;
@@ -54,6 +55,7 @@ import static java.util.Arrays.fill;
 import static org.chocosolver.solver.Cause.Null;
 import static org.chocosolver.solver.constraints.checker.DomainBuilder.buildFullDomains;
 import static org.chocosolver.solver.search.strategy.Search.inputOrderLBSearch;
+import static org.chocosolver.solver.search.strategy.Search.randomSearch;
 import static org.testng.Assert.*;
 
 /**
@@ -737,4 +739,87 @@ public class IntLinCombTest {
         model.getSolver().showSolutions();
         model.getSolver().solve();
     }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testPB1() {
+        Model model = new Model();
+        BoolVar[] bvars = model.boolVarArray("B", 200);
+        Constraint c = model.sum(bvars, "=", 50);
+        Assert.assertTrue(c.getPropagator(0) instanceof PropPseudoBoolean);
+        c = model.sum(bvars, "!=", 50);
+        Assert.assertFalse(c.getPropagator(0) instanceof PropPseudoBoolean);
+        int[] coeffs = new int[200];
+        for (int i = 0; i < 200; i++) {
+            coeffs[i] = i % 7 - 3;
+        }
+        c = model.scalar(bvars, coeffs, "<=", model.intVar("R", -10, 10));
+        Assert.assertTrue(c.getPropagator(0) instanceof PropPseudoBoolean);
+        c = model.scalar(bvars, coeffs, ">", 12);
+        Assert.assertTrue(c.getPropagator(0) instanceof PropPseudoBoolean);
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testPB2() {
+        String[] ops = {"=", "<=", ">=", "<", ">"};
+        for (int seed = 0; seed < 60; seed++) {
+            Random rd = new Random(seed);
+            int n = 3 + rd.nextInt(6);
+            int[] coeffs = new int[n + 1];
+            for (int i = 0; i < n; i++) {
+                coeffs[i] = rd.nextInt(11) - 5;
+            }
+            coeffs[n] = rd.nextBoolean() ? 1 : -1;
+            String op = ops[seed % ops.length];
+            int r = rd.nextInt(7) - 3;
+            boolean reif = seed % 4 == 0;
+            long s1 = pb(n, coeffs, op, r, reif, true, seed);
+            long s2 = pb(n, coeffs, op, r, reif, false, seed);
+            assertEquals(s1, s2, "seed=" + seed);
+        }
+    }
+
+    private static long pb(int n, int[] coeffs, String op, int r, boolean reif, boolean pb, int seed) {
+        Model model = new Model();
+        model.set(new Settings() {
+            @Override
+            public boolean enablePseudoBooleanOnBoolLinear(int nbvars) {
+                return pb;
+            }
+        });
+        IntVar[] vars = new IntVar[n + 1];
+        for (int i = 0; i < n; i++) {
+            vars[i] = model.boolVar("B" + i);
+        }
+        vars[n] = model.intVar("Y", -4, 4);
+        Constraint c = model.scalar(vars, coeffs, op, r);
+        if (pb) {
+            Assert.assertTrue(c.getPropagator(0) instanceof PropPseudoBoolean);
+        }
+        if (reif) {
+            c.reify();
+        } else {
+            c.post();
+        }
+        model.getSolver().setSearch(randomSearch(vars, seed));
+        while (model.getSolver().solve()) ;
+        return model.getSolver().getSolutionCount();
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testPB3() {
+        // large sum over booleans, with a resulting variable
+        Model model = new Model();
+        BoolVar[] bvars = model.boolVarArray("B", 2000);
+        IntVar res = model.intVar("R", 0, 2000);
+        model.sum(bvars, "=", res).post();
+        model.arithm(res, "=", 1000).post();
+        model.getSolver().setSearch(inputOrderLBSearch(bvars));
+        assertTrue(model.getSolver().solve());
+        int s = 0;
+        for (int i = 0; i < bvars.length; i++) {
+            s += bvars[i].getValue();
+        }
+        assertEquals(s, 1000);
+        assertEquals(model.getSolver().getFailCount(), 0);
+    }
 }
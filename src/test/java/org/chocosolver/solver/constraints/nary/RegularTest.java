@@ -29,19 +29,27 @@
  */
 package org.chocosolver.solver.constraints.nary;
 
+import org.chocosolver.solver.Cause;
 import org.chocosolver.solver.Model;
 import org.chocosolver.solver.Solution;
 import org.chocosolver.solver.constraints.nary.automata.FA.FiniteAutomaton;
+import org.chocosolver.solver.constraints.nary.automata.structure.regular.LayeredGraph;
+import org.chocosolver.solver.exception.ContradictionException;
 import org.chocosolver.solver.exception.SolverException;
+import org.chocosolver.solver.propagation.hardcoded.TwoBucketPropagationEngine;
 import org.chocosolver.solver.variables.IntVar;
 import org.testng.annotations.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 import static java.lang.System.out;
 import static org.chocosolver.solver.search.strategy.Search.inputOrderLBSearch;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 /**
  * <br/>
@@ -330,5 +338,185 @@ public class RegularTest {
 
     }
 
+    @Test(groups="1s", timeOut=60000)
+    public void testRandom() {
+        String[] pieces = {"0", "1", "2", "(0|1)", "(1|2)", "0*", "1*", "2{1,2}", "(01)*", "(2|10)"};
+        for (int seed = 0; seed < 300; seed++) {
+            Random rnd = new Random(seed);
+            StringBuilder regexp = new StringBuilder();
+            for (int k = 1 + rnd.nextInt(4); k > 0; k--) {
+                regexp.append(pieces[rnd.nextInt(pieces.length)]);
+            }
+            String exp = rnd.nextBoolean() ? "(" + regexp + ")*" : regexp.toString();
+            FiniteAutomaton auto = new FiniteAutomaton(exp);
+            int n = 1 + rnd.nextInt(6);
+            int[][] doms = new int[n][];
+            Model model = new Model();
+            IntVar[] xs = new IntVar[n];
+            for (int i = 0; i < n; i++) {
+                doms[i] = rnd.nextBoolean() ? new int[]{0, 1, 2} : new int[]{0, 2};
+                xs[i] = model.intVar("X" + i, doms[i]);
+            }
+            // some variables may occur more than once in the word
+            int[] occ = new int[n + rnd.nextInt(3)];
+            IntVar[] word = new IntVar[occ.length];
+            for (int i = 0; i < occ.length; i++) {
+                occ[i] = i < n ? i : rnd.nextInt(n);
+                word[i] = xs[occ[i]];
+            }
+            model.regular(word, auto).post();
+            model.getSolver().setSearch(inputOrderLBSearch(xs));
+            int[] w = new int[occ.length];
+            while (model.getSolver().solve()) {
+                for (int i = 0; i < occ.length; i++) {
+                    w[i] = word[i].getValue();
+                }
+                assertTrue(auto.run(w), exp);
+            }
+            int expected = 0;
+            int[] idx = new int[n];
+            do {
+                for (int i = 0; i < occ.length; i++) {
+                    w[i] = doms[occ[i]][idx[occ[i]]];
+                }
+                if (auto.run(w)) {
+                    expected++;
+                }
+                int i = 0;
+                while (i < n && ++idx[i] == doms[i].length) {
+                    idx[i++] = 0;
+                }
+                if (i == n) break;
+            } while (true);
+            assertEquals(model.getSolver().getSolutionCount(), expected, exp);
+        }
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    @SuppressWarnings("unchecked")
+    public void testSharedGraph() {
+        Model model = new Model();
+        FiniteAutomaton auto = new FiniteAutomaton("0*(1{2,4}0{0,2}0)*0*");
+        IntVar[][] CS = new IntVar[51][];
+        for (int k = 0; k < 50; k++) {
+            CS[k] = model.intVarArray("CS" + k, 672, 0, 2, false);
+            model.regular(CS[k], new FiniteAutomaton("0*(1{2,4}0{0,2}0)*0*")).post();
+        }
+        CS[50] = model.intVarArray("DS", 672, 0, 1, false);
+        model.regular(CS[50], auto).post();
+        // one graph per domain signature
+        Map<?, LayeredGraph> graphs = (Map<?, LayeredGraph>) model.getHook(LayeredGraph.class.getName());
+        assertEquals(graphs.size(), 2);
+        model.arithm(CS[0][300], "=", 1).post();
+        assertTrue(model.getSolver().solve());
+        for (IntVar[] cs : CS) {
+            assertTrue(auto.run(Arrays.stream(cs).mapToInt(IntVar::getValue).toArray()));
+        }
+    }
 
-}
\ No newline at end of file
+    @Test(groups="1s", timeOut=60000)
+    public void testRandomGAC() throws ContradictionException {
+        String[] pieces = {"0", "1", "2", "(0|1)", "(1|2)", "0*", "1*", "2{1,2}", "(01)*", "(2|10)"};
+        for (int seed = 0; seed < 300; seed++) {
+            Random rnd = new Random(seed);
+            StringBuilder regexp = new StringBuilder();
+            for (int k = 1 + rnd.nextInt(4); k > 0; k--) {
+                regexp.append(pieces[rnd.nextInt(pieces.length)]);
+            }
+            String exp = "(" + regexp + ")*";
+            FiniteAutomaton auto = new FiniteAutomaton(exp);
+            int n = 2 + rnd.nextInt(5);
+            Model model = new Model();
+            IntVar[] xs = model.intVarArray("X", n, 0, 2, false);
+            model.regular(xs, auto).post();
+            try {
+                model.getSolver().propagate();
+                for (int k = 0; k < n; k++) {
+                    // the domains must be the projections of the accepted words
+                    int[] w = new int[n];
+                    boolean[][] supported = new boolean[n][3];
+                    for (int t = 0; t < Math.pow(3, n); t++) {
+                        boolean valid = true;
+                        for (int i = 0, r = t; i < n; i++, r /= 3) {
+                            w[i] = r % 3;
+                            valid &= xs[i].contains(w[i]);
+                        }
+                        if (valid && auto.run(w)) {
+                            for (int i = 0; i < n; i++) {
+                                supported[i][w[i]] = true;
+                            }
+                        }
+                    }
+                    for (int i = 0; i < n; i++) {
+                        for (int v = 0; v < 3; v++) {
+                            assertEquals(xs[i].contains(v), supported[i][v], exp);
+                        }
+                    }
+                    IntVar x = xs[rnd.nextInt(n)];
+                    x.removeValue(x.getLB() + rnd.nextInt(x.getUB() - x.getLB() + 1), Cause.Null);
+                    model.getSolver().propagate();
+                }
+            } catch (ContradictionException ignored) {
+            }
+        }
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testIncremental() throws ContradictionException {
+        FiniteAutomaton auto = new FiniteAutomaton("0*(1{2,4}0{0,2}0)*0*");
+        int n = 7;
+        for (int e = 0; e < 2; e++) {
+            for (int seed = 0; seed < 100; seed++) {
+                Random rnd = new Random(seed);
+                Model model = new Model();
+                IntVar[] xs = model.intVarArray("X", n, 0, 2, false);
+                model.regular(xs, auto).post();
+                if (e == 1) {
+                    model.getSolver().setEngine(new TwoBucketPropagationEngine(model));
+                }
+                model.getSolver().propagate();
+                assertProjection(xs, auto);
+                // remove values one by one, the domains must be the projections of the accepted words after each event
+                for (int k = 0; k < 10; k++) {
+                    IntVar x = xs[rnd.nextInt(n)];
+                    if (x.isInstantiated()) {
+                        continue;
+                    }
+                    model.getEnvironment().worldPush();
+                    try {
+                        x.removeValue(x.getLB() + rnd.nextInt(x.getUB() - x.getLB() + 1), Cause.Null);
+                        model.getSolver().propagate();
+                        assertProjection(xs, auto);
+                    } catch (ContradictionException ex) {
+                        model.getSolver().getEngine().flush();
+                        model.getEnvironment().worldPop();
+                        assertProjection(xs, auto);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void assertProjection(IntVar[] xs, FiniteAutomaton auto) {
+        int n = xs.length;
+        int[] w = new int[n];
+        boolean[][] supported = new boolean[n][3];
+        for (int t = 0; t < Math.pow(3, n); t++) {
+            boolean valid = true;
+            for (int i = 0, r = t; i < n; i++, r /= 3) {
+                w[i] = r % 3;
+                valid &= xs[i].contains(w[i]);
+            }
+            if (valid && auto.run(w)) {
+                for (int i = 0; i < n; i++) {
+                    supported[i][w[i]] = true;
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            for (int v = 0; v < 3; v++) {
+                assertEquals(xs[i].contains(v), supported[i][v], Arrays.toString(xs));
+            }
+        }
+    }
+}
@@ -29,6 +29,7 @@
  */
 package org.chocosolver.solver.constraints.nary;
 
+import org.chocosolver.solver.Cause;
 import org.chocosolver.solver.Model;
 import org.chocosolver.solver.exception.ContradictionException;
 import org.chocosolver.solver.variables.IntVar;
@@ -162,6 +163,24 @@ public class SumTest {
         assertFalse(model.getSolver().solve());
     }
 
+    @Test(groups = "1s", timeOut=60000)
+    public void testNeqNegative() throws ContradictionException {
+        IntVar a = model.intVar("a", 0, 5);
+        IntVar b = model.intVar("b", -3, 4);
+        IntVar c = model.intVar("c", 0, 7, true);
+        // a - b - c != -3
+        model.scalar(new IntVar[]{a, b, c}, new int[]{1, -1, -1}, "!=", -3).post();
+        model.getSolver().propagate();
+        a.instantiateTo(0, Cause.Null);
+        b.instantiateTo(-3, Cause.Null);
+        model.getSolver().propagate();
+        // only 6 is forbidden for c, which keeps its bounds
+        assertEquals(c.getLB(), 0);
+        assertEquals(c.getUB(), 7);
+        c.instantiateTo(6, Cause.Null);
+        assertEquals(model.getSolver().isSatisfied(), ESat.FALSE);
+    }
+
 
     private int checkSolutions(IntVar[] intVars, IntVar sum) {
         return checkSolutions("=", intVars, sum);
@@ -39,12 +39,14 @@ import org.chocosolver.solver.Settings;
 import org.chocosolver.solver.Solution;
 import org.chocosolver.solver.Solver;
 import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.constraints.extension.TupleValidator;
 import org.chocosolver.solver.constraints.extension.Tuples;
 import org.chocosolver.solver.constraints.extension.TuplesFactory;
 import org.chocosolver.solver.constraints.extension.nary.TuplesLargeTable;
 import org.chocosolver.solver.constraints.extension.nary.TuplesTable;
 import org.chocosolver.solver.constraints.extension.nary.TuplesVeryLargeTable;
 import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.exception.SolverException;
 import org.chocosolver.solver.variables.BoolVar;
 import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.util.ESat;
@@ -62,7 +64,7 @@ import static org.testng.Assert.assertEquals;
 
 public class TableTest {
 
-	private static String[] ALGOS = {"CT+", "FC", "GAC2001", "GACSTR+", "GAC2001+", "GAC3rm+", "GAC3rm", "STR2+", "MDD+"};
+	private static String[] ALGOS = {"CT+", "FC", "GAC2001", "GACSTR+", "GAC2001+", "GAC3rm+", "GAC3rm", "STR2+", "MDD+", "MDD4R+"};
 	private static String[] BIN_ALGOS = {"FC", "AC2001", "AC3", "AC3rm", "AC3bit+rm"};
 
 	@Test(groups="1s", timeOut=60000)
@@ -221,7 +223,7 @@ public class TableTest {
 
 	@Test(groups="1s", timeOut=60000)
 	public static void testThierry1() {
-		String[] ALGOS = {"FC", "GAC2001", "GAC3rm"};
+		String[] ALGOS = {"FC", "GAC2001", "GAC3rm", "CT-"};
 		for(String s : ALGOS) {
 			Model model = new Model();
 			IntVar[] vars = model.intVarArray("vars", 10, 0, 100, false);
@@ -233,6 +235,64 @@ public class TableTest {
 		}
 	}
 
+	@Test(groups="1s", timeOut=60000)
+	public void testCTNeg() {
+		for (long seed = 0; seed < 20; seed++) {
+			for (boolean bounded : new boolean[]{false, true}) {
+				Model m1 = negTable(seed, bounded, "GAC3rm");
+				Model m2 = negTable(seed, bounded, "CT-");
+				while (m1.getSolver().solve()) ;
+				while (m2.getSolver().solve()) ;
+				assertEquals(m2.getSolver().getSolutionCount(), m1.getSolver().getSolutionCount());
+				if (!bounded) {
+					// both enforce arc consistency
+					assertEquals(m2.getSolver().getNodeCount(), m1.getSolver().getNodeCount());
+				}
+			}
+		}
+	}
+
+	private static Model negTable(long seed, boolean bounded, String algo) {
+		Random rnd = new Random(seed);
+		Model model = new Model();
+		IntVar[] vars = model.intVarArray("X", 4, 0, 2, bounded);
+		Tuples tuples = new Tuples(false);
+		// dense relations, with duplicates
+		for (int i = 0; i < 60; i++) {
+			tuples.add(rnd.nextInt(3), rnd.nextInt(3), rnd.nextInt(3), rnd.nextInt(4) - 1);
+		}
+		for (int a = 0; a < 3; a++) {
+			for (int b = 0; b < 3; b++) {
+				tuples.add(0, a, b, 1);
+			}
+		}
+		model.table(vars, tuples, algo).post();
+		model.table(new IntVar[]{vars[3], vars[2], vars[1], vars[0]}, tuples, algo).post();
+		model.getSolver().setSearch(randomSearch(vars, seed));
+		return model;
+	}
+
+	@Test(groups="10s", timeOut=60000)
+	public void testCTNegLarge() {
+		Random rnd = new Random(0);
+		Tuples tuples = new Tuples(false);
+		for (int i = 0; i < 500000; i++) {
+			tuples.add(rnd.nextInt(10), rnd.nextInt(10), rnd.nextInt(10), rnd.nextInt(10), rnd.nextInt(10), rnd.nextInt(10));
+		}
+		Model model = new Model();
+		IntVar[] vars = model.intVarArray("X", 6, 0, 9, false);
+		Constraint c = model.table(vars, tuples);
+		Assert.assertEquals(c.getName(), "Table(CT-)");
+		c.post();
+		model.table(new IntVar[]{vars[5], vars[4], vars[3], vars[2], vars[1], vars[0]}, tuples).post();
+		model.getSolver().setSearch(randomSearch(vars, 0));
+		int nb = 0;
+		while (nb < 100 && model.getSolver().solve()) {
+			nb++;
+		}
+		Assert.assertEquals(nb, 100);
+	}
+
 	@Test(groups="1s", timeOut=60000)
 	public void testMDD1() {
 		Model model = new Model();
@@ -529,4 +589,112 @@ public class TableTest {
 		Assert.assertEquals(s2.getSolver().getSolutionCount(), s1.getSolver().getSolutionCount());
 		Assert.assertEquals(s2.getSolver().getNodeCount(), s1.getSolver().getNodeCount());
 	}
-}
\ No newline at end of file
+
+	@Test(groups="1s", timeOut=60000)
+	public void testSharedSupports() {
+		Model model = new Model();
+		IntVar[][] vars = model.intVarMatrix("X", 4, 3, 0, 2);
+		Tuples tuples = TuplesFactory.allDifferent(vars[0]);
+		Constraint[] cs = new Constraint[vars.length];
+		for (int i = 0; i < vars.length; i++) {
+			cs[i] = model.table(vars[i], tuples, "CT+");
+			cs[i].post();
+		}
+		Assert.assertSame(tuples.getSupports(), tuples.getSupports());
+		model.arithm(vars[0][0], "=", vars[1][1]).post();
+		model.arithm(vars[2][2], ">", vars[3][0]).post();
+		long nbsol = 0;
+		while (model.getSolver().solve()) {
+			nbsol++;
+		}
+		Model gac = new Model();
+		IntVar[][] gvars = gac.intVarMatrix("X", 4, 3, 0, 2);
+		for (int i = 0; i < gvars.length; i++) {
+			gac.table(gvars[i], TuplesFactory.allDifferent(gvars[i]), "GACSTR+").post();
+		}
+		gac.arithm(gvars[0][0], "=", gvars[1][1]).post();
+		gac.arithm(gvars[2][2], ">", gvars[3][0]).post();
+		while (gac.getSolver().solve()) ;
+		assertEquals(nbsol, gac.getSolver().getSolutionCount());
+	}
+
+	@Test(groups="1s", timeOut=60000)
+	public void testUniversal1() {
+		Model model = new Model();
+		IntVar[] vars = model.intVarArray("X", 3, 0, 2);
+		Tuples tuples = new Tuples(true);
+		tuples.setUniversalValue(-1);
+		tuples.add(0, -1, 1);
+		tuples.add(-1, 2, -1);
+		Assert.assertEquals(tuples.min(1), 2);
+		model.table(vars, tuples).post();
+		model.getSolver().setSearch(randomSearch(vars, 0));
+		while (model.getSolver().solve()) {
+			Assert.assertEquals(tuples.check(vars), ESat.TRUE);
+		}
+		// 0*1 (3 tuples) + *2* (9 tuples) - 021
+		assertEquals(model.getSolver().getSolutionCount(), 11);
+		IntVar[] xy = model.intVarArray("Y", 2, 0, 3);
+		Tuples or = generateTuples(values -> values[0] == 0 || values[1] == 0, true, xy);
+		Tuples compressed = TuplesFactory.compress(or, -1, xy);
+		// (0,*), (1,0), (2,0), (3,0)
+		assertEquals(compressed.nbTuples(), 4);
+		assertEquals(or.nbTuples(), 7);
+	}
+
+	@Test(groups="1s", timeOut=60000, expectedExceptions = SolverException.class)
+	public void testUniversal2() {
+		Model model = new Model();
+		IntVar[] vars = model.intVarArray("X", 3, 0, 2);
+		Tuples tuples = new Tuples(true);
+		tuples.setUniversalValue(-1);
+		tuples.add(0, -1, 1);
+		model.table(vars, tuples, "GACSTR+").post();
+	}
+
+	@Test(groups="1s", timeOut=60000)
+	public void testUniversal3() {
+		for (int seed = 0; seed < 20; seed++) {
+			Random rd = new Random(seed);
+			Model model = new Model();
+			IntVar[] vars = model.intVarArray("X", 4, 0, 3);
+			Tuples tuples = generateTuples(values -> rd.nextInt(10) < 7, true, vars);
+			Tuples compressed = TuplesFactory.compress(tuples, -1, vars);
+			Assert.assertTrue(compressed.nbTuples() <= tuples.nbTuples());
+			Model m1 = new Model();
+			IntVar[] v1 = m1.intVarArray("X", 4, 0, 3);
+			m1.table(v1, tuples, "CT+").post();
+			m1.arithm(v1[0], "!=", v1[3]).post();
+			Model m2 = new Model();
+			IntVar[] v2 = m2.intVarArray("X", 4, 0, 3);
+			m2.table(v2, compressed).post();
+			m2.arithm(v2[0], "!=", v2[3]).post();
+			m1.getSolver().setSearch(randomSearch(v1, seed));
+			m2.getSolver().setSearch(randomSearch(v2, seed));
+			while (m1.getSolver().solve()) ;
+			while (m2.getSolver().solve()) ;
+			assertEquals(m2.getSolver().getSolutionCount(), m1.getSolver().getSolutionCount());
+			assertEquals(m2.getSolver().getNodeCount(), m1.getSolver().getNodeCount());
+		}
+	}
+
+	@Test(groups="1s", timeOut=60000)
+	public void testParallelGeneration() {
+		Model model = new Model();
+		IntVar[] vars = model.intVarArray("X", 5, -3, 12);
+		TupleValidator filter = values -> (values[0] * values[1] + values[2] - values[3] * values[4]) % 7 == 0;
+		Tuples seq = generateTuples(filter, true, vars);
+		Tuples par = generateTuples(() -> filter, true, vars);
+		assertEquals(par.nbTuples(), seq.nbTuples());
+		for (int i = 0; i < seq.nbTuples(); i++) {
+			Assert.assertEquals(par.get(i), seq.get(i));
+		}
+		for (int i = 0; i < vars.length; i++) {
+			assertEquals(par.min(i), seq.min(i));
+			assertEquals(par.max(i), seq.max(i));
+		}
+		Tuples none = generateTuples(() -> values -> false, false, vars);
+		assertEquals(none.nbTuples(), 0);
+		assertEquals(none.isFeasible(), false);
+	}
+}
@@ -29,12 +29,15 @@
  */
 package org.chocosolver.solver.explanations;
 
+import org.chocosolver.sat.PropNogoods;
 import org.chocosolver.solver.Model;
 import org.chocosolver.solver.Solver;
 import org.chocosolver.solver.constraints.Constraint;
 import org.chocosolver.solver.constraints.binary.PropGreaterOrEqualX_YC;
 import org.chocosolver.solver.exception.ContradictionException;
 import org.chocosolver.solver.search.loop.learn.LearnCBJ;
+import org.chocosolver.solver.search.loop.learn.LearnDBT;
+import org.chocosolver.solver.search.strategy.assignments.DecisionOperator;
 import org.chocosolver.solver.search.strategy.decision.Decision;
 import org.chocosolver.solver.search.strategy.decision.IntDecision;
 import org.chocosolver.solver.search.strategy.selectors.values.IntDomainMiddle;
@@ -965,4 +968,48 @@ public class ExplanationEngineTest {
         out.printf("%s\n", model);
     }
 
+
+    private static long queens(int n, DecisionOperator<IntVar> dop, int learn) {
+        Model model = new Model();
+        IntVar[] q = model.intVarArray("Q", n, 1, n, false);
+        for (int i = 0; i < n - 1; i++) {
+            for (int j = i + 1; j < n; j++) {
+                model.arithm(q[i], "!=", q[j]).post();
+                model.arithm(q[i], "!=", q[j], "+", j - i).post();
+                model.arithm(q[i], "!=", q[j], "-", j - i).post();
+            }
+        }
+        Solver solver = model.getSolver();
+        // the upper middle value is required to make reverse split decisions effective
+        solver.setSearch(intVarSearch(new FirstFail(model), new IntDomainMiddle(dop != DecisionOperator.int_reverse_split), dop, q));
+        if (learn > 0) {
+            LearnCBJ learner = learn == 1 ? new LearnCBJ(model, true, false) : new LearnDBT(model, true, false);
+            learner.setMaxLearnts(10);
+            solver.setLearner(learner);
+            // each literal refutes a decision
+            PropNogoods ngs = model.getNogoodStore().getPropNogoods();
+            boolean eq = dop == DecisionOperator.int_eq || dop == DecisionOperator.int_neq;
+            boolean positive = dop == DecisionOperator.int_neq || dop == DecisionOperator.int_reverse_split;
+            ngs.setLearntObserver((lits, permanent) -> {
+                for (int lit : lits) {
+                    Assert.assertEquals(ngs.isEqLiteral(lit), eq);
+                    Assert.assertEquals(ngs.isPositiveLiteral(lit), positive);
+                }
+            });
+        }
+        while (solver.solve()) ;
+        return solver.getSolutionCount();
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testNogoodsFromDecisions() {
+        for (DecisionOperator<IntVar> dop : new DecisionOperator[]{DecisionOperator.int_eq, DecisionOperator.int_neq,
+                DecisionOperator.int_split, DecisionOperator.int_reverse_split}) {
+            for (int learn = 1; learn < 3; learn++) {
+                Assert.assertEquals(queens(7, dop, learn), 40, dop + " " + learn);
+                Assert.assertEquals(queens(8, dop, learn), 92, dop + " " + learn);
+            }
+        }
+    }
+
 }
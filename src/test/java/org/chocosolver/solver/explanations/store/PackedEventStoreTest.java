@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.explanations.store;
+
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.solver.Cause;
+import org.chocosolver.solver.ICause;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.explanations.ArrayEventStore;
+import org.chocosolver.solver.explanations.Explanation;
+import org.chocosolver.solver.explanations.ExplanationEngine;
+import org.chocosolver.solver.explanations.RuleStore;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.events.IEventType;
+import org.chocosolver.solver.variables.events.IntEventType;
+import org.chocosolver.solver.variables.events.PropagatorEventType;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+/**
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class PackedEventStoreTest {
+
+    private static final IEventType[] TYPES = {IntEventType.REMOVE, IntEventType.INCLOW, IntEventType.DECUPP,
+            IntEventType.INSTANTIATE, PropagatorEventType.FULL_PROPAGATION, IntEventType.BOUND};
+
+    private static final int[] EXTREMES = {Integer.MIN_VALUE, Integer.MIN_VALUE + 1, -1, 0, 1, Integer.MAX_VALUE - 1, Integer.MAX_VALUE};
+
+    private static int value(Random rnd) {
+        return rnd.nextInt(4) == 0 ? EXTREMES[rnd.nextInt(EXTREMES.length)] : rnd.nextInt(200) - 100;
+    }
+
+    private static void assertSame(IEventStore expected, IEventStore actual) {
+        Assert.assertEquals(actual.getSize(), expected.getSize());
+        for (int i = 0; i < expected.getSize(); i++) {
+            Assert.assertEquals(actual.getVariable(i), expected.getVariable(i));
+            Assert.assertEquals(actual.getVariableId(i), expected.getVariableId(i));
+            Assert.assertEquals(actual.getCause(i), expected.getCause(i));
+            Assert.assertEquals(actual.getEventType(i), expected.getEventType(i));
+            Assert.assertEquals(actual.getFirstValue(i), expected.getFirstValue(i));
+            Assert.assertEquals(actual.getSecondValue(i), expected.getSecondValue(i));
+            Assert.assertEquals(actual.getThirdValue(i), expected.getThirdValue(i));
+        }
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testRandom() {
+        Model model = new Model();
+        IntVar[] vars = model.intVarArray("X", 5, 0, 5, false);
+        ICause[] causes = {null, Cause.Null, new ICause() {}, new ICause() {},
+                model.arithm(vars[0], "<", vars[1]).getPropagator(0), model.intOffsetView(vars[2], 3)};
+        IEnvironment env = model.getEnvironment();
+        ArrayEventStore expected = new ArrayEventStore(env);
+        PackedEventStore actual = new PackedEventStore(env);
+        Random rnd = new Random(0);
+        for (int k = 0; k < 3000; k++) {
+            switch (rnd.nextInt(6)) {
+                case 0:
+                    env.worldPush();
+                    break;
+                case 1:
+                    if (env.getWorldIndex() > 0) {
+                        env.worldPop();
+                    }
+                    break;
+                case 2:
+                    if (expected.getSize() > 0) {
+                        expected.forgetLast();
+                        actual.forgetLast();
+                    }
+                    break;
+                default:
+                    IntVar var = vars[rnd.nextInt(vars.length)];
+                    ICause cause = causes[rnd.nextInt(causes.length)];
+                    IEventType type = TYPES[rnd.nextInt(TYPES.length)];
+                    int one = value(rnd), two, three;
+                    if (rnd.nextBoolean()) {
+                        two = value(rnd);
+                        three = value(rnd);
+                    } else if (type == IntEventType.INSTANTIATE) {
+                        two = one - rnd.nextInt(70000);
+                        three = one + rnd.nextInt(70000);
+                    } else if (type == PropagatorEventType.FULL_PROPAGATION) {
+                        two = three = 0;
+                    } else {
+                        two = type == IntEventType.INCLOW ? one - rnd.nextInt(100) :
+                                type == IntEventType.DECUPP ? one + rnd.nextInt(100) : -1;
+                        three = -1;
+                    }
+                    expected.pushEvent(var, cause, type, one, two, three);
+                    actual.pushEvent(var, cause, type, one, two, three);
+            }
+            assertSame(expected, actual);
+        }
+        // force growth
+        for (int k = 0; k < 10000; k++) {
+            expected.pushEvent(vars[k % vars.length], causes[k % causes.length], IntEventType.INSTANTIATE, k, k - k % 7, k + k % 5);
+            actual.pushEvent(vars[k % vars.length], causes[k % causes.length], IntEventType.INSTANTIATE, k, k - k % 7, k + k % 5);
+        }
+        assertSame(expected, actual);
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testScopeMemo() {
+        Model model = new Model();
+        IntVar[] vars = model.intVarArray("X", 3, 0, 5, false);
+        ExplanationEngine engine = new ExplanationEngine(model, false, false);
+        RuleStore rs = engine.getRuleStore();
+        Explanation explanation = engine.makeExplanation(false);
+        rs.init(explanation);
+        Propagator<?> p = model.allDifferent(vars).getPropagator(0);
+        Assert.assertTrue(p.why(rs, vars[0], IntEventType.INCLOW, 1));
+        Assert.assertEquals(rs.getMask(vars[0]), Integer.MIN_VALUE);
+        Assert.assertTrue(rs.isScopeExplained(p, vars[0]));
+        Assert.assertTrue(p.why(rs, vars[1], IntEventType.INCLOW, 1));
+        Assert.assertEquals(rs.getMask(vars[0]), 15);
+        Assert.assertTrue(rs.isScopeExplained(p, vars[2]));
+        // a new explanation forgets the memo
+        rs.init(engine.makeExplanation(false));
+        Assert.assertFalse(rs.isScopeExplained(p, vars[0]));
+    }
+}
@@ -30,13 +30,28 @@
 package org.chocosolver.solver.expression.discrete;
 
 import org.chocosolver.solver.Model;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.constraints.nary.PropExpression;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.exception.SolverException;
+import org.chocosolver.solver.expression.discrete.arithmetic.ArEvaluator;
 import org.chocosolver.solver.expression.discrete.arithmetic.ArExpression;
 import org.chocosolver.solver.expression.discrete.relational.ReExpression;
+import org.chocosolver.solver.search.strategy.Search;
 import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.util.tools.ArrayUtils;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.IntStream;
 
 /**
@@ -50,7 +65,7 @@ public class ExpressionTest {
 
     @DataProvider(name = "post")
     public Object[][] provider() {
-        return new Object[][]{{0}, {1}};
+        return new Object[][]{{0}, {1}, {2}};
     }
 
     public void eval(Model model, ReExpression ex, int postAs, int nbsol){
@@ -61,6 +76,9 @@ public class ExpressionTest {
             case 1:
                 ex.extension().post();
                 break;
+            case 2:
+                ex.compile().post();
+                break;
         }
         System.out.printf("%s\n", model);
         Assert.assertEquals(model.getSolver().streamSolutions().count(), nbsol);
@@ -206,4 +224,266 @@ public class ExpressionTest {
         IntStream.range(1, XS.length).forEach(i -> r[0] = r[0].add(XS[i]));
         eval(model, Y.eq(r[0]), p, 66);
     }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testEvaluator(){
+        Model model  = new Model();
+        IntVar x = model.intVar("x", -3, 4);
+        IntVar y = model.intVar("y", 1, 5);
+        IntVar z = model.intVar("z", -2, 2);
+        ArExpression e = x.mul(y).sub(z.abs()).add(x.max(z).div(y)).min(y.mod(x.abs().add(y)).sqr()).neg().add(z.pow(y));
+        Map<IntVar, Integer> map = new HashMap<>();
+        map.put(x, 0);
+        map.put(y, 1);
+        map.put(z, 2);
+        ArEvaluator ev = new ArEvaluator(e, map);
+        int[] stack = new int[ev.stackSize()];
+        for (int i = x.getLB(); i <= x.getUB(); i++) {
+            for (int j = y.getLB(); j <= y.getUB(); j++) {
+                for (int k = z.getLB(); k <= z.getUB(); k++) {
+                    int[] values = {i, j, k};
+                    Assert.assertEquals(ev.eval(values, stack), e.eval(values, map));
+                }
+            }
+        }
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testExtensionLarge(){
+        Model model  = new Model();
+        IntVar[] XS = model.intVarArray("X", 5, 0, 7);
+        IntVar Y = model.intVar("Y", 0, 20);
+        ReExpression ex = Y.eq(XS[0].mul(XS[1]).sub(XS[2].mul(XS[3])).add(XS[4]));
+        ex.extension().post();
+        model.getSolver().setSearch(Search.inputOrderLBSearch(ArrayUtils.append(XS, new IntVar[]{Y})));
+        Model model2  = new Model();
+        IntVar[] XS2 = model2.intVarArray("X", 5, 0, 7);
+        IntVar Y2 = model2.intVar("Y", 0, 20);
+        Y2.eq(XS2[0].mul(XS2[1]).sub(XS2[2].mul(XS2[3])).add(XS2[4])).decompose().post();
+        model2.getSolver().setSearch(Search.inputOrderLBSearch(ArrayUtils.append(XS2, new IntVar[]{Y2})));
+        Assert.assertEquals(model.getSolver().streamSolutions().count(), model2.getSolver().streamSolutions().count());
+    }
+
+    private static ArExpression random(Random rnd, IntVar[] vars, int depth) {
+        if (depth == 0 || rnd.nextInt(4) == 0) {
+            return rnd.nextInt(4) == 0 ? vars[0].getModel().intVar(rnd.nextInt(6) - 2) : vars[rnd.nextInt(vars.length)];
+        }
+        ArExpression e1 = random(rnd, vars, depth - 1);
+        switch (rnd.nextInt(12)) {
+            case 0:
+                return e1.neg();
+            case 1:
+                return e1.abs();
+            case 2:
+                return e1.sqr();
+            case 3:
+                return e1.add(random(rnd, vars, depth - 1));
+            case 4:
+                return e1.sub(random(rnd, vars, depth - 1));
+            case 5:
+                return e1.mul(random(rnd, vars, depth - 1));
+            case 6:
+                return e1.div(random(rnd, vars, depth - 1));
+            case 7:
+                return e1.mod(random(rnd, vars, depth - 1));
+            case 8:
+                return e1.min(random(rnd, vars, depth - 1));
+            case 9:
+                return e1.max(random(rnd, vars, depth - 1));
+            case 10:
+                return e1.mul(rnd.nextInt(5) - 2).add(e1);
+            default:
+                return e1.abs().pow(rnd.nextInt(3));
+        }
+    }
+
+    private static ReExpression relation(int op, ArExpression e1, ArExpression e2) {
+        switch (op) {
+            case 0:
+                return e1.lt(e2);
+            case 1:
+                return e1.le(e2);
+            case 2:
+                return e1.gt(e2);
+            case 3:
+                return e1.ge(e2);
+            case 4:
+                return e1.ne(e2);
+            default:
+                return e1.eq(e2);
+        }
+    }
+
+    private static void leaves(ArExpression e, Map<IntVar, Integer> map) {
+        if (e.isExpressionLeaf()) {
+            map.putIfAbsent((IntVar) e, map.size());
+        } else {
+            for (ArExpression c : e.getExpressionChild()) {
+                leaves(c, map);
+            }
+        }
+    }
+
+    /**
+     * @return the solutions of a random expression, computed by enumeration (mode = 0),
+     * decomposition (mode = 1) or compilation (mode = 2)
+     */
+    private static Set<String> solutions(int seed, int mode) {
+        Random rnd = new Random(seed);
+        Model model = new Model();
+        IntVar[] vars = model.intVarArray("X", 3, -3, 4, false);
+        ArExpression e1 = random(rnd, vars, 3);
+        ArExpression e2 = random(rnd, vars, 2);
+        ReExpression ex = relation(rnd.nextInt(6), e1, e2);
+        Set<String> sols = new HashSet<>();
+        if (mode == 0) {
+            Map<IntVar, Integer> map = new HashMap<>();
+            for (IntVar v : vars) {
+                map.put(v, map.size());
+            }
+            leaves(e1, map);
+            leaves(e2, map);
+            int[] values = new int[map.size()];
+            map.forEach((v, i) -> values[i] = v.getLB());
+            for (int i = -3; i <= 4; i++) {
+                for (int j = -3; j <= 4; j++) {
+                    for (int k = -3; k <= 4; k++) {
+                        values[0] = i;
+                        values[1] = j;
+                        values[2] = k;
+                        try {
+                            if (ex.eval(values, map)) {
+                                sols.add(i + "," + j + "," + k);
+                            }
+                        } catch (ArithmeticException ignored) {
+                            // division by 0
+                        }
+                    }
+                }
+            }
+            return sols;
+        }
+        try {
+            if (mode == 2) {
+                ex.compile().post();
+            } else {
+                ex.decompose().post();
+            }
+        } catch (SolverException e) {
+            // a modulo by 0 cannot be decomposed
+            return sols;
+        }
+        while (model.getSolver().solve()) {
+            sols.add(vars[0].getValue() + "," + vars[1].getValue() + "," + vars[2].getValue());
+        }
+        return sols;
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testCompileRandom(){
+        for (int seed = 0; seed < 500; seed++) {
+            Set<String> expected = solutions(seed, 0);
+            Assert.assertEquals(solutions(seed, 2), expected, "seed " + seed);
+            Assert.assertEquals(solutions(seed, 1), expected, "seed " + seed);
+        }
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testCompileShared(){
+        Model model  = new Model();
+        IntVar x = model.intVar("x", -5, 5);
+        IntVar y = model.intVar("y", -5, 5);
+        IntVar z = model.intVar("z", -50, 50);
+        int nbVars = model.getNbVars();
+        // (x*y) appears twice, and is compiled once
+        z.eq(x.mul(y).add(x.mul(y)).sub(x.mul(3)).add(y)).compile().post();
+        Assert.assertEquals(model.getNbVars(), nbVars + 3); // constants 3 and 0, and one term
+        Assert.assertEquals(model.getSolver().streamSolutions().count(), 116);
+        Model model2  = new Model();
+        IntVar u = model2.intVar("u", 0, 5);
+        IntVar v = model2.intVar("v", 0, 5);
+        IntVar w = model2.intVar("w", 0, 30);
+        nbVars = model2.getNbVars();
+        w.eq(u.mul(v)).compile().post();
+        Assert.assertEquals(model2.getNbVars(), nbVars); // no additional variable
+        Assert.assertEquals(model2.getNbCstrs(), 1);
+        Assert.assertEquals(model2.getSolver().streamSolutions().count(), 36);
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testCompileLarge(){
+        Model model  = new Model();
+        int n = 2000;
+        IntVar[] xs = model.intVarArray("X", n, 0, 10);
+        IntVar[] ys = model.intVarArray("Y", n, -100, 100);
+        for (int i = 0; i < n; i++) {
+            ys[i].eq(xs[i].mul(xs[(i + 1) % n]).sub(xs[(i + 2) % n].mul(2)).add(xs[(i + 3) % n]).sub(10)).compile().post();
+        }
+        Assert.assertTrue(model.getNbVars() < 3 * n + 10);
+        model.getSolver().setSearch(Search.inputOrderLBSearch(xs));
+        Assert.assertTrue(model.getSolver().solve());
+        for (int i = 0; i < n; i++) {
+            int v = xs[i].getValue() * xs[(i + 1) % n].getValue() - 2 * xs[(i + 2) % n].getValue()
+                    + xs[(i + 3) % n].getValue() - 10;
+            Assert.assertEquals(ys[i].getValue(), v);
+        }
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testPassiveAfterLastPass() {
+        // x - y = 1 and y - x = 1 converge slowly, the last pass may instantiate all variables
+        for (int u = 1; u < 300; u++) {
+            Model model = new Model();
+            IntVar x = model.intVar("x", 0, u);
+            IntVar y = model.intVar("y", 0, u);
+            IntVar one = model.intVar(1);
+            ArExpression.Operator[] ops = {null, null, ArExpression.Operator.SUB, ArExpression.Operator.SUB};
+            PropExpression prop = new PropExpression(new IntVar[]{x, y}, new IntVar[]{one, one}, ops,
+                    new int[]{0, 1, 0, 1}, new int[]{-1, -1, 1, 0}, new int[]{2, 3});
+            new Constraint("exp", prop).post();
+            try {
+                model.getSolver().propagate();
+                Assert.assertFalse(x.isInstantiated() && y.isInstantiated(), "u=" + u);
+            } catch (ContradictionException ignored) {
+            }
+        }
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testCompileReified() {
+        List<Function<IntVar[], ReExpression>> exps = Arrays.asList(
+                v -> v[0].mul(v[1]).add(v[2].mul(v[1])).gt(v[0]),
+                v -> v[2].eq(v[0].mul(v[1]).add(v[0].mul(2))),
+                v -> v[2].eq(v[0].max(v[1])),
+                v -> v[0].eq(v[0].mul(v[1])),
+                v -> v[0].abs().ne(v[1].sub(v[2]))
+        );
+        for (int k = 0; k < exps.size(); k++) {
+            long[] counts = new long[2];
+            for (int mode = 0; mode < 2; mode++) {
+                Model model = new Model();
+                IntVar[] v = model.intVarArray("v", 3, -3, 3);
+                ReExpression ex = exps.get(k).apply(v);
+                (mode == 0 ? ex.decompose() : ex.compile()).reify();
+                counts[mode] = model.getSolver().streamSolutions().count();
+            }
+            Assert.assertEquals(counts[1], counts[0], "expression " + k);
+            // one solution per assignment of v, the boolean variable being fixed by it
+            Assert.assertEquals(counts[0], 7 * 7 * 7, "expression " + k);
+        }
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testCompileResultIsOperand() {
+        // x is both the result and an operand of the single term
+        for (int mode = 0; mode < 2; mode++) {
+            Model model = new Model();
+            IntVar x = model.intVar("x", -3, 3);
+            IntVar y = model.intVar("y", -3, 3);
+            ReExpression ex = x.eq(x.mul(y));
+            (mode == 0 ? ex.decompose() : ex.compile()).post();
+            // x = 0 or y = 1
+            Assert.assertEquals(model.getSolver().streamSolutions().count(), 7 + 6);
+        }
+    }
 }
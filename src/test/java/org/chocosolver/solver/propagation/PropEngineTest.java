@@ -35,6 +35,8 @@ import org.chocosolver.solver.constraints.Constraint;
 import org.chocosolver.solver.constraints.Propagator;
 import org.chocosolver.solver.exception.ContradictionException;
 import org.chocosolver.solver.exception.SolverException;
+import org.chocosolver.solver.search.loop.monitors.IMonitorSolution;
+import org.chocosolver.solver.propagation.hardcoded.FlatPropagatorEngine;
 import org.chocosolver.solver.propagation.hardcoded.SevenQueuesPropagatorEngine;
 import org.chocosolver.solver.propagation.hardcoded.TwoBucketPropagationEngine;
 import org.chocosolver.solver.variables.IntVar;
@@ -154,6 +156,58 @@ public class PropEngineTest {
         assertEquals(model.getSolver().getSolutionCount(), 92);
     }
 
+    @Test(groups="1s", timeOut=60000)
+    public void test4b() {
+        Model model = makeNQueenWithBinaryConstraints(8);
+        model.getSolver().setEngine(new FlatPropagatorEngine(model));
+        while (model.getSolver().solve()) ;
+        assertEquals(model.getSolver().getSolutionCount(), 92);
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void test4c() {
+        // same queue policy as the seven-queue engine, so same search tree, even with dynamic additions
+        long[] nodes = new long[2];
+        for (int k = 0; k < 2; k++) {
+            Model model = ProblemMaker.makeCostasArrays(7);
+            IntVar[] vectors = (IntVar[]) model.getHook("vectors");
+            model.getSolver().setEngine(k == 0 ? new SevenQueuesPropagatorEngine(model) : new FlatPropagatorEngine(model));
+            model.getSolver().setSearch(minDomLBSearch(vectors));
+            model.getSolver().plugMonitor((IMonitorSolution) () -> model.allDifferent(vectors, "BC").post());
+            while (model.getSolver().solve()) ;
+            nodes[k] = model.getSolver().getNodeCount();
+        }
+        assertEquals(nodes[1], nodes[0]);
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testPropagationCount() {
+        long[] counts = new long[3];
+        for (int k = 0; k < 3; k++) {
+            Model model = makeNQueenWithBinaryConstraints(8);
+            IPropagationEngine engine = k == 0 ? new SevenQueuesPropagatorEngine(model) :
+                    k == 1 ? new TwoBucketPropagationEngine(model) : new FlatPropagatorEngine(model);
+            model.getSolver().setEngine(engine);
+            while (model.getSolver().solve()) ;
+            counts[k] = engine.getPropagationCount();
+            assertTrue(counts[k] > 0);
+        }
+        assertEquals(counts[2], counts[0]);
+    }
+
+    @Test(groups="10s", timeOut=60000)
+    public void test5b(){
+        Model model = ProblemMaker.makeGolombRuler(10);
+        model.getSolver().setEngine(new FlatPropagatorEngine(model));
+        model.getSolver().setSearch(minDomLBSearch((IntVar[])model.getHook("ticks")));
+        int obj = Integer.MAX_VALUE;
+        while(model.getSolver().solve()){
+            obj = ((IntVar)(model.getObjective())).getValue();
+        }
+        Assert.assertEquals(model.getSolver().getSolutionCount(), 1);
+        Assert.assertEquals(obj, 55);
+    }
+
     @Test(groups="10s", timeOut=60000)
     public void test5(){
         Model model = ProblemMaker.makeGolombRuler(10);
@@ -218,4 +272,65 @@ public class PropEngineTest {
             assertEquals(model.getSolver().getSolutionCount(), 9);
         }
     }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testFlatPools() throws ContradictionException {
+        int n = 2000;
+        Model model = new Model();
+        IntVar[] X = model.intVarArray("X", n + 1, 0, 1, false);
+        IntVar[] Y = model.intVarArray("Y", n + 1, 0, 1, false);
+        PropGrowing prop = new PropGrowing(X[0]);
+        new Constraint("grow", prop).post();
+        FlatPropagatorEngine engine = new FlatPropagatorEngine(model);
+        model.getSolver().setEngine(engine);
+        engine.initialize();
+        // the propagator gains variables one by one
+        for (int i = 1; i <= n; i++) {
+            prop.grow(X[i]);
+        }
+        assertTrue(engine.getPoolSize() <= 4 * (n + 1), "pool size: " + engine.getPoolSize());
+        // propagators declared and removed one by one
+        for (int i = 0; i < 4 * n; i++) {
+            Constraint c = new Constraint("tmp", new PropGrowing(Y[i % n], Y[i % n + 1]));
+            model.post(c);
+            model.unpost(c);
+        }
+        assertTrue(engine.getPoolSize() <= 4 * (n + 1), "pool size: " + engine.getPoolSize());
+        // events are still dispatched to the grown propagator
+        model.getSolver().propagate();
+        model.getEnvironment().worldPush();
+        X[n].instantiateTo(1, Null);
+        model.getSolver().propagate();
+        assertEquals(prop.lastFine, n);
+    }
+
+    /**
+     * A propagator which can be extended with new variables and records the last variable it has been notified of
+     */
+    private static class PropGrowing extends Propagator<IntVar> {
+
+        int lastFine = -1;
+
+        PropGrowing(IntVar... vars) {
+            super(vars, UNARY, true);
+        }
+
+        void grow(IntVar var) {
+            addVariable(var);
+        }
+
+        @Override
+        public void propagate(int evtmask) throws ContradictionException {
+        }
+
+        @Override
+        public void propagate(int idxVarInProp, int mask) throws ContradictionException {
+            lastFine = idxVarInProp;
+        }
+
+        @Override
+        public ESat isEntailed() {
+            return ESat.UNDEFINED;
+        }
+    }
 }
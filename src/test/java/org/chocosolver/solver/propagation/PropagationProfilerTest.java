@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.propagation;
+
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.propagation.hardcoded.FlatPropagatorEngine;
+import org.chocosolver.solver.propagation.hardcoded.SevenQueuesPropagatorEngine;
+import org.chocosolver.solver.propagation.hardcoded.TwoBucketPropagationEngine;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.chocosolver.util.ProblemMaker.makeNQueenWithBinaryConstraints;
+import static org.testng.Assert.*;
+
+/**
+ * <br/>
+ *
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class PropagationProfilerTest {
+
+    @Test(groups="1s", timeOut=60000)
+    public void testEngines() {
+        for (int k = 0; k < 3; k++) {
+            Model model = makeNQueenWithBinaryConstraints(8);
+            IPropagationEngine engine = k == 0 ? new SevenQueuesPropagatorEngine(model) :
+                    k == 1 ? new TwoBucketPropagationEngine(model) : new FlatPropagatorEngine(model);
+            model.getSolver().setEngine(engine);
+            PropagationProfiler profiler = model.getSolver().profilePropagation(1);
+            while (model.getSolver().solve()) ;
+            assertSame(model.getSolver().getPropagationProfiler(), profiler);
+            List<Propagator> props = profiler.getPropagators();
+            assertFalse(props.isEmpty());
+            long calls = 0, fails = 0;
+            for (Propagator p : props) {
+                calls += profiler.getCalls(p);
+                fails += profiler.getFails(p);
+                assertTrue(profiler.getNoOpCalls(p) <= profiler.getCalls(p));
+                assertTrue(profiler.getEstimatedFilteredValues(p) >= 0);
+            }
+            assertEquals(calls, engine.getPropagationCount());
+            assertTrue(fails > 0);
+            assertTrue(fails <= model.getSolver().getFailCount());
+            for (int i = 1; i < props.size(); i++) {
+                assertTrue(profiler.getEstimatedTime(props.get(i - 1)) >= profiler.getEstimatedTime(props.get(i)));
+            }
+            assertFalse(profiler.report(5).isEmpty());
+        }
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testSetBeforeEngine() {
+        Model model = makeNQueenWithBinaryConstraints(6);
+        PropagationProfiler profiler = model.getSolver().profilePropagation(4);
+        while (model.getSolver().solve()) ;
+        assertFalse(profiler.getPropagators().isEmpty());
+        profiler.reset();
+        assertTrue(profiler.getPropagators().isEmpty());
+    }
+
+    @Test(groups="1s", timeOut=60000, expectedExceptions = IllegalArgumentException.class)
+    public void testWrongRate() {
+        new PropagationProfiler(0);
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.search;
+
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.search.limits.FailCounter;
+import org.chocosolver.solver.search.strategy.Search;
+import org.chocosolver.solver.search.strategy.decision.Decision;
+import org.chocosolver.solver.search.strategy.selectors.values.IntDomainMin;
+import org.chocosolver.solver.search.strategy.selectors.variables.DomOverWDegCA;
+import org.chocosolver.solver.search.strategy.selectors.variables.DomOverWDegInc;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.util.ProblemMaker;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class DomOverWDegTest {
+
+    @Test(groups="1s", timeOut=60000)
+    public void testInc1() {
+        Model model = ProblemMaker.makeNQueenWithBinaryConstraints(8);
+        IntVar[] vars = (IntVar[]) model.getHook("vars");
+        model.getSolver().setSearch(Search.domOverWDegIncSearch(vars));
+        while (model.getSolver().solve()) ;
+        Assert.assertEquals(model.getSolver().getSolutionCount(), 92);
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testCA1() {
+        Model model = ProblemMaker.makeNQueenWithBinaryConstraints(8);
+        IntVar[] vars = (IntVar[]) model.getHook("vars");
+        model.getSolver().setSearch(Search.domOverWDegCASearch(vars));
+        while (model.getSolver().solve()) ;
+        Assert.assertEquals(model.getSolver().getSolutionCount(), 92);
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testInc2() {
+        for (int k = 0; k < 2; k++) {
+            Model model = ProblemMaker.makeGolombRuler(6);
+            IntVar[] ticks = (IntVar[]) model.getHook("ticks");
+            IntVar[] diffs = (IntVar[]) model.getHook("diffs");
+            IntVar[] vars = new IntVar[ticks.length + diffs.length];
+            System.arraycopy(ticks, 0, vars, 0, ticks.length);
+            System.arraycopy(diffs, 0, vars, ticks.length, diffs.length);
+            Solver solver = model.getSolver();
+            solver.setSearch(k == 0 ? Search.domOverWDegIncSearch(vars) : Search.domOverWDegCASearch(vars));
+            while (solver.solve()) ;
+            Assert.assertEquals(solver.getBestSolutionValue(), 17);
+        }
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testSelection() {
+        for (int k = 0; k < 2; k++) {
+            Model model = ProblemMaker.makeNQueenWithBinaryConstraints(12);
+            IntVar[] vars = (IntVar[]) model.getHook("vars");
+            Solver solver = model.getSolver();
+            solver.setSearch(k == 0 ? new CheckedInc(vars) : new CheckedCA(vars));
+            solver.setGeometricalRestart(4, 1.2, new FailCounter(model, 0), 100);
+            solver.limitSolution(20);
+            while (solver.solve()) ;
+            Assert.assertEquals(solver.getSolutionCount(), 20);
+        }
+    }
+
+    /**
+     * Checks that the selected variable has the best score
+     */
+    private static void check(IntVar[] vars, double[] weights, double minWeight, Decision<IntVar> d) {
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < vars.length; i++) {
+            if (!vars[i].isInstantiated()) {
+                best = Math.min(best, vars[i].getDomainSize() / Math.max(weights[i], minWeight));
+            }
+        }
+        if (d == null) {
+            Assert.assertEquals(best, Double.MAX_VALUE);
+        } else {
+            int i = 0;
+            while (vars[i] != d.getDecisionVariable()) i++;
+            Assert.assertEquals(vars[i].getDomainSize() / Math.max(weights[i], minWeight), best);
+        }
+    }
+
+    private static class CheckedInc extends DomOverWDegInc {
+        CheckedInc(IntVar[] vars) {
+            super(vars, new IntDomainMin());
+        }
+
+        @Override
+        public Decision<IntVar> getDecision() {
+            Decision<IntVar> d = super.getDecision();
+            check(vars, weights, 1d, d);
+            return d;
+        }
+    }
+
+    private static class CheckedCA extends DomOverWDegCA {
+        CheckedCA(IntVar[] vars) {
+            super(vars, new IntDomainMin());
+        }
+
+        @Override
+        public Decision<IntVar> getDecision() {
+            Decision<IntVar> d = super.getDecision();
+            check(vars, weights, 1e-4, d);
+            return d;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.search.solution;
+
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.Solution;
+import org.chocosolver.solver.search.strategy.Search;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.util.ProblemMaker;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class ColumnarSolutionTest {
+
+    @Test(groups="1s", timeOut=60000)
+    public void testColumns() {
+        Model m1 = ProblemMaker.makeNQueenWithOneAlldifferent(8);
+        IntVar[] v1 = (IntVar[]) m1.getHook("vars");
+        m1.getSolver().setSearch(Search.inputOrderLBSearch(v1));
+        List<Solution> expected = m1.getSolver().findAllSolutions();
+
+        Model m2 = ProblemMaker.makeNQueenWithOneAlldifferent(8);
+        IntVar[] v2 = (IntVar[]) m2.getHook("vars");
+        m2.getSolver().setSearch(Search.inputOrderLBSearch(v2));
+        SolutionColumns columns = m2.getSolver().findAllSolutionColumns(v2);
+        Assert.assertEquals(columns.size(), 92);
+        SolutionCursor cursor = columns.cursor();
+        for (Solution s : expected) {
+            Assert.assertTrue(cursor.next());
+            for (int i = 0; i < v1.length; i++) {
+                Assert.assertEquals(cursor.getValue(i), s.getIntVal(v1[i]));
+            }
+        }
+        Assert.assertFalse(cursor.next());
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testChunks() {
+        Model model = ProblemMaker.makeNQueenWithOneAlldifferent(8);
+        IntVar[] vars = (IntVar[]) model.getHook("vars");
+        int[] sizes = new int[2];
+        model.getSolver().streamSolutionChunks(vars, 10, c -> {
+            sizes[0]++;
+            sizes[1] += c.size();
+            Assert.assertTrue(c.size() == 10 || sizes[1] == 92);
+        });
+        Assert.assertEquals(sizes[0], 10);
+        Assert.assertEquals(sizes[1], 92);
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testMappedFile() throws IOException {
+        Path path = Files.createTempFile("solutions", ".bin");
+        try {
+            Model model = ProblemMaker.makeNQueenWithOneAlldifferent(8);
+            IntVar[] vars = (IntVar[]) model.getHook("vars");
+            SolutionColumns columns = new SolutionColumns(vars.length);
+            try (MappedSolutionFile file = new MappedSolutionFile(path, vars.length)) {
+                model.getSolver().streamSolutionChunks(vars, 7, c -> {
+                    columns.accept(c);
+                    file.accept(c);
+                });
+            }
+            int row = 0;
+            try (MappedSolutionFile.Reader reader = MappedSolutionFile.open(path)) {
+                Assert.assertEquals(reader.nbVars(), vars.length);
+                while (reader.next()) {
+                    for (int i = 0; i < vars.length; i++) {
+                        Assert.assertEquals(reader.getValue(i), columns.getValue(row, i));
+                    }
+                    row++;
+                }
+            }
+            Assert.assertEquals(row, 92);
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+}
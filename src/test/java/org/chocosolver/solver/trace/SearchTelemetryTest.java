@@ -0,0 +1,191 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.solver.trace;
+
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.search.limits.FailCounter;
+import org.chocosolver.solver.search.loop.lns.INeighborFactory;
+import org.chocosolver.solver.search.strategy.Search;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.util.ProblemMaker;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class SearchTelemetryTest {
+
+    @Test(groups="1s", timeOut=60000)
+    public void testCSV() throws IOException {
+        Path path = Files.createTempFile("telemetry", ".csv");
+        try {
+            Model model = ProblemMaker.makeGolombRuler(6);
+            Solver solver = model.getSolver();
+            SearchTelemetry telemetry = solver.recordTelemetry(TelemetrySink.csv(path), 5);
+            while (solver.solve()) ;
+            telemetry.close();
+            List<String> lines = Files.readAllLines(path);
+            Assert.assertEquals(lines.get(0), "time,event,a,b");
+            long sols = lines.stream().filter(l -> l.contains(",solution,")).count();
+            Assert.assertEquals(sols, solver.getSolutionCount());
+            Assert.assertTrue(lines.stream().anyMatch(l -> l.contains(",bounds,")));
+            Assert.assertEquals(telemetry.getNbSolutions(), solver.getSolutionCount());
+            Assert.assertEquals(telemetry.getSolutionValue(telemetry.getNbSolutions() - 1), 17d);
+            Assert.assertEquals(telemetry.getDropped(), 0);
+            long prev = -1;
+            for (String l : lines.subList(1, lines.size())) {
+                long t = Long.parseLong(l.substring(0, l.indexOf(',')));
+                Assert.assertTrue(t >= prev);
+                prev = t;
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testMetrics() {
+        Model model = ProblemMaker.makeGolombRuler(6);
+        Solver solver = model.getSolver();
+        SearchTelemetry telemetry = new SearchTelemetry(solver);
+        solver.plugMonitor(telemetry);
+        while (solver.solve()) ;
+        int n = telemetry.getNbSolutions();
+        Assert.assertTrue(n > 0);
+        double end = telemetry.getSolutionTime(n - 1);
+        Assert.assertEquals(telemetry.getTimeToTarget(17), end);
+        Assert.assertEquals(telemetry.getTimeToTarget(1000), telemetry.getSolutionTime(0));
+        Assert.assertTrue(telemetry.getTimeToTarget(16) < 0);
+        // no solution before the first one: the gap is 1
+        Assert.assertEquals(telemetry.getPrimalIntegral(17, telemetry.getSolutionTime(0)), telemetry.getSolutionTime(0), 1e-12);
+        // the gap is 0 after the optimal one
+        double pi = telemetry.getPrimalIntegral(17, end);
+        Assert.assertEquals(telemetry.getPrimalIntegral(17, end + 10), pi, 1e-12);
+        Assert.assertTrue(pi >= telemetry.getSolutionTime(0) && pi <= end);
+        Assert.assertEquals(telemetry.getPrimalIntegral(), pi, 1e-12);
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testLNS() throws IOException {
+        Path path = Files.createTempFile("telemetry", ".bin");
+        try {
+            Model model = ProblemMaker.makeGolombRuler(7);
+            IntVar[] ticks = (IntVar[]) model.getHook("ticks");
+            Solver solver = model.getSolver();
+            solver.setSearch(Search.randomSearch(ticks, 0));
+            solver.setLNS(INeighborFactory.random(ticks), new FailCounter(model, 20));
+            solver.limitNode(5000);
+            SearchTelemetry telemetry = solver.recordTelemetry(TelemetrySink.binary(path), 1000);
+            while (solver.solve()) ;
+            telemetry.close();
+            int[] counts = new int[6];
+            try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+                //noinspection InfiniteLoopStatement
+                while (true) {
+                    in.readLong();
+                    counts[in.readInt()]++;
+                    in.readDouble();
+                    in.readDouble();
+                }
+            } catch (EOFException ignored) {
+            }
+            Assert.assertEquals(counts[SearchTelemetry.SOLUTION], solver.getSolutionCount());
+            // each solution ends a fragment, except maybe the last one when the limit is reached
+            Assert.assertTrue(counts[SearchTelemetry.LNS_IMPROVED] >= solver.getSolutionCount() - 1);
+            Assert.assertTrue(counts[SearchTelemetry.LNS_IMPROVED] <= solver.getSolutionCount());
+            Assert.assertTrue(counts[SearchTelemetry.LNS_INTERRUPTED] > 0);
+            Assert.assertEquals(counts[SearchTelemetry.RESTART], 0);
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test(groups="1s", timeOut=60000, expectedExceptions = IllegalArgumentException.class)
+    public void testPeriod() {
+        Model model = ProblemMaker.makeGolombRuler(6);
+        model.getSolver().recordTelemetry(new TelemetrySink() {
+            @Override
+            public void accept(long time, int event, double a, double b) {
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        }, 0);
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testSinkFailure() throws IOException {
+        Model model = ProblemMaker.makeGolombRuler(6);
+        Solver solver = model.getSolver();
+        IOException failure = new IOException("full");
+        SearchTelemetry telemetry = solver.recordTelemetry(new TelemetrySink() {
+            @Override
+            public void accept(long time, int event, double a, double b) throws IOException {
+                throw failure;
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        }, 1);
+        try {
+            solver.solve();
+            Assert.fail();
+        } catch (UncheckedIOException ignored) {
+        }
+        // the failure is not lost, even if the draining thread got it first
+        try {
+            telemetry.close();
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertSame(e, failure);
+        }
+    }
+}
@@ -29,14 +29,20 @@
  */
 package org.chocosolver.util;
 
+import org.chocosolver.solver.Cause;
 import org.chocosolver.solver.Model;
 import org.chocosolver.solver.constraints.extension.Tuples;
+import org.chocosolver.solver.constraints.extension.TuplesFactory;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.propagation.hardcoded.TwoBucketPropagationEngine;
 import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.util.objects.graphs.MultivaluedDecisionDiagram;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
 
 /**
  * Created by cprudhom on 04/11/14.
@@ -172,4 +178,104 @@ public class MDDTest {
         }
     }
 
+    @Test(groups="1s", timeOut=60000)
+    public void testReduction() {
+        Model model = new Model();
+        IntVar[] vars = model.intVarArray("X", 8, 0, 3, false);
+        Tuples tuples = TuplesFactory.generateTuples(values -> true, true, vars);
+        MultivaluedDecisionDiagram mdd = new MultivaluedDecisionDiagram(vars, tuples);
+        // one node per layer
+        Assert.assertEquals(mdd.getDiagram().length, 8 * 4);
+        for (int t = 0; t < tuples.nbTuples(); t += 97) {
+            Assert.assertTrue(mdd.exists(tuples.get(t)));
+        }
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testStore() {
+        Model model = new Model();
+        IntVar[] vars = model.intVarArray("X", 3, 0, 2, false);
+        IntVar[] wars = model.intVarArray("W", 3, 0, 2, false);
+        IntVar[] yars = model.intVarArray("Y", 3, 0, 3, false);
+        Tuples tuples = TuplesFactory.allDifferent(vars);
+        MultivaluedDecisionDiagram mdd = MultivaluedDecisionDiagram.get(model, vars, tuples);
+        Assert.assertSame(MultivaluedDecisionDiagram.get(model, wars, tuples), mdd);
+        // same relation, other tuples
+        Assert.assertSame(MultivaluedDecisionDiagram.get(model, wars, TuplesFactory.allDifferent(wars)), mdd);
+        // other domains
+        Assert.assertNotSame(MultivaluedDecisionDiagram.get(model, yars, tuples), mdd);
+        Assert.assertNotSame(MultivaluedDecisionDiagram.get(new Model(), vars, tuples), mdd);
+        model.table(vars, tuples, "MDD4R+").post();
+        model.table(wars, tuples, "MDD4R+").post();
+        model.table(yars, tuples, "MDD+").post();
+        // one arc layout per MDD
+        Map<?, ?> layouts = (Map<?, ?>) model.getHook("org.chocosolver.solver.constraints.extension.nary.MDD4RLayout");
+        Assert.assertEquals(layouts.size(), 1);
+        while (model.getSolver().solve()) ;
+        Assert.assertEquals(model.getSolver().getSolutionCount(), 6 * 6 * 6);
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testMDD4RIncremental() throws ContradictionException {
+        int n = 4;
+        for (int e = 0; e < 2; e++) {
+            for (int seed = 0; seed < 100; seed++) {
+                Random rnd = new Random(seed);
+                Model model = new Model();
+                IntVar[] vars = model.intVarArray("X", n, 0, 3, false);
+                Tuples tuples = new Tuples(true);
+                for (int t = 0; t < 40; t++) {
+                    int[] tuple = new int[n];
+                    for (int i = 0; i < n; i++) {
+                        tuple[i] = rnd.nextInt(4);
+                    }
+                    tuples.add(tuple);
+                }
+                model.table(vars, tuples, "MDD4R+").post();
+                if (e == 1) {
+                    model.getSolver().setEngine(new TwoBucketPropagationEngine(model));
+                }
+                model.getSolver().propagate();
+                assertProjection(vars, tuples);
+                // remove values one by one, the domains must be the projections of the valid tuples after each event
+                for (int k = 0; k < 10; k++) {
+                    IntVar x = vars[rnd.nextInt(n)];
+                    if (x.isInstantiated()) {
+                        continue;
+                    }
+                    model.getEnvironment().worldPush();
+                    try {
+                        x.removeValue(x.getLB() + rnd.nextInt(x.getUB() - x.getLB() + 1), Cause.Null);
+                        model.getSolver().propagate();
+                        assertProjection(vars, tuples);
+                    } catch (ContradictionException ex) {
+                        model.getSolver().getEngine().flush();
+                        model.getEnvironment().worldPop();
+                        assertProjection(vars, tuples);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void assertProjection(IntVar[] vars, Tuples tuples) {
+        boolean[][] supported = new boolean[vars.length][4];
+        for (int t = 0; t < tuples.nbTuples(); t++) {
+            int[] tuple = tuples.get(t);
+            boolean valid = true;
+            for (int i = 0; i < vars.length; i++) {
+                valid &= vars[i].contains(tuple[i]);
+            }
+            if (valid) {
+                for (int i = 0; i < vars.length; i++) {
+                    supported[i][tuple[i]] = true;
+                }
+            }
+        }
+        for (int i = 0; i < vars.length; i++) {
+            for (int v = 0; v < 4; v++) {
+                Assert.assertEquals(vars[i].contains(v), supported[i][v], Arrays.toString(vars));
+            }
+        }
+    }
 }
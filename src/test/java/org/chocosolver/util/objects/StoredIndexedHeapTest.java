@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.util.objects;
+
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.solver.Cause;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.search.limits.FailCounter;
+import org.chocosolver.solver.search.strategy.Search;
+import org.chocosolver.solver.search.strategy.selectors.values.IntDomainMin;
+import org.chocosolver.solver.search.strategy.selectors.variables.*;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.Variable;
+import org.chocosolver.util.ProblemMaker;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class StoredIndexedHeapTest {
+
+    @Test(groups="1s", timeOut=60000)
+    public void testTop() throws ContradictionException {
+        Model model = new Model();
+        IEnvironment env = model.getEnvironment();
+        IntVar[] vars = model.intVarArray("X", 4, 0, 9, false);
+        StoredIndexedHeap<IntVar> heap = new StoredIndexedHeap<>(env, vars, IntVar::getLB);
+        Assert.assertEquals(heap.top(), vars[0]);
+        env.worldPush();
+        vars[0].updateLowerBound(5, Cause.Null);
+        vars[1].updateLowerBound(3, Cause.Null);
+        Assert.assertEquals(heap.top(), vars[2]);
+        env.worldPush();
+        vars[2].instantiateTo(0, Cause.Null);
+        vars[3].updateLowerBound(4, Cause.Null);
+        Assert.assertEquals(heap.top(), vars[1]);
+        env.worldPop();
+        // vars[2] and vars[3] restored
+        Assert.assertEquals(heap.top(), vars[2]);
+        env.worldPop();
+        Assert.assertEquals(heap.top(), vars[0]);
+        vars[0].instantiateTo(0, Cause.Null);
+        vars[1].instantiateTo(0, Cause.Null);
+        vars[2].instantiateTo(0, Cause.Null);
+        vars[3].instantiateTo(0, Cause.Null);
+        Assert.assertNull(heap.top());
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testFirstFail() {
+        long[] nodes = new long[2];
+        for (int k = 0; k < 2; k++) {
+            Model model = ProblemMaker.makeNQueenWithBinaryConstraints(10);
+            IntVar[] vars = (IntVar[]) model.getHook("vars");
+            VariableSelector<IntVar> sel = k == 0 ? new FirstFail(model) : new HeapVariableSelector<>(model, vars, new FirstFail(model));
+            nodes[k] = solveAndCompare(model, vars, sel);
+        }
+        Assert.assertEquals(nodes[0], nodes[1]);
+    }
+
+    @Test(groups="1s", timeOut=60000)
+    public void testSelectors() {
+        solveAndCompare(new Smallest(), new Smallest());
+        solveAndCompare(new Largest(), new Largest());
+        solveAndCompare(new MaxRegret(), new MaxRegret());
+        solveAndCompare(new VariableSelectorWithTies<>(new Largest(), new Smallest()), new Largest(), new Smallest());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test(groups="1s", timeOut=60000)
+    public void testGeneralized() {
+        long[] nodes = new long[2];
+        for (int k = 0; k < 2; k++) {
+            Model model = ProblemMaker.makeNQueenWithBinaryConstraints(10);
+            IntVar[] vars = (IntVar[]) model.getHook("vars");
+            VariableSelector sel = k == 0 ? new GeneralizedMinDomVarSelector() :
+                    new HeapVariableSelector<Variable>(model, vars, new GeneralizedMinDomVarSelector());
+            nodes[k] = solveAndCompare(model, vars, (VariableSelector<IntVar>) sel);
+        }
+        Assert.assertEquals(nodes[0], nodes[1]);
+    }
+
+    @SafeVarargs
+    private static void solveAndCompare(VariableSelector<IntVar> scan, VariableEvaluator<IntVar>... evaluators) {
+        long[] nodes = new long[2];
+        for (int k = 0; k < 2; k++) {
+            Model model = new Model();
+            IntVar[] vars = model.intVarArray("X", 8, 0, 12, false);
+            for (int i = 0; i < vars.length - 1; i++) {
+                model.arithm(vars[i], "!=", vars[i + 1], "+", i % 3 + 1).post();
+                model.arithm(vars[i], "+", vars[(i + 3) % vars.length], ">", 7 + i % 4).post();
+            }
+            model.allDifferent(vars, "BC").post();
+            VariableSelector<IntVar> sel = k == 0 ? scan : new HeapVariableSelector<>(model, vars, evaluators);
+            nodes[k] = solveAndCompare(model, vars, sel);
+        }
+        Assert.assertEquals(nodes[0], nodes[1]);
+    }
+
+    private static long solveAndCompare(Model model, IntVar[] vars, VariableSelector<IntVar> sel) {
+        Solver solver = model.getSolver();
+        solver.setSearch(Search.intVarSearch(sel, new IntDomainMin(), vars));
+        solver.setGeometricalRestart(4, 1.5, new FailCounter(model, 0), 50);
+        solver.limitSolution(30);
+        while (solver.solve()) ;
+        Assert.assertEquals(solver.getSolutionCount(), 30);
+        return solver.getNodeCount();
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2016, Ecole des Mines de Nantes
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. All advertising materials mentioning features or use of this software
+ *    must display the following acknowledgement:
+ *    This product includes software developed by the <organization>.
+ * 4. Neither the name of the <organization> nor the
+ *    names of its contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY <COPYRIGHT HOLDER> ''AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.chocosolver.util.objects.queues;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+/**
+ * @author Charles Prud'homme
+ * @since 18/10/2016
+ */
+public class BroadcastRingTest {
+
+    @Test(groups = "1s", timeOut=60000)
+    public void testNominal() {
+        BroadcastRing<Integer> ring = new BroadcastRing<>(4);
+        List<Integer> read = new ArrayList<>();
+        long cursor = ring.drain(0, read::add);
+        assertEquals(cursor, 0);
+        assertTrue(read.isEmpty());
+        ring.offer(1);
+        ring.offer(2);
+        cursor = ring.drain(cursor, read::add);
+        assertEquals(cursor, 2);
+        assertEquals(read.toString(), "[1, 2]");
+        read.clear();
+        ring.offer(3);
+        cursor = ring.drain(cursor, read::add);
+        assertEquals(cursor, 3);
+        assertEquals(read.toString(), "[3]");
+    }
+
+    @Test(groups = "1s", timeOut=60000)
+    public void testTwoConsumers() {
+        BroadcastRing<Integer> ring = new BroadcastRing<>(4);
+        List<Integer> read1 = new ArrayList<>();
+        List<Integer> read2 = new ArrayList<>();
+        ring.offer(1);
+        long c1 = ring.drain(0, read1::add);
+        ring.offer(2);
+        long c2 = ring.drain(0, read2::add);
+        c1 = ring.drain(c1, read1::add);
+        assertEquals(c1, c2);
+        assertEquals(read1, read2);
+    }
+
+    @Test(groups = "1s", timeOut=60000)
+    public void testOverwrite() {
+        BroadcastRing<Integer> ring = new BroadcastRing<>(4);
+        int cap = ring.capacity();
+        for (int i = 0; i < 3 * cap; i++) {
+            ring.offer(i);
+        }
+        List<Integer> read = new ArrayList<>();
+        long cursor = ring.drain(0, read::add);
+        assertEquals(cursor, 3 * cap);
+        assertEquals(ring.published(), 3 * cap);
+        // the oldest elements are lost, and the oldest slot is skipped since it may be being overwritten
+        assertFalse(read.isEmpty());
+        assertTrue(read.size() < cap);
+        for (int i = 1; i < read.size(); i++) {
+            assertEquals(read.get(i).intValue(), read.get(i - 1) + 1);
+        }
+        assertEquals(read.get(read.size() - 1).intValue(), 3 * cap - 1);
+    }
+
+    @Test(groups = "1s", timeOut=60000)
+    public void testConcurrent() throws InterruptedException {
+        BroadcastRing<int[]> ring = new BroadcastRing<>(64);
+        int n = 100000;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < n; i++) {
+                ring.offer(new int[]{i, -i});
+            }
+        });
+        producer.start();
+        long cursor = 0;
+        int[] last = {-1};
+        while (producer.isAlive() || cursor < ring.published()) {
+            cursor = ring.drain(cursor, e -> {
+                assertEquals(e[1], -e[0]);
+                assertTrue(e[0] > last[0]);
+                last[0] = e[0];
+            });
+        }
+        producer.join();
+    }
+}